@@ -0,0 +1,69 @@
+package com.pesapal.felixvcs.benchmarks;
+
+import com.pesapal.felixvcs.commands.AddCommand;
+import com.pesapal.felixvcs.core.HashAlgorithm;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures staging a single file in a scratch repository, across file sizes and object formats.
+ * <p>
+ * The largest size is above the chunking threshold, so it goes through the chunked path. Adding an
+ * unchanged file exercises the fast-hash cache; adding a changed file rewrites its first byte before
+ * each call, which cycles through at most 256 versions so the object store stops growing once they
+ * have all been stored.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AddCommandBenchmark {
+    private static final String FILE = "data.bin";
+
+    @Param({"sha1", "sha256"})
+    private String format;
+
+    @Param({"1024", "65536", "4194304"})
+    private int size;
+
+    private ScratchRepository repository;
+    private AddCommand add;
+    private Path file;
+    private byte[] content;
+    private int version;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        repository = new ScratchRepository(HashAlgorithm.forName(format));
+        add = new AddCommand(repository.workDir());
+        file = repository.workDir().resolve(FILE);
+        content = new byte[size];
+        new Random(42).nextBytes(content);
+        Files.write(file, content);
+        add.execute(FILE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        repository.close();
+    }
+
+    @Benchmark
+    public void addUnchanged() throws IOException {
+        add.execute(FILE);
+    }
+
+    @Benchmark
+    public void addChanged() throws IOException {
+        content[0] = (byte) version++;
+        Files.write(file, content);
+        add.execute(FILE);
+    }
+}
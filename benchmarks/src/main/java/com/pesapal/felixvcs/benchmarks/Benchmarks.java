@@ -0,0 +1,27 @@
+package com.pesapal.felixvcs.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the benchmarks from the command line and writes the results as JSON.
+ * <p>
+ * Takes the usual JMH options. Unless a result format is given, results are also written to
+ * {@value #DEFAULT_RESULT} in the current directory, so a run can be kept as a baseline and compared
+ * with a later one.
+ */
+public final class Benchmarks {
+    static final String DEFAULT_RESULT = "jmh-result.json";
+
+    private Benchmarks() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>(Arrays.asList(args));
+        if (!options.contains("-rf")) {
+            options.addAll(0, List.of("-rf", "json", "-rff", DEFAULT_RESULT));
+        }
+        org.openjdk.jmh.Main.main(options.toArray(new String[0]));
+    }
+}
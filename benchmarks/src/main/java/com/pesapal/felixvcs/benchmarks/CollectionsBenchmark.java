@@ -0,0 +1,177 @@
+package com.pesapal.felixvcs.benchmarks;
+
+import com.pesapal.felixvcs.core.HashAlgorithm;
+import com.pesapal.felixvcs.core.ObjectId;
+import com.pesapal.felixvcs.core.ObjectIdMap;
+import com.pesapal.felixvcs.core.ObjectIdSet;
+import com.pesapal.felixvcs.utils.IntDeque;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the object id collections with the JDK collections they replace.
+ * <p>
+ * The walk benchmarks follow a synthetic history the way the merge base search does: the history
+ * is {@code commits} long, every tenth commit also points at a side parent, and the parent lookup
+ * is a prepared map shared by all variants, so the difference is the cost of the visited set and
+ * the queue. Run with {@code -prof gc} to compare allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollectionsBenchmark {
+    @Param({"1000", "100000"})
+    private int commits;
+
+    private ObjectId[] ids;                       // Commit ids, newest first
+    private Map<ObjectId, ObjectId[]> parents;    // Parents of every commit
+
+    @Setup
+    public void setUp() {
+        ids = new ObjectId[commits];
+        for (int i = 0; i < commits; i++) {
+            ids[i] = HashAlgorithm.SHA1.hash(ByteBuffer.allocate(Integer.BYTES).putInt(i).array());
+        }
+        parents = new HashMap<>();
+        for (int i = 0; i < commits; i++) {
+            List<ObjectId> commitParents = new ArrayList<>();
+            if (i + 1 < commits) {
+                commitParents.add(ids[i + 1]);
+            }
+            if (i % 10 == 0 && i + 5 < commits) {
+                commitParents.add(ids[i + 5]);
+            }
+            parents.put(ids[i], commitParents.toArray(new ObjectId[0]));
+        }
+    }
+
+    @Benchmark
+    public Set<ObjectId> walkLinkedHashSetLinkedList() {
+        Set<ObjectId> seen = new LinkedHashSet<>();
+        Queue<ObjectId> queue = new LinkedList<>();
+        queue.add(ids[0]);
+        while (!queue.isEmpty()) {
+            ObjectId current = queue.poll();
+            if (!seen.add(current)) {
+                continue;
+            }
+            Collections.addAll(queue, parents.get(current));
+        }
+        return seen;
+    }
+
+    @Benchmark
+    public Set<ObjectId> walkLinkedHashSetArrayDeque() {
+        Set<ObjectId> seen = new LinkedHashSet<>();
+        Queue<ObjectId> queue = new ArrayDeque<>();
+        seen.add(ids[0]);
+        queue.add(ids[0]);
+        while (!queue.isEmpty()) {
+            for (ObjectId parent : parents.get(queue.poll())) {
+                if (seen.add(parent)) {
+                    queue.add(parent);
+                }
+            }
+        }
+        return seen;
+    }
+
+    @Benchmark
+    public Set<ObjectId> walkObjectIdSetIntDeque() {
+        ObjectIdSet seen = new ObjectIdSet();
+        IntDeque queue = new IntDeque();
+        queue.addLast(seen.addIndex(ids[0]));
+        while (!queue.isEmpty()) {
+            for (ObjectId parent : parents.get(seen.get(queue.removeFirst()))) {
+                if (seen.add(parent)) {
+                    queue.addLast(seen.size() - 1);
+                }
+            }
+        }
+        return seen;
+    }
+
+    @Benchmark
+    public int hashSetAddContains() {
+        Set<ObjectId> set = new HashSet<>();
+        for (ObjectId id : ids) {
+            set.add(id);
+        }
+        int found = 0;
+        for (ObjectId id : ids) {
+            found += set.contains(id) ? 1 : 0;
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int objectIdSetAddContains() {
+        ObjectIdSet set = new ObjectIdSet();
+        for (ObjectId id : ids) {
+            set.add(id);
+        }
+        int found = 0;
+        for (ObjectId id : ids) {
+            found += set.contains(id) ? 1 : 0;
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int hashMapPutGet() {
+        Map<ObjectId, Integer> map = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            map.put(ids[i], i);
+        }
+        int sum = 0;
+        for (ObjectId id : ids) {
+            sum += map.get(id);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int objectIdMapPutGet() {
+        ObjectIdMap<Integer> map = new ObjectIdMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            map.put(ids[i], i);
+        }
+        int sum = 0;
+        for (ObjectId id : ids) {
+            sum += map.get(id);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int arrayDequeOfIntegers() {
+        ArrayDeque<Integer> deque = new ArrayDeque<>();
+        for (int i = 0; i < commits; i++) {
+            deque.addLast(i);
+        }
+        int sum = 0;
+        while (!deque.isEmpty()) {
+            sum += deque.removeFirst();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int intDeque() {
+        IntDeque deque = new IntDeque();
+        for (int i = 0; i < commits; i++) {
+            deque.addLast(i);
+        }
+        int sum = 0;
+        while (!deque.isEmpty()) {
+            sum += deque.removeFirst();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,59 @@
+package com.pesapal.felixvcs.benchmarks;
+
+import com.pesapal.felixvcs.core.HashAlgorithm;
+import com.pesapal.felixvcs.core.ObjectId;
+import com.pesapal.felixvcs.utils.HashUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures object hashing across content sizes: the reused per-thread digests against looking up a
+ * new digest per call, SHA-1 against SHA-256, and the xxHash64 fast path used to detect unchanged files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashBenchmark {
+    @Param({"64", "4096", "1048576"})
+    private int size;
+
+    private byte[] content;
+
+    @Setup
+    public void setUp() {
+        content = new byte[size];
+        new Random(42).nextBytes(content);
+    }
+
+    @Benchmark
+    public String hashUtilsSha1() {
+        return HashUtils.sha1(content);
+    }
+
+    @Benchmark
+    public byte[] sha1NewDigestPerCall() throws NoSuchAlgorithmException {
+        return MessageDigest.getInstance("SHA-1").digest(content);
+    }
+
+    @Benchmark
+    public ObjectId sha1() {
+        return HashAlgorithm.SHA1.hash(content);
+    }
+
+    @Benchmark
+    public ObjectId sha256() {
+        return HashAlgorithm.SHA256.hash(content);
+    }
+
+    @Benchmark
+    public long xxHash64() {
+        return HashUtils.xxHash64(content);
+    }
+}
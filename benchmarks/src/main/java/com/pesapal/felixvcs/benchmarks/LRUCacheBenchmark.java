@@ -0,0 +1,61 @@
+package com.pesapal.felixvcs.benchmarks;
+
+import com.pesapal.felixvcs.utils.LRUCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link LRUCache} alone and under contention.
+ * <p>
+ * Keys are drawn from twice the cache capacity, so about half of the lookups miss. The contended
+ * group runs three readers against one writer on the same cache; every operation takes the
+ * cache's lock, which also reorders the access list on a hit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LRUCacheBenchmark {
+    private static final int CAPACITY = 1024;
+
+    private LRUCache<Integer, String> cache;
+
+    @Setup
+    public void setUp() {
+        cache = new LRUCache<>(CAPACITY);
+        for (int i = 0; i < CAPACITY; i++) {
+            cache.put(i, "value" + i);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String getUncontended() {
+        return cache.get(ThreadLocalRandom.current().nextInt(2 * CAPACITY));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String getFourThreads() {
+        return cache.get(ThreadLocalRandom.current().nextInt(2 * CAPACITY));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public String mixedGet() {
+        return cache.get(ThreadLocalRandom.current().nextInt(2 * CAPACITY));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void mixedPut() {
+        int key = ThreadLocalRandom.current().nextInt(2 * CAPACITY);
+        cache.put(key, "value" + key);
+    }
+}
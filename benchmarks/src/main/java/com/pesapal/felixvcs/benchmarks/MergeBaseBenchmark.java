@@ -0,0 +1,59 @@
+package com.pesapal.felixvcs.benchmarks;
+
+import com.pesapal.felixvcs.commands.MergeCommand;
+import com.pesapal.felixvcs.core.HashAlgorithm;
+import com.pesapal.felixvcs.core.ObjectId;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the merge base search over histories of different lengths.
+ * <p>
+ * The main branch is {@code commits} long and a feature branch of a quarter of that length forks
+ * from its middle, so the search walks both full ancestries through the object store. Each call uses
+ * a new command, so commits are read from the store rather than from an open repository's commit
+ * cache. The history is written once per trial; building the larger one takes a few seconds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MergeBaseBenchmark {
+    @Param({"1000", "10000"})
+    private int commits;
+
+    private ScratchRepository repository;
+    private ObjectId main;
+    private ObjectId feature;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        repository = new ScratchRepository(HashAlgorithm.DEFAULT);
+        ObjectId fork = null;
+        for (int i = 0; i < commits; i++) {
+            main = repository.commit("main", Map.of(), main);
+            if (i == commits / 2) {
+                fork = main;
+            }
+        }
+        feature = fork;
+        for (int i = 0; i < commits / 4; i++) {
+            feature = repository.commit("feature", Map.of(), feature);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        repository.close();
+    }
+
+    @Benchmark
+    public ObjectId findCommonAncestor() throws IOException {
+        return new MergeCommand(repository.vcsDir()).findCommonAncestor(main, feature);
+    }
+}
@@ -0,0 +1,70 @@
+package com.pesapal.felixvcs.benchmarks;
+
+import com.pesapal.felixvcs.core.Commit;
+import com.pesapal.felixvcs.core.HashAlgorithm;
+import com.pesapal.felixvcs.core.ObjectId;
+import com.pesapal.felixvcs.core.Tree;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures serializing and parsing of trees, across tree sizes, and of commits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ObjectJsonBenchmark {
+    @Param({"10", "1000", "10000"})
+    private int files;
+
+    private Tree tree;
+    private String treeJson;
+    private Commit commit;
+    private String commitJson;
+
+    @Setup
+    public void setUp() {
+        Map<String, ObjectId> entries = new HashMap<>();
+        for (int i = 0; i < files; i++) {
+            String path = "src/module" + (i % 50) + "/File" + i + ".java";
+            entries.put(path, HashAlgorithm.SHA256.hash(path.getBytes(StandardCharsets.UTF_8)));
+        }
+        tree = new Tree(entries);
+        treeJson = tree.toJson();
+
+        commit = new Commit();
+        commit.setTree(HashAlgorithm.SHA256.hash(treeJson.getBytes(StandardCharsets.UTF_8)));
+        commit.setParent(HashAlgorithm.SHA256.hash(new byte[]{1}));
+        commit.setMessage("Refactor the module layout");
+        commit.setTimestamp("2024-01-01T00:00:00Z");
+        commit.setAuthor("Benchmark");
+        commitJson = commit.toJson();
+    }
+
+    @Benchmark
+    public String treeToJson() {
+        return tree.toJson();
+    }
+
+    @Benchmark
+    public Tree treeFromJson() {
+        return Tree.fromJson(treeJson);
+    }
+
+    @Benchmark
+    public String commitToJson() {
+        return commit.toJson();
+    }
+
+    @Benchmark
+    public Commit commitFromJson() {
+        return Commit.fromJson(commitJson);
+    }
+}
@@ -0,0 +1,187 @@
+package com.pesapal.felixvcs.benchmarks;
+
+import com.pesapal.felixvcs.commands.InitCommand;
+import com.pesapal.felixvcs.core.ChunkList;
+import com.pesapal.felixvcs.core.Commit;
+import com.pesapal.felixvcs.core.HashAlgorithm;
+import com.pesapal.felixvcs.core.ObjectId;
+import com.pesapal.felixvcs.core.ObjectStore;
+import com.pesapal.felixvcs.core.ObjectStores;
+import com.pesapal.felixvcs.core.ObjectType;
+import com.pesapal.felixvcs.core.Tree;
+import com.pesapal.felixvcs.utils.FileUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Builds repositories of a given {@link RepositoryShape}, for measuring commands at sizes that
+ * tests cannot reproduce.
+ * <p>
+ * Objects are written straight to the object store rather than through {@code add} and
+ * {@code commit}, so building a large history takes seconds instead of being the very cost under
+ * test. The result is what the commands would have produced: binary files above
+ * {@link ChunkList#THRESHOLD} are stored as chunk lists, {@code master} is checked out with a clean
+ * working tree and an empty index, and each branch {@code branch-<n>} forks from master at an even
+ * spacing along its history. Content depends only on the seed, a file and its version, so the same
+ * shape always produces the same object ids.
+ */
+public final class RepositoryGenerator {
+    private static final String BRANCH = "master";
+    private static final Instant EPOCH = Instant.parse("2024-01-01T00:00:00Z");
+    private static final int FILES_PER_DIRECTORY = 1000;
+    private static final int BRANCH_VERSIONS = 1 << 20; // Keeps branch file versions apart from master's
+
+    /**
+     * A generated repository.
+     *
+     * @param workDir  The working directory.
+     * @param vcsDir   The repository data directory.
+     * @param paths    The file paths, relative to the working directory.
+     * @param history  The commits on master, oldest first.
+     * @param branches The branch names, in fork order.
+     */
+    public record Generated(Path workDir, Path vcsDir, List<String> paths, List<ObjectId> history, List<String> branches) {
+    }
+
+    private final RepositoryShape shape;
+    private final HashAlgorithm algorithm;
+    private final String[] paths;
+    private final int[] sizes;
+    private final boolean[] binary;
+    private ObjectStore store;
+    private int commitCount;
+
+    /**
+     * Constructs a generator.
+     *
+     * @param shape     The repository to build.
+     * @param algorithm The hash function for object names.
+     */
+    public RepositoryGenerator(RepositoryShape shape, HashAlgorithm algorithm) {
+        this.shape = shape;
+        this.algorithm = algorithm;
+        this.paths = new String[shape.files()];
+        this.sizes = new int[shape.files()];
+        this.binary = new boolean[shape.files()];
+
+        Random random = new Random(shape.seed());
+        for (int i = 0; i < shape.files(); i++) {
+            binary[i] = random.nextDouble() < shape.binaryRatio();
+            double size = shape.medianSize() * Math.exp(shape.sizeSpread() * random.nextGaussian());
+            sizes[i] = (int) Math.max(1, Math.min(shape.maxSize(), size));
+            paths[i] = String.format("src/d%04d/f%07d.%s", i / FILES_PER_DIRECTORY, i, binary[i] ? "bin" : "txt");
+        }
+    }
+
+    /**
+     * Builds the repository in an empty directory.
+     *
+     * @param workDir The working directory to create the repository in.
+     * @return The generated repository.
+     * @throws IOException If the repository cannot be written.
+     */
+    public Generated generate(Path workDir) throws IOException {
+        new InitCommand(workDir, false, algorithm).execute();
+        Path vcsDir = workDir.resolve(".felixvcs");
+        store = ObjectStores.open(vcsDir);
+        commitCount = 0;
+
+        // Master: every file in the first commit, then a few changed files per commit
+        Random random = new Random(shape.seed() + 1);
+        int[] versions = new int[shape.files()];
+        Map<String, ObjectId> files = new HashMap<>();
+        for (int i = 0; i < shape.files(); i++) {
+            files.put(paths[i], storeFile(i, 0));
+        }
+        List<ObjectId> history = new ArrayList<>();
+        history.add(commit(files, null));
+        for (int c = 1; c < shape.commits(); c++) {
+            for (int k = 0; k < shape.changesPerCommit(); k++) {
+                int file = random.nextInt(shape.files());
+                files.put(paths[file], storeFile(file, ++versions[file]));
+            }
+            history.add(commit(files, history.get(c - 1)));
+        }
+        writeRef(vcsDir, BRANCH, history.get(history.size() - 1));
+
+        // Branches: forked at even spacing, each a tenth of master's length
+        List<String> branches = new ArrayList<>();
+        for (int b = 0; b < shape.branches(); b++) {
+            ObjectId head = history.get((int) ((long) (b + 1) * (history.size() - 1) / (shape.branches() + 1)));
+            Map<String, ObjectId> branchFiles = new HashMap<>(store.readTree(store.readCommit(head).getTree()).getFiles());
+            for (int c = 0; c < Math.max(1, shape.commits() / 10); c++) {
+                for (int k = 0; k < shape.changesPerCommit(); k++) {
+                    int file = random.nextInt(shape.files());
+                    branchFiles.put(paths[file], storeFile(file, (b + 1) * BRANCH_VERSIONS + c));
+                }
+                head = commit(branchFiles, head);
+            }
+            String name = "branch-" + b;
+            writeRef(vcsDir, name, head);
+            branches.add(name);
+        }
+
+        // Working tree: master's last commit
+        for (int i = 0; i < shape.files(); i++) {
+            Path file = workDir.resolve(paths[i]);
+            Files.createDirectories(file.getParent());
+            Files.write(file, content(i, versions[i]));
+        }
+        return new Generated(workDir, vcsDir, List.of(paths), List.copyOf(history), List.copyOf(branches));
+    }
+
+    /**
+     * Generates the content of a version of a file. Text is lowercase words in lines; binary
+     * content is random and starts with a zero byte so that {@code add} recognizes it.
+     *
+     * @param file    The file number.
+     * @param version The version of the file.
+     * @return The content.
+     */
+    public byte[] content(int file, int version) {
+        byte[] content = new byte[sizes[file]];
+        Random random = new Random(shape.seed() ^ ((long) file << 32) ^ version);
+        random.nextBytes(content);
+        if (binary[file]) {
+            content[0] = 0;
+            return content;
+        }
+        for (int i = 0; i < content.length; i++) {
+            int r = content[i] & 0xFF;
+            content[i] = (byte) (i % 64 == 63 ? '\n' : r < 40 ? ' ' : 'a' + r % 26);
+        }
+        return content;
+    }
+
+    private ObjectId storeFile(int file, int version) throws IOException {
+        byte[] content = content(file, version);
+        if (binary[file] && content.length > ChunkList.THRESHOLD) {
+            return ChunkList.store(store, new ByteArrayInputStream(content)).hash();
+        }
+        return store.write(ObjectType.BLOB, content);
+    }
+
+    private ObjectId commit(Map<String, ObjectId> files, ObjectId parent) throws IOException {
+        Commit commit = new Commit();
+        commit.setTree(store.writeTree(new Tree(files)));
+        commit.setParent(parent);
+        commit.setMessage("Generated commit " + commitCount);
+        commit.setTimestamp(EPOCH.plus(commitCount++, ChronoUnit.MINUTES).toString());
+        commit.setAuthor("Generator");
+        return store.writeCommit(commit);
+    }
+
+    private static void writeRef(Path vcsDir, String branch, ObjectId commit) throws IOException {
+        FileUtils.writeToFile(vcsDir.resolve("refs/heads").resolve(branch).toString(), commit.name());
+    }
+}
@@ -0,0 +1,59 @@
+package com.pesapal.felixvcs.benchmarks;
+
+/**
+ * Describes a repository for {@link RepositoryGenerator} to build.
+ * <p>
+ * File sizes follow a log-normal distribution, which matches real source trees: most files are
+ * near the median and a few are orders of magnitude larger. With a spread of 1.5, about one file in
+ * twenty is more than ten times the median.
+ *
+ * @param files            The number of files in the working tree.
+ * @param commits          The number of commits on the master branch.
+ * @param branches         The number of branches forking from master.
+ * @param binaryRatio      The fraction of files that are binary, between 0 and 1.
+ * @param medianSize       The median file size in bytes.
+ * @param sizeSpread       The standard deviation of the natural logarithm of file sizes; 0 makes every file the median size.
+ * @param maxSize          The largest file size in bytes.
+ * @param changesPerCommit The number of files each commit after the first modifies.
+ * @param seed             The seed of all random choices, so the same shape always yields the same repository.
+ */
+public record RepositoryShape(int files, int commits, int branches, double binaryRatio, int medianSize,
+                              double sizeSpread, int maxSize, int changesPerCommit, long seed) {
+
+    /**
+     * Validates the shape.
+     *
+     * @throws IllegalArgumentException If a count is out of range.
+     */
+    public RepositoryShape {
+        if (files < 1 || commits < 1 || branches < 0 || changesPerCommit < 1) {
+            throw new IllegalArgumentException("A repository needs at least one file, one commit and one change per commit.");
+        }
+        if (binaryRatio < 0 || binaryRatio > 1) {
+            throw new IllegalArgumentException("Binary ratio must be between 0 and 1: " + binaryRatio);
+        }
+        if (medianSize < 1 || maxSize < medianSize || sizeSpread < 0) {
+            throw new IllegalArgumentException("File sizes need 0 < median <= max and a spread of at least 0.");
+        }
+    }
+
+    /**
+     * Returns a shape with a different file count.
+     *
+     * @param files The number of files.
+     * @return The new shape.
+     */
+    public RepositoryShape withFiles(int files) {
+        return new RepositoryShape(files, commits, branches, binaryRatio, medianSize, sizeSpread, maxSize, changesPerCommit, seed);
+    }
+
+    /**
+     * Returns a shape with a different commit count.
+     *
+     * @param commits The number of commits.
+     * @return The new shape.
+     */
+    public RepositoryShape withCommits(int commits) {
+        return new RepositoryShape(files, commits, branches, binaryRatio, medianSize, sizeSpread, maxSize, changesPerCommit, seed);
+    }
+}
@@ -0,0 +1,330 @@
+package com.pesapal.felixvcs.benchmarks;
+
+import com.pesapal.felixvcs.commands.AddCommand;
+import com.pesapal.felixvcs.commands.CloneCommand;
+import com.pesapal.felixvcs.commands.CommitCommand;
+import com.pesapal.felixvcs.commands.DiffCommand;
+import com.pesapal.felixvcs.commands.LogCommand;
+import com.pesapal.felixvcs.commands.MergeCommand;
+import com.pesapal.felixvcs.commands.RebaseCommand;
+import com.pesapal.felixvcs.commands.StashCommand;
+import com.pesapal.felixvcs.core.HashAlgorithm;
+import com.pesapal.felixvcs.utils.FileUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Times whole commands on generated repositories of growing size and writes a JSON report.
+ * <p>
+ * Two sweeps run by default. The files sweep grows the working tree with a short history, and the
+ * commits sweep grows the history of a small tree; varying one dimension at a time shows which one
+ * an operation depends on. At every scale a fresh repository is generated and {@code log},
+ * {@code diff} (first against last commit), {@code merge} and {@code rebase} (with
+ * {@code branch-0}), {@code clone}, {@code add} (every file, one call each as the command line
+ * does), {@code stash}, {@code stash pop} and {@code commit} run once each, in that order. Merge and
+ * rebase move master, so it is reset after each. One unrecorded pass over the base shape runs
+ * first, so the smallest scale is not measured with cold code.
+ * <p>
+ * An operation that takes longer than the budget, or fails, is not run at larger scales of the same
+ * sweep, since it would only take longer or fail again; {@code add} also stops part way once it
+ * exceeds the budget.
+ * <pre>
+ * java -cp benchmarks.jar com.pesapal.felixvcs.benchmarks.ScaleHarness [options]
+ * java -cp benchmarks.jar com.pesapal.felixvcs.benchmarks.ScaleHarness generate &lt;dir&gt; [options]
+ * </pre>
+ */
+public final class ScaleHarness {
+    private static final String USAGE = """
+            Usage: ScaleHarness [generate <dir>] [options]
+              --files <n,...>       File counts of the files sweep (default 1000,10000,100000,1000000)
+              --commits <n,...>     Commit counts of the commits sweep (default 100,1000,10000,100000)
+              --base-files <n>      Files in the commits sweep (default 100)
+              --base-commits <n>    Commits in the files sweep (default 10)
+              --branches <n>        Branches forking from master (default 2)
+              --binary-ratio <r>    Fraction of binary files (default 0.1)
+              --median-size <n>     Median file size in bytes (default 4096)
+              --size-spread <s>     Log-normal spread of file sizes (default 1.5)
+              --max-size <n>        Largest file size in bytes (default 8388608)
+              --changes <n>         Files changed per commit (default 10)
+              --object-format <f>   sha1 or sha256 (default sha256)
+              --seed <n>            Random seed (default 42)
+              --budget <seconds>    Time after which an operation is not run at larger scales (default 120)
+              --out <file>          Report file (default scale-report.json)
+              --work <dir>          Directory for generated repositories (default a temporary directory)
+              --sweep <name>        Run only the files or the commits sweep
+            generate builds a single repository of the first --files and --commits values in <dir>.""";
+
+    private static final String[] OPERATIONS = {"log", "diff", "merge", "rebase", "clone", "add", "stash", "stash pop", "commit"};
+
+    private final PrintStream console = System.out;
+    private final RepositoryShape base;
+    private final HashAlgorithm algorithm;
+    private final long budgetNanos;
+    private final Path workRoot;
+    private final ScaleReport report;
+    private boolean warmingUp;
+
+    private ScaleHarness(RepositoryShape base, HashAlgorithm algorithm, long budgetSeconds, Path workRoot) {
+        this.base = base;
+        this.algorithm = algorithm;
+        this.budgetNanos = budgetSeconds * 1_000_000_000L;
+        this.workRoot = workRoot;
+        this.report = new ScaleReport(algorithm.getName(), base, budgetSeconds);
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<Integer> files = List.of(1000, 10000, 100000, 1000000);
+        List<Integer> commits = List.of(100, 1000, 10000, 100000);
+        int baseFiles = 100;
+        int baseCommits = 10;
+        int branches = 2;
+        double binaryRatio = 0.1;
+        int medianSize = 4096;
+        double sizeSpread = 1.5;
+        int maxSize = 8 * 1024 * 1024;
+        int changes = 10;
+        HashAlgorithm algorithm = HashAlgorithm.DEFAULT;
+        long seed = 42;
+        long budget = 120;
+        Path out = Paths.get("scale-report.json");
+        Path work = null;
+        String sweep = null;
+        Path generate = null;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String option = args[i];
+                if (option.equals("generate") && i == 0 && args.length > 1) {
+                    generate = Paths.get(args[++i]);
+                    continue;
+                }
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + option);
+                }
+                String value = args[++i];
+                switch (option) {
+                    case "--files" -> files = parseCounts(value);
+                    case "--commits" -> commits = parseCounts(value);
+                    case "--base-files" -> baseFiles = Integer.parseInt(value);
+                    case "--base-commits" -> baseCommits = Integer.parseInt(value);
+                    case "--branches" -> branches = Integer.parseInt(value);
+                    case "--binary-ratio" -> binaryRatio = Double.parseDouble(value);
+                    case "--median-size" -> medianSize = Integer.parseInt(value);
+                    case "--size-spread" -> sizeSpread = Double.parseDouble(value);
+                    case "--max-size" -> maxSize = Integer.parseInt(value);
+                    case "--changes" -> changes = Integer.parseInt(value);
+                    case "--object-format" -> algorithm = HashAlgorithm.forName(value);
+                    case "--seed" -> seed = Long.parseLong(value);
+                    case "--budget" -> budget = Long.parseLong(value);
+                    case "--out" -> out = Paths.get(value);
+                    case "--work" -> work = Paths.get(value);
+                    case "--sweep" -> sweep = value;
+                    default -> throw new IllegalArgumentException("Unknown option: " + option);
+                }
+            }
+            if (generate != null) {
+                RepositoryShape shape = new RepositoryShape(files.get(0), commits.get(0), branches, binaryRatio,
+                        medianSize, sizeSpread, maxSize, changes, seed);
+                Files.createDirectories(generate);
+                new RepositoryGenerator(shape, algorithm).generate(generate);
+                System.out.println("Generated " + shape + " in " + generate);
+                return;
+            }
+            RepositoryShape base = new RepositoryShape(baseFiles, baseCommits, Math.max(1, branches), binaryRatio,
+                    medianSize, sizeSpread, maxSize, changes, seed);
+            Path workRoot = work != null ? Files.createDirectories(work) : Files.createTempDirectory("felixvcs-scale-");
+            ScaleHarness harness = new ScaleHarness(base, algorithm, budget, workRoot);
+            harness.warmUp();
+            if (sweep == null || sweep.equals("files")) {
+                harness.sweep("files", files);
+            }
+            if (sweep == null || sweep.equals("commits")) {
+                harness.sweep("commits", commits);
+            }
+            harness.report.write(out);
+            System.out.println("Report written to " + out.toAbsolutePath());
+            if (work == null) {
+                delete(workRoot);
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.out.println(USAGE);
+        }
+    }
+
+    private static List<Integer> parseCounts(String value) {
+        List<Integer> counts = new ArrayList<>();
+        for (String count : value.split(",")) {
+            counts.add(Integer.parseInt(count.trim()));
+        }
+        return counts;
+    }
+
+    /**
+     * Runs every operation once on the base shape without recording anything, so that the first
+     * recorded scale is not measured with cold code.
+     *
+     * @throws IOException If the repository cannot be generated.
+     */
+    private void warmUp() throws IOException {
+        console.println("Warming up...");
+        warmingUp = true;
+        try {
+            scale("warmup", base, 0, new HashSet<>());
+        } finally {
+            warmingUp = false;
+        }
+    }
+
+    /**
+     * Runs every operation at each size of one dimension.
+     *
+     * @param sweep The dimension, "files" or "commits".
+     * @param sizes The sizes, smallest first.
+     * @throws IOException If a repository cannot be generated or an operation fails.
+     */
+    private void sweep(String sweep, List<Integer> sizes) throws IOException {
+        Set<String> overBudget = new HashSet<>();
+        for (int size : sizes) {
+            RepositoryShape shape = sweep.equals("files") ? base.withFiles(size) : base.withCommits(size);
+            console.println("Generating " + shape.files() + " files with " + shape.commits() + " commits...");
+            scale(sweep, shape, size, overBudget);
+        }
+    }
+
+    /**
+     * Generates one repository and runs every operation in it.
+     *
+     * @param sweep      The swept dimension.
+     * @param shape      The repository to generate.
+     * @param size       The swept size.
+     * @param overBudget Operations not to run, extended with those that exceed the budget or fail.
+     * @throws IOException If the repository cannot be generated.
+     */
+    private void scale(String sweep, RepositoryShape shape, int size, Set<String> overBudget) throws IOException {
+        Path workDir = workRoot.resolve(sweep + "-" + size);
+        delete(workDir);
+        Files.createDirectories(workDir);
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            long start = System.nanoTime();
+            RepositoryGenerator.Generated repo = new RepositoryGenerator(shape, algorithm).generate(workDir);
+            record(sweep, shape, "generate", "ok", System.nanoTime() - start, size);
+
+            String index = repo.vcsDir().resolve("index").toString();
+            String staged = null;
+            for (String operation : OPERATIONS) {
+                if (overBudget.contains(operation)) {
+                    record(sweep, shape, operation, "skipped", -1, size);
+                    continue;
+                }
+                // Commit what add staged, whether or not stash pop brought it back
+                if (operation.equals("stash")) {
+                    staged = FileUtils.readFile(index);
+                } else if (operation.equals("commit") && staged != null) {
+                    FileUtils.writeToFile(index, staged);
+                }
+                start = System.nanoTime();
+                try {
+                    boolean finished = run(operation, repo);
+                    long elapsed = System.nanoTime() - start;
+                    record(sweep, shape, operation, finished ? "ok" : "budget", elapsed, size);
+                    if (elapsed > budgetNanos) {
+                        overBudget.add(operation);
+                    }
+                } catch (IOException | RuntimeException | StackOverflowError e) {
+                    // A failure is a result too; larger scales would only fail the same way
+                    record(sweep, shape, operation, "failed", System.nanoTime() - start, size);
+                    console.println("  " + e);
+                    overBudget.add(operation);
+                }
+            }
+        } finally {
+            System.setOut(console);
+        }
+        delete(workDir);
+    }
+
+    /**
+     * Runs one operation.
+     *
+     * @param operation The operation.
+     * @param repo      The repository to run it in.
+     * @return False if the operation stopped part way because it ran out of budget.
+     * @throws IOException If the operation fails.
+     */
+    private boolean run(String operation, RepositoryGenerator.Generated repo) throws IOException {
+        Path vcsDir = repo.vcsDir();
+        Path master = vcsDir.resolve("refs/heads/master");
+        switch (operation) {
+            case "log" -> new LogCommand(vcsDir).execute();
+            case "diff" -> new DiffCommand(vcsDir).execute(new String[]{"diff",
+                    repo.history().get(0).name(), repo.history().get(repo.history().size() - 1).name()});
+            case "merge" -> {
+                String head = FileUtils.readFile(master.toString());
+                new MergeCommand(vcsDir).execute(repo.branches().get(0));
+                FileUtils.writeToFile(master.toString(), head);
+            }
+            case "rebase" -> {
+                String head = FileUtils.readFile(master.toString());
+                new RebaseCommand(vcsDir).execute(new String[]{"rebase", repo.branches().get(0)});
+                FileUtils.writeToFile(master.toString(), head);
+            }
+            case "clone" -> {
+                Path destination = repo.workDir().resolveSibling(repo.workDir().getFileName() + "-clone");
+                new CloneCommand().execute(repo.workDir().toString(), destination.toString());
+                delete(destination);
+            }
+            case "add" -> {
+                AddCommand add = new AddCommand(repo.workDir());
+                long start = System.nanoTime();
+                for (String path : repo.paths()) {
+                    add.execute(path);
+                    if (System.nanoTime() - start > budgetNanos) {
+                        return false;
+                    }
+                }
+            }
+            case "stash" -> new StashCommand(vcsDir).execute(new String[0]);
+            case "stash pop" -> new StashCommand(vcsDir).execute(new String[]{"pop"});
+            case "commit" -> new CommitCommand(vcsDir).execute("Scale commit");
+            default -> throw new IllegalArgumentException("Unknown operation: " + operation);
+        }
+        return true;
+    }
+
+    private void record(String sweep, RepositoryShape shape, String operation, String status, long nanos, int size) {
+        if (warmingUp) {
+            return;
+        }
+        double millis = nanos < 0 ? Double.NaN : nanos / 1e6;
+        console.println(ScaleReport.format(report.add(sweep, shape.files(), shape.commits(), operation, status, millis, size)));
+    }
+
+    private static void delete(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+}
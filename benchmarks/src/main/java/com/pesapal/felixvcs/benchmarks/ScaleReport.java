@@ -0,0 +1,128 @@
+package com.pesapal.felixvcs.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Collects the timings of a {@link ScaleHarness} run and writes them as JSON.
+ * <p>
+ * Every result also carries its growth exponent against the same operation at the previous scale
+ * of its sweep: the log of the time ratio over the log of the size ratio. An operation that is
+ * linear in the swept size stays near 1 and a quadratic one near 2, so a scaling cliff reads as a
+ * number rather than a judgment about absolute times.
+ */
+final class ScaleReport {
+
+    /**
+     * The outcome of one operation at one scale.
+     *
+     * @param sweep     The swept dimension, "files" or "commits".
+     * @param files     The number of files in the repository.
+     * @param commits   The number of commits on master.
+     * @param operation The operation.
+     * @param status    "ok", "budget" if it ran out of time part way, "failed", or "skipped".
+     * @param millis    The wall time, or NaN if skipped.
+     * @param size      The swept size.
+     * @param exponent  The growth exponent against the previous scale, or NaN if there is none.
+     */
+    record Result(String sweep, int files, int commits, String operation, String status, double millis, long size,
+                  double exponent) {
+    }
+
+    private final List<Result> results = new ArrayList<>();
+    private final String objectFormat;
+    private final RepositoryShape shape;
+    private final long budgetSeconds;
+
+    /**
+     * Constructs an empty report.
+     *
+     * @param objectFormat  The object format of the generated repositories.
+     * @param shape         The base shape the sweeps vary.
+     * @param budgetSeconds The time after which an operation is not run at larger scales.
+     */
+    ScaleReport(String objectFormat, RepositoryShape shape, long budgetSeconds) {
+        this.objectFormat = objectFormat;
+        this.shape = shape;
+        this.budgetSeconds = budgetSeconds;
+    }
+
+    /**
+     * Records an outcome, computing its growth exponent.
+     *
+     * @param sweep     The swept dimension.
+     * @param files     The number of files in the repository.
+     * @param commits   The number of commits on master.
+     * @param operation The operation.
+     * @param status    The outcome.
+     * @param millis    The wall time, or NaN if skipped.
+     * @param size      The swept size.
+     * @return The recorded result.
+     */
+    Result add(String sweep, int files, int commits, String operation, String status, double millis, long size) {
+        double exponent = Double.NaN;
+        for (int i = results.size() - 1; i >= 0; i--) {
+            Result previous = results.get(i);
+            if (previous.sweep().equals(sweep) && previous.operation().equals(operation)) {
+                if (previous.status().equals("ok") && status.equals("ok") && previous.millis() > 0 && previous.size() > 0) {
+                    exponent = Math.log(millis / previous.millis()) / Math.log((double) size / previous.size());
+                }
+                break;
+            }
+        }
+        Result result = new Result(sweep, files, commits, operation, status, millis, size, exponent);
+        results.add(result);
+        return result;
+    }
+
+    /**
+     * Formats a result as one line of the console summary.
+     *
+     * @param result The result.
+     * @return The line.
+     */
+    static String format(Result result) {
+        String time = Double.isNaN(result.millis()) ? "-" : String.format(Locale.ROOT, "%.1f ms", result.millis());
+        String exponent = Double.isNaN(result.exponent()) ? "" : String.format(Locale.ROOT, "  n^%.2f", result.exponent());
+        return String.format(Locale.ROOT, "%-8s files=%-8d commits=%-7d %-10s %-8s %14s%s",
+                result.sweep(), result.files(), result.commits(), result.operation(), result.status(), time, exponent);
+    }
+
+    /**
+     * Writes the report.
+     *
+     * @param file The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    void write(Path file) throws IOException {
+        StringBuilder json = new StringBuilder("{\n");
+        json.append("  \"created\": \"").append(Instant.now()).append("\",\n");
+        json.append("  \"java\": \"").append(System.getProperty("java.version")).append("\",\n");
+        json.append("  \"objectFormat\": \"").append(objectFormat).append("\",\n");
+        json.append("  \"budgetSeconds\": ").append(budgetSeconds).append(",\n");
+        json.append(String.format(Locale.ROOT,
+                "  \"shape\": {\"branches\": %d, \"binaryRatio\": %s, \"medianSize\": %d, \"sizeSpread\": %s, \"maxSize\": %d, \"changesPerCommit\": %d, \"seed\": %d},%n",
+                shape.branches(), shape.binaryRatio(), shape.medianSize(), shape.sizeSpread(), shape.maxSize(),
+                shape.changesPerCommit(), shape.seed()));
+        json.append("  \"results\": [");
+        for (int i = 0; i < results.size(); i++) {
+            Result r = results.get(i);
+            json.append(i == 0 ? "\n" : ",\n");
+            json.append(String.format(Locale.ROOT,
+                    "    {\"sweep\": \"%s\", \"files\": %d, \"commits\": %d, \"operation\": \"%s\", \"status\": \"%s\", \"millis\": %s, \"size\": %d, \"exponent\": %s}",
+                    r.sweep(), r.files(), r.commits(), r.operation(), r.status(), number(r.millis()), r.size(),
+                    number(r.exponent())));
+        }
+        json.append("\n  ]\n}\n");
+        Files.writeString(file, json);
+    }
+
+    private static String number(double value) {
+        return Double.isNaN(value) ? "null" : String.format(Locale.ROOT, "%.3f", value);
+    }
+}
@@ -0,0 +1,93 @@
+package com.pesapal.felixvcs.benchmarks;
+
+import com.pesapal.felixvcs.commands.InitCommand;
+import com.pesapal.felixvcs.core.Commit;
+import com.pesapal.felixvcs.core.HashAlgorithm;
+import com.pesapal.felixvcs.core.ObjectId;
+import com.pesapal.felixvcs.core.ObjectStore;
+import com.pesapal.felixvcs.core.ObjectStores;
+import com.pesapal.felixvcs.core.Tree;
+import com.pesapal.felixvcs.utils.FileUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * A repository in a temporary directory for benchmarks to work in, deleted when closed.
+ * <p>
+ * Commands report progress on standard output; while a scratch repository is open the output is
+ * discarded so that it neither slows the measurement nor floods the JMH log.
+ */
+final class ScratchRepository implements AutoCloseable {
+    private final Path workDir;
+    private final Path vcsDir;
+    private final PrintStream originalOut = System.out;
+
+    /**
+     * Creates and initializes a repository.
+     *
+     * @param algorithm The hash function for object names.
+     * @throws IOException If the repository cannot be created.
+     */
+    ScratchRepository(HashAlgorithm algorithm) throws IOException {
+        this.workDir = Files.createTempDirectory("felixvcs-bench-");
+        this.vcsDir = workDir.resolve(".felixvcs");
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        new InitCommand(workDir, false, algorithm).execute();
+    }
+
+    Path workDir() {
+        return workDir;
+    }
+
+    Path vcsDir() {
+        return vcsDir;
+    }
+
+    ObjectStore store() throws IOException {
+        return ObjectStores.open(vcsDir);
+    }
+
+    /**
+     * Writes a commit of the given tree entries directly to the object store and points a branch at it.
+     *
+     * @param branch  The branch to update.
+     * @param entries The tree entries.
+     * @param parent  The parent commit, or null for a root commit.
+     * @return The commit hash.
+     * @throws IOException If an object or the ref cannot be written.
+     */
+    ObjectId commit(String branch, Map<String, ObjectId> entries, ObjectId parent) throws IOException {
+        ObjectStore store = store();
+        Commit commit = new Commit();
+        commit.setTree(store.writeTree(new Tree(entries)));
+        commit.setParent(parent);
+        commit.setMessage("Benchmark commit");
+        commit.setTimestamp("2024-01-01T00:00:00Z");
+        commit.setAuthor("Benchmark");
+        ObjectId commitHash = store.writeCommit(commit);
+        FileUtils.writeToFile(vcsDir.resolve("refs/heads").resolve(branch).toString(), commitHash.name());
+        return commitHash;
+    }
+
+    @Override
+    public void close() throws IOException {
+        System.setOut(originalOut);
+        try (Stream<Path> paths = Files.walk(workDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+}
@@ -1,8 +1,20 @@
 package com.pesapal.felixvcs;
 
 import com.pesapal.felixvcs.commands.*;
+import com.pesapal.felixvcs.core.HashAlgorithm;
+import com.pesapal.felixvcs.core.Repository;
+import com.pesapal.felixvcs.utils.Durability;
+import com.pesapal.felixvcs.utils.Progress;
+import com.pesapal.felixvcs.utils.Stats;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Entry point for the Felix Version Control System (FelixVCS).
@@ -11,13 +23,91 @@ import java.util.Arrays;
  */
 public class MainApplication {
 
+    // Commands that read or write the working directory and cannot run in a bare repository
+    private static final Set<String> WORK_TREE_COMMANDS =
+            Set.of("add", "commit", "merge", "remove", "stash", "rebase", "sparse-checkout");
+
     /**
      * Main method that processes command-line arguments and executes the appropriate command.
+     * <p>
+     * Options before the command name apply to any command: {@code --stats} prints timings, I/O and
+     * cache counts to standard error when the command ends, and {@code --trace=<file>} appends them
+     * to the file as one JSON object per line. {@code --progress=<terminal|json|none>} overrides how
+     * progress is shown, which otherwise depends on whether output goes to a terminal.
      *
      * @param args Command-line arguments where the first argument is the command name,
      *             and subsequent arguments are command-specific parameters.
      */
     public static void main(String[] args) {
+        boolean stats = false;
+        String trace = null;
+        int first = 0;
+        for (; first < args.length && args[first].startsWith("--"); first++) {
+            if (args[first].equals("--stats")) {
+                stats = true;
+            } else if (args[first].startsWith("--trace=")) {
+                trace = args[first].substring("--trace=".length());
+            } else if (args[first].startsWith("--progress=")) {
+                String mode = args[first].substring("--progress=".length());
+                if (mode.equals("terminal")) {
+                    Progress.setMode(Progress.Mode.TERMINAL);
+                } else if (mode.equals("json")) {
+                    Progress.setMode(Progress.Mode.JSON);
+                } else if (mode.equals("none")) {
+                    Progress.setMode(Progress.Mode.SILENT);
+                } else {
+                    System.out.println("Unknown progress mode: " + mode + ". Use terminal, json or none.");
+                    return;
+                }
+            } else {
+                System.out.println("Unknown option: " + args[first]);
+                return;
+            }
+        }
+        args = Arrays.copyOfRange(args, first, args.length);
+        if (!stats && trace == null) {
+            run(args);
+            sync();
+            return;
+        }
+
+        Stats.enable();
+        long start = System.nanoTime();
+        run(args);
+        sync();
+        long elapsed = System.nanoTime() - start;
+        String command = args.length > 0 ? args[0] : "";
+        if (stats) {
+            System.err.print(Stats.summary(command, elapsed));
+        }
+        if (trace != null) {
+            try {
+                Files.writeString(Paths.get(trace), Stats.toJson(command, elapsed) + "\n",
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                System.err.println("Could not write trace file " + trace + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Syncs objects the command wrote without updating a ref, such as blobs staged by add, so they
+     * are on disk by the time the command returns.
+     */
+    private static void sync() {
+        try {
+            Durability.flush();
+        } catch (IOException e) {
+            System.err.println("Could not sync written files to disk: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Dispatches a command to its implementation.
+     *
+     * @param args The command name followed by its arguments.
+     */
+    private static void run(String[] args) {
         // Check if any arguments are provided
         if (args.length == 0) {
             System.out.println("Please provide a command.");
@@ -27,10 +117,15 @@ public class MainApplication {
         // Extract the command name
         String command = args[0];
 
+        if (WORK_TREE_COMMANDS.contains(command) && Repository.isBare(Repository.locate())) {
+            System.out.println("Command " + command + " needs a working directory, but this repository is bare.");
+            return;
+        }
+
         // Switch case to handle different commands
         switch (command) {
             case "init":
-                handleInitCommand();
+                handleInitCommand(args);
                 break;
 
             case "add":
@@ -61,6 +156,26 @@ public class MainApplication {
                 handleCloneCommand(args);
                 break;
 
+            case "fetch":
+                handleFetchCommand(args);
+                break;
+
+            case "push":
+                handlePushCommand(args);
+                break;
+
+            case "bundle":
+                handleBundleCommand(args);
+                break;
+
+            case "gc":
+                handleGcCommand();
+                break;
+
+            case "pack-refs":
+                handlePackRefsCommand();
+                break;
+
             case "remove":
                 handleRemoveCommand(args);
                 break;
@@ -77,6 +192,10 @@ public class MainApplication {
                 handleRebaseCommand(args);
                 break;
 
+            case "sparse-checkout":
+                handleSparseCheckoutCommand(args);
+                break;
+
             default:
                 // Print an error message for unknown commands
                 System.out.println("Unknown command: " + command);
@@ -85,9 +204,28 @@ public class MainApplication {
 
     /**
      * Handles the "init" command to initialize a new repository.
+     *
+     * @param args Command-line arguments.
      */
-    private static void handleInitCommand() {
-        InitCommand init = new InitCommand();
+    private static void handleInitCommand(String[] args) {
+        boolean bare = false;
+        HashAlgorithm algorithm = HashAlgorithm.DEFAULT;
+        String directory = System.getProperty("user.dir");
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--bare")) {
+                bare = true;
+            } else if (args[i].startsWith("--object-format=")) {
+                try {
+                    algorithm = HashAlgorithm.forName(args[i].substring("--object-format=".length()));
+                } catch (IllegalArgumentException e) {
+                    System.out.println(e.getMessage() + ". Use sha1 or sha256.");
+                    return;
+                }
+            } else {
+                directory = args[i];
+            }
+        }
+        InitCommand init = new InitCommand(Paths.get(directory), bare, algorithm);
         try {
             init.execute();
         } catch (Exception e) {
@@ -96,7 +234,7 @@ public class MainApplication {
     }
 
     /**
-     * Handles the "add" command to stage a file for committing.
+     * Handles the "add" command to stage files for committing.
      *
      * @param args Command-line arguments.
      */
@@ -105,10 +243,10 @@ public class MainApplication {
             System.out.println("Please provide a file to add.");
             return;
         }
-        String filePath = args[1];
+        List<String> filePaths = Arrays.asList(args).subList(1, args.length);
         AddCommand add = new AddCommand();
         try {
-            add.execute(filePath);
+            add.execute(filePaths);
         } catch (Exception e) {
             System.out.println("Error adding file: " + e.getMessage());
         }
@@ -188,10 +326,9 @@ public class MainApplication {
             System.out.println("Please provide two commits to diff.");
             return;
         }
-        String[] diffArgs = Arrays.copyOfRange(args, 1, args.length);
         DiffCommand diff = new DiffCommand();
         try {
-            diff.execute(diffArgs);
+            diff.execute(args);
         } catch (Exception e) {
             System.out.println("Error executing diff: " + e.getMessage());
         }
@@ -203,20 +340,114 @@ public class MainApplication {
      * @param args Command-line arguments.
      */
     private static void handleCloneCommand(String[] args) {
-        if (args.length < 3) {
-            System.out.println("Usage: clone <source-repo-path> <destination-path>");
+        int depth = 0;
+        boolean bare = false;
+        List<String> sparsePatterns = new ArrayList<>();
+        List<String> paths = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--depth") && i + 1 < args.length) {
+                try {
+                    depth = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    System.out.println("Invalid depth: " + args[i]);
+                    return;
+                }
+            } else if (args[i].equals("--bare")) {
+                bare = true;
+            } else if (args[i].equals("--sparse") && i + 1 < args.length) {
+                sparsePatterns.add(args[++i]);
+            } else {
+                paths.add(args[i]);
+            }
+        }
+        if (paths.size() < 2) {
+            System.out.println("Usage: clone [--bare] [--depth <n>] [--sparse <pattern>]... <source-repo-path> <destination-path>");
             return;
         }
-        String sourcePath = args[1];
-        String destinationPath = args[2];
+        String sourcePath = paths.get(0);
+        String destinationPath = paths.get(1);
         CloneCommand clone = new CloneCommand();
         try {
-            clone.execute(sourcePath, destinationPath);
+            clone.execute(sourcePath, destinationPath, depth, sparsePatterns, bare);
         } catch (Exception e) {
             System.out.println("Error cloning repository: " + e.getMessage());
         }
     }
 
+    /**
+     * Handles the "fetch" command to download new commits from another repository.
+     *
+     * @param args Command-line arguments.
+     */
+    private static void handleFetchCommand(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: fetch <remote-or-path> [branch]");
+            return;
+        }
+        FetchCommand fetch = new FetchCommand();
+        try {
+            fetch.execute(Arrays.copyOfRange(args, 1, args.length));
+        } catch (Exception e) {
+            System.out.println("Error fetching from repository: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Handles the "push" command to publish a branch to another repository.
+     *
+     * @param args Command-line arguments.
+     */
+    private static void handlePushCommand(String[] args) {
+        if (args.length < 3) {
+            System.out.println("Usage: push <remote-or-path> <branch>");
+            return;
+        }
+        PushCommand push = new PushCommand();
+        try {
+            push.execute(Arrays.copyOfRange(args, 1, args.length));
+        } catch (Exception e) {
+            System.out.println("Error pushing to repository: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Handles the "bundle" command to move history through a single file.
+     *
+     * @param args Command-line arguments.
+     */
+    private static void handleBundleCommand(String[] args) {
+        BundleCommand bundle = new BundleCommand();
+        try {
+            bundle.execute(Arrays.copyOfRange(args, 1, args.length));
+        } catch (Exception e) {
+            System.out.println("Error handling bundle command: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Handles the "gc" command to pack objects and write reachability bitmaps.
+     */
+    private static void handleGcCommand() {
+        GcCommand gc = new GcCommand();
+        try {
+            gc.execute();
+        } catch (Exception e) {
+            System.out.println("Error running gc: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Handles the "pack-refs" command to move loose refs into the packed refs file.
+     */
+    private static void handlePackRefsCommand() {
+        PackRefsCommand packRefs = new PackRefsCommand();
+        try {
+            packRefs.execute();
+        } catch (Exception e) {
+            System.out.println("Error running pack-refs: " + e.getMessage());
+        }
+    }
+
     /**
      * Handles the "remove" command to unstage a file or remove it from the repository.
      *
@@ -277,9 +508,23 @@ public class MainApplication {
         }
         RebaseCommand rebase = new RebaseCommand();
         try {
-            rebase.execute(Arrays.copyOfRange(args, 1, args.length));
+            rebase.execute(args);
         } catch (Exception e) {
             System.out.println("Error handling rebase command: " + e.getMessage());
         }
     }
+
+    /**
+     * Handles the "sparse-checkout" command to restrict which files are checked out.
+     *
+     * @param args Command-line arguments.
+     */
+    private static void handleSparseCheckoutCommand(String[] args) {
+        SparseCheckoutCommand sparseCheckout = new SparseCheckoutCommand();
+        try {
+            sparseCheckout.execute(Arrays.copyOfRange(args, 1, args.length));
+        } catch (Exception e) {
+            System.out.println("Error handling sparse-checkout command: " + e.getMessage());
+        }
+    }
 }
@@ -1,13 +1,12 @@
 package com.pesapal.felixvcs.commands;
 
+import com.pesapal.felixvcs.core.Repository;
 import com.pesapal.felixvcs.utils.FileUtils;
-import com.pesapal.felixvcs.utils.HashUtils;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 
 /**
  * Handles the addition of files to the staging area (index) in the FelixVersionControl system.
@@ -15,213 +14,95 @@ import java.util.Map;
  */
 public class AddCommand {
     private static final String VCS_DIR = ".felixvcs";
-    private static final String BLOBS_DIR = VCS_DIR + "/blobs";
-    private static final String INDEX_FILE = VCS_DIR + "/index";
-    private static final String IGNORE_FILE = VCS_DIR + "/ignore";
 
-    /**
-     * Executes the add command to stage a file for commit.
-     *
-     * @param filePath The path of the file to add.
-     * @throws IOException If an I/O error occurs during file operations.
-     */
-    public void execute(String filePath) throws IOException {
-        // Check if repository is initialized
-        if (!FileUtils.exists(VCS_DIR)) {
-            System.out.println("Not a FelixVersionControl repository. Use 'init' to initialize.");
-            return;
-        }
-
-        // Check if file exists
-        if (!Files.exists(Paths.get(filePath))) {
-            System.out.println("File " + filePath + " does not exist.");
-            return;
-        }
-
-        // Check if file is ignored
-        if (isIgnored(filePath)) {
-            System.out.println("File " + filePath + " is ignored.");
-            return;
-        }
-
-        // Determine if the file is binary
-        boolean isBinary = isBinaryFile(filePath);
-
-        if (isBinary) {
-            handleBinaryFile(filePath);
-        } else {
-            handleTextFile(filePath);
-        }
-    }
+    private final Path workDir;     // Working directory that file paths are relative to
+    private final Path vcsPath;     // Repository data directory
+    private Repository repository;  // Opened on first use
 
     /**
-     * Checks if a file should be ignored based on patterns in the ignore file.
+     * Constructs an AddCommand for the repository in the given working directory.
      *
-     * @param filePath The path of the file to check.
-     * @return True if the file is ignored, false otherwise.
-     * @throws IOException If an I/O error occurs during file reading.
+     * @param workDir The working directory; file paths given to {@link #execute} are resolved against it.
      */
-    private boolean isIgnored(String filePath) throws IOException {
-        if (!FileUtils.exists(IGNORE_FILE)) {
-            return false;
-        }
-
-        String ignorePatterns = FileUtils.readFile(IGNORE_FILE);
-        String[] patterns = ignorePatterns.split("\n");
-
-        for (String pattern : patterns) {
-            pattern = pattern.trim();
-            if (pattern.isEmpty() || pattern.startsWith("#")) {
-                continue;
-            }
-            if (filePath.matches(globToRegex(pattern))) {
-                return true;
-            }
-        }
-        return false;
+    public AddCommand(Path workDir) {
+        this.workDir = workDir;
+        this.vcsPath = workDir.resolve(VCS_DIR);
     }
 
     /**
-     * Converts a glob pattern to a regular expression.
-     *
-     * @param glob The glob pattern.
-     * @return The equivalent regular expression.
+     * Default constructor that adds files of the repository in the current working directory.
      */
-    private String globToRegex(String glob) {
-        StringBuilder regex = new StringBuilder("^");
-        for (int i = 0; i < glob.length(); i++) {
-            char c = glob.charAt(i);
-            switch (c) {
-                case '*':
-                    regex.append(".*");
-                    break;
-                case '?':
-                    regex.append(".");
-                    break;
-                case '.':
-                    regex.append("\\.");
-                    break;
-                case '/':
-                    regex.append("\\/");
-                    break;
-                default:
-                    regex.append(c);
-            }
-        }
-        regex.append("$");
-        return regex.toString();
+    public AddCommand() {
+        this(Paths.get(""));
     }
 
     /**
-     * Handles the addition of a binary file to the staging area.
+     * Executes the add command to stage a file for commit.
+     * <p>
+     * Files larger than {@link com.pesapal.felixvcs.core.ChunkList#THRESHOLD} are staged as a
+     * chunk list, so only the chunks that changed since an earlier version are written.
      *
-     * @param filePath The path of the binary file.
+     * @param filePath The path of the file to add.
      * @throws IOException If an I/O error occurs during file operations.
      */
-    private void handleBinaryFile(String filePath) throws IOException {
-        System.out.println("Adding binary file " + filePath);
-        byte[] content = Files.readAllBytes(Paths.get(filePath));
-        String blobHash = HashUtils.sha1(content);
-
-        // Save binary blob
-        String blobPath = BLOBS_DIR + "/" + blobHash;
-        if (!FileUtils.exists(blobPath)) {
-            FileUtils.writeBinaryFile(blobPath, content);
-        }
-
-        // Update index
-        updateIndex(filePath, blobHash);
+    public void execute(String filePath) throws IOException {
+        execute(List.of(filePath));
     }
 
     /**
-     * Handles the addition of a text file to the staging area.
+     * Executes the add command to stage several files for commit, writing the index once.
      *
-     * @param filePath The path of the text file.
+     * @param filePaths The paths of the files to add.
      * @throws IOException If an I/O error occurs during file operations.
      */
-    private void handleTextFile(String filePath) throws IOException {
-        byte[] content = Files.readAllBytes(Paths.get(filePath));
-        String blobHash = HashUtils.sha1(content);
-
-        // Save text blob
-        String blobPath = BLOBS_DIR + "/" + blobHash;
-        if (!FileUtils.exists(blobPath)) {
-            FileUtils.writeToFile(blobPath, new String(content));
+    public void execute(List<String> filePaths) throws IOException {
+        // Check if repository is initialized
+        if (!FileUtils.exists(vcsPath.toString())) {
+            System.out.println("Not a FelixVersionControl repository. Use 'init' to initialize.");
+            return;
         }
 
-        // Update index
-        updateIndex(filePath, blobHash);
-
-        System.out.println("Added " + filePath);
+        List<Repository.AddResult> results = repository().add(filePaths);
+        for (int i = 0; i < filePaths.size(); i++) {
+            report(filePaths.get(i), results.get(i));
+        }
     }
 
     /**
-     * Updates the index with the given file and blob hash.
+     * Prints what was staged for one file.
      *
      * @param filePath The path of the file.
-     * @param blobHash The hash of the blob.
-     * @throws IOException If an I/O error occurs during index update.
-     */
-    private void updateIndex(String filePath, String blobHash) throws IOException {
-        Map<String, String> indexEntries = loadIndex();
-        indexEntries.put(filePath, blobHash);
-        saveIndex(indexEntries);
-    }
-
-    /**
-     * Loads the current index entries.
-     *
-     * @return A map of file paths to their blob hashes.
-     * @throws IOException If an I/O error occurs during index loading.
+     * @param result   What the repository staged for it.
      */
-    private Map<String, String> loadIndex() throws IOException {
-        Map<String, String> indexEntries = new HashMap<>();
-        if (FileUtils.exists(INDEX_FILE)) {
-            String content = FileUtils.readFile(INDEX_FILE);
-            String[] entries = content.split("\n");
-            for (String entry : entries) {
-                if (!entry.trim().isEmpty()) {
-                    String[] parts = entry.split(":", 2);
-                    if (parts.length == 2) {
-                        indexEntries.put(parts[0], parts[1]);
-                    }
-                }
+    private void report(String filePath, Repository.AddResult result) {
+        if (result.status() == Repository.AddStatus.MISSING) {
+            System.out.println("File " + filePath + " does not exist.");
+        } else if (result.status() == Repository.AddStatus.IGNORED) {
+            System.out.println("File " + filePath + " is ignored.");
+        } else if (result.status() == Repository.AddStatus.OUTSIDE_SPARSE_CHECKOUT) {
+            System.out.println("File " + filePath + " is outside the sparse-checkout patterns.");
+        } else if (!result.binary()) {
+            System.out.println("Added " + filePath);
+        } else {
+            System.out.println("Adding binary file " + filePath);
+            if (result.chunked() && result.stored() == null) {
+                System.out.println("Unchanged since it was last added");
+            } else if (result.chunked()) {
+                System.out.println("Stored " + result.stored().written() + " new of " + result.stored().chunks() + " chunks");
             }
         }
-        return indexEntries;
     }
 
     /**
-     * Saves the updated index entries back to the index file.
+     * Returns the repository, opening it on first use.
      *
-     * @param indexEntries A map of file paths to their blob hashes.
-     * @throws IOException If an I/O error occurs during index saving.
+     * @return The open repository.
+     * @throws IOException If the working directory is not a repository.
      */
-    private void saveIndex(Map<String, String> indexEntries) throws IOException {
-        StringBuilder sb = new StringBuilder();
-        for (Map.Entry<String, String> entry : indexEntries.entrySet()) {
-            sb.append(entry.getKey()).append(":").append(entry.getValue()).append("\n");
-        }
-        FileUtils.writeToFile(INDEX_FILE, sb.toString());
-    }
-
-    /**
-     * Determines if a file is binary by checking for non-text characters.
-     *
-     * @param filePath The path of the file to check.
-     * @return True if the file is binary, false otherwise.
-     * @throws IOException If an I/O error occurs during file reading.
-     */
-    private boolean isBinaryFile(String filePath) throws IOException {
-        byte[] bytes = Files.readAllBytes(Paths.get(filePath));
-        int binaryThreshold = 512; // Number of bytes to check
-
-        for (int i = 0; i < Math.min(bytes.length, binaryThreshold); i++) {
-            byte b = bytes[i];
-            if (b == 0) {
-                return true; // Null byte detected, likely binary
-            }
+    private Repository repository() throws IOException {
+        if (repository == null) {
+            repository = Repository.open(workDir);
         }
-        return false;
+        return repository;
     }
 }
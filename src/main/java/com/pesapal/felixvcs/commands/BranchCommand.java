@@ -1,20 +1,42 @@
 package com.pesapal.felixvcs.commands;
 
+import com.pesapal.felixvcs.core.ObjectId;
+import com.pesapal.felixvcs.core.RefTransaction;
+import com.pesapal.felixvcs.core.Refs;
+import com.pesapal.felixvcs.core.Repository;
 import com.pesapal.felixvcs.utils.FileUtils;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.List;
+import java.util.Set;
 
 /**
  * Handles operations related to branches in the FelixVersionControl repository.
  * This includes listing existing branches and creating new branches.
  */
 public class BranchCommand {
-    private static final String VCS_DIR = ".felixvcs";
-    private static final String REFS_DIR = VCS_DIR + "/refs/heads";
-    private static final String HEAD_FILE = VCS_DIR + "/HEAD";
+    private final String vcsDir;
+    private final String refsDir;
+    private final String headFile;
+
+    /**
+     * Constructs a BranchCommand for the given repository data directory.
+     *
+     * @param vcsPath The repository data directory.
+     */
+    public BranchCommand(Path vcsPath) {
+        this.vcsDir = vcsPath.toString();
+        this.refsDir = vcsDir + "/refs/heads";
+        this.headFile = vcsDir + "/HEAD";
+    }
+
+    /**
+     * Default constructor that manages branches of the repository in the current working directory.
+     */
+    public BranchCommand() {
+        this(Repository.locate());
+    }
 
     /**
      * Executes the branch command based on the provided arguments.
@@ -23,7 +45,7 @@ public class BranchCommand {
      * @throws IOException If an I/O error occurs during execution.
      */
     public void execute(String[] args) throws IOException {
-        if (!FileUtils.exists(VCS_DIR)) {
+        if (!FileUtils.exists(vcsDir)) {
             System.out.println("Not a FelixVersionControl repository. Use 'init' to initialize.");
             return;
         }
@@ -48,13 +70,11 @@ public class BranchCommand {
      * @throws IOException If an I/O error occurs while listing branches.
      */
     private void listBranches() throws IOException {
-        // Retrieve all branch files in the refs/heads directory
-        List<String> branches = Files.list(Paths.get(REFS_DIR))
-                .map(path -> path.getFileName().toString())
-                .toList();
+        // Retrieve all branches, packed and loose
+        Set<String> branches = Refs.list(Paths.get(vcsDir), "refs/heads/").keySet();
 
         // Identify the current branch from the HEAD file
-        String headRef = FileUtils.readFile(HEAD_FILE).trim();
+        String headRef = FileUtils.readFile(headFile).trim();
         String currentBranch = headRef.replace("refs/heads/", "");
 
         // Display branches, marking the active one with '*'
@@ -75,23 +95,28 @@ public class BranchCommand {
      */
     private void createBranch(String branchName) throws IOException {
         // Read the current branch from HEAD
-        String headRef = FileUtils.readFile(HEAD_FILE).trim();
-        String currentBranch = headRef.replace("refs/heads/", "");
+        String headRef = FileUtils.readFile(headFile).trim();
 
         // Retrieve the latest commit hash of the current branch
-        String commitHash = FileUtils.readFile(REFS_DIR + "/" + currentBranch).trim();
+        ObjectId currentCommit = Refs.read(Paths.get(vcsDir), headRef);
+        String commitHash = currentCommit == null ? "" : currentCommit.name();
 
         // Construct the path for the new branch reference
-        String newBranchPath = REFS_DIR + "/" + branchName;
+        String newBranchPath = refsDir + "/" + branchName;
 
         // Check if the branch already exists
-        if (FileUtils.exists(newBranchPath)) {
+        if (Refs.exists(Paths.get(vcsDir), "refs/heads/" + branchName)) {
             System.out.println("Branch " + branchName + " already exists.");
             return;
         }
 
-        // Write the current commit hash to the new branch file
-        FileUtils.writeToFile(newBranchPath, commitHash);
+        // Write the current commit hash to the new branch file; a branch without commits is an empty file
+        if (currentCommit == null) {
+            FileUtils.writeRef(newBranchPath, commitHash);
+        } else if (!new RefTransaction(Paths.get(vcsDir)).create("refs/heads/" + branchName, currentCommit).commit()) {
+            System.out.println("Branch " + branchName + " already exists.");
+            return;
+        }
 
         System.out.println("Branch " + branchName + " created at commit " + commitHash);
     }
@@ -0,0 +1,256 @@
+package com.pesapal.felixvcs.commands;
+
+import com.pesapal.felixvcs.core.*;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Moves history between repositories that cannot reach each other through a single bundle file.
+ * <p>
+ * {@code bundle create} writes the commits of a revision range, together with the trees and blobs
+ * the receiver does not already get from the range's base, as a header followed by one pack.
+ * {@code bundle unbundle} checks the prerequisites, verifies and stores the objects while reading the
+ * file once, and records the bundled refs as remote-tracking refs named after the file.
+ */
+public class BundleCommand {
+    private static final String REMOTE_REFS_DIR = "refs/remotes";
+    private static final String HEADS_PREFIX = "refs/heads/";
+    private static final String TAGS_PREFIX = "refs/tags/";
+
+    private final Path vcsPath;
+
+    /**
+     * Constructs a BundleCommand for the repository in the given directory.
+     *
+     * @param vcsPath The repository data directory.
+     */
+    public BundleCommand(Path vcsPath) {
+        this.vcsPath = vcsPath;
+    }
+
+    /**
+     * Default constructor that works on the repository in the current working directory.
+     */
+    public BundleCommand() {
+        this(Repository.locate());
+    }
+
+    /**
+     * Executes the bundle command.
+     *
+     * @param args Command-line arguments: {@code create <file> <rev-range>} or {@code unbundle <file>}.
+     * @throws IOException If an I/O error occurs while writing or reading the bundle.
+     */
+    public void execute(String[] args) throws IOException {
+        if (!Files.isDirectory(vcsPath)) {
+            System.out.println("Not a FelixVersionControl repository. Use 'init' to initialize.");
+            return;
+        }
+
+        if (args.length == 3 && args[0].equals("create")) {
+            create(Paths.get(args[1]), args[2]);
+        } else if (args.length == 2 && args[0].equals("unbundle")) {
+            unbundle(Paths.get(args[1]));
+        } else {
+            printUsage();
+        }
+    }
+
+    /**
+     * Writes the history of a revision range into a bundle file.
+     *
+     * @param bundleFile The file to write.
+     * @param range      Either {@code <rev>} for the full history of a revision, or
+     *                   {@code <base>..<rev>} for the commits after the base.
+     * @throws IOException If the objects cannot be read or the file cannot be written.
+     */
+    private void create(Path bundleFile, String range) throws IOException {
+        int separator = range.indexOf("..");
+        String baseRev = separator < 0 ? null : range.substring(0, separator);
+        String tipRev = separator < 0 ? range : range.substring(separator + 2);
+
+        Map.Entry<String, ObjectId> tip = resolve(tipRev);
+        Map.Entry<String, ObjectId> base = baseRev == null ? null : resolve(baseRev);
+        if (tip == null || (baseRev != null && base == null)) {
+            return;
+        }
+
+        // Everything the base already contains stays out of the bundle
+        ObjectWalk walk = new ObjectWalk(vcsPath);
+        ObjectStore store = ObjectStores.open(vcsPath);
+        Set<ObjectId> excluded = base == null ? Set.of() : walk.ancestors(base.getValue());
+        ObjectWalk.Result result = walk.walk(List.of(tip.getValue()), 0, excluded::contains);
+        if (result.commits().isEmpty()) {
+            System.out.println("Nothing to bundle: " + tipRev + " is already contained in " + baseRev + ".");
+            return;
+        }
+
+        // The receiver has the prerequisite commits, and with them their trees and blobs
+        List<ObjectId> prerequisites = new ArrayList<>();
+        for (ObjectId edge : result.edges()) {
+            if (store.has(ObjectType.COMMIT, edge)) {
+                prerequisites.add(edge);
+            }
+        }
+        ObjectWalk.Result known = walk.walk(prerequisites, 1, hash -> false);
+        Map<ObjectType, List<ObjectId>> objects = new EnumMap<>(ObjectType.class);
+        objects.put(ObjectType.COMMIT, new ArrayList<>(result.commits()));
+        objects.put(ObjectType.TREE, without(result.trees(), known.trees()));
+        objects.put(ObjectType.BLOB, without(result.blobs(), known.blobs()));
+        objects.put(ObjectType.CHUNK_LIST, without(result.chunkLists(), known.chunkLists()));
+
+        Bundle.Header header = new Bundle.Header(new LinkedHashSet<>(result.edges()), Map.of(tip.getKey(), tip.getValue()));
+        int count;
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(bundleFile), 64 * 1024)) {
+            Bundle.writeHeader(out, header);
+            count = PackWriter.write(store, objects, out);
+        }
+        System.out.println("Bundled " + ObjectTransfer.summarize(count, objects) + " into " + bundleFile);
+        if (!header.prerequisites().isEmpty()) {
+            System.out.println("The receiving repository must already have: " + names(header.prerequisites()));
+        }
+    }
+
+    /**
+     * Verifies a bundle file, stores its objects and records its refs.
+     *
+     * @param bundleFile The bundle to read.
+     * @throws IOException If the bundle is invalid or the objects cannot be stored.
+     */
+    private void unbundle(Path bundleFile) throws IOException {
+        if (!Files.isRegularFile(bundleFile)) {
+            System.out.println("Bundle " + bundleFile + " does not exist.");
+            return;
+        }
+
+        int received;
+        Bundle.Header header;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(bundleFile), 64 * 1024)) {
+            header = Bundle.readHeader(in);
+            ObjectStore store = ObjectStores.open(vcsPath);
+            List<ObjectId> missing = new ArrayList<>();
+            for (ObjectId prerequisite : header.prerequisites()) {
+                if (!store.has(ObjectType.COMMIT, prerequisite)) {
+                    missing.add(prerequisite);
+                }
+            }
+            if (!missing.isEmpty()) {
+                System.out.println("Repository lacks the prerequisite commits: " + names(missing));
+                return;
+            }
+            received = store.insertPack(in);
+        }
+
+        // A fresh store sees the pack that was just stored
+        ObjectStore store = ObjectStores.open(vcsPath);
+
+        String remoteName = bundleFile.getFileName().toString().replaceFirst("\\.[^.]*$", "");
+        System.out.println("Received " + received + " objects from " + bundleFile);
+        RefTransaction transaction = new RefTransaction(vcsPath);
+        List<String> updated = new ArrayList<>();
+        for (Map.Entry<String, ObjectId> ref : header.refs().entrySet()) {
+            if (!store.has(ObjectType.COMMIT, ref.getValue())) {
+                System.out.println("Bundle does not contain commit " + ref.getValue() + " for " + ref.getKey() + ".");
+                continue;
+            }
+            String name = shortName(ref.getKey());
+            String refName = REMOTE_REFS_DIR + "/" + remoteName + "/" + name;
+            transaction.update(refName, Refs.read(vcsPath, refName), ref.getValue());
+            updated.add("  " + ref.getValue() + "  " + ref.getKey() + " -> " + remoteName + "/" + name);
+        }
+        if (!transaction.commit()) {
+            System.out.println(" ! [rejected]  " + String.join(", ", transaction.getRejected())
+                    + " (updated by another process); unbundle again.");
+            return;
+        }
+        updated.forEach(System.out::println);
+    }
+
+    /**
+     * Resolves a branch, tag or commit hash.
+     *
+     * @param rev The revision to resolve.
+     * @return The ref name and commit hash, or null if the revision does not name a commit.
+     * @throws IOException If a ref cannot be read.
+     */
+    private Map.Entry<String, ObjectId> resolve(String rev) throws IOException {
+        for (String prefix : List.of(HEADS_PREFIX, TAGS_PREFIX)) {
+            if (Refs.exists(vcsPath, prefix + rev)) {
+                ObjectId commitHash = Refs.read(vcsPath, prefix + rev);
+                if (commitHash == null) {
+                    System.out.println("Branch " + rev + " has no commits.");
+                    return null;
+                }
+                return Map.entry(prefix + rev, commitHash);
+            }
+        }
+        try {
+            ObjectId commitHash = ObjectId.fromHex(rev);
+            if (ObjectStores.open(vcsPath).has(ObjectType.COMMIT, commitHash)) {
+                return Map.entry("HEAD", commitHash);
+            }
+        } catch (IllegalArgumentException e) {
+            // Not a commit hash either
+        }
+        System.out.println("Revision " + rev + " does not exist.");
+        return null;
+    }
+
+    /**
+     * Strips the {@code refs/heads/} or {@code refs/tags/} prefix from a ref name.
+     *
+     * @param refName The full ref name.
+     * @return The short name.
+     */
+    private String shortName(String refName) {
+        if (refName.startsWith(HEADS_PREFIX)) {
+            return refName.substring(HEADS_PREFIX.length());
+        }
+        if (refName.startsWith(TAGS_PREFIX)) {
+            return refName.substring(TAGS_PREFIX.length());
+        }
+        return refName;
+    }
+
+    /**
+     * Returns the hashes of one set that are not in another.
+     *
+     * @param hashes   The candidate hashes.
+     * @param excluded The hashes to leave out.
+     * @return The remaining hashes.
+     */
+    private List<ObjectId> without(Set<ObjectId> hashes, Set<ObjectId> excluded) {
+        List<ObjectId> remaining = new ArrayList<>();
+        for (ObjectId hash : hashes) {
+            if (!excluded.contains(hash)) {
+                remaining.add(hash);
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * Lists commit hashes for a message.
+     *
+     * @param hashes The commit hashes.
+     * @return The hashes separated by commas.
+     */
+    private String names(Collection<ObjectId> hashes) {
+        return hashes.stream().map(ObjectId::name).collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Prints usage instructions for the bundle command.
+     */
+    private void printUsage() {
+        System.out.println("Usage:");
+        System.out.println("  bundle create <file> <rev>          # Bundle the full history of a branch, tag or commit");
+        System.out.println("  bundle create <file> <base>..<rev>  # Bundle only the commits after base");
+        System.out.println("  bundle unbundle <file>              # Verify a bundle and store its objects and refs");
+    }
+}
@@ -1,75 +1,256 @@
 package com.pesapal.felixvcs.commands;
 
+import com.pesapal.felixvcs.core.Checkout;
+import com.pesapal.felixvcs.core.FileHashCache;
+import com.pesapal.felixvcs.core.ObjectId;
+import com.pesapal.felixvcs.core.ObjectStore;
+import com.pesapal.felixvcs.core.ObjectStores;
+import com.pesapal.felixvcs.core.ObjectType;
+import com.pesapal.felixvcs.core.ObjectWalk;
+import com.pesapal.felixvcs.core.Pack;
+import com.pesapal.felixvcs.core.Remote;
+import com.pesapal.felixvcs.core.Repository;
+import com.pesapal.felixvcs.core.Shallow;
+import com.pesapal.felixvcs.core.SparseCheckout;
+import com.pesapal.felixvcs.core.Tree;
+import com.pesapal.felixvcs.utils.Durability;
 import com.pesapal.felixvcs.utils.FileUtils;
+import com.pesapal.felixvcs.utils.Progress;
 
 import java.io.IOException;
 import java.nio.file.*;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Stream;
 
 /**
  * Handles the cloning of a FelixVersionControl repository.
- * Copies the repository data and the working directory to a new location.
+ * Copies the repository data to a new location and checks out the HEAD commit from it.
  */
 public class CloneCommand {
     private static final String VCS_DIR = ".felixvcs";
+    private static final String INDEX_FILE = "index";
+
+    // Per-clone working state that is not part of the repository data
+    private static final Set<String> WORKING_STATE = Set.of(INDEX_FILE, "stash", "sparse-checkout", "blob-cache", FileHashCache.CACHE_FILE);
+
+    // Object directories that a shallow clone fills selectively
+    private static final Set<String> OBJECT_DIRS = Set.of("commits", "trees", "blobs", "chunklists", Pack.PACKS_DIR);
 
     /**
-     * Executes the clone operation by copying the repository data and the working directory.
+     * Executes the clone operation by copying the repository data and materializing the
+     * working directory from the HEAD commit's tree.
      *
      * @param sourcePath      The path to the source repository.
      * @param destinationPath The path where the repository should be cloned.
      * @throws IOException If an I/O error occurs during cloning.
      */
     public void execute(String sourcePath, String destinationPath) throws IOException {
-        String sourceVcsPath = sourcePath + "/" + VCS_DIR;
-        String destinationVcsPath = destinationPath + "/" + VCS_DIR;
+        execute(sourcePath, destinationPath, 0);
+    }
+
+    /**
+     * Executes the clone operation, optionally truncating the copied history.
+     * <p>
+     * With a positive depth only the newest {@code depth} commits of every branch and tag are
+     * copied, together with the trees and blobs they reference. The commits whose parents were
+     * left out are recorded as the shallow boundary of the clone.
+     *
+     * @param sourcePath      The path to the source repository.
+     * @param destinationPath The path where the repository should be cloned.
+     * @param depth           The number of commits to keep per ref; zero or less for full history.
+     * @throws IOException If an I/O error occurs during cloning.
+     */
+    public void execute(String sourcePath, String destinationPath, int depth) throws IOException {
+        execute(sourcePath, destinationPath, depth, List.of());
+    }
+
+    /**
+     * Executes the clone operation, optionally truncating the copied history and restricting the
+     * checked-out files.
+     * <p>
+     * Sparse patterns are stored in the clone and only matching paths are materialized. The full
+     * object store is still copied so commits carry every file forward and the patterns can be widened later.
+     *
+     * @param sourcePath      The path to the source repository.
+     * @param destinationPath The path where the repository should be cloned.
+     * @param depth           The number of commits to keep per ref; zero or less for full history.
+     * @param sparsePatterns  The sparse-checkout patterns; empty to check out every file.
+     * @throws IOException If an I/O error occurs during cloning.
+     */
+    public void execute(String sourcePath, String destinationPath, int depth, List<String> sparsePatterns) throws IOException {
+        execute(sourcePath, destinationPath, depth, sparsePatterns, false);
+    }
 
+    /**
+     * Executes the clone operation, optionally creating a bare repository.
+     * <p>
+     * A bare clone copies only the repository data, directly into the destination directory, and
+     * skips the index, sparse patterns and checkout; it suits shared and mirror copies. The source
+     * may itself be bare.
+     *
+     * @param sourcePath      The path to the source repository.
+     * @param destinationPath The path where the repository should be cloned.
+     * @param depth           The number of commits to keep per ref; zero or less for full history.
+     * @param sparsePatterns  The sparse-checkout patterns; empty to check out every file. Ignored for bare clones.
+     * @param bare            True to clone without a working directory.
+     * @throws IOException If an I/O error occurs during cloning.
+     */
+    public void execute(String sourcePath, String destinationPath, int depth, List<String> sparsePatterns,
+                        boolean bare) throws IOException {
         // Validate source repository
-        if (!FileUtils.exists(sourceVcsPath)) {
+        Path sourceVcsPathObj = Repository.find(Paths.get(sourcePath));
+        if (sourceVcsPathObj == null) {
             System.out.println("Source path is not a FelixVersionControl repository.");
             return;
         }
 
         // Check if destination already has a repository
-        if (FileUtils.exists(destinationVcsPath)) {
+        Path destinationVcsPathObj = bare ? Paths.get(destinationPath) : Paths.get(destinationPath, VCS_DIR);
+        Path existing = bare ? destinationVcsPathObj.resolve("HEAD") : destinationVcsPathObj;
+        if (FileUtils.exists(existing.toString())) {
             System.out.println("Destination path already has a FelixVersionControl repository.");
             return;
         }
 
-        // Define paths to exclude during working directory copy
-        Set<String> excludePaths = new HashSet<>();
-        excludePaths.add(VCS_DIR); // Exclude .felixvcs directory
+        // A failed clone removes what it created, keeping whatever the destination held before
+        Path destinationDir = Paths.get(destinationPath);
+        boolean createdDestination = !Files.exists(destinationDir);
+        Set<Path> existingEntries = new HashSet<>();
+        if (!createdDestination) {
+            try (Stream<Path> entries = Files.list(destinationDir)) {
+                entries.forEach(entry -> existingEntries.add(entry.getFileName()));
+            }
+        }
 
         try {
-            // Clone working directory files excluding .felixvcs
-            System.out.println("Cloning working directory...");
-            Path sourcePathObj = Paths.get(sourcePath);
-            Path destinationPathObj = Paths.get(destinationPath);
+            // Clone the repository data, leaving out the source's staging area and stashes
+            System.out.println("Cloning repository data...");
 
-            // Step 1: Count total files to copy
-            long totalFiles = countFiles(sourcePathObj, excludePaths);
-            if (totalFiles == 0) totalFiles = 1; // Prevent division by zero
+            if (depth > 0) {
+                cloneShallow(sourceVcsPathObj, destinationVcsPathObj, depth);
+            } else {
+                long vcsTotalFiles = countFiles(sourceVcsPathObj, WORKING_STATE);
+                if (vcsTotalFiles == 0) vcsTotalFiles = 1;
 
-            // Step 2: Copy files with progress
-            copyDirectoryWithProgress(sourcePathObj, destinationPathObj, excludePaths, totalFiles);
+                copyDirectoryWithProgress(sourceVcsPathObj, destinationVcsPathObj, WORKING_STATE, vcsTotalFiles);
+            }
+            // The copied refs must not reach disk before the objects they point to
+            Durability.flush();
+            Remote.save(destinationVcsPathObj, "origin", Paths.get(sourcePath));
+            if (bare) {
+                System.out.println("Successfully cloned bare repository from " + sourcePath + " to " + destinationPath);
+                return;
+            }
+            FileUtils.writeToFile(destinationVcsPathObj.resolve(INDEX_FILE).toString(), "");
+            SparseCheckout.save(destinationVcsPathObj, sparsePatterns);
 
-            // Clone .felixvcs directory
-            System.out.println("\nCloning repository data...");
-            Path sourceVcsPathObj = Paths.get(sourceVcsPath);
-            Path destinationVcsPathObj = Paths.get(destinationVcsPath);
+            // Materialize the working directory from the cloned object store
+            Checkout checkout = new Checkout(destinationVcsPathObj, Paths.get(destinationPath));
+            Tree headTree = checkout.loadHeadTree();
+            if (headTree != null) {
+                try (Progress progress = Progress.start("Checking out files", headTree.getFiles().size())) {
+                    checkout.materialize(headTree, progress);
+                }
+            }
 
-            long vcsTotalFiles = countFiles(sourceVcsPathObj, Set.of());
-            if (vcsTotalFiles == 0) vcsTotalFiles = 1;
+            System.out.println("Successfully cloned repository from " + sourcePath + " to " + destinationPath);
+        } catch (IOException | RuntimeException e) {
+            try {
+                removePartialClone(destinationDir, createdDestination, existingEntries);
+            } catch (IOException cleanup) {
+                e.addSuppressed(cleanup);
+            }
+            throw e;
+        }
+    }
 
-            copyDirectoryWithProgress(sourceVcsPathObj, destinationVcsPathObj, Set.of(), vcsTotalFiles);
+    /**
+     * Deletes the files a failed clone created in its destination.
+     *
+     * @param destinationDir     The destination directory.
+     * @param createdDestination Whether the clone created the directory itself, which is then removed too.
+     * @param existingEntries    Names of the entries the directory held before the clone; they are kept.
+     * @throws IOException If a file cannot be deleted.
+     */
+    private void removePartialClone(Path destinationDir, boolean createdDestination, Set<Path> existingEntries) throws IOException {
+        if (!Files.exists(destinationDir)) {
+            return;
+        }
+        List<Path> created;
+        try (Stream<Path> paths = Files.walk(destinationDir)) {
+            created = paths
+                    .filter(path -> !path.equals(destinationDir))
+                    .filter(path -> !existingEntries.contains(destinationDir.relativize(path).getName(0)))
+                    .sorted(Comparator.reverseOrder())
+                    .toList();
+        }
+        for (Path path : created) {
+            Files.deleteIfExists(path);
+        }
+        if (createdDestination) {
+            Files.deleteIfExists(destinationDir);
+        }
+    }
 
-            System.out.println("\nSuccessfully cloned repository from " + sourcePath + " to " + destinationPath);
-        } catch (RuntimeException e) {
-            System.err.println("Error during cloning: " + e.getMessage());
-            // Optionally, implement rollback logic here
+    /**
+     * Tells whether a file of the source repository belongs to a write still in progress, or left
+     * behind by one that crashed: a lock file, a temporary file of an atomic write or a pack being stored.
+     *
+     * @param relativePath The file path relative to the repository data directory.
+     * @return True if the file must not be copied.
+     */
+    private static boolean isTransient(Path relativePath) {
+        String name = relativePath.getFileName().toString();
+        if (name.endsWith(".lock") || (name.startsWith(".") && name.contains(".tmp-"))) {
+            return true;
         }
+        return relativePath.getNameCount() == 2 && relativePath.getName(0).toString().equals(Pack.PACKS_DIR)
+                && name.startsWith("tmp-");
+    }
+
+    /**
+     * Copies the refs and configuration of the source repository, then only the objects reachable
+     * within the given depth from its branches and tags.
+     *
+     * @param sourceVcs      The source repository data directory.
+     * @param destinationVcs The destination repository data directory.
+     * @param depth          The number of commits to keep per ref.
+     * @throws IOException If an I/O error occurs while walking or copying.
+     */
+    private void cloneShallow(Path sourceVcs, Path destinationVcs, int depth) throws IOException {
+        Set<String> excludePaths = new HashSet<>(WORKING_STATE);
+        excludePaths.addAll(OBJECT_DIRS);
+        copyDirectoryWithProgress(sourceVcs, destinationVcs, excludePaths, Math.max(1, countFiles(sourceVcs, excludePaths)));
+
+        ObjectWalk walk = new ObjectWalk(sourceVcs);
+        ObjectWalk.Result result = walk.walk(walk.refTips(), depth, hash -> false);
+
+        Map<ObjectType, Set<ObjectId>> objects = result.objects();
+        long totalObjects = result.size();
+        long copiedObjects = 0;
+
+        // Objects may be loose or packed in the source; the clone writes them to its own store,
+        // which already has the blobs when both share a remote blob store
+        ObjectStore source = ObjectStores.open(sourceVcs);
+        ObjectStore destination = ObjectStores.open(destinationVcs);
+        try (Progress progress = Progress.start("Copying objects", totalObjects)) {
+            for (Map.Entry<ObjectType, Set<ObjectId>> entry : objects.entrySet()) {
+                for (ObjectId hash : entry.getValue()) {
+                    if (!destination.has(entry.getKey(), hash)) {
+                        destination.write(entry.getKey(), source.read(entry.getKey(), hash));
+                    }
+                    copiedObjects++;
+                    progress.update(copiedObjects, totalObjects);
+                }
+            }
+        }
+
+        Shallow.write(destinationVcs, result.shallow());
+        System.out.println("Cloned " + result.commits().size() + " commits at depth " + depth);
     }
 
     /**
@@ -86,6 +267,9 @@ public class CloneCommand {
                     .filter(Files::isRegularFile)
                     .filter(path -> {
                         Path relativePath = source.relativize(path);
+                        if (isTransient(relativePath)) {
+                            return false;
+                        }
                         for (String exclude : excludePathsSet) {
                             if (relativePath.toString().startsWith(exclude)) {
                                 return false; // Exclude this file
@@ -108,7 +292,8 @@ public class CloneCommand {
     private void copyDirectoryWithProgress(Path source, Path destination, Set<String> excludePathsSet, long totalFiles) {
         final long[] copiedFiles = {0};
 
-        try (Stream<Path> paths = Files.walk(source)) {
+        try (Progress progress = Progress.start("Copying repository data", totalFiles);
+             Stream<Path> paths = Files.walk(source)) {
             paths.forEach(src -> {
                 Path relativePath = source.relativize(src);
                 String relativePathStr = relativePath.toString();
@@ -126,12 +311,11 @@ public class CloneCommand {
                         if (!Files.exists(dest)) {
                             Files.createDirectories(dest);
                         }
-                    } else {
+                    } else if (!isTransient(relativePath)) {
                         Files.copy(src, dest, StandardCopyOption.REPLACE_EXISTING);
+                        Durability.track(dest);
                         copiedFiles[0]++;
-                        // Update progress
-                        int progress = (int) ((copiedFiles[0] * 100) / totalFiles);
-                        System.out.print("\rProgress: " + progress + "%");
+                        progress.update(copiedFiles[0], totalFiles);
                     }
                 } catch (IOException e) {
                     throw new RuntimeException("Error copying " + src + " to " + dest, e);
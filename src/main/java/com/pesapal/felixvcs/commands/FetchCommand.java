@@ -0,0 +1,138 @@
+package com.pesapal.felixvcs.commands;
+
+import com.pesapal.felixvcs.core.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Fetches new commits from another repository on the local file system.
+ * <p>
+ * The remote's commits are walked from its branch tips and the walk stops at the first commit the
+ * local repository already has, so only new history is transferred. The missing commits, trees and
+ * blobs travel as a single pack, and the remote's branches are recorded as remote-tracking refs
+ * under {@code refs/remotes/<remote>/}.
+ */
+public class FetchCommand {
+    private static final String REFS_DIR = "refs/heads";
+    private static final String REMOTE_REFS_DIR = "refs/remotes";
+
+    private final Path vcsPath;
+
+    /**
+     * Constructs a FetchCommand for the repository in the given directory.
+     *
+     * @param vcsPath The local repository data directory.
+     */
+    public FetchCommand(Path vcsPath) {
+        this.vcsPath = vcsPath;
+    }
+
+    /**
+     * Default constructor that fetches into the repository in the current working directory.
+     */
+    public FetchCommand() {
+        this(Repository.locate());
+    }
+
+    /**
+     * Executes the fetch command.
+     *
+     * @param args Command-line arguments: the remote name or path, and optionally a branch.
+     * @throws IOException If an I/O error occurs while transferring objects or updating refs.
+     */
+    public void execute(String[] args) throws IOException {
+        if (!Files.isDirectory(vcsPath)) {
+            System.out.println("Not a FelixVersionControl repository. Use 'init' to initialize.");
+            return;
+        }
+        if (args.length < 1) {
+            System.out.println("Usage: fetch <remote-or-path> [branch]");
+            return;
+        }
+
+        Remote remote = Remote.resolve(vcsPath, args[0]);
+        if (remote == null) {
+            System.out.println(args[0] + " is not a FelixVersionControl repository.");
+            return;
+        }
+
+        // Wants: the remote branch tips to fetch
+        Map<String, ObjectId> wanted = readBranches(remote.getVcsDir());
+        if (args.length > 1) {
+            String branch = args[1];
+            if (!wanted.containsKey(branch)) {
+                System.out.println("Remote branch " + branch + " does not exist.");
+                return;
+            }
+            ObjectId tip = wanted.get(branch);
+            wanted = new HashMap<>();
+            wanted.put(branch, tip);
+        }
+        wanted.values().removeIf(Objects::isNull);
+
+        // Haves: stop the walk at commits the local repository already holds
+        ObjectWalk walk = new ObjectWalk(remote.getVcsDir());
+        ObjectStore local = ObjectStores.open(vcsPath);
+        ObjectWalk.Result result = walk.walk(wanted.values(),
+                ObjectTransfer.sharedTips(vcsPath, ObjectStores.open(remote.getVcsDir())),
+                hash -> local.has(ObjectType.COMMIT, hash));
+
+        Map<ObjectType, List<ObjectId>> missing = ObjectTransfer.missing(local, result);
+        int received = ObjectTransfer.send(remote.getVcsDir(), vcsPath, missing);
+
+        // Commits whose parents the remote itself does not have stay shallow locally
+        if (!result.shallow().isEmpty()) {
+            Set<ObjectId> shallow = Shallow.read(vcsPath);
+            shallow.addAll(result.shallow());
+            Shallow.write(vcsPath, shallow);
+        }
+
+        System.out.println("Received " + ObjectTransfer.summarize(received, missing) + " from " + remote.getName());
+        updateRemoteRefs(remote.getName(), wanted);
+    }
+
+    /**
+     * Records the fetched branch tips as remote-tracking refs and reports what changed.
+     *
+     * @param remoteName The remote name.
+     * @param branches   The fetched branch names and commit hashes.
+     * @throws IOException If a ref cannot be written.
+     */
+    private void updateRemoteRefs(String remoteName, Map<String, ObjectId> branches) throws IOException {
+        // All remote-tracking refs move together, or none do if a concurrent fetch moved one
+        RefTransaction transaction = new RefTransaction(vcsPath);
+        List<String> updated = new ArrayList<>();
+        for (Map.Entry<String, ObjectId> branch : new TreeMap<>(branches).entrySet()) {
+            String refName = REMOTE_REFS_DIR + "/" + remoteName + "/" + branch.getKey();
+            ObjectId oldHash = Refs.read(vcsPath, refName);
+            ObjectId newHash = branch.getValue();
+            if (newHash.equals(oldHash)) {
+                continue;
+            }
+            transaction.update(refName, oldHash, newHash);
+            String range = oldHash == null ? "[new branch]" : oldHash + ".." + newHash;
+            updated.add("  " + range + "  " + branch.getKey() + " -> " + remoteName + "/" + branch.getKey());
+        }
+
+        if (!transaction.commit()) {
+            System.out.println(" ! [rejected]  " + String.join(", ", transaction.getRejected())
+                    + " (updated by another process); fetch again.");
+            return;
+        }
+        updated.forEach(System.out::println);
+    }
+
+    /**
+     * Reads the branch tips of a repository.
+     *
+     * @param repoVcs The repository data directory.
+     * @return A map of branch names to commit hashes; null for branches without commits.
+     * @throws IOException If a ref cannot be read.
+     */
+    private Map<String, ObjectId> readBranches(Path repoVcs) throws IOException {
+        return new HashMap<>(Refs.list(repoVcs, REFS_DIR + "/"));
+    }
+}
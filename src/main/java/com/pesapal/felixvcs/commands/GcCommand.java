@@ -0,0 +1,51 @@
+package com.pesapal.felixvcs.commands;
+
+import com.pesapal.felixvcs.core.GarbageCollector;
+import com.pesapal.felixvcs.core.Repository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Packs the reachable objects of the repository and writes reachability bitmaps for them.
+ */
+public class GcCommand {
+    private final Path vcsPath;
+
+    /**
+     * Constructs a GcCommand for the given repository data directory.
+     *
+     * @param vcsPath The repository data directory.
+     */
+    public GcCommand(Path vcsPath) {
+        this.vcsPath = vcsPath;
+    }
+
+    /**
+     * Default constructor that works on the repository in the current working directory.
+     */
+    public GcCommand() {
+        this(Repository.locate());
+    }
+
+    /**
+     * Executes the gc command.
+     *
+     * @throws IOException If an object is missing or the pack cannot be written.
+     */
+    public void execute() throws IOException {
+        if (!Files.isDirectory(vcsPath)) {
+            System.out.println("Not a FelixVersionControl repository. Use 'init' to initialize.");
+            return;
+        }
+
+        GarbageCollector.Summary summary = new GarbageCollector(vcsPath).collect();
+        if (summary.packFile() == null) {
+            System.out.println("Nothing to pack.");
+            return;
+        }
+        System.out.println("Packed " + summary.objects() + " objects into " + summary.packFile().getFileName()
+                + " with " + summary.bitmaps() + " reachability bitmaps.");
+    }
+}
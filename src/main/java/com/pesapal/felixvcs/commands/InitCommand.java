@@ -1,5 +1,6 @@
 package com.pesapal.felixvcs.commands;
 
+import com.pesapal.felixvcs.core.HashAlgorithm;
 import com.pesapal.felixvcs.utils.FileUtils;
 
 import java.io.IOException;
@@ -23,6 +24,8 @@ public class InitCommand {
     private static final String IGNORE_FILE = VCS_DIR + "/ignore";
 
     private final Path baseDir;
+    private final boolean bare;
+    private final HashAlgorithm algorithm;
 
     /**
      * Constructs an InitCommand with a specified base directory.
@@ -30,7 +33,34 @@ public class InitCommand {
      * @param baseDir The directory where the repository should be initialized.
      */
     public InitCommand(Path baseDir) {
+        this(baseDir, false);
+    }
+
+    /**
+     * Constructs an InitCommand that optionally creates a bare repository.
+     * <p>
+     * A bare repository stores its data directly in the base directory and has no working
+     * directory, index or ignore file; it is meant to be pushed to and fetched from.
+     *
+     * @param baseDir The directory where the repository should be initialized.
+     * @param bare    True to create a bare repository.
+     */
+    public InitCommand(Path baseDir, boolean bare) {
+        this(baseDir, bare, HashAlgorithm.DEFAULT);
+    }
+
+    /**
+     * Constructs an InitCommand that names the repository's objects with the given hash function.
+     * The choice is permanent for the repository and every clone of it.
+     *
+     * @param baseDir   The directory where the repository should be initialized.
+     * @param bare      True to create a bare repository.
+     * @param algorithm The hash function for object names.
+     */
+    public InitCommand(Path baseDir, boolean bare, HashAlgorithm algorithm) {
         this.baseDir = baseDir;
+        this.bare = bare;
+        this.algorithm = algorithm;
     }
 
     /**
@@ -46,10 +76,11 @@ public class InitCommand {
      * @throws IOException If an I/O error occurs during initialization.
      */
     public void execute() throws IOException {
-        Path vcsPath = baseDir.resolve(VCS_DIR);
+        Path vcsPath = bare ? baseDir : baseDir.resolve(VCS_DIR);
 
-        // Check if repository already exists
-        if (FileUtils.exists(vcsPath.toString())) {
+        // Check if repository already exists; a bare repository may go into an existing empty directory
+        Path existing = bare ? vcsPath.resolve("HEAD") : vcsPath;
+        if (FileUtils.exists(existing.toString())) {
             System.out.println("Repository already initialized.");
             return;
         }
@@ -57,17 +88,23 @@ public class InitCommand {
         // Create directory structure for the repository
         createRepositoryStructure(vcsPath);
 
+        // Record the hash function that names the repository's objects
+        algorithm.writeTo(vcsPath);
+
         // Initialize HEAD to point to the "master" branch
         initializeHeadFile(vcsPath);
 
         // Create master branch with no commits
         initializeBranch(vcsPath);
 
-        // Initialize empty index and ignore files
-        initializeEmptyFiles(vcsPath);
+        // Initialize empty index and ignore files; a bare repository has no working directory to track
+        if (!bare) {
+            initializeEmptyFiles(vcsPath);
+        }
 
         // Print success message
-        System.out.println("Initialized empty FelixVersionControl repository in " + vcsPath.toAbsolutePath());
+        System.out.println("Initialized empty " + (bare ? "bare " : "") + "FelixVersionControl repository in "
+                + vcsPath.toAbsolutePath());
     }
 
     /**
@@ -1,21 +1,38 @@
 package com.pesapal.felixvcs.commands;
 
-import com.pesapal.felixvcs.core.Commit;
-import com.pesapal.felixvcs.core.Tree;
+import com.pesapal.felixvcs.core.ObjectId;
+import com.pesapal.felixvcs.core.Repository;
+import com.pesapal.felixvcs.core.Shallow;
 import com.pesapal.felixvcs.utils.FileUtils;
 
 import java.io.IOException;
-import java.util.*;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
  * Handles the merging of two branches, resolving any conflicts where necessary.
  */
 public class MergeCommand {
     private static final String VCS_DIR = ".felixvcs";
-    private static final String COMMITS_DIR = VCS_DIR + "/commits";
-    private static final String REFS_DIR = VCS_DIR + "/refs/heads";
-    private static final String HEAD_FILE = VCS_DIR + "/HEAD";
-    private static final String TREES_DIR = VCS_DIR + "/trees";
+
+    private final Path vcsPath;
+    private Repository repository; // Opened on first use
+
+    /**
+     * Constructs a MergeCommand for the given repository data directory.
+     *
+     * @param vcsPath The repository data directory.
+     */
+    public MergeCommand(Path vcsPath) {
+        this.vcsPath = vcsPath;
+    }
+
+    /**
+     * Default constructor that merges in the repository of the current working directory.
+     */
+    public MergeCommand() {
+        this(Paths.get(VCS_DIR));
+    }
 
     /**
      * Executes the merge operation by combining the changes from a source branch into the current branch.
@@ -24,51 +41,30 @@ public class MergeCommand {
      * @throws IOException If an I/O error occurs during the merge process.
      */
     public void execute(String sourceBranch) throws IOException {
-        if (!FileUtils.exists(VCS_DIR)) {
+        if (!FileUtils.exists(vcsPath.toString())) {
             System.out.println("Not a FelixVersionControl repository. Use 'init' to initialize.");
             return;
         }
 
-        // Load current HEAD and branch details
-        String headRef = FileUtils.readFile(HEAD_FILE).trim();
-        String currentBranch = headRef.replace("refs/heads/", "");
-        String currentCommitHash = FileUtils.readFile(REFS_DIR + "/" + currentBranch).trim();
-
-        // Load source branch details
-        if (!FileUtils.exists(REFS_DIR + "/" + sourceBranch)) {
+        Repository.MergeResult result = repository().merge(sourceBranch);
+        if (result.status() == Repository.MergeStatus.NO_SUCH_BRANCH) {
             System.out.println("Branch " + sourceBranch + " does not exist.");
-            return;
-        }
-        String sourceCommitHash = FileUtils.readFile(REFS_DIR + "/" + sourceBranch).trim();
-        if (sourceCommitHash.isEmpty()) {
+        } else if (result.status() == Repository.MergeStatus.NO_COMMITS) {
             System.out.println("Source branch " + sourceBranch + " has no commits.");
-            return;
-        }
-
-        // Find the common ancestor commit
-        String commonAncestor = findCommonAncestor(currentCommitHash, sourceCommitHash);
-        if (commonAncestor == null) {
+        } else if (result.status() == Repository.MergeStatus.NO_COMMON_ANCESTOR) {
             System.out.println("No common ancestor found between branches.");
-            return;
-        }
-
-        // Load trees for ancestor, current branch, and source branch
-        Tree ancestorTree = loadTree(commonAncestor);
-        Tree currentTree = loadTree(currentCommitHash);
-        Tree sourceTree = loadTree(sourceCommitHash);
-
-        // Detect conflicts between trees
-        Set<String> conflicts = detectConflicts(ancestorTree, currentTree, sourceTree);
-        if (!conflicts.isEmpty()) {
+            if (!Shallow.read(vcsPath).isEmpty()) {
+                System.out.println("The repository is shallow; the merge base may be beyond the shallow boundary.");
+            }
+        } else if (result.status() == Repository.MergeStatus.CONFLICTS) {
             System.out.println("Merge conflicts detected in the following files:");
-            conflicts.forEach(file -> System.out.println(" - " + file));
+            result.conflicts().forEach(file -> System.out.println(" - " + file));
             System.out.println("Please resolve conflicts manually.");
-            return;
+        } else if (result.status() == Repository.MergeStatus.REJECTED) {
+            System.out.println("Branch " + result.branch() + " was updated by another process; merge again.");
+        } else {
+            System.out.println("Merged branch " + sourceBranch + " into " + result.branch() + " successfully.");
         }
-
-        // No conflicts; merge by updating the current branch to point to the source branch's commit
-        FileUtils.writeToFile(REFS_DIR + "/" + currentBranch, sourceCommitHash);
-        System.out.println("Merged branch " + sourceBranch + " into " + currentBranch + " successfully.");
     }
 
     /**
@@ -79,89 +75,20 @@ public class MergeCommand {
      * @return The hash of the common ancestor commit, or null if none is found.
      * @throws IOException If an I/O error occurs during the search.
      */
-    private String findCommonAncestor(String commit1, String commit2) throws IOException {
-        Set<String> ancestors1 = getAllAncestors(commit1);
-        Set<String> ancestors2 = getAllAncestors(commit2);
-
-        for (String ancestor : ancestors1) {
-            if (ancestors2.contains(ancestor)) {
-                return ancestor;
-            }
-        }
-        return null;
-    }
-
-    /**
-     * Retrieves all ancestor commits for a given commit hash.
-     *
-     * @param commitHash The commit hash.
-     * @return A set of all ancestor commit hashes.
-     * @throws IOException If an I/O error occurs during traversal.
-     */
-    private Set<String> getAllAncestors(String commitHash) throws IOException {
-        Set<String> ancestors = new LinkedHashSet<>();
-        Queue<String> queue = new LinkedList<>();
-        queue.add(commitHash);
-
-        while (!queue.isEmpty()) {
-            String current = queue.poll();
-            if (current == null || ancestors.contains(current)) {
-                continue;
-            }
-            ancestors.add(current);
-
-            String commitPath = COMMITS_DIR + "/" + current;
-            if (FileUtils.exists(commitPath)) {
-                Commit commit = Commit.fromJson(FileUtils.readFile(commitPath));
-                if (commit.getParent() != null) {
-                    queue.add(commit.getParent());
-                }
-            }
-        }
-        return ancestors;
+    public ObjectId findCommonAncestor(ObjectId commit1, ObjectId commit2) throws IOException {
+        return repository().mergeBase(commit1, commit2);
     }
 
     /**
-     * Loads the tree object associated with a given commit hash.
+     * Returns the repository, opening it on first use.
      *
-     * @param commitHash The commit hash.
-     * @return The tree object associated with the commit.
-     * @throws IOException If an I/O error occurs while loading the tree.
+     * @return The open repository.
+     * @throws IOException If the path is not a repository.
      */
-    private Tree loadTree(String commitHash) throws IOException {
-        Commit commit = Commit.fromJson(FileUtils.readFile(COMMITS_DIR + "/" + commitHash));
-        String treeHash = commit.getTree();
-        String treeJson = FileUtils.readFile(TREES_DIR + "/" + treeHash);
-        return Tree.fromJson(treeJson);
-    }
-
-    /**
-     * Detects conflicts between the ancestor tree, current branch tree, and source branch tree.
-     *
-     * @param ancestor The tree from the common ancestor.
-     * @param current  The tree from the current branch.
-     * @param source   The tree from the source branch.
-     * @return A set of file paths that have conflicts.
-     */
-    private Set<String> detectConflicts(Tree ancestor, Tree current, Tree source) {
-        Set<String> conflicts = new HashSet<>();
-        Set<String> allFiles = new HashSet<>();
-
-        allFiles.addAll(ancestor.getFiles().keySet());
-        allFiles.addAll(current.getFiles().keySet());
-        allFiles.addAll(source.getFiles().keySet());
-
-        for (String file : allFiles) {
-            String ancestorBlob = ancestor.getFiles().get(file);
-            String currentBlob = current.getFiles().get(file);
-            String sourceBlob = source.getFiles().get(file);
-
-            if (!Objects.equals(currentBlob, sourceBlob) &&
-                    !Objects.equals(ancestorBlob, currentBlob) &&
-                    !Objects.equals(ancestorBlob, sourceBlob)) {
-                conflicts.add(file);
-            }
+    private Repository repository() throws IOException {
+        if (repository == null) {
+            repository = Repository.open(vcsPath);
         }
-        return conflicts;
+        return repository;
     }
 }
@@ -0,0 +1,46 @@
+package com.pesapal.felixvcs.commands;
+
+import com.pesapal.felixvcs.core.Refs;
+import com.pesapal.felixvcs.core.Repository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Moves the loose branches, tags and remote-tracking refs into the sorted packed refs file.
+ */
+public class PackRefsCommand {
+    private final Path vcsPath;
+
+    /**
+     * Constructs a PackRefsCommand for the given repository data directory.
+     *
+     * @param vcsPath The repository data directory.
+     */
+    public PackRefsCommand(Path vcsPath) {
+        this.vcsPath = vcsPath;
+    }
+
+    /**
+     * Default constructor that works on the repository in the current working directory.
+     */
+    public PackRefsCommand() {
+        this(Repository.locate());
+    }
+
+    /**
+     * Executes the pack-refs command.
+     *
+     * @throws IOException If a ref cannot be read or the packed refs file cannot be written.
+     */
+    public void execute() throws IOException {
+        if (!Files.isDirectory(vcsPath)) {
+            System.out.println("Not a FelixVersionControl repository. Use 'init' to initialize.");
+            return;
+        }
+
+        int refs = Refs.pack(vcsPath);
+        System.out.println("Packed " + refs + " refs into " + Refs.PACKED_REFS + ".");
+    }
+}
@@ -0,0 +1,138 @@
+package com.pesapal.felixvcs.commands;
+
+import com.pesapal.felixvcs.core.*;
+import com.pesapal.felixvcs.core.Refs;
+import com.pesapal.felixvcs.utils.FileUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publishes a local branch to another repository on the local file system.
+ * <p>
+ * The local history is walked from the branch tip and stops at the first commit the remote already
+ * has, and only the objects the remote is missing are sent as a single pack. The remote branch is
+ * only moved forward: the push is rejected unless the remote tip is an ancestor of the local tip,
+ * and the ref is swapped atomically so a concurrent push cannot be overwritten.
+ */
+public class PushCommand {
+    private static final String REFS_DIR = "refs/heads";
+    private static final String REMOTE_REFS_DIR = "refs/remotes";
+
+    private final Path vcsPath;
+
+    /**
+     * Constructs a PushCommand for the repository in the given directory.
+     *
+     * @param vcsPath The local repository data directory.
+     */
+    public PushCommand(Path vcsPath) {
+        this.vcsPath = vcsPath;
+    }
+
+    /**
+     * Default constructor that pushes from the repository in the current working directory.
+     */
+    public PushCommand() {
+        this(Repository.locate());
+    }
+
+    /**
+     * Executes the push command.
+     *
+     * @param args Command-line arguments: the remote name or path, and the branch to push.
+     * @throws IOException If an I/O error occurs while transferring objects or updating refs.
+     */
+    public void execute(String[] args) throws IOException {
+        if (!Files.isDirectory(vcsPath)) {
+            System.out.println("Not a FelixVersionControl repository. Use 'init' to initialize.");
+            return;
+        }
+        if (args.length < 2) {
+            System.out.println("Usage: push <remote-or-path> <branch>");
+            return;
+        }
+
+        Remote remote = Remote.resolve(vcsPath, args[0]);
+        if (remote == null) {
+            System.out.println(args[0] + " is not a FelixVersionControl repository.");
+            return;
+        }
+        String branch = args[1];
+        String refName = REFS_DIR + "/" + branch;
+        Path remoteVcs = remote.getVcsDir();
+
+        if (!Refs.exists(vcsPath, refName)) {
+            System.out.println("Branch " + branch + " does not exist.");
+            return;
+        }
+        ObjectId localTip = Refs.read(vcsPath, refName);
+        if (localTip == null) {
+            System.out.println("Branch " + branch + " has no commits to push.");
+            return;
+        }
+
+        ObjectId remoteTip = Refs.read(remoteVcs, refName);
+        if (localTip.equals(remoteTip)) {
+            System.out.println("Everything up-to-date.");
+            return;
+        }
+        if (isCheckedOut(remoteVcs, refName)) {
+            System.out.println("Refusing to update checked-out branch " + branch + " in " + remote.getName()
+                    + "; push to a bare repository instead.");
+            return;
+        }
+
+        // Fast-forward only: the remote tip must already be part of the local history
+        ObjectWalk walk = new ObjectWalk(vcsPath);
+        ObjectStore local = ObjectStores.open(vcsPath);
+        if (remoteTip != null
+                && !(local.has(ObjectType.COMMIT, remoteTip) && walk.isAncestor(remoteTip, localTip))) {
+            System.out.println(" ! [rejected]  " + branch + " -> " + branch + " (non-fast-forward)");
+            System.out.println("Fetch and merge the remote changes before pushing.");
+            return;
+        }
+
+        ObjectStore receiver = ObjectStores.open(remoteVcs);
+        ObjectWalk.Result result = walk.walk(List.of(localTip), ObjectTransfer.sharedTips(remoteVcs, local),
+                hash -> receiver.has(ObjectType.COMMIT, hash));
+        if (!result.shallow().isEmpty()) {
+            System.out.println("Cannot push: the remote is missing history beyond this repository's shallow boundary.");
+            return;
+        }
+
+        Map<ObjectType, List<ObjectId>> missing = ObjectTransfer.missing(receiver, result);
+        int sent = ObjectTransfer.send(vcsPath, remoteVcs, missing);
+        System.out.println("Sent " + ObjectTransfer.summarize(sent, missing) + " to " + remote.getName());
+
+        // Objects are in place before the ref moves, so readers never see a dangling tip
+        if (!RefUpdate.compareAndSet(remoteVcs, refName, remoteTip, localTip)) {
+            System.out.println(" ! [rejected]  " + branch + " -> " + branch + " (remote ref changed during push)");
+            return;
+        }
+
+        FileUtils.createDirectory(vcsPath.resolve(REMOTE_REFS_DIR).resolve(remote.getName()).toString());
+        FileUtils.writeRef(vcsPath.resolve(REMOTE_REFS_DIR).resolve(remote.getName()).resolve(branch).toString(), localTip.name());
+        String range = remoteTip == null ? "[new branch]" : remoteTip + ".." + localTip;
+        System.out.println("  " + range + "  " + branch + " -> " + branch);
+    }
+
+    /**
+     * Checks whether a ref is the checked-out branch of a repository with a working directory.
+     *
+     * @param remoteVcs The remote repository data directory.
+     * @param refName   The ref being updated.
+     * @return True if updating the ref would leave the remote working directory out of date.
+     * @throws IOException If the remote HEAD cannot be read.
+     */
+    private boolean isCheckedOut(Path remoteVcs, String refName) throws IOException {
+        if (Repository.isBare(remoteVcs)) {
+            return false;
+        }
+        Path head = remoteVcs.resolve("HEAD");
+        return Files.exists(head) && FileUtils.readFile(head.toString()).trim().equals(refName);
+    }
+}
@@ -1,10 +1,19 @@
 package com.pesapal.felixvcs.commands;
 
 import com.pesapal.felixvcs.core.Commit;
+import com.pesapal.felixvcs.core.ObjectId;
+import com.pesapal.felixvcs.core.ObjectStore;
+import com.pesapal.felixvcs.core.ObjectStores;
+import com.pesapal.felixvcs.core.ObjectType;
+import com.pesapal.felixvcs.core.RefUpdate;
+import com.pesapal.felixvcs.core.Refs;
+import com.pesapal.felixvcs.core.Repository;
+import com.pesapal.felixvcs.core.Shallow;
 import com.pesapal.felixvcs.utils.FileUtils;
-import com.pesapal.felixvcs.utils.HashUtils;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 
 /**
@@ -12,9 +21,28 @@ import java.util.*;
  */
 public class RebaseCommand {
     private static final String VCS_DIR = ".felixvcs";
-    private static final String COMMITS_DIR = VCS_DIR + "/commits";
-    private static final String REFS_DIR = VCS_DIR + "/refs/heads";
-    private static final String HEAD_FILE = VCS_DIR + "/HEAD";
+
+    private final Path vcsPath;
+    private final String headFile;
+    private Repository repository; // Opened on first use
+    private ObjectStore store;      // Opened on first use
+
+    /**
+     * Constructs a RebaseCommand for the given repository data directory.
+     *
+     * @param vcsPath The repository data directory.
+     */
+    public RebaseCommand(Path vcsPath) {
+        this.vcsPath = vcsPath;
+        this.headFile = vcsPath.resolve("HEAD").toString();
+    }
+
+    /**
+     * Default constructor that rebases in the repository of the current working directory.
+     */
+    public RebaseCommand() {
+        this(Paths.get(VCS_DIR));
+    }
 
     /**
      * Executes the rebase command to reapply commits from the current branch onto the target branch.
@@ -31,36 +59,39 @@ public class RebaseCommand {
         String targetBranch = args[1];
 
         // Validate target branch
-        if (!FileUtils.exists(REFS_DIR + "/" + targetBranch)) {
+        if (!Refs.exists(vcsPath, "refs/heads/" + targetBranch)) {
             System.out.println("Target branch " + targetBranch + " does not exist.");
             return;
         }
 
         // Get current branch and commit hash
-        String headRef = FileUtils.readFile(HEAD_FILE).trim();
+        String headRef = FileUtils.readFile(headFile).trim();
         String currentBranch = headRef.replace("refs/heads/", "");
-        String currentCommitHash = FileUtils.readFile(REFS_DIR + "/" + currentBranch).trim();
+        ObjectId currentCommitHash = Refs.read(vcsPath, headRef);
 
         // Get target branch commit hash
-        String targetCommitHash = FileUtils.readFile(REFS_DIR + "/" + targetBranch).trim();
+        ObjectId targetCommitHash = Refs.read(vcsPath, "refs/heads/" + targetBranch);
 
         // Find common ancestor
-        String commonAncestor = findCommonAncestor(currentCommitHash, targetCommitHash);
+        ObjectId commonAncestor = repository().mergeBase(currentCommitHash, targetCommitHash);
         if (commonAncestor == null) {
             System.out.println("No common ancestor found.");
+            if (!Shallow.read(vcsPath).isEmpty()) {
+                System.out.println("The repository is shallow; the merge base may be beyond the shallow boundary.");
+            }
             return;
         }
 
         // Get list of commits to rebase
-        List<String> commitsToRebase = getCommitsAfter(commonAncestor, currentCommitHash);
+        List<ObjectId> commitsToRebase = getCommitsAfter(commonAncestor, currentCommitHash);
         if (commitsToRebase.isEmpty()) {
             System.out.println("No commits to rebase.");
             return;
         }
 
         // Reapply commits on top of the target branch
-        String newParent = targetCommitHash;
-        for (String commitHash : commitsToRebase) {
+        ObjectId newParent = targetCommitHash;
+        for (ObjectId commitHash : commitsToRebase) {
             Commit originalCommit = loadCommit(commitHash);
 
             Commit newCommit = new Commit();
@@ -70,12 +101,8 @@ public class RebaseCommand {
             newCommit.setTimestamp(new Date().toString());
             newCommit.setAuthor(originalCommit.getAuthor());
 
-            String commitJson = newCommit.toJson();
-            String newCommitHash = HashUtils.sha1(commitJson.getBytes());
-
             // Save new commit
-            String newCommitPath = COMMITS_DIR + "/" + newCommitHash;
-            FileUtils.writeToFile(newCommitPath, commitJson);
+            ObjectId newCommitHash = store().writeCommit(newCommit);
 
             // Update parent for the next commit
             newParent = newCommitHash;
@@ -84,60 +111,12 @@ public class RebaseCommand {
         }
 
         // Update the current branch to point to the new commit
-        FileUtils.writeToFile(REFS_DIR + "/" + currentBranch, newParent);
-
-        System.out.println("Rebase completed successfully.");
-    }
-
-    /**
-     * Finds the common ancestor commit between two branches.
-     *
-     * @param commit1 The hash of the first commit.
-     * @param commit2 The hash of the second commit.
-     * @return The hash of the common ancestor commit, or null if none is found.
-     * @throws IOException If an I/O error occurs during commit traversal.
-     */
-    private String findCommonAncestor(String commit1, String commit2) throws IOException {
-        Set<String> ancestors1 = getAllAncestors(commit1);
-        Set<String> ancestors2 = getAllAncestors(commit2);
-
-        for (String ancestor : ancestors1) {
-            if (ancestors2.contains(ancestor)) {
-                return ancestor;
-            }
-        }
-        return null;
-    }
-
-    /**
-     * Retrieves all ancestor commits for a given commit.
-     *
-     * @param commitHash The hash of the commit.
-     * @return A set of ancestor commit hashes.
-     * @throws IOException If an I/O error occurs during commit traversal.
-     */
-    private Set<String> getAllAncestors(String commitHash) throws IOException {
-        Set<String> ancestors = new HashSet<>();
-        Queue<String> queue = new LinkedList<>();
-        queue.add(commitHash);
-
-        while (!queue.isEmpty()) {
-            String current = queue.poll();
-            if (current == null || current.isEmpty() || ancestors.contains(current)) {
-                continue;
-            }
-            ancestors.add(current);
-            String commitPath = COMMITS_DIR + "/" + current;
-            if (FileUtils.exists(commitPath)) {
-                String commitJson = FileUtils.readFile(commitPath);
-                Commit commit = Commit.fromJson(commitJson);
-                if (commit.getParent() != null) {
-                    queue.add(commit.getParent());
-                }
-            }
+        if (!RefUpdate.compareAndSet(vcsPath, headRef, currentCommitHash, newParent)) {
+            System.out.println("Branch " + currentBranch + " was updated by another process; rebase again.");
+            return;
         }
 
-        return ancestors;
+        System.out.println("Rebase completed successfully.");
     }
 
     /**
@@ -148,25 +127,12 @@ public class RebaseCommand {
      * @return A list of commit hashes to rebase, in order from oldest to newest.
      * @throws IOException If an I/O error occurs during commit traversal.
      */
-    private List<String> getCommitsAfter(String ancestor, String commitHash) throws IOException {
-        List<String> commits = new ArrayList<>();
-        Queue<String> queue = new LinkedList<>();
-        queue.add(commitHash);
-
-        while (!queue.isEmpty()) {
-            String current = queue.poll();
-            if (current.equals(ancestor)) {
-                break;
-            }
+    private List<ObjectId> getCommitsAfter(ObjectId ancestor, ObjectId commitHash) throws IOException {
+        List<ObjectId> commits = new ArrayList<>();
+        ObjectId current = commitHash;
+        while (current != null && !current.equals(ancestor)) {
             commits.add(current);
-            String commitPath = COMMITS_DIR + "/" + current;
-            if (FileUtils.exists(commitPath)) {
-                String commitJson = FileUtils.readFile(commitPath);
-                Commit commit = Commit.fromJson(commitJson);
-                if (commit.getParent() != null) {
-                    queue.add(commit.getParent());
-                }
-            }
+            current = store().has(ObjectType.COMMIT, current) ? store().readCommit(current).getParent() : null;
         }
 
         Collections.reverse(commits); // Reverse to get commits from ancestor to current
@@ -180,9 +146,33 @@ public class RebaseCommand {
      * @return The loaded Commit object.
      * @throws IOException If an I/O error occurs during commit loading.
      */
-    private Commit loadCommit(String commitHash) throws IOException {
-        String commitPath = COMMITS_DIR + "/" + commitHash;
-        String commitJson = FileUtils.readFile(commitPath);
-        return Commit.fromJson(commitJson);
+    private Commit loadCommit(ObjectId commitHash) throws IOException {
+        return store().readCommit(commitHash);
+    }
+
+    /**
+     * Returns the repository's object store, opening it on first use.
+     *
+     * @return The object store.
+     * @throws IOException If the store cannot be opened.
+     */
+    private ObjectStore store() throws IOException {
+        if (store == null) {
+            store = ObjectStores.open(vcsPath);
+        }
+        return store;
+    }
+
+    /**
+     * Returns the repository, opening it on first use.
+     *
+     * @return The open repository.
+     * @throws IOException If the path is not a repository.
+     */
+    private Repository repository() throws IOException {
+        if (repository == null) {
+            repository = Repository.open(vcsPath);
+        }
+        return repository;
     }
 }
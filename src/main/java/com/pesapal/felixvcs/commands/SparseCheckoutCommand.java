@@ -0,0 +1,117 @@
+package com.pesapal.felixvcs.commands;
+
+import com.pesapal.felixvcs.core.Checkout;
+import com.pesapal.felixvcs.core.ObjectId;
+import com.pesapal.felixvcs.core.SparseCheckout;
+import com.pesapal.felixvcs.core.Tree;
+import com.pesapal.felixvcs.utils.FileUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Manages the sparse-checkout patterns of a repository.
+ * <p>
+ * Changing the patterns re-applies them to the working directory: newly selected files are
+ * written from the HEAD commit and tracked files that are no longer selected are removed.
+ */
+public class SparseCheckoutCommand {
+    private static final String VCS_DIR = ".felixvcs";
+
+    /**
+     * Executes the sparse-checkout command based on the provided arguments.
+     *
+     * @param args The command-line arguments:
+     *             - "list": Lists the current patterns.
+     *             - "set" patterns...: Replaces the patterns.
+     *             - "add" patterns...: Adds to the patterns.
+     *             - "disable": Removes the patterns and checks out every file.
+     * @throws IOException If an I/O error occurs during execution.
+     */
+    public void execute(String[] args) throws IOException {
+        if (!FileUtils.exists(VCS_DIR)) {
+            System.out.println("Not a FelixVersionControl repository. Use 'init' to initialize.");
+            return;
+        }
+        if (args.length == 0) {
+            printUsage();
+            return;
+        }
+
+        Path vcsPath = Paths.get(VCS_DIR);
+        List<String> arguments = Arrays.asList(args).subList(1, args.length);
+        switch (args[0]) {
+            case "list" -> listPatterns(vcsPath);
+            case "set" -> updatePatterns(vcsPath, arguments);
+            case "add" -> {
+                List<String> patterns = new ArrayList<>(SparseCheckout.load(vcsPath).getPatterns());
+                patterns.addAll(arguments);
+                updatePatterns(vcsPath, patterns);
+            }
+            case "disable" -> updatePatterns(vcsPath, List.of());
+            default -> printUsage();
+        }
+    }
+
+    /**
+     * Lists the sparse-checkout patterns.
+     *
+     * @param vcsPath The repository data directory.
+     * @throws IOException If the patterns cannot be read.
+     */
+    private void listPatterns(Path vcsPath) throws IOException {
+        SparseCheckout sparse = SparseCheckout.load(vcsPath);
+        if (!sparse.isEnabled()) {
+            System.out.println("Sparse checkout is disabled.");
+            return;
+        }
+        sparse.getPatterns().forEach(System.out::println);
+    }
+
+    /**
+     * Stores new patterns and re-applies them to the working directory.
+     *
+     * @param vcsPath  The repository data directory.
+     * @param patterns The new patterns; empty to disable sparse checkout.
+     * @throws IOException If the patterns cannot be stored or the working directory cannot be updated.
+     */
+    private void updatePatterns(Path vcsPath, List<String> patterns) throws IOException {
+        SparseCheckout.save(vcsPath, patterns);
+
+        Checkout checkout = new Checkout(vcsPath, Paths.get(""));
+        Tree headTree = checkout.loadHeadTree();
+        if (headTree != null) {
+            long removed = checkout.removeExcluded(headTree);
+
+            // Only write files that are newly selected, keeping local edits to the others
+            Map<String, ObjectId> missing = new HashMap<>();
+            headTree.getFiles().forEach((filePath, blobHash) -> {
+                if (!Files.exists(Paths.get(filePath))) {
+                    missing.put(filePath, blobHash);
+                }
+            });
+            long written = checkout.materialize(new Tree(missing), null);
+            System.out.println("Checked out " + written + " files, removed " + removed + " files outside the patterns.");
+        }
+
+        if (SparseCheckout.load(vcsPath).isEnabled()) {
+            System.out.println("Sparse checkout patterns updated.");
+        } else {
+            System.out.println("Sparse checkout disabled.");
+        }
+    }
+
+    /**
+     * Prints usage instructions for the sparse-checkout command.
+     */
+    private void printUsage() {
+        System.out.println("Usage:");
+        System.out.println("  sparse-checkout list                # List the sparse-checkout patterns");
+        System.out.println("  sparse-checkout set <pattern>...    # Replace the patterns");
+        System.out.println("  sparse-checkout add <pattern>...    # Add patterns");
+        System.out.println("  sparse-checkout disable             # Check out every file again");
+    }
+}
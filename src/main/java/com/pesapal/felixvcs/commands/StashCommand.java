@@ -1,10 +1,13 @@
 package com.pesapal.felixvcs.commands;
 
+import com.pesapal.felixvcs.utils.Events;
 import com.pesapal.felixvcs.utils.FileUtils;
 import com.pesapal.felixvcs.utils.HashUtils;
+import com.pesapal.felixvcs.utils.Stats;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -16,8 +19,28 @@ import java.util.stream.Collectors;
  */
 public class StashCommand {
     private static final String VCS_DIR = ".felixvcs";
-    private static final String STASH_DIR = VCS_DIR + "/stash";
-    private static final String INDEX_FILE = VCS_DIR + "/index";
+
+    private final Path vcsPath;
+    private final String stashDir;
+    private final String indexFile;
+
+    /**
+     * Constructs a StashCommand for the given repository data directory.
+     *
+     * @param vcsPath The repository data directory.
+     */
+    public StashCommand(Path vcsPath) {
+        this.vcsPath = vcsPath;
+        this.stashDir = vcsPath.resolve("stash").toString();
+        this.indexFile = vcsPath.resolve("index").toString();
+    }
+
+    /**
+     * Default constructor that stashes in the repository of the current working directory.
+     */
+    public StashCommand() {
+        this(Paths.get(VCS_DIR));
+    }
 
     /**
      * Executes the stash command based on the provided arguments.
@@ -29,7 +52,7 @@ public class StashCommand {
      * @throws IOException If an I/O error occurs during execution.
      */
     public void execute(String[] args) throws IOException {
-        if (!FileUtils.exists(VCS_DIR)) {
+        if (!FileUtils.exists(vcsPath.toString())) {
             System.out.println("Not a FelixVersionControl repository. Use 'init' to initialize.");
             return;
         }
@@ -65,10 +88,19 @@ public class StashCommand {
 
         String stashJson = mapToJson(indexEntries);
 
-        FileUtils.createDirectory(STASH_DIR);
-        FileUtils.writeToFile(STASH_DIR + "/" + stashId, stashJson);
+        FileUtils.createDirectory(stashDir);
+        FileUtils.writeRef(stashDir + "/" + stashId, stashJson);
 
-        FileUtils.writeToFile(INDEX_FILE, "");
+        Events.IndexSave event = new Events.IndexSave();
+        event.begin();
+        try (Stats.Timer timer = Stats.time(Stats.Phase.INDEX_SAVE)) {
+            FileUtils.writeToFile(indexFile, "");
+            if (event.shouldCommit()) {
+                event.entries = 0;
+                event.size = 0;
+                event.commit();
+            }
+        }
 
         System.out.println("Saved working directory and index state as stash " + stashId);
     }
@@ -87,14 +119,14 @@ public class StashCommand {
         }
 
         String latestStash = stashes.get(stashes.size() - 1);
-        String stashContent = FileUtils.readFile(STASH_DIR + "/" + latestStash);
+        String stashContent = FileUtils.readFile(stashDir + "/" + latestStash);
         Map<String, String> stashIndex = jsonToMap(stashContent);
 
         Map<String, String> currentIndex = loadIndex();
         currentIndex.putAll(stashIndex);
         saveIndex(currentIndex);
 
-        Files.deleteIfExists(Paths.get(STASH_DIR + "/" + latestStash));
+        Files.deleteIfExists(Paths.get(stashDir, latestStash));
 
         System.out.println("Applied stash " + latestStash);
     }
@@ -122,11 +154,11 @@ public class StashCommand {
      * @throws IOException If an I/O error occurs.
      */
     private List<String> getStashes() throws IOException {
-        if (!FileUtils.exists(STASH_DIR)) {
+        if (!FileUtils.exists(stashDir)) {
             return Collections.emptyList();
         }
 
-        return Files.list(Paths.get(STASH_DIR))
+        return Files.list(Paths.get(stashDir))
                 .map(path -> path.getFileName().toString())
                 .sorted()
                 .collect(Collectors.toList());
@@ -139,20 +171,31 @@ public class StashCommand {
      * @throws IOException If an I/O error occurs during index loading.
      */
     private Map<String, String> loadIndex() throws IOException {
-        Map<String, String> indexEntries = new HashMap<>();
-        if (FileUtils.exists(INDEX_FILE)) {
-            String content = FileUtils.readFile(INDEX_FILE);
-            String[] entries = content.split("\n");
-            for (String entry : entries) {
-                if (!entry.trim().isEmpty()) {
-                    String[] parts = entry.split(":", 2);
-                    if (parts.length == 2) {
-                        indexEntries.put(parts[0], parts[1]);
+        Events.IndexLoad event = new Events.IndexLoad();
+        event.begin();
+        try (Stats.Timer timer = Stats.time(Stats.Phase.INDEX_LOAD)) {
+            long size = 0;
+            Map<String, String> indexEntries = new HashMap<>();
+            if (FileUtils.exists(indexFile)) {
+                String content = FileUtils.readFile(indexFile);
+                size = content.length();
+                String[] entries = content.split("\n");
+                for (String entry : entries) {
+                    if (!entry.trim().isEmpty()) {
+                        String[] parts = entry.split(":", 2);
+                        if (parts.length == 2) {
+                            indexEntries.put(parts[0], parts[1]);
+                        }
                     }
                 }
             }
+            if (event.shouldCommit()) {
+                event.entries = indexEntries.size();
+                event.size = size;
+                event.commit();
+            }
+            return indexEntries;
         }
-        return indexEntries;
     }
 
     /**
@@ -162,11 +205,20 @@ public class StashCommand {
      * @throws IOException If an I/O error occurs during index saving.
      */
     private void saveIndex(Map<String, String> indexEntries) throws IOException {
-        StringBuilder sb = new StringBuilder();
-        for (Map.Entry<String, String> entry : indexEntries.entrySet()) {
-            sb.append(entry.getKey()).append(":").append(entry.getValue()).append("\n");
+        Events.IndexSave event = new Events.IndexSave();
+        event.begin();
+        try (Stats.Timer timer = Stats.time(Stats.Phase.INDEX_SAVE)) {
+            StringBuilder sb = new StringBuilder();
+            for (Map.Entry<String, String> entry : indexEntries.entrySet()) {
+                sb.append(entry.getKey()).append(":").append(entry.getValue()).append("\n");
+            }
+            FileUtils.writeToFile(indexFile, sb.toString());
+            if (event.shouldCommit()) {
+                event.entries = indexEntries.size();
+                event.size = sb.length();
+                event.commit();
+            }
         }
-        FileUtils.writeToFile(INDEX_FILE, sb.toString());
     }
 
     /**
@@ -200,18 +252,42 @@ public class StashCommand {
         if (json.startsWith("{") && json.endsWith("}")) {
             json = json.substring(1, json.length() - 1);
         }
-        String[] entries = json.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)");
-        for (String entry : entries) {
-            String[] keyValue = entry.split(":(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", 2);
-            if (keyValue.length == 2) {
-                String key = keyValue[0].trim().replaceAll("^\"|\"$", "");
-                String value = keyValue[1].trim().replaceAll("^\"|\"$", "");
-                map.put(unescapeJson(key), unescapeJson(value));
+        // One pass over the quoted strings, taken in key and value pairs; splitting on a
+        // quote-counting lookahead rescans the rest of the input at every comma
+        int pos = 0;
+        while (true) {
+            int keyStart = json.indexOf('"', pos);
+            int keyEnd = keyStart < 0 ? -1 : closingQuote(json, keyStart + 1);
+            int valueStart = keyEnd < 0 ? -1 : json.indexOf('"', keyEnd + 1);
+            int valueEnd = valueStart < 0 ? -1 : closingQuote(json, valueStart + 1);
+            if (valueEnd < 0) {
+                break;
             }
+            map.put(unescapeJson(json.substring(keyStart + 1, keyEnd)), unescapeJson(json.substring(valueStart + 1, valueEnd)));
+            pos = valueEnd + 1;
         }
         return map;
     }
 
+    /**
+     * Finds the quote that ends a JSON string, skipping escaped characters.
+     *
+     * @param json  The JSON text.
+     * @param start The index just after the opening quote.
+     * @return The index of the closing quote, or -1 if the string is not terminated.
+     */
+    private static int closingQuote(String json, int start) {
+        for (int i = start; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '"') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     private String escapeJson(String str) {
         return str.replace("\\", "\\\\").replace("\"", "\\\"");
     }
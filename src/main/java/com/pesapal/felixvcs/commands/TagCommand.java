@@ -1,20 +1,40 @@
 package com.pesapal.felixvcs.commands;
 
+import com.pesapal.felixvcs.core.ObjectId;
+import com.pesapal.felixvcs.core.RefTransaction;
+import com.pesapal.felixvcs.core.Refs;
+import com.pesapal.felixvcs.core.Repository;
 import com.pesapal.felixvcs.utils.FileUtils;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.List;
+import java.util.Set;
 
 /**
  * Handles operations related to tags in the version control system.
  * A tag is a named reference to a specific commit.
  */
 public class TagCommand {
-    private static final String VCS_DIR = ".felixvcs";
-    private static final String TAGS_DIR = VCS_DIR + "/refs/tags";
-    private static final String HEAD_FILE = VCS_DIR + "/HEAD";
+    private final String vcsDir;
+    private final String headFile;
+
+    /**
+     * Constructs a TagCommand for the given repository data directory.
+     *
+     * @param vcsPath The repository data directory.
+     */
+    public TagCommand(Path vcsPath) {
+        this.vcsDir = vcsPath.toString();
+        this.headFile = vcsDir + "/HEAD";
+    }
+
+    /**
+     * Default constructor that manages tags of the repository in the current working directory.
+     */
+    public TagCommand() {
+        this(Repository.locate());
+    }
 
     /**
      * Executes the tag command based on the provided arguments.
@@ -25,7 +45,7 @@ public class TagCommand {
      * @throws IOException If an I/O error occurs.
      */
     public void execute(String[] args) throws IOException {
-        if (!FileUtils.exists(VCS_DIR)) {
+        if (!FileUtils.exists(vcsDir)) {
             System.out.println("Not a FelixVersionControl repository. Use 'init' to initialize.");
             return;
         }
@@ -46,14 +66,7 @@ public class TagCommand {
      * @throws IOException If an I/O error occurs.
      */
     private void listTags() throws IOException {
-        if (!FileUtils.exists(TAGS_DIR)) {
-            System.out.println("No tags available.");
-            return;
-        }
-
-        List<String> tags = Files.list(Paths.get(TAGS_DIR))
-                .map(path -> path.getFileName().toString())
-                .toList();
+        Set<String> tags = Refs.list(Paths.get(vcsDir), "refs/tags/").keySet();
 
         if (tags.isEmpty()) {
             System.out.println("No tags available.");
@@ -70,26 +83,27 @@ public class TagCommand {
      * @throws IOException If an I/O error occurs.
      */
     private void createTag(String tagName) throws IOException {
-        String tagPath = TAGS_DIR + "/" + tagName;
-
         // Check if the tag already exists
-        if (FileUtils.exists(tagPath)) {
+        if (Refs.exists(Paths.get(vcsDir), "refs/tags/" + tagName)) {
             System.out.println("Tag " + tagName + " already exists.");
             return;
         }
 
         // Get the current commit hash
-        String headRef = FileUtils.readFile(HEAD_FILE).trim();
-        String currentBranch = headRef.replace("refs/heads/", "");
-        String currentCommitHash = FileUtils.readFile(VCS_DIR + "/refs/heads/" + currentBranch).trim();
+        String headRef = FileUtils.readFile(headFile).trim();
+        ObjectId currentCommit = Refs.read(Paths.get(vcsDir), headRef);
 
-        if (currentCommitHash.isEmpty()) {
+        if (currentCommit == null) {
             System.out.println("Current branch has no commits.");
             return;
         }
+        String currentCommitHash = currentCommit.name();
 
-        // Create the tag
-        FileUtils.writeToFile(tagPath, currentCommitHash);
+        // Create the tag, unless another process created it since the check above
+        if (!new RefTransaction(Paths.get(vcsDir)).create("refs/tags/" + tagName, currentCommit).commit()) {
+            System.out.println("Tag " + tagName + " already exists.");
+            return;
+        }
         System.out.println("Tag " + tagName + " created at commit " + currentCommitHash);
     }
 
@@ -1,63 +1,104 @@
 package com.pesapal.felixvcs.core;
 
-import com.pesapal.felixvcs.utils.HashUtils;
-
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 
 /**
  * Represents a Blob object in the version control system.
  * A Blob is a basic unit of storage, encapsulating file content (binary or text).
+ * <p>
+ * The content is held as a {@link MemorySegment}, which is either a heap array or off-heap memory
+ * owned by the {@link OffHeapBlobCache}; {@link #getContentBuffer()} reads it without copying.
  */
 public class Blob {
-    private final String hash;     // Unique SHA-1 hash of the Blob's content
-    private final byte[] content; // The content stored in the Blob
+    private static final int BINARY_CHECK_BYTES = 512; // Leading bytes searched for a null byte, as when adding files
+
+    private final ObjectId hash;   // Unique SHA-1 hash of the Blob's content
+    private final MemorySegment content; // The content stored in the Blob
     private final boolean isBinary; // Indicates if the Blob represents binary data
 
     /**
      * Constructs a new Blob and computes its hash.
      *
-     * @param content  The content of the Blob.
-     * @param isBinary True if the content is binary, false otherwise.
+     * @param algorithm The hash function of the repository the blob belongs to.
+     * @param content   The content of the Blob.
+     * @param isBinary  True if the content is binary, false otherwise.
      */
-    public Blob(byte[] content, boolean isBinary) {
-        this.content = content;
+    public Blob(HashAlgorithm algorithm, byte[] content, boolean isBinary) {
+        this.content = MemorySegment.ofArray(content);
         this.isBinary = isBinary;
-        this.hash = HashUtils.sha1(content);
+        this.hash = algorithm.hash(content);
     }
 
     /**
      * Constructs an existing Blob object with a predefined hash.
      * Typically used for deserialization or loading from storage.
      *
-     * @param hash     The SHA-1 hash of the Blob.
+     * @param hash     The hash of the Blob.
      * @param content  The content of the Blob.
      * @param isBinary True if the content is binary, false otherwise.
      */
-    public Blob(String hash, byte[] content, boolean isBinary) {
+    public Blob(ObjectId hash, byte[] content, boolean isBinary) {
         this.hash = hash;
-        this.content = content;
+        this.content = MemorySegment.ofArray(content);
         this.isBinary = isBinary;
     }
 
+    /**
+     * Constructs a Blob viewing stored content, detecting binary content from its leading bytes.
+     *
+     * @param hash    The hash of the Blob.
+     * @param content The content of the Blob; it is viewed, not copied.
+     */
+    public Blob(ObjectId hash, MemorySegment content) {
+        this.hash = hash;
+        this.content = content;
+        boolean binary = false;
+        for (long i = 0; i < Math.min(content.byteSize(), BINARY_CHECK_BYTES) && !binary; i++) {
+            binary = content.get(ValueLayout.JAVA_BYTE, i) == 0;
+        }
+        this.isBinary = binary;
+    }
+
     // Getters
 
     /**
      * Returns the hash of the Blob.
      *
-     * @return The SHA-1 hash as a String.
+     * @return The SHA-1 hash.
      */
-    public String getHash() {
+    public ObjectId getHash() {
         return hash;
     }
 
     /**
-     * Returns the content of the Blob.
+     * Returns a copy of the content of the Blob on the heap.
      *
      * @return A byte array representing the content.
      */
     public byte[] getContent() {
-        return content;
+        return content.toArray(ValueLayout.JAVA_BYTE);
+    }
+
+    /**
+     * Returns a read-only view of the content of the Blob, without copying it.
+     *
+     * @return A buffer positioned at the start of the content.
+     */
+    public ByteBuffer getContentBuffer() {
+        return content.asByteBuffer().asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns the size of the content of the Blob.
+     *
+     * @return The content length in bytes.
+     */
+    public long getSize() {
+        return content.byteSize();
     }
 
     /**
@@ -79,15 +120,15 @@ public class Blob {
      */
     public String toJson() {
         StringBuilder jsonBuilder = new StringBuilder("{");
-        jsonBuilder.append("\"hash\":\"").append(escapeJson(hash)).append("\",");
+        jsonBuilder.append("\"hash\":\"").append(hash.name()).append("\",");
         jsonBuilder.append("\"isBinary\":").append(isBinary).append(",");
         if (isBinary) {
             // Encode binary content as Base64
-            String encodedContent = Base64.getEncoder().encodeToString(content);
+            String encodedContent = Base64.getEncoder().encodeToString(getContent());
             jsonBuilder.append("\"content\":\"").append(encodedContent).append("\"");
         } else {
             // Encode text content directly
-            String textContent = new String(content, StandardCharsets.UTF_8);
+            String textContent = new String(getContent(), StandardCharsets.UTF_8);
             jsonBuilder.append("\"content\":\"").append(escapeJson(textContent)).append("\"");
         }
         jsonBuilder.append("}");
@@ -116,7 +157,7 @@ public class Blob {
             content = unescapeJson(contentStr).getBytes(StandardCharsets.UTF_8);
         }
 
-        return new Blob(hash, content, isBinary);
+        return new Blob(ObjectId.fromHex(hash), content, isBinary);
     }
 
     // Helper Methods
@@ -0,0 +1,148 @@
+package com.pesapal.felixvcs.core;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * A size-bounded cache of blob contents on local disk, evicting the least recently used blobs.
+ * <p>
+ * Each blob is a file named after its hash. Recency is tracked in an access-ordered
+ * {@link LinkedHashMap}, as in {@link com.pesapal.felixvcs.utils.LRUCache}, but the bound is on the
+ * total number of bytes rather than entries. When a cache is reopened, files are ranked by their
+ * modification time, which is refreshed on every hit.
+ */
+public class BlobCache {
+    private final Path dir;
+    private final long maxBytes;
+    private final LinkedHashMap<ObjectId, Long> entries = new LinkedHashMap<>(16, 0.75f, true); // Hash to size
+    private long totalBytes;
+
+    /**
+     * Opens a cache directory, evicting blobs if it is over the limit.
+     *
+     * @param dir      The directory holding the cached blobs.
+     * @param maxBytes The most bytes the cache may hold.
+     * @throws IOException If the directory cannot be created or listed.
+     */
+    public BlobCache(Path dir, long maxBytes) throws IOException {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(dir);
+
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(dir)) {
+            files = new ArrayList<>(listing.filter(file -> !file.getFileName().toString().startsWith("tmp-")).toList());
+        }
+        Map<Path, FileTime> modified = new HashMap<>();
+        for (Path file : files) {
+            modified.put(file, Files.getLastModifiedTime(file));
+        }
+        files.sort(Comparator.comparing(modified::get));
+        for (Path file : files) {
+            long size = Files.size(file);
+            entries.put(ObjectId.fromHex(file.getFileName().toString()), size);
+            totalBytes += size;
+        }
+        evict();
+    }
+
+    /**
+     * Reads a cached blob and marks it as recently used.
+     *
+     * @param hash The blob hash.
+     * @return The blob content, or null if it is not cached.
+     * @throws IOException If the cached file cannot be read.
+     */
+    public byte[] get(ObjectId hash) throws IOException {
+        synchronized (this) {
+            if (entries.get(hash) == null) {
+                return null;
+            }
+        }
+        Path file = dir.resolve(hash.name());
+        try {
+            byte[] content = Files.readAllBytes(file);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return content;
+        } catch (NoSuchFileException e) {
+            // Evicted by another thread between the lookup and the read
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether a blob is cached, without changing its recency.
+     *
+     * @param hash The blob hash.
+     * @return True if the blob is cached, false otherwise.
+     */
+    public synchronized boolean contains(ObjectId hash) {
+        return entries.containsKey(hash);
+    }
+
+    /**
+     * Adds a blob to the cache, evicting the least recently used blobs to stay within the limit.
+     * A blob larger than the whole cache is not kept.
+     *
+     * @param hash    The blob hash.
+     * @param content The blob content.
+     * @throws IOException If the blob cannot be written.
+     */
+    public void put(ObjectId hash, byte[] content) throws IOException {
+        if (content.length > maxBytes || contains(hash)) {
+            return;
+        }
+        // Write outside the lock so parallel downloads do not queue on disk writes
+        Path tempFile = Files.createTempFile(dir, "tmp-", ".blob");
+        try {
+            Files.write(tempFile, content);
+            synchronized (this) {
+                if (entries.containsKey(hash)) {
+                    return;
+                }
+                Files.move(tempFile, dir.resolve(hash.name()), StandardCopyOption.REPLACE_EXISTING);
+                entries.put(hash, (long) content.length);
+                totalBytes += content.length;
+                evict();
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Returns the most bytes the cache may hold.
+     *
+     * @return The size limit.
+     */
+    public long capacity() {
+        return maxBytes;
+    }
+
+    /**
+     * Returns the number of bytes currently cached.
+     *
+     * @return The total size of the cached blobs.
+     */
+    public synchronized long size() {
+        return totalBytes;
+    }
+
+    /**
+     * Removes the least recently used blobs until the cache is within its limit.
+     *
+     * @throws IOException If a cached file cannot be deleted.
+     */
+    private void evict() throws IOException {
+        Iterator<Map.Entry<ObjectId, Long>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<ObjectId, Long> entry = eldest.next();
+            Files.deleteIfExists(dir.resolve(entry.getKey().name()));
+            totalBytes -= entry.getValue();
+            eldest.remove();
+        }
+    }
+}
@@ -6,7 +6,7 @@ package com.pesapal.felixvcs.core;
  */
 public class Branch {
     private final String name;     // Name of the branch (e.g., "main", "feature-x")
-    private String commitHash;     // Hash of the commit the branch points to
+    private ObjectId commitHash;   // Hash of the commit the branch points to
 
     /**
      * Constructs a new Branch object.
@@ -14,7 +14,7 @@ public class Branch {
      * @param name       The name of the branch.
      * @param commitHash The commit hash the branch points to.
      */
-    public Branch(String name, String commitHash) {
+    public Branch(String name, ObjectId commitHash) {
         this.name = name;
         this.commitHash = commitHash;
     }
@@ -33,7 +33,7 @@ public class Branch {
      *
      * @return The commit hash.
      */
-    public String getCommitHash() {
+    public ObjectId getCommitHash() {
         return commitHash;
     }
 
@@ -42,7 +42,7 @@ public class Branch {
      *
      * @param commitHash The new commit hash.
      */
-    public void setCommitHash(String commitHash) {
+    public void setCommitHash(ObjectId commitHash) {
         this.commitHash = commitHash;
     }
 
@@ -54,7 +54,7 @@ public class Branch {
     public String toJson() {
         StringBuilder jsonBuilder = new StringBuilder("{");
         jsonBuilder.append("\"name\":\"").append(escapeJson(name)).append("\",");
-        jsonBuilder.append("\"commitHash\":\"").append(escapeJson(commitHash)).append("\"");
+        jsonBuilder.append("\"commitHash\":\"").append(commitHash != null ? commitHash.name() : "").append("\"");
         jsonBuilder.append("}");
         return jsonBuilder.toString();
     }
@@ -68,7 +68,7 @@ public class Branch {
     public static Branch fromJson(String json) {
         String name = extractJsonValue(json, "name");
         String commitHash = extractJsonValue(json, "commitHash");
-        return new Branch(unescapeJson(name), unescapeJson(commitHash));
+        return new Branch(unescapeJson(name), ObjectId.parse(commitHash));
     }
 
     // Helper Methods
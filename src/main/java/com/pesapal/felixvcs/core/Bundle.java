@@ -0,0 +1,102 @@
+package com.pesapal.felixvcs.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads and writes the header of a bundle file.
+ * <p>
+ * A bundle is a single file for moving history without a connection between the repositories. It
+ * starts with a text header: a signature line, one {@code -<hash>} line for every commit the
+ * receiver must already have, one {@code <hash> <ref>} line for every ref it carries, and a blank
+ * line. A pack stream with the objects follows directly after the header.
+ */
+public class Bundle {
+    static final String SIGNATURE = "# felixvcs bundle v1";
+
+    /**
+     * The contents of a bundle header.
+     *
+     * @param prerequisites Commits the receiving repository must already have.
+     * @param refs          Ref names mapped to the commit hashes they point to.
+     */
+    public record Header(Set<ObjectId> prerequisites, Map<String, ObjectId> refs) {
+    }
+
+    /**
+     * Writes a bundle header.
+     *
+     * @param out    The stream to write to; the pack follows on the same stream.
+     * @param header The header to write.
+     * @throws IOException If the header cannot be written.
+     */
+    public static void writeHeader(OutputStream out, Header header) throws IOException {
+        StringBuilder text = new StringBuilder(SIGNATURE).append('\n');
+        for (ObjectId prerequisite : header.prerequisites()) {
+            text.append('-').append(prerequisite.name()).append('\n');
+        }
+        for (Map.Entry<String, ObjectId> ref : header.refs().entrySet()) {
+            text.append(ref.getValue().name()).append(' ').append(ref.getKey()).append('\n');
+        }
+        text.append('\n');
+        out.write(text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads a bundle header, leaving the stream positioned at the start of the pack.
+     *
+     * @param in The stream to read from.
+     * @return The parsed header.
+     * @throws IOException If the stream does not start with a valid bundle header.
+     */
+    public static Header readHeader(InputStream in) throws IOException {
+        if (!SIGNATURE.equals(readLine(in))) {
+            throw new IOException("Not a FelixVCS bundle.");
+        }
+        Set<ObjectId> prerequisites = new LinkedHashSet<>();
+        Map<String, ObjectId> refs = new LinkedHashMap<>();
+        String line;
+        while (!(line = readLine(in)).isEmpty()) {
+            try {
+                if (line.startsWith("-")) {
+                    prerequisites.add(ObjectId.fromHex(line.substring(1)));
+                    continue;
+                }
+                int space = line.indexOf(' ');
+                if (space <= 0) {
+                    throw new IOException("Malformed bundle header line: " + line);
+                }
+                refs.put(line.substring(space + 1), ObjectId.fromHex(line.substring(0, space)));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Malformed bundle header line: " + line, e);
+            }
+        }
+        return new Header(prerequisites, refs);
+    }
+
+    /**
+     * Reads one header line byte by byte so that no pack data is consumed.
+     *
+     * @param in The stream to read from.
+     * @return The line without its terminator.
+     * @throws IOException If the stream ends inside the header.
+     */
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b == -1) {
+                throw new IOException("Bundle header is truncated.");
+            }
+            line.write(b);
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,84 @@
+package com.pesapal.felixvcs.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Collection;
+
+/**
+ * Serves blob reads of another store from an {@link OffHeapBlobCache}.
+ * <p>
+ * Only blobs are cached; commits and trees are small and parsed once per command. Existence checks
+ * always go to the underlying store, so the cache never makes a repository appear to hold a blob.
+ */
+public class CachingObjectStore implements ObjectStore {
+    private final ObjectStore store;
+    private final OffHeapBlobCache cache;
+    private final Path repository; // Cache key of the repository
+
+    /**
+     * Constructs a CachingObjectStore.
+     *
+     * @param store  The store to read from on a cache miss and to write through to.
+     * @param cache  The blob cache.
+     * @param vcsDir The repository data directory the store belongs to.
+     */
+    public CachingObjectStore(ObjectStore store, OffHeapBlobCache cache, Path vcsDir) {
+        this.store = store;
+        this.cache = cache;
+        this.repository = vcsDir.toAbsolutePath().normalize();
+    }
+
+    @Override
+    public HashAlgorithm hashAlgorithm() {
+        return store.hashAlgorithm();
+    }
+
+    @Override
+    public boolean has(ObjectType type, ObjectId hash) {
+        return store.has(type, hash);
+    }
+
+    @Override
+    public byte[] read(ObjectType type, ObjectId hash) throws IOException {
+        if (type != ObjectType.BLOB) {
+            return store.read(type, hash);
+        }
+        Blob cached = cache.get(repository, hash);
+        if (cached != null) {
+            return cached.getContent();
+        }
+        byte[] content = store.read(type, hash);
+        cache.put(repository, hash, content);
+        return content;
+    }
+
+    @Override
+    public Blob readBlob(ObjectId hash) throws IOException {
+        Blob blob = cache.get(repository, hash);
+        return blob != null ? blob : cache.put(repository, hash, store.read(ObjectType.BLOB, hash));
+    }
+
+    @Override
+    public ObjectId write(ObjectType type, byte[] content) throws IOException {
+        return store.write(type, content);
+    }
+
+    @Override
+    public int insertPack(InputStream in) throws IOException {
+        return store.insertPack(in);
+    }
+
+    @Override
+    public void prefetch(ObjectType type, Collection<ObjectId> hashes) throws IOException {
+        store.prefetch(type, hashes);
+    }
+
+    /**
+     * Closes the wrapped store; the shared blob cache stays open for other stores.
+     */
+    @Override
+    public void close() throws IOException {
+        store.close();
+    }
+}
@@ -0,0 +1,194 @@
+package com.pesapal.felixvcs.core;
+
+import com.pesapal.felixvcs.utils.FileUtils;
+import com.pesapal.felixvcs.utils.ProgressListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Materializes the files of a tree into a working directory.
+ * <p>
+ * File contents are written straight from the repository's object store, so the working tree of
+ * another clone is never read. Files are written in parallel since each entry is independent.
+ * Only paths selected by the repository's sparse-checkout patterns are written.
+ */
+public class Checkout {
+    private final Path vcsDir;   // Repository data directory that holds the objects
+    private final Path workDir;  // Working directory that receives the files
+    private final SparseCheckout sparse;
+    private final ObjectStore store; // Shared by the parallel writers; lookups do not mutate it
+
+    /**
+     * Constructs a Checkout reading objects from the given repository into the given working directory.
+     *
+     * @param vcsDir  The repository data directory (the {@code .felixvcs} directory).
+     * @param workDir The working directory to write files into.
+     * @throws IOException If the sparse-checkout patterns or the multi-pack index cannot be read.
+     */
+    public Checkout(Path vcsDir, Path workDir) throws IOException {
+        this.vcsDir = vcsDir;
+        this.workDir = workDir.toAbsolutePath().normalize();
+        this.sparse = SparseCheckout.load(vcsDir);
+        this.store = ObjectStores.open(vcsDir);
+    }
+
+    /**
+     * Loads the tree of the commit that HEAD points to.
+     *
+     * @return The HEAD tree, or null if the current branch has no commits yet.
+     * @throws IOException If the HEAD, branch ref, commit or tree cannot be read.
+     */
+    public Tree loadHeadTree() throws IOException {
+        String headRef = FileUtils.readFile(vcsDir.resolve("HEAD").toString()).trim();
+        ObjectId commitHash = Refs.read(vcsDir, headRef);
+        if (commitHash == null) {
+            return null;
+        }
+        return store.readTree(store.readCommit(commitHash).getTree());
+    }
+
+    /**
+     * Writes every file of the tree that matches the sparse-checkout patterns into the working directory.
+     *
+     * @param tree     The tree to materialize.
+     * @param listener Receives progress updates; may be null.
+     * @return The number of files written.
+     * @throws IOException If a blob is missing or a file cannot be written.
+     */
+    public long materialize(Tree tree, ProgressListener listener) throws IOException {
+        List<Map.Entry<String, ObjectId>> files = tree.getFiles().entrySet().stream()
+                .filter(entry -> sparse.matches(entry.getKey()))
+                .toList();
+        long total = files.size();
+        AtomicLong written = new AtomicLong();
+
+        // Chunked files are fetched chunk by chunk, so their chunks are prefetched instead of the list
+        Map<ObjectId, ChunkList> chunked = new HashMap<>();
+        List<ObjectId> blobs = new ArrayList<>(files.size());
+        for (Map.Entry<String, ObjectId> entry : files) {
+            ObjectId hash = entry.getValue();
+            ChunkList chunks = chunked.get(hash);
+            if (chunks == null && store.has(ObjectType.CHUNK_LIST, hash)) {
+                chunks = ChunkList.read(store, hash);
+                chunked.put(hash, chunks);
+            }
+            if (chunks != null) {
+                blobs.addAll(chunks.getHashes());
+            } else {
+                blobs.add(hash);
+            }
+        }
+        store.prefetch(ObjectType.BLOB, blobs);
+
+        try {
+            files.parallelStream().forEach(entry -> {
+                try {
+                    writeFile(entry.getKey(), entry.getValue(), chunked.get(entry.getValue()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                long done = written.incrementAndGet();
+                if (listener != null) {
+                    listener.update(done, total);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return written.get();
+    }
+
+    /**
+     * Deletes the tracked files of the tree that fall outside the sparse-checkout patterns,
+     * together with any directories left empty.
+     *
+     * @param tree The tree whose files are tracked.
+     * @return The number of files removed.
+     * @throws IOException If a file cannot be deleted.
+     */
+    public long removeExcluded(Tree tree) throws IOException {
+        long removed = 0;
+        for (String filePath : tree.getFiles().keySet()) {
+            if (sparse.matches(filePath)) {
+                continue;
+            }
+            Path target = workDir.resolve(filePath).normalize();
+            if (!target.startsWith(workDir) || !Files.deleteIfExists(target)) {
+                continue;
+            }
+            removed++;
+
+            // Prune directories that the removal emptied
+            Path parent = target.getParent();
+            while (parent != null && !parent.equals(workDir) && isEmptyDirectory(parent)) {
+                Files.delete(parent);
+                parent = parent.getParent();
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Checks whether a directory exists and has no entries.
+     *
+     * @param dir The directory to check.
+     * @return True if the directory is empty, false otherwise.
+     * @throws IOException If the directory cannot be listed.
+     */
+    private boolean isEmptyDirectory(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return false;
+        }
+        try (Stream<Path> entries = Files.list(dir)) {
+            return entries.findAny().isEmpty();
+        }
+    }
+
+    /**
+     * Writes a single blob, or the chunks of a chunked file, to its path in the working directory.
+     *
+     * @param filePath The file path recorded in the tree.
+     * @param blobHash The hash of the blob holding the file content.
+     * @param chunks   The chunk list of a chunked file, or null for a plain blob.
+     * @throws IOException If the blob is missing, the path escapes the working directory, or the write fails.
+     */
+    private void writeFile(String filePath, ObjectId blobHash, ChunkList chunks) throws IOException {
+        Path target = workDir.resolve(filePath).normalize();
+        if (!target.startsWith(workDir)) {
+            throw new IOException("Refusing to write " + filePath + " outside the working directory.");
+        }
+
+        if (chunks == null && !store.has(ObjectType.BLOB, blobHash)) {
+            throw new IOException("Blob " + blobHash + " for " + filePath + " is missing.");
+        }
+
+        Path parent = target.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (chunks != null) {
+                chunks.copyTo(store, out);
+                return;
+            }
+            // Cached blobs are written from their off-heap copy without passing through the heap
+            ByteBuffer content = store.readBlob(blobHash).getContentBuffer();
+            while (content.hasRemaining()) {
+                out.write(content);
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.pesapal.felixvcs.core;
+
+import com.pesapal.felixvcs.utils.Stats;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents a large file stored as content-defined chunks.
+ * <p>
+ * Files over {@value #THRESHOLD} bytes are split by the {@link Chunker}; every chunk is stored as a
+ * blob and the chunk list takes the place of the file's blob in the index and in trees. Unchanged
+ * regions of an edited file produce the same chunks again, so a new version only stores the chunks
+ * around the edit, and identical regions of different files share storage. The list is stored as
+ * one {@code <hash> <length>} line per chunk.
+ */
+public class ChunkList {
+    public static final long THRESHOLD = 1024 * 1024;
+
+    /**
+     * One chunk of a file.
+     *
+     * @param hash   The hash of the blob holding the chunk.
+     * @param length The chunk length in bytes.
+     */
+    public record Chunk(ObjectId hash, int length) {
+    }
+
+    /**
+     * The outcome of storing a file as chunks.
+     *
+     * @param hash    The hash of the chunk list.
+     * @param chunks  The number of chunks in the file.
+     * @param written The number of chunks the store did not have yet.
+     */
+    public record Stored(ObjectId hash, int chunks, int written) {
+    }
+
+    private final List<Chunk> chunks;
+
+    /**
+     * Constructs a ChunkList.
+     *
+     * @param chunks The chunks of the file, in order.
+     */
+    public ChunkList(List<Chunk> chunks) {
+        this.chunks = chunks;
+    }
+
+    /**
+     * Retrieves the chunks of the file.
+     *
+     * @return The chunks, in file order.
+     */
+    public List<Chunk> getChunks() {
+        return chunks;
+    }
+
+    /**
+     * Lists the hashes of the chunks, in file order.
+     *
+     * @return The chunk hashes.
+     */
+    public List<ObjectId> getHashes() {
+        return chunks.stream().map(Chunk::hash).toList();
+    }
+
+    /**
+     * Calculates the size of the file.
+     *
+     * @return The sum of the chunk lengths.
+     */
+    public long getSize() {
+        return chunks.stream().mapToLong(Chunk::length).sum();
+    }
+
+    /**
+     * Serializes the chunk list.
+     *
+     * @return The stored form of the chunk list.
+     */
+    public byte[] toBytes() {
+        StringBuilder builder = new StringBuilder();
+        for (Chunk chunk : chunks) {
+            builder.append(chunk.hash().name()).append(' ').append(chunk.length()).append('\n');
+        }
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses a stored chunk list.
+     *
+     * @param content The stored form of the chunk list.
+     * @return The chunk list.
+     * @throws IOException If an entry is malformed.
+     */
+    public static ChunkList fromBytes(byte[] content) throws IOException {
+        Stats.count(Stats.Counter.OBJECTS_PARSED, 1);
+        List<Chunk> chunks = new ArrayList<>();
+        for (String line : new String(content, StandardCharsets.UTF_8).split("\n")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] parts = line.trim().split(" ");
+            try {
+                chunks.add(new Chunk(ObjectId.fromHex(parts[0]), Integer.parseInt(parts[1])));
+            } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+                throw new IOException("Corrupt chunk list entry: " + line, e);
+            }
+        }
+        return new ChunkList(chunks);
+    }
+
+    /**
+     * Splits a stream into chunks and stores the chunks the store does not have yet, followed by
+     * the chunk list.
+     *
+     * @param store The object store to write to.
+     * @param in    The file content; it is read to the end but not closed.
+     * @return The chunk list hash and how many chunks were new.
+     * @throws IOException If the stream cannot be read or an object cannot be written.
+     */
+    public static Stored store(ObjectStore store, InputStream in) throws IOException {
+        Chunker chunker = new Chunker(in);
+        HashAlgorithm algorithm = store.hashAlgorithm();
+        List<Chunk> chunks = new ArrayList<>();
+        int written = 0;
+        for (byte[] chunk = chunker.next(); chunk != null; chunk = chunker.next()) {
+            ObjectId hash = algorithm.hash(chunk);
+            if (!store.has(ObjectType.BLOB, hash)) {
+                store.write(ObjectType.BLOB, chunk);
+                written++;
+            }
+            chunks.add(new Chunk(hash, chunk.length));
+        }
+        ObjectId hash = store.write(ObjectType.CHUNK_LIST, new ChunkList(chunks).toBytes());
+        return new Stored(hash, chunks.size(), written);
+    }
+
+    /**
+     * Reads a chunk list.
+     *
+     * @param store The object store to read from.
+     * @param hash  The chunk list hash.
+     * @return The chunk list.
+     * @throws IOException If the chunk list is missing or corrupt.
+     */
+    public static ChunkList read(ObjectStore store, ObjectId hash) throws IOException {
+        return fromBytes(store.read(ObjectType.CHUNK_LIST, hash));
+    }
+
+    /**
+     * Writes the file content by reading its chunks in order, without holding the whole file in memory.
+     * Cached chunks are written straight from their off-heap copies.
+     *
+     * @param store The object store holding the chunks.
+     * @param out   The channel to write the content to.
+     * @throws IOException If a chunk is missing or the channel cannot be written.
+     */
+    public void copyTo(ObjectStore store, WritableByteChannel out) throws IOException {
+        for (Chunk chunk : chunks) {
+            ByteBuffer content = store.readBlob(chunk.hash()).getContentBuffer();
+            while (content.hasRemaining()) {
+                out.write(content);
+            }
+        }
+    }
+}
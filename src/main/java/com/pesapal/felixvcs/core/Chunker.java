@@ -0,0 +1,129 @@
+package com.pesapal.felixvcs.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Splits a stream into content-defined chunks with a FastCDC-style gear hash.
+ * <p>
+ * A rolling hash over the last bytes decides where a chunk ends, so an edit only moves the
+ * boundaries next to it and the chunks before and after are found again unchanged. The first
+ * {@value #MIN_SIZE} bytes of a chunk are skipped, a stricter mask is used until the chunk reaches
+ * {@value #AVERAGE_SIZE} bytes and a looser one after, which keeps chunk sizes close to the average,
+ * and no chunk is longer than {@value #MAX_SIZE} bytes.
+ */
+public class Chunker {
+    public static final int MIN_SIZE = 16 * 1024;
+    public static final int AVERAGE_SIZE = 64 * 1024;
+    public static final int MAX_SIZE = 256 * 1024;
+
+    // The gear hash shifts left, so its top bits depend on the most recent bytes
+    private static final long MASK_SMALL = -1L << (64 - 18);
+    private static final long MASK_LARGE = -1L << (64 - 14);
+    private static final long[] GEAR = gearTable();
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[2 * MAX_SIZE];
+    private int start;   // First unconsumed byte in the buffer
+    private int end;     // End of the buffered data
+    private boolean eof;
+
+    /**
+     * Constructs a Chunker over a stream. The stream is read but not closed.
+     *
+     * @param in The stream to split.
+     */
+    public Chunker(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Reads the next chunk.
+     *
+     * @return The chunk content, or null at the end of the stream.
+     * @throws IOException If the stream cannot be read.
+     */
+    public byte[] next() throws IOException {
+        fill();
+        if (start == end) {
+            return null;
+        }
+        int length = cut(buffer, start, end);
+        byte[] chunk = Arrays.copyOfRange(buffer, start, start + length);
+        start += length;
+        return chunk;
+    }
+
+    /**
+     * Tops up the buffer until it holds a full maximum-size chunk or the stream ends.
+     *
+     * @throws IOException If the stream cannot be read.
+     */
+    private void fill() throws IOException {
+        if (end - start >= MAX_SIZE || eof) {
+            return;
+        }
+        System.arraycopy(buffer, start, buffer, 0, end - start);
+        end -= start;
+        start = 0;
+        while (end < buffer.length) {
+            int read = in.read(buffer, end, buffer.length - end);
+            if (read < 0) {
+                eof = true;
+                return;
+            }
+            end += read;
+        }
+    }
+
+    /**
+     * Finds the length of the chunk starting at the given offset.
+     *
+     * @param data The buffered data.
+     * @param from The offset of the chunk.
+     * @param to   The end of the available data.
+     * @return The chunk length.
+     */
+    static int cut(byte[] data, int from, int to) {
+        int length = Math.min(to - from, MAX_SIZE);
+        if (length <= MIN_SIZE) {
+            return length;
+        }
+        int normal = Math.min(length, AVERAGE_SIZE);
+        long hash = 0;
+        int i = MIN_SIZE;
+        for (; i < normal; i++) {
+            hash = (hash << 1) + GEAR[data[from + i] & 0xFF];
+            if ((hash & MASK_SMALL) == 0) {
+                return i + 1;
+            }
+        }
+        for (; i < length; i++) {
+            hash = (hash << 1) + GEAR[data[from + i] & 0xFF];
+            if ((hash & MASK_LARGE) == 0) {
+                return i + 1;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Builds the table of random values the gear hash adds per byte. The values come from a fixed
+     * SplitMix64 sequence, so every repository cuts the same content at the same boundaries.
+     *
+     * @return The gear table.
+     */
+    private static long[] gearTable() {
+        long[] table = new long[256];
+        long state = 0x5EED_F1E1_C5CDL;
+        for (int i = 0; i < table.length; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            long z = state;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            table[i] = z ^ (z >>> 31);
+        }
+        return table;
+    }
+}
@@ -1,12 +1,14 @@
 package com.pesapal.felixvcs.core;
 
+import com.pesapal.felixvcs.utils.Stats;
+
 /**
  * Represents a commit in the version control system.
  * A commit includes metadata such as tree, parent, message, timestamp, and author.
  */
 public class Commit {
-    private String tree;       // The hash of the associated tree structure
-    private String parent;     // The hash of the parent commit, if any
+    private ObjectId tree;     // The hash of the associated tree structure
+    private ObjectId parent;   // The hash of the parent commit, if any
     private String message;    // Commit message
     private String timestamp;  // The timestamp of the commit
     private String author;     // The author of the commit
@@ -18,7 +20,7 @@ public class Commit {
      *
      * @return The tree hash.
      */
-    public String getTree() {
+    public ObjectId getTree() {
         return tree;
     }
 
@@ -27,7 +29,7 @@ public class Commit {
      *
      * @param tree The tree hash.
      */
-    public void setTree(String tree) {
+    public void setTree(ObjectId tree) {
         this.tree = tree;
     }
 
@@ -36,16 +38,16 @@ public class Commit {
      *
      * @return The parent commit hash, or null if this is the initial commit.
      */
-    public String getParent() {
+    public ObjectId getParent() {
         return parent;
     }
 
     /**
      * Sets the parent commit hash.
      *
-     * @param parent The parent commit hash.
+     * @param parent The parent commit hash, or null for an initial commit.
      */
-    public void setParent(String parent) {
+    public void setParent(ObjectId parent) {
         this.parent = parent;
     }
 
@@ -113,8 +115,8 @@ public class Commit {
     public String toJson() {
         StringBuilder jsonBuilder = new StringBuilder();
         jsonBuilder.append("{");
-        jsonBuilder.append("\"tree\":\"").append(escapeJson(tree)).append("\",");
-        jsonBuilder.append("\"parent\":").append(parent != null ? "\"" + escapeJson(parent) + "\"" : "null").append(",");
+        jsonBuilder.append("\"tree\":\"").append(tree != null ? tree.name() : "").append("\",");
+        jsonBuilder.append("\"parent\":").append(parent != null ? "\"" + parent.name() + "\"" : "null").append(",");
         jsonBuilder.append("\"message\":\"").append(escapeJson(message)).append("\",");
         jsonBuilder.append("\"timestamp\":\"").append(escapeJson(timestamp)).append("\",");
         jsonBuilder.append("\"author\":\"").append(escapeJson(author)).append("\"");
@@ -129,6 +131,7 @@ public class Commit {
      * @return The commit object.
      */
     public static Commit fromJson(String json) {
+        Stats.count(Stats.Counter.OBJECTS_PARSED, 1);
         Commit commit = new Commit();
 
         // Remove outer curly braces
@@ -156,10 +159,11 @@ public class Commit {
             // Assign the value to the appropriate field
             switch (key) {
                 case "tree":
-                    commit.setTree(unescapeJson(value));
+                    commit.setTree(ObjectId.parse(value));
                     break;
                 case "parent":
-                    commit.setParent(unescapeJson(value));
+                    // Older commits store an empty string for no parent
+                    commit.setParent(ObjectId.parse(value));
                     break;
                 case "message":
                     commit.setMessage(unescapeJson(value));
@@ -0,0 +1,213 @@
+package com.pesapal.felixvcs.core;
+
+import com.pesapal.felixvcs.utils.FileUtils;
+import com.pesapal.felixvcs.utils.Stats;
+import com.pesapal.felixvcs.utils.XxHash64;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Remembers the object each working file was last added as, under a fast hash of its content.
+ * <p>
+ * Adding a file again normally hashes all of it with the repository's cryptographic hash, and a
+ * large file is chunked and every chunk hashed as well. When the file's size and xxHash64 match
+ * the cached entry, the cached id is reused instead. xxHash64 runs several times faster than SHA-1,
+ * so re-adding unchanged files, the common case, costs little more than reading them. The cache is
+ * the {@value #CACHE_FILE} file, one {@code <id> <size> <fast hash> <path>} line per file; it only
+ * saves work and can be deleted at any time.
+ */
+public class FileHashCache {
+    public static final String CACHE_FILE = "filehashes";
+
+    /**
+     * The cached state of one file.
+     *
+     * @param id       The id of the blob or chunk list the file was stored as.
+     * @param size     The file size in bytes.
+     * @param fastHash The xxHash64 of the file content.
+     */
+    public record Entry(ObjectId id, long size, long fastHash) {
+    }
+
+    private final Path vcsDir;
+    private final Map<String, Entry> entries;
+    private boolean dirty; // Whether entries changed since the cache was loaded or last saved
+
+    private FileHashCache(Path vcsDir, Map<String, Entry> entries) {
+        this.vcsDir = vcsDir;
+        this.entries = entries;
+    }
+
+    /**
+     * Loads the cache of a repository. A missing cache file yields an empty cache, and damaged lines are skipped.
+     *
+     * @param vcsDir The repository data directory.
+     * @return The cache.
+     * @throws IOException If the cache file exists but cannot be read.
+     */
+    public static FileHashCache load(Path vcsDir) throws IOException {
+        Map<String, Entry> entries = new TreeMap<>();
+        String cachePath = vcsDir.resolve(CACHE_FILE).toString();
+        if (FileUtils.exists(cachePath)) {
+            for (String line : FileUtils.readFile(cachePath).split("\n")) {
+                String[] parts = line.split(" ", 4);
+                if (parts.length < 4) {
+                    continue;
+                }
+                try {
+                    entries.put(parts[3], new Entry(ObjectId.fromHex(parts[0]), Long.parseLong(parts[1]),
+                            Long.parseUnsignedLong(parts[2], 16)));
+                } catch (IllegalArgumentException e) {
+                    // A damaged line only costs a full hash of that file
+                }
+            }
+        }
+        return new FileHashCache(vcsDir, entries);
+    }
+
+    /**
+     * Looks up the id a file was stored as, if its content is unchanged.
+     *
+     * @param path     The file path, as recorded in the index.
+     * @param size     The current file size.
+     * @param fastHash The xxHash64 of the current content.
+     * @return The cached id, or null if the file is not cached or has changed.
+     */
+    public ObjectId get(String path, long size, long fastHash) {
+        Entry entry = entries.get(path);
+        boolean hit = entry != null && entry.size() == size && entry.fastHash() == fastHash;
+        Stats.count(hit ? Stats.Counter.FILE_HASH_CACHE_HITS : Stats.Counter.FILE_HASH_CACHE_MISSES, 1);
+        return hit ? entry.id() : null;
+    }
+
+    /**
+     * Records the id a file was stored as.
+     *
+     * @param path     The file path, as recorded in the index.
+     * @param size     The file size.
+     * @param fastHash The xxHash64 of the content.
+     * @param id       The id of the stored blob or chunk list.
+     */
+    public void put(String path, long size, long fastHash, ObjectId id) {
+        Entry entry = new Entry(id, size, fastHash);
+        dirty |= !entry.equals(entries.put(path, entry));
+    }
+
+    /**
+     * Writes the cache back to the repository if it changed since it was loaded or last saved.
+     * Callers adding many files save once at the end, since every save rewrites the whole file.
+     *
+     * @throws IOException If the cache file cannot be written.
+     */
+    public void save() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            Entry value = entry.getValue();
+            sb.append(value.id()).append(' ').append(value.size()).append(' ')
+                    .append(Long.toHexString(value.fastHash())).append(' ').append(entry.getKey()).append('\n');
+        }
+        FileUtils.writeToFile(vcsDir.resolve(CACHE_FILE).toString(), sb.toString());
+        dirty = false;
+    }
+
+    /**
+     * Computes the xxHash64 of a file without holding it in memory.
+     *
+     * @param file The file.
+     * @return The hash of the file content.
+     * @throws IOException If the file cannot be read.
+     */
+    public static long fastHash(Path file) throws IOException {
+        try (HashingInputStream in = new HashingInputStream(Files.newInputStream(file))) {
+            in.transferTo(OutputStream.nullOutputStream());
+            return in.getFastHash();
+        }
+    }
+
+    /**
+     * Computes the size and xxHash64 of everything read through it, so content that is being
+     * stored anyway gets its cache entry without a second read.
+     */
+    public static class HashingInputStream extends FilterInputStream {
+        private final XxHash64 hash = new XxHash64();
+        private long size;
+
+        /**
+         * Constructs a HashingInputStream.
+         *
+         * @param in The stream to read from.
+         */
+        public HashingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int off, int len) throws IOException {
+            int n = super.read(buffer, off, len);
+            if (n > 0) {
+                hash.update(buffer, off, n);
+                size += n;
+            }
+            return n;
+        }
+
+        /**
+         * Reads and hashes the skipped bytes, so the hash and the size still cover the whole content.
+         */
+        @Override
+        public long skip(long n) throws IOException {
+            byte[] buffer = new byte[(int) Math.min(Math.max(n, 0), 8192)];
+            long skipped = 0;
+            while (skipped < n) {
+                int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+                if (read < 0) {
+                    break;
+                }
+                skipped += read;
+            }
+            return skipped;
+        }
+
+        /**
+         * Not supported: bytes read again after a reset would be hashed twice.
+         */
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        /**
+         * Retrieves the hash of the bytes read so far.
+         *
+         * @return The xxHash64.
+         */
+        public long getFastHash() {
+            return hash.getValue();
+        }
+
+        /**
+         * Retrieves the number of bytes read so far.
+         *
+         * @return The size in bytes.
+         */
+        public long getSize() {
+            return size;
+        }
+    }
+}
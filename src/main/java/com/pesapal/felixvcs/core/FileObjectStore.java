@@ -0,0 +1,91 @@
+package com.pesapal.felixvcs.core;
+
+import com.pesapal.felixvcs.utils.Events;
+import com.pesapal.felixvcs.utils.Stats;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * The object store of a repository on disk: loose objects first, then stored packs.
+ * <p>
+ * New objects are written loose; incoming packs are kept as stored packs. Objects move from loose
+ * files into a pack only when gc runs.
+ */
+public class FileObjectStore implements ObjectStore {
+    private final LooseObjectStore loose;
+    private final PackObjectStore packs;
+
+    /**
+     * Constructs a FileObjectStore for the given repository.
+     *
+     * @param vcsDir The repository data directory.
+     * @throws IOException If the multi-pack index is malformed.
+     */
+    public FileObjectStore(Path vcsDir) throws IOException {
+        this.loose = new LooseObjectStore(vcsDir);
+        this.packs = new PackObjectStore(vcsDir);
+    }
+
+    @Override
+    public HashAlgorithm hashAlgorithm() {
+        return loose.hashAlgorithm();
+    }
+
+    @Override
+    public boolean has(ObjectType type, ObjectId hash) {
+        return loose.has(type, hash) || packs.has(type, hash);
+    }
+
+    @Override
+    public byte[] read(ObjectType type, ObjectId hash) throws IOException {
+        Events.ObjectRead event = new Events.ObjectRead();
+        event.begin();
+        try (Stats.Timer timer = Stats.time(Stats.Phase.OBJECT_READ)) {
+            Stats.count(Stats.Counter.OBJECTS_READ, 1);
+            byte[] content = loose.readIfPresent(type, hash);
+            if (content == null) {
+                content = packs.read(type, hash);
+            }
+            if (event.shouldCommit()) {
+                event.type = type.name();
+                event.id = hash.name();
+                event.size = content.length;
+                event.commit();
+            }
+            return content;
+        }
+    }
+
+    @Override
+    public ObjectId write(ObjectType type, byte[] content) throws IOException {
+        // An object that is already packed is not written loose again
+        Events.ObjectWrite event = new Events.ObjectWrite();
+        event.begin();
+        try (Stats.Timer timer = Stats.time(Stats.Phase.OBJECT_WRITE)) {
+            Stats.count(Stats.Counter.OBJECTS_WRITTEN, 1);
+            ObjectId hash = loose.hashAlgorithm().hash(content);
+            if (!packs.has(type, hash)) {
+                loose.write(type, hash, content);
+            }
+            if (event.shouldCommit()) {
+                event.type = type.name();
+                event.id = hash.name();
+                event.size = content.length;
+                event.commit();
+            }
+            return hash;
+        }
+    }
+
+    @Override
+    public int insertPack(InputStream in) throws IOException {
+        return packs.insertPack(in);
+    }
+
+    @Override
+    public void close() throws IOException {
+        packs.close();
+    }
+}
@@ -0,0 +1,169 @@
+package com.pesapal.felixvcs.core;
+
+import com.pesapal.felixvcs.utils.Durability;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Packs every reachable object of a repository into one stored pack with an index and reachability bitmaps.
+ * <p>
+ * Objects are reachable from the refs, and also from the index and the stashes, whose files may
+ * belong to no commit yet; bitmaps cover only what the commits reach.
+ * <p>
+ * Bitmaps are written for every ref tip and for every {@value #BITMAP_INTERVAL}th commit along
+ * the history, so any want/have question needs to read at most that many commits before it reaches a
+ * bitmap. Packs left from earlier runs, including packs received by fetch, push and unbundle, are
+ * removed once the new pack is complete, and the multi-pack index is rewritten to list only the new
+ * pack. Loose objects are kept because commands still write new objects loose.
+ */
+public class GarbageCollector {
+    static final int BITMAP_INTERVAL = 64;
+
+    private final Path vcsDir;
+
+    /**
+     * The outcome of a collection.
+     *
+     * @param packFile The new pack, or null if the repository has no reachable objects.
+     * @param objects  The number of objects packed.
+     * @param bitmaps  The number of reachability bitmaps written.
+     */
+    public record Summary(Path packFile, int objects, int bitmaps) {
+    }
+
+    /**
+     * Constructs a GarbageCollector for the given repository.
+     *
+     * @param vcsDir The repository data directory.
+     */
+    public GarbageCollector(Path vcsDir) {
+        this.vcsDir = vcsDir;
+    }
+
+    /**
+     * Writes the pack, its index and its bitmaps, and removes superseded packs.
+     *
+     * @return A summary of what was written.
+     * @throws IOException If an object is missing or a file cannot be written.
+     */
+    public Summary collect() throws IOException {
+        try (ObjectWalk walk = new ObjectWalk(vcsDir); ObjectStore store = ObjectStores.open(vcsDir)) {
+            Set<ObjectId> tips = walk.refTips();
+            // Uses the bitmaps of the previous pack when it has them, so only newer commits are read
+            ObjectWalk.Result result = walk.walk(tips, List.of(), hash -> false);
+            walk.forEachFileObject(walk.workingStateFiles(),
+                    (type, hash) -> (type == ObjectType.CHUNK_LIST ? result.chunkLists() : result.blobs()).add(hash));
+            int count = result.size();
+            if (count == 0) {
+                return new Summary(null, 0, 0);
+            }
+
+            Path packsDir = vcsDir.resolve(Pack.PACKS_DIR);
+            Files.createDirectories(packsDir);
+            List<Pack> oldPacks = Pack.list(vcsDir);
+
+            // Write the pack under a temporary name; its final name is its checksum
+            List<PackIndex.Entry> entries = new ArrayList<>(count);
+            Path tempFile = Files.createTempFile(packsDir, "tmp-", Pack.PACK_EXTENSION);
+            String checksum;
+            try {
+                try (OutputStream out = Files.newOutputStream(tempFile)) {
+                    PackWriter writer = new PackWriter(out, count);
+                    for (Map.Entry<ObjectType, Set<ObjectId>> objects : result.objects().entrySet()) {
+                        ObjectType type = objects.getKey();
+                        for (ObjectId hash : objects.getValue()) {
+                            byte[] content = store.read(type, hash);
+                            entries.add(new PackIndex.Entry(hash, type, writer.write(type, hash, content)));
+                        }
+                    }
+                    checksum = writer.finish();
+                }
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(tempFile);
+                throw e;
+            }
+
+            Path packFile = packsDir.resolve("pack-" + checksum + Pack.PACK_EXTENSION);
+            Files.move(tempFile, packFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Durability.track(packFile);
+            Path indexFile = Pack.sibling(packFile, Pack.INDEX_EXTENSION);
+            PackIndex.write(indexFile, entries);
+            PackIndex index = PackIndex.read(indexFile);
+
+            // A shallow history cannot be summarized completely, so it gets no bitmaps
+            int bitmapCount = 0;
+            if (Shallow.read(vcsDir).isEmpty()) {
+                Map<ObjectId, BitSet> bitmaps = buildBitmaps(walk, index, tips);
+                PackBitmaps.write(Pack.sibling(packFile, Pack.BITMAP_EXTENSION), index.size(), bitmaps);
+                bitmapCount = bitmaps.size();
+            }
+
+            // The new pack and a multi-pack index listing it must be on disk before the only other copies
+            // of its objects are removed. The new pack is the newest, so the interim index resolves every
+            // reachable object to it, and a crash while old packs are deleted leaves them all readable.
+            MultiPackIndex.write(vcsDir);
+            Durability.flush();
+            // Open files cannot be deleted on every platform, so the old packs are closed first
+            walk.close();
+            store.close();
+            for (Pack old : oldPacks) {
+                if (!old.getPackFile().equals(packFile)) {
+                    Files.deleteIfExists(Pack.sibling(old.getPackFile(), Pack.BITMAP_EXTENSION));
+                    Files.deleteIfExists(Pack.sibling(old.getPackFile(), Pack.INDEX_EXTENSION));
+                    Files.deleteIfExists(old.getPackFile());
+                }
+            }
+            MultiPackIndex.write(vcsDir);
+            return new Summary(packFile, count, bitmapCount);
+        }
+    }
+
+    /**
+     * Computes bitmaps for the ref tips and for regularly spaced commits.
+     * <p>
+     * Each tip is followed back to the nearest commit that already has a bitmap, and the bits are
+     * then accumulated forward along that stretch, so every commit is read only a bounded number of times.
+     *
+     * @param walk  The walk used to read commits and trees.
+     * @param index The index of the new pack.
+     * @param tips  The ref tips.
+     * @return Commit hashes mapped to their bitmaps.
+     * @throws IOException If a commit or tree is missing.
+     */
+    private Map<ObjectId, BitSet> buildBitmaps(ObjectWalk walk, PackIndex index, Set<ObjectId> tips) throws IOException {
+        Map<ObjectId, BitSet> selected = new LinkedHashMap<>();
+        Map<ObjectId, Integer> generations = new HashMap<>();
+
+        for (ObjectId tip : tips) {
+            Deque<Map.Entry<ObjectId, Commit>> stretch = new ArrayDeque<>();
+            ObjectId current = tip;
+            while (current != null && !selected.containsKey(current)) {
+                Commit commit = walk.readCommit(current);
+                stretch.push(Map.entry(current, commit));
+                current = commit.getParent();
+            }
+
+            BitSet bits = current == null ? new BitSet(index.size()) : (BitSet) selected.get(current).clone();
+            int generation = current == null ? 0 : generations.get(current) + 1;
+            while (!stretch.isEmpty()) {
+                Map.Entry<ObjectId, Commit> entry = stretch.pop();
+                ObjectId commitHash = entry.getKey();
+                ObjectId treeHash = entry.getValue().getTree();
+                bits.set(index.find(commitHash));
+                bits.set(index.find(treeHash));
+                walk.forEachFileObject(walk.readTree(treeHash), (type, hash) -> bits.set(index.find(hash)));
+                generations.put(commitHash, generation);
+                if (tips.contains(commitHash) || generation % BITMAP_INTERVAL == 0) {
+                    selected.put(commitHash, (BitSet) bits.clone());
+                }
+                generation++;
+            }
+        }
+        return selected;
+    }
+}
@@ -0,0 +1,137 @@
+package com.pesapal.felixvcs.core;
+
+import com.pesapal.felixvcs.utils.Events;
+import com.pesapal.felixvcs.utils.FileUtils;
+import com.pesapal.felixvcs.utils.HashUtils;
+import com.pesapal.felixvcs.utils.Stats;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+
+/**
+ * The hash function that names the objects of a repository.
+ * <p>
+ * The function is chosen when a repository is created and recorded by name in its
+ * {@value #FORMAT_FILE} file. Repositories without the file predate the choice and use SHA-1. Each
+ * thread keeps one digest per function and resets it between objects, so hashing many small files
+ * does not look up a new {@link MessageDigest} for each of them.
+ */
+public enum HashAlgorithm {
+    SHA1("sha1", "SHA-1", 20),
+    SHA256("sha256", "SHA-256", 32);
+
+    public static final String FORMAT_FILE = "objectformat";
+
+    /**
+     * The function new repositories use unless another one is requested.
+     */
+    public static final HashAlgorithm DEFAULT = SHA256;
+
+    private final String name;
+    private final int length;
+    private final ThreadLocal<MessageDigest> digest;
+
+    HashAlgorithm(String name, String digestName, int length) {
+        this.name = name;
+        this.length = length;
+        this.digest = ThreadLocal.withInitial(() -> HashUtils.newDigest(digestName));
+    }
+
+    /**
+     * Retrieves the name recorded in repositories using this function.
+     *
+     * @return The lowercase name, such as "sha256".
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Retrieves the hash length.
+     *
+     * @return The number of raw hash bytes.
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Computes the id of object content.
+     *
+     * @param content The stored object content.
+     * @return The id of the content.
+     */
+    public ObjectId hash(byte[] content) {
+        Events.Hash event = new Events.Hash();
+        event.begin();
+        try (Stats.Timer timer = Stats.time(Stats.Phase.HASH)) {
+            ObjectId id = ObjectId.fromRaw(digest().digest(content));
+            if (event.shouldCommit()) {
+                event.algorithm = name;
+                event.hash = id.name();
+                event.size = content.length;
+                event.commit();
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Retrieves this thread's digest for the function, reset and ready for input. The digest must
+     * not be kept beyond the current computation.
+     *
+     * @return The digest.
+     */
+    public MessageDigest digest() {
+        MessageDigest md = digest.get();
+        md.reset();
+        return md;
+    }
+
+    /**
+     * Looks up a function by the name recorded in repositories.
+     *
+     * @param name The name, such as "sha1".
+     * @return The function.
+     * @throws IllegalArgumentException If no function has that name.
+     */
+    public static HashAlgorithm forName(String name) {
+        for (HashAlgorithm algorithm : values()) {
+            if (algorithm.name.equalsIgnoreCase(name.trim())) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException("Unknown object format: " + name.trim());
+    }
+
+    /**
+     * Reads the function a repository uses.
+     *
+     * @param vcsDir The repository data directory.
+     * @return The recorded function, or SHA-1 if the repository does not record one.
+     * @throws IOException If the format file cannot be read or names an unknown function.
+     */
+    public static HashAlgorithm of(Path vcsDir) throws IOException {
+        Path file = vcsDir.resolve(FORMAT_FILE);
+        if (!Files.isRegularFile(file)) {
+            return SHA1;
+        }
+        try {
+            return forName(FileUtils.readFile(file.toString()));
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage() + " in " + file, e);
+        }
+    }
+
+    /**
+     * Records the function a new repository uses.
+     *
+     * @param vcsDir The repository data directory.
+     * @throws IOException If the format file cannot be written.
+     */
+    public void writeTo(Path vcsDir) throws IOException {
+        FileUtils.writeToFile(vcsDir.resolve(FORMAT_FILE).toString(), name);
+    }
+}
@@ -0,0 +1,72 @@
+package com.pesapal.felixvcs.core;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps objects in memory only, for throwaway repositories in tests, CI jobs and benchmarks.
+ * <p>
+ * Mount it over a repository with {@link ObjectStores#mount} so that commands use it in place of
+ * the repository's files. Everything is lost when the store is unmounted or the process ends.
+ */
+public class InMemoryObjectStore implements ObjectStore {
+    private final Map<ObjectType, Map<ObjectId, byte[]>> objects = new EnumMap<>(ObjectType.class);
+    private final HashAlgorithm algorithm;
+
+    /**
+     * Constructs an empty InMemoryObjectStore using the hash function of new repositories.
+     */
+    public InMemoryObjectStore() {
+        this(HashAlgorithm.DEFAULT);
+    }
+
+    /**
+     * Constructs an empty InMemoryObjectStore. A store mounted over a repository must use the
+     * repository's hash function.
+     *
+     * @param algorithm The hash function that names the objects.
+     */
+    public InMemoryObjectStore(HashAlgorithm algorithm) {
+        this.algorithm = algorithm;
+        for (ObjectType type : ObjectType.values()) {
+            objects.put(type, new ConcurrentHashMap<>());
+        }
+    }
+
+    @Override
+    public HashAlgorithm hashAlgorithm() {
+        return algorithm;
+    }
+
+    @Override
+    public boolean has(ObjectType type, ObjectId hash) {
+        return objects.get(type).containsKey(hash);
+    }
+
+    @Override
+    public byte[] read(ObjectType type, ObjectId hash) throws IOException {
+        byte[] content = objects.get(type).get(hash);
+        if (content == null) {
+            throw ObjectStore.notFound(type, hash);
+        }
+        return content.clone();
+    }
+
+    @Override
+    public ObjectId write(ObjectType type, byte[] content) {
+        ObjectId hash = algorithm.hash(content);
+        objects.get(type).putIfAbsent(hash, content.clone());
+        return hash;
+    }
+
+    /**
+     * Returns the number of stored objects.
+     *
+     * @return The object count across all types.
+     */
+    public int size() {
+        return objects.values().stream().mapToInt(Map::size).sum();
+    }
+}
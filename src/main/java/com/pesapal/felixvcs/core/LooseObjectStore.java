@@ -0,0 +1,107 @@
+package com.pesapal.felixvcs.core;
+
+import com.pesapal.felixvcs.utils.Durability;
+import com.pesapal.felixvcs.utils.FileUtils;
+import com.pesapal.felixvcs.utils.Stats;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+/**
+ * Keeps every object in its own file under {@code commits/}, {@code trees/} or {@code blobs/},
+ * named after its hash.
+ */
+public class LooseObjectStore implements ObjectStore {
+    private final Path vcsDir;   // Repository data directory holding the object directories
+    private final HashAlgorithm algorithm;
+
+    /**
+     * Constructs a LooseObjectStore for the given repository.
+     *
+     * @param vcsDir The repository data directory.
+     * @throws IOException If the repository's object format cannot be read.
+     */
+    public LooseObjectStore(Path vcsDir) throws IOException {
+        this.vcsDir = vcsDir;
+        this.algorithm = HashAlgorithm.of(vcsDir);
+    }
+
+    @Override
+    public HashAlgorithm hashAlgorithm() {
+        return algorithm;
+    }
+
+    @Override
+    public boolean has(ObjectType type, ObjectId hash) {
+        return Files.exists(path(type, hash));
+    }
+
+    @Override
+    public byte[] read(ObjectType type, ObjectId hash) throws IOException {
+        byte[] content = readIfPresent(type, hash);
+        if (content == null) {
+            throw ObjectStore.notFound(type, hash);
+        }
+        return content;
+    }
+
+    /**
+     * Reads an object if it is stored loose, without a separate existence check.
+     *
+     * @param type The object type.
+     * @param hash The object hash.
+     * @return The stored content, or null if there is no such loose object.
+     * @throws IOException If the object file cannot be read.
+     */
+    byte[] readIfPresent(ObjectType type, ObjectId hash) throws IOException {
+        byte[] content;
+        try {
+            content = Files.readAllBytes(path(type, hash));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        Stats.count(Stats.Counter.FILES_READ, 1);
+        Stats.count(Stats.Counter.BYTES_READ, content.length);
+        return content;
+    }
+
+    @Override
+    public ObjectId write(ObjectType type, byte[] content) throws IOException {
+        ObjectId hash = algorithm.hash(content);
+        write(type, hash, content);
+        return hash;
+    }
+
+    /**
+     * Stores an object whose hash the caller has already computed.
+     *
+     * @param type    The object type.
+     * @param hash    The hash of the content under this store's algorithm.
+     * @param content The object content.
+     * @throws IOException If the object file cannot be written.
+     */
+    void write(ObjectType type, ObjectId hash, byte[] content) throws IOException {
+        Path path = path(type, hash);
+        if (!Files.exists(path)) {
+            // An object file that exists is trusted to be complete, so it must appear all at once
+            Files.createDirectories(path.getParent());
+            FileUtils.writeAtomically(path, content, false);
+            Durability.track(path);
+            Stats.count(Stats.Counter.FILES_WRITTEN, 1);
+            Stats.count(Stats.Counter.BYTES_WRITTEN, content.length);
+        }
+    }
+
+    /**
+     * Returns the file of a loose object.
+     *
+     * @param type The object type.
+     * @param hash The object hash.
+     * @return The object file path.
+     */
+    private Path path(ObjectType type, ObjectId hash) {
+        return vcsDir.resolve(type.getDirectory()).resolve(hash.name());
+    }
+}
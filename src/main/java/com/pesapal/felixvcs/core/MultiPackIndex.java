@@ -0,0 +1,220 @@
+package com.pesapal.felixvcs.core;
+
+import com.pesapal.felixvcs.utils.Durability;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * One sorted table of every object in every stored pack of a repository.
+ * <p>
+ * Stored as {@code packs/multi-pack-index}: the magic {@code FVMI}, a version, the pack file names,
+ * the object count and hash length, then fixed-size entries of raw hash bytes, type code, pack number
+ * and offset. The file is memory-mapped and searched in place, so finding a packed object costs one
+ * binary search however many packs have accumulated. An object present in several packs is listed
+ * once, for the newest pack.
+ */
+public class MultiPackIndex {
+    public static final String FILE_NAME = "multi-pack-index";
+    static final byte[] MAGIC = {'F', 'V', 'M', 'I'};
+    static final int VERSION = 1;
+
+    private final List<Path> packFiles;   // Pack file per pack number
+    private final MappedByteBuffer table; // Mapped index file
+    private final int entriesStart;       // Offset of the first entry in the file
+    private final int objectCount;
+    private final int hashLength;
+    private final int entrySize;
+
+    /**
+     * Where a packed object is stored.
+     *
+     * @param packFile The pack holding the object.
+     * @param type     The object type.
+     * @param offset   The offset of the object's entry from the start of the pack.
+     */
+    public record Location(Path packFile, ObjectType type, long offset) {
+    }
+
+    private MultiPackIndex(List<Path> packFiles, MappedByteBuffer table, int entriesStart, int objectCount, int hashLength) {
+        this.packFiles = packFiles;
+        this.table = table;
+        this.entriesStart = entriesStart;
+        this.objectCount = objectCount;
+        this.hashLength = hashLength;
+        this.entrySize = hashLength + 1 + Integer.BYTES + Long.BYTES;
+    }
+
+    /**
+     * Rewrites the multi-pack index from the indexes of the repository's stored packs.
+     * Removes the file when no packs are left.
+     * <p>
+     * Writers hold {@code multi-pack-index.lock} from listing the packs until the new file is in
+     * place, so two processes storing packs at once cannot replace each other's index with one that
+     * misses a pack.
+     *
+     * @param vcsDir The repository data directory.
+     * @throws IOException If a pack index cannot be read, the lock stays held or the file cannot be written.
+     */
+    public static void write(Path vcsDir) throws IOException {
+        Path packsDir = vcsDir.resolve(Pack.PACKS_DIR);
+        Path file = packsDir.resolve(FILE_NAME);
+        Path lock = RefTransaction.lock(file);
+        try {
+            writeLocked(packsDir, file, Pack.list(vcsDir));
+        } finally {
+            Files.deleteIfExists(lock);
+        }
+    }
+
+    private static void writeLocked(Path packsDir, Path file, List<Pack> packs) throws IOException {
+        if (packs.isEmpty()) {
+            Files.deleteIfExists(file);
+            return;
+        }
+
+        // Newest pack first, so it wins for objects stored more than once
+        Map<ObjectId, long[]> entries = new TreeMap<>();
+        int hashLength = 0;
+        for (int packId = 0; packId < packs.size(); packId++) {
+            PackIndex index = packs.get(packId).getIndex();
+            for (int position = 0; position < index.size(); position++) {
+                ObjectId hash = index.hash(position);
+                hashLength = hash.length();
+                entries.putIfAbsent(hash, new long[]{index.type(position).getCode(), packId, index.offset(position)});
+            }
+        }
+
+        Path tempFile = Files.createTempFile(packsDir, "tmp-", ".midx");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile), 64 * 1024))) {
+            out.write(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(packs.size());
+            for (Pack pack : packs) {
+                out.writeUTF(pack.getPackFile().getFileName().toString());
+            }
+            out.writeInt(entries.size());
+            out.writeInt(hashLength);
+            for (Map.Entry<ObjectId, long[]> entry : entries.entrySet()) {
+                entry.getKey().write(out);
+                out.writeByte((int) entry.getValue()[0]);
+                out.writeInt((int) entry.getValue()[1]);
+                out.writeLong(entry.getValue()[2]);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Durability.track(file);
+    }
+
+    /**
+     * Maps the multi-pack index of a repository.
+     *
+     * @param vcsDir The repository data directory.
+     * @return The index, or null if the repository has none.
+     * @throws IOException If the file is malformed.
+     */
+    public static MultiPackIndex open(Path vcsDir) throws IOException {
+        Path packsDir = vcsDir.resolve(Pack.PACKS_DIR);
+        Path file = packsDir.resolve(FILE_NAME);
+        if (!Files.exists(file)) {
+            return null;
+        }
+
+        MappedByteBuffer table;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            table = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        ByteBuffer header = table.duplicate();
+        byte[] magic = new byte[MAGIC.length];
+        header.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a FelixVCS multi-pack index: " + file);
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported multi-pack index version " + version + ".");
+        }
+        int packCount = header.getInt();
+        List<Path> packFiles = new ArrayList<>(packCount);
+        for (int i = 0; i < packCount; i++) {
+            // Written with writeUTF; pack names are plain ASCII
+            byte[] name = new byte[header.getShort() & 0xFFFF];
+            header.get(name);
+            packFiles.add(packsDir.resolve(new String(name, StandardCharsets.UTF_8)));
+        }
+        int objectCount = header.getInt();
+        int hashLength = header.getInt();
+        int entriesStart = header.position();
+        if ((long) entriesStart + (long) objectCount * (hashLength + 1 + Integer.BYTES + Long.BYTES) != table.capacity()) {
+            throw new IOException("Truncated multi-pack index: " + file);
+        }
+        return new MultiPackIndex(packFiles, table, entriesStart, objectCount, hashLength);
+    }
+    /**
+     * Finds a packed object.
+     *
+     * @param hash The object hash.
+     * @return The object's location, or null if no pack holds it.
+     */
+    public Location find(ObjectId hash) {
+        if (hash.length() != hashLength) {
+            return null;
+        }
+
+        byte[] probe = new byte[hashLength];
+        int low = 0;
+        int high = objectCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int entry = entriesStart + mid * entrySize;
+            table.get(entry, probe);
+            int cmp = hash.compareStored(probe, 0);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                try {
+                    ObjectType type = ObjectType.fromCode(table.get(entry + hashLength));
+                    int packId = table.getInt(entry + hashLength + 1);
+                    long offset = table.getLong(entry + hashLength + 1 + Integer.BYTES);
+                    return new Location(packFiles.get(packId), type, offset);
+                } catch (IOException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Tells whether the index lists the objects of a pack.
+     *
+     * @param packFile The pack file.
+     * @return True if the pack was stored when the index was written.
+     */
+    public boolean covers(Path packFile) {
+        return packFiles.contains(packFile);
+    }
+
+    /**
+     * Returns the number of distinct packed objects.
+     *
+     * @return The object count.
+     */
+    public int size() {
+        return objectCount;
+    }
+}
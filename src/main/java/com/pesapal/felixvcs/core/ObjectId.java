@@ -0,0 +1,159 @@
+package com.pesapal.felixvcs.core;
+
+import com.pesapal.felixvcs.utils.HashUtils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The hash of an object, held as raw bytes.
+ * <p>
+ * An ObjectId takes a third of the memory of the hexadecimal string it replaces, compares by
+ * unsigned bytes and hashes from its leading bytes, which are already uniformly distributed. The
+ * hexadecimal form is only produced for files, messages and output, through {@link #name()}.
+ * The length follows the repository's {@link HashAlgorithm}, so SHA-1 and SHA-256 ids share the type.
+ */
+public final class ObjectId implements Comparable<ObjectId> {
+    private final byte[] raw;  // The hash bytes; never modified or handed out
+    private final int hash;    // Leading hash bytes, as the hash code
+
+    private ObjectId(byte[] raw) {
+        this.raw = raw;
+        int h = 0;
+        for (int i = 0; i < Math.min(raw.length, Integer.BYTES); i++) {
+            h = (h << 8) | (raw[i] & 0xFF);
+        }
+        this.hash = h;
+    }
+
+    /**
+     * Parses an id from its hexadecimal form.
+     *
+     * @param hex The hexadecimal hash.
+     * @return The id.
+     * @throws IllegalArgumentException If the string is not valid hexadecimal.
+     */
+    public static ObjectId fromHex(String hex) {
+        return new ObjectId(HashUtils.hexToBytes(hex));
+    }
+
+    /**
+     * Parses an id read from a ref or other file where an empty value means no object.
+     *
+     * @param hex The hexadecimal hash, possibly surrounded by whitespace, or null.
+     * @return The id, or null if the value is null or blank.
+     * @throws IllegalArgumentException If the value is not valid hexadecimal.
+     */
+    public static ObjectId parse(String hex) {
+        if (hex == null || hex.isBlank()) {
+            return null;
+        }
+        return fromHex(hex.trim());
+    }
+
+    /**
+     * Wraps raw hash bytes.
+     *
+     * @param raw The hash bytes; they are copied.
+     * @return The id.
+     */
+    public static ObjectId fromRaw(byte[] raw) {
+        return new ObjectId(raw.clone());
+    }
+
+    /**
+     * Wraps raw hash bytes taken from a larger array, such as a pack index table.
+     *
+     * @param bytes  The array holding the hash.
+     * @param from   The offset of the hash.
+     * @param length The hash length in bytes.
+     * @return The id.
+     */
+    public static ObjectId fromRaw(byte[] bytes, int from, int length) {
+        return new ObjectId(Arrays.copyOfRange(bytes, from, from + length));
+    }
+
+    /**
+     * Reads raw hash bytes from a binary stream.
+     *
+     * @param in     The stream.
+     * @param length The hash length in bytes.
+     * @return The id.
+     * @throws IOException If the stream cannot be read.
+     */
+    public static ObjectId read(DataInput in, int length) throws IOException {
+        byte[] raw = new byte[length];
+        in.readFully(raw);
+        return new ObjectId(raw);
+    }
+
+    /**
+     * Returns the hash length.
+     *
+     * @return The number of raw hash bytes.
+     */
+    public int length() {
+        return raw.length;
+    }
+
+    /**
+     * Returns a copy of the raw hash bytes.
+     *
+     * @return The hash bytes.
+     */
+    public byte[] toRaw() {
+        return raw.clone();
+    }
+
+    /**
+     * Writes the raw hash bytes to a binary stream.
+     *
+     * @param out The stream.
+     * @throws IOException If the stream cannot be written.
+     */
+    public void write(DataOutput out) throws IOException {
+        out.write(raw);
+    }
+
+    /**
+     * Compares raw hash bytes stored in a larger array with the id, without copying them.
+     *
+     * @param bytes The array holding the stored hash.
+     * @param from  The offset of the stored hash.
+     * @return A negative number, zero or a positive number as the stored hash sorts before, equal to or after this id.
+     */
+    int compareStored(byte[] bytes, int from) {
+        return Arrays.compareUnsigned(bytes, from, from + raw.length, raw, 0, raw.length);
+    }
+
+    /**
+     * Returns the hexadecimal form of the id.
+     *
+     * @return The lowercase hexadecimal hash.
+     */
+    public String name() {
+        return HashUtils.bytesToHex(raw);
+    }
+
+    @Override
+    public String toString() {
+        return name();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || other instanceof ObjectId id && hash == id.hash && Arrays.equals(raw, id.raw);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public int compareTo(ObjectId other) {
+        return Arrays.compareUnsigned(raw, other.raw);
+    }
+}
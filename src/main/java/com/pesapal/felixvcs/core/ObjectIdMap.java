@@ -0,0 +1,106 @@
+package com.pesapal.felixvcs.core;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * An insertion-ordered map from object ids to values that allocates nothing per entry.
+ * <p>
+ * The keys live in an {@link ObjectIdSet} and each value sits in a parallel array at the position
+ * of its key, so a put costs one probe and no entry object. Entries cannot be removed.
+ *
+ * @param <V> The type of mapped values.
+ */
+public class ObjectIdMap<V> {
+    private final ObjectIdSet keys;
+    private Object[] values; // Values at the positions of their keys
+
+    /**
+     * Constructs an empty map.
+     */
+    public ObjectIdMap() {
+        this(8);
+    }
+
+    /**
+     * Constructs an empty map sized for the given number of entries.
+     *
+     * @param expected The number of entries the map should hold before it has to grow.
+     */
+    public ObjectIdMap(int expected) {
+        this.keys = new ObjectIdSet(expected);
+        this.values = new Object[Math.max(8, expected)];
+    }
+
+    /**
+     * Associates a value with a key, replacing any previous value.
+     *
+     * @param key   The key.
+     * @param value The value; may be null.
+     * @return The previous value, or null if the key was not present.
+     */
+    public V put(ObjectId key, V value) {
+        int index = keys.addIndex(key);
+        if (index == values.length) {
+            values = Arrays.copyOf(values, index * 2);
+        }
+        V previous = value(index);
+        values[index] = value;
+        return previous;
+    }
+
+    /**
+     * Retrieves the value of a key.
+     *
+     * @param key The key.
+     * @return The value, or null if the key is not present.
+     */
+    public V get(ObjectId key) {
+        int index = keys.indexOf(key);
+        return index < 0 ? null : value(index);
+    }
+
+    /**
+     * Checks whether a key is present.
+     *
+     * @param key The key.
+     * @return True if the map holds the key, even with a null value.
+     */
+    public boolean containsKey(ObjectId key) {
+        return keys.indexOf(key) >= 0;
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return The size of the map.
+     */
+    public int size() {
+        return keys.size();
+    }
+
+    /**
+     * Returns the keys, in insertion order. The set is a live view and must not be added to.
+     *
+     * @return The keys.
+     */
+    public ObjectIdSet keySet() {
+        return keys;
+    }
+
+    /**
+     * Passes every entry to an action, in insertion order.
+     *
+     * @param action Receives each key and its value.
+     */
+    public void forEach(BiConsumer<ObjectId, ? super V> action) {
+        for (int i = 0; i < keys.size(); i++) {
+            action.accept(keys.get(i), value(i));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(int index) {
+        return (V) values[index];
+    }
+}
@@ -0,0 +1,179 @@
+package com.pesapal.felixvcs.core;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An insertion-ordered set of object ids that allocates nothing per element.
+ * <p>
+ * The ids are kept in one array in the order they were added, and an open-addressing table of
+ * {@code int} positions into that array finds them by linear probing. A {@link java.util.HashSet}
+ * or {@link java.util.LinkedHashSet} allocates a node for every element; this set only grows its
+ * two arrays, so a walk over a long history costs a handful of allocations in total. The position
+ * of an id in insertion order is stable, which lets callers keep per-id data in plain arrays and
+ * queue positions in an {@link com.pesapal.felixvcs.utils.IntDeque} instead of boxed ids.
+ * <p>
+ * Ids cannot be removed; walks only ever add to the sets they build. Null is not permitted.
+ */
+public class ObjectIdSet extends AbstractSet<ObjectId> {
+    private static final int MIN_CAPACITY = 8;
+
+    private ObjectId[] ids; // Ids in insertion order
+    private int[] table;    // Probe table of positions in ids, plus one; zero marks a free slot
+    private int shift;      // Right shift that turns a mixed hash code into a table slot
+    private int size;
+
+    /**
+     * Constructs an empty set.
+     */
+    public ObjectIdSet() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty set sized for the given number of ids.
+     *
+     * @param expected The number of ids the set should hold before it has to grow.
+     */
+    public ObjectIdSet(int expected) {
+        int capacity = Math.max(MIN_CAPACITY, expected);
+        this.ids = new ObjectId[capacity];
+        // The table stays at most half full, so probe sequences stay short
+        int tableSize = Integer.highestOneBit(capacity * 2 - 1) << 1;
+        this.table = new int[tableSize];
+        this.shift = Integer.numberOfLeadingZeros(tableSize) + 1;
+    }
+
+    /**
+     * Adds an id if it is not present yet.
+     *
+     * @param id The id.
+     * @return True if the id was added, false if the set already held it.
+     */
+    @Override
+    public boolean add(ObjectId id) {
+        int before = size;
+        addIndex(id);
+        return size != before;
+    }
+
+    /**
+     * Adds an id if it is not present yet and returns its position.
+     *
+     * @param id The id.
+     * @return The position of the id in insertion order.
+     */
+    public int addIndex(ObjectId id) {
+        int slot = find(id);
+        if (table[slot] != 0) {
+            return table[slot] - 1;
+        }
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        ids[size] = id;
+        table[slot] = ++size;
+        if (size * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        return size - 1;
+    }
+
+    /**
+     * Finds the position of an id.
+     *
+     * @param id The id.
+     * @return The position of the id in insertion order, or -1 if the set does not hold it.
+     */
+    public int indexOf(ObjectId id) {
+        return table[find(id)] - 1;
+    }
+
+    /**
+     * Returns the id at a position.
+     *
+     * @param index The position in insertion order.
+     * @return The id.
+     * @throws IndexOutOfBoundsException If there is no id at that position.
+     */
+    public ObjectId get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return ids[index];
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof ObjectId id && table[find(id)] != 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(ids, 0, size, null);
+        Arrays.fill(table, 0);
+        size = 0;
+    }
+
+    /**
+     * Iterates over the ids in insertion order. The iterator does not support removal.
+     *
+     * @return The iterator.
+     */
+    @Override
+    public Iterator<ObjectId> iterator() {
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public ObjectId next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return ids[next++];
+            }
+        };
+    }
+
+    /**
+     * Finds the slot holding an id, or the free slot where it would be inserted.
+     *
+     * @param id The id.
+     * @return The table slot.
+     */
+    private int find(ObjectId id) {
+        int mask = table.length - 1;
+        // Fibonacci hashing, so ids that differ only in their low bytes still spread across the table
+        for (int slot = (id.hashCode() * 0x9E3779B9) >>> shift; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0 || ids[entry - 1].equals(id)) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the probe table at a new size. The ids keep their positions.
+     *
+     * @param tableSize The new table size, a power of two.
+     */
+    private void rehash(int tableSize) {
+        table = new int[tableSize];
+        shift = Integer.numberOfLeadingZeros(tableSize) + 1;
+        for (int i = 0; i < size; i++) {
+            table[find(ids[i])] = i + 1;
+        }
+    }
+}
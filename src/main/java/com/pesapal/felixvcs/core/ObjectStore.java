@@ -0,0 +1,159 @@
+package com.pesapal.felixvcs.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.foreign.MemorySegment;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+/**
+ * Stores the commits, trees, blobs and chunk lists of a repository, addressed by the hash of their content.
+ * <p>
+ * Commands read and write objects only through this interface and obtain the store of a repository
+ * from {@link ObjectStores#open}, so a repository can keep its objects in loose files and packs, in
+ * memory, or in any other backend without changes to command code.
+ * <p>
+ * Stores may keep files open between reads. {@link #close} releases them; a store used again after
+ * closing opens what it needs again, so closing a store that others share, such as a mounted one,
+ * only costs them a reopen.
+ */
+public interface ObjectStore extends Closeable {
+
+    /**
+     * Retrieves the hash function that names the objects of the store.
+     *
+     * @return The hash function.
+     */
+    HashAlgorithm hashAlgorithm();
+
+    /**
+     * Checks whether the store holds an object.
+     *
+     * @param type The object type.
+     * @param hash The object hash.
+     * @return True if the object is stored, false otherwise.
+     */
+    boolean has(ObjectType type, ObjectId hash);
+
+    /**
+     * Reads the stored content of an object.
+     *
+     * @param type The object type.
+     * @param hash The object hash.
+     * @return The stored object content.
+     * @throws IOException If the object is missing or cannot be read.
+     */
+    byte[] read(ObjectType type, ObjectId hash) throws IOException;
+
+    /**
+     * Stores an object unless the store already holds it.
+     *
+     * @param type    The object type.
+     * @param content The object content.
+     * @return The object hash.
+     * @throws IOException If the object cannot be written.
+     */
+    ObjectId write(ObjectType type, byte[] content) throws IOException;
+
+    /**
+     * Reads a pack stream and stores every object in it.
+     * <p>
+     * The default writes the objects one by one; stores that keep packs can keep the pack whole.
+     *
+     * @param in The stream to read the pack from.
+     * @return The number of objects read.
+     * @throws IOException If the pack is invalid or an object cannot be written.
+     */
+    default int insertPack(InputStream in) throws IOException {
+        return PackReader.read(in, hashAlgorithm(), (type, hash, content, offset) -> write(type, content));
+    }
+
+    /**
+     * Hints that the given objects are about to be read, so a store backed by a slow medium can
+     * fetch them ahead of time. The default does nothing.
+     *
+     * @param type   The object type.
+     * @param hashes The object hashes.
+     * @throws IOException If fetching fails.
+     */
+    default void prefetch(ObjectType type, Collection<ObjectId> hashes) throws IOException {
+    }
+
+    /**
+     * Reads a blob. Stores that cache blobs off the heap return a view of the cached content; the
+     * default wraps the content read by {@link #read}.
+     *
+     * @param hash The blob hash.
+     * @return The blob.
+     * @throws IOException If the blob is missing or cannot be read.
+     */
+    default Blob readBlob(ObjectId hash) throws IOException {
+        return new Blob(hash, MemorySegment.ofArray(read(ObjectType.BLOB, hash)));
+    }
+
+    /**
+     * Reads and parses a commit.
+     *
+     * @param commitHash The commit hash.
+     * @return The commit.
+     * @throws IOException If the commit is missing or cannot be read.
+     */
+    default Commit readCommit(ObjectId commitHash) throws IOException {
+        return Commit.fromJson(new String(read(ObjectType.COMMIT, commitHash), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads and parses a tree.
+     *
+     * @param treeHash The tree hash.
+     * @return The tree.
+     * @throws IOException If the tree is missing or cannot be read.
+     */
+    default Tree readTree(ObjectId treeHash) throws IOException {
+        return Tree.fromJson(new String(read(ObjectType.TREE, treeHash), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Serializes and stores a commit.
+     *
+     * @param commit The commit.
+     * @return The commit hash.
+     * @throws IOException If the commit cannot be written.
+     */
+    default ObjectId writeCommit(Commit commit) throws IOException {
+        return write(ObjectType.COMMIT, commit.toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Serializes and stores a tree.
+     *
+     * @param tree The tree.
+     * @return The tree hash.
+     * @throws IOException If the tree cannot be written.
+     */
+    default ObjectId writeTree(Tree tree) throws IOException {
+        return write(ObjectType.TREE, tree.toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Releases the files the store holds open. The default holds none.
+     *
+     * @throws IOException If a file cannot be closed.
+     */
+    @Override
+    default void close() throws IOException {
+    }
+
+    /**
+     * Builds the error for an object the store does not hold, e.g. "Commit 1a2b not found.".
+     *
+     * @param type The object type.
+     * @param hash The object hash.
+     * @return The exception to throw.
+     */
+    static IOException notFound(ObjectType type, ObjectId hash) {
+        String name = type.name().toLowerCase().replace('_', ' ');
+        return new IOException(Character.toUpperCase(name.charAt(0)) + name.substring(1) + " " + hash + " not found.");
+    }
+}
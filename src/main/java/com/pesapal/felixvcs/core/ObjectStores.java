@@ -0,0 +1,81 @@
+package com.pesapal.felixvcs.core;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chooses the object store of a repository.
+ * <p>
+ * A repository uses its loose files and packs, with blobs in a {@link RemoteBlobStore} when it has a
+ * blob store configuration, unless another store has been mounted over it for the lifetime of the
+ * process, as tests and benchmarks do with an {@link InMemoryObjectStore}.
+ * <p>
+ * Blob reads go through one process-wide {@link OffHeapBlobCache}. Its budget is read from the
+ * {@value #CACHE_BYTES_PROPERTY} system property, defaults to 64 MiB and is disabled by zero.
+ */
+public final class ObjectStores {
+    public static final String CACHE_BYTES_PROPERTY = "felixvcs.blobCacheBytes";
+
+    private static final Map<Path, ObjectStore> MOUNTED = new ConcurrentHashMap<>();
+    private static final OffHeapBlobCache BLOB_CACHE = new OffHeapBlobCache(Long.getLong(CACHE_BYTES_PROPERTY, 64L * 1024 * 1024));
+
+    private ObjectStores() {
+    }
+
+    /**
+     * Opens the object store of a repository.
+     *
+     * @param vcsDir The repository data directory.
+     * @return The mounted store, or the repository's configured store.
+     * @throws IOException If the store cannot be opened.
+     */
+    public static ObjectStore open(Path vcsDir) throws IOException {
+        ObjectStore mounted = MOUNTED.get(key(vcsDir));
+        if (mounted != null) {
+            return mounted;
+        }
+        ObjectStore files = new FileObjectStore(vcsDir);
+        ObjectStore store = RemoteBlobStore.isConfigured(vcsDir) ? RemoteBlobStore.open(vcsDir, files) : files;
+        return BLOB_CACHE.capacity() > 0 ? new CachingObjectStore(store, BLOB_CACHE, vcsDir) : store;
+    }
+
+    /**
+     * Returns the blob cache shared by the object stores of the process.
+     *
+     * @return The off-heap blob cache.
+     */
+    public static OffHeapBlobCache blobCache() {
+        return BLOB_CACHE;
+    }
+
+    /**
+     * Makes commands use the given store for a repository instead of its files.
+     *
+     * @param vcsDir The repository data directory.
+     * @param store  The store to use.
+     */
+    public static void mount(Path vcsDir, ObjectStore store) {
+        MOUNTED.put(key(vcsDir), store);
+    }
+
+    /**
+     * Returns a repository to its file store.
+     *
+     * @param vcsDir The repository data directory.
+     */
+    public static void unmount(Path vcsDir) {
+        MOUNTED.remove(key(vcsDir));
+    }
+
+    /**
+     * Normalizes a repository path so that relative and absolute spellings match.
+     *
+     * @param vcsDir The repository data directory.
+     * @return The absolute, normalized path.
+     */
+    private static Path key(Path vcsDir) {
+        return vcsDir.toAbsolutePath().normalize();
+    }
+}
@@ -0,0 +1,152 @@
+package com.pesapal.felixvcs.core;
+
+import java.io.*;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Moves objects between two repositories on the local file system as a single pack.
+ * <p>
+ * The sending side writes the pack into a pipe on its own thread while the receiving side's object
+ * store verifies and stores it, just as it would a pack arriving over a wire.
+ */
+public class ObjectTransfer {
+
+    /**
+     * Sends objects from one repository to another.
+     *
+     * @param sourceVcs The repository data directory to read the objects from.
+     * @param targetVcs The repository data directory to store the objects in.
+     * @param objects   The objects to send, grouped by type.
+     * @return The number of objects received.
+     * @throws IOException If the repositories use different hash functions, or the pack cannot be written, verified or stored.
+     */
+    public static int send(Path sourceVcs, Path targetVcs, Map<ObjectType, ? extends Collection<ObjectId>> objects) throws IOException {
+        HashAlgorithm sourceFormat = HashAlgorithm.of(sourceVcs);
+        HashAlgorithm targetFormat = HashAlgorithm.of(targetVcs);
+        if (sourceFormat != targetFormat) {
+            throw new IOException("Cannot transfer objects from a " + sourceFormat.getName() + " repository to a "
+                    + targetFormat.getName() + " repository.");
+        }
+        ObjectStore source = ObjectStores.open(sourceVcs);
+        PipedInputStream in = new PipedInputStream(64 * 1024);
+        PipedOutputStream out = new PipedOutputStream(in);
+        IOException[] sendError = new IOException[1];
+        Thread sender = new Thread(() -> {
+            try (out) {
+                PackWriter.write(source, objects, out);
+            } catch (IOException e) {
+                sendError[0] = e;
+            }
+        }, "pack-sender");
+        sender.start();
+
+        int received;
+        try (in) {
+            received = ObjectStores.open(targetVcs).insertPack(in);
+        } catch (IOException e) {
+            // A pack cut short is the sender's fault; any other failure also stops the sender
+            IOException sendFailure = joinSender(sender, sendError);
+            if (sendFailure != null && e instanceof EOFException) {
+                throw sendFailure;
+            }
+            throw e;
+        }
+        IOException sendFailure = joinSender(sender, sendError);
+        if (sendFailure != null) {
+            throw sendFailure;
+        }
+        return received;
+    }
+
+    /**
+     * Waits for the sending thread to finish.
+     *
+     * @param sender    The sending thread.
+     * @param sendError Holds the sender's failure, if any.
+     * @return The sender's failure, or null if it succeeded.
+     * @throws IOException If the wait is interrupted.
+     */
+    private static IOException joinSender(Thread sender, IOException[] sendError) throws IOException {
+        try {
+            sender.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while sending objects.");
+        }
+        return sendError[0];
+    }
+
+    /**
+     * Works out which of the objects collected by a walk a repository is missing.
+     * <p>
+     * Every collected commit is new by construction; trees and blobs are often shared with history
+     * the repository already has, so only the ones it lacks are kept.
+     *
+     * @param receiver Reads the repository that will receive the objects.
+     * @param result   The objects collected by the walk.
+     * @return The missing objects, grouped by type.
+     */
+    public static Map<ObjectType, List<ObjectId>> missing(ObjectStore receiver, ObjectWalk.Result result) {
+        Map<ObjectType, List<ObjectId>> missing = new EnumMap<>(ObjectType.class);
+        missing.put(ObjectType.COMMIT, new ArrayList<>(result.commits()));
+        missing.put(ObjectType.TREE, filterMissing(receiver, ObjectType.TREE, result.trees()));
+        missing.put(ObjectType.BLOB, filterMissing(receiver, ObjectType.BLOB, result.blobs()));
+        missing.put(ObjectType.CHUNK_LIST, filterMissing(receiver, ObjectType.CHUNK_LIST, result.chunkLists()));
+        return missing;
+    }
+
+    /**
+     * Lists the ref tips of the receiving repository that the sending repository also holds.
+     * <p>
+     * The receiver has everything reachable from these commits, so the sender can subtract their
+     * history in one step when it has reachability bitmaps.
+     *
+     * @param receiverVcs The repository data directory that will receive objects.
+     * @param sender      Reads the repository that will send them.
+     * @return The shared tips.
+     * @throws IOException If a ref cannot be read.
+     */
+    public static List<ObjectId> sharedTips(Path receiverVcs, ObjectStore sender) throws IOException {
+        List<ObjectId> shared = new ArrayList<>();
+        for (ObjectId tip : new ObjectWalk(receiverVcs).refTips()) {
+            if (sender.has(ObjectType.COMMIT, tip)) {
+                shared.add(tip);
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Describes a set of objects for progress output, e.g. "3 objects (1 commits, 1 trees, 1 blobs)".
+     * Chunk lists are only mentioned when there are any.
+     *
+     * @param count   The number of objects transferred.
+     * @param objects The transferred objects, grouped by type.
+     * @return The summary.
+     */
+    public static String summarize(int count, Map<ObjectType, ? extends Collection<ObjectId>> objects) {
+        Collection<ObjectId> chunkLists = objects.get(ObjectType.CHUNK_LIST);
+        return count + " objects (" + objects.get(ObjectType.COMMIT).size() + " commits, "
+                + objects.get(ObjectType.TREE).size() + " trees, " + objects.get(ObjectType.BLOB).size() + " blobs"
+                + (chunkLists == null || chunkLists.isEmpty() ? "" : ", " + chunkLists.size() + " chunk lists") + ")";
+    }
+
+    /**
+     * Filters object hashes down to those a repository does not have.
+     *
+     * @param store  The repository's object store.
+     * @param type   The object type.
+     * @param hashes The candidate hashes.
+     * @return The hashes that are missing from the repository.
+     */
+    private static List<ObjectId> filterMissing(ObjectStore store, ObjectType type, Collection<ObjectId> hashes) {
+        List<ObjectId> missing = new ArrayList<>();
+        for (ObjectId hash : hashes) {
+            if (!store.has(type, hash)) {
+                missing.add(hash);
+            }
+        }
+        return missing;
+    }
+}
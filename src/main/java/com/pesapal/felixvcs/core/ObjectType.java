@@ -0,0 +1,56 @@
+package com.pesapal.felixvcs.core;
+
+import java.io.IOException;
+
+/**
+ * The kinds of objects stored in a repository, with the directory each kind is stored under
+ * and the code that identifies it inside a pack.
+ */
+public enum ObjectType {
+    COMMIT("commits", 1),
+    TREE("trees", 2),
+    BLOB("blobs", 3),
+    CHUNK_LIST("chunklists", 4);
+
+    private final String directory;
+    private final int code;
+
+    ObjectType(String directory, int code) {
+        this.directory = directory;
+        this.code = code;
+    }
+
+    /**
+     * Returns the directory, relative to the repository data directory, that holds loose objects of this kind.
+     *
+     * @return The object directory name.
+     */
+    public String getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Returns the code that identifies this kind inside a pack.
+     *
+     * @return The pack type code.
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Looks up an object type by its pack code.
+     *
+     * @param code The pack type code.
+     * @return The matching object type.
+     * @throws IOException If the code is unknown.
+     */
+    public static ObjectType fromCode(int code) throws IOException {
+        for (ObjectType type : values()) {
+            if (type.code == code) {
+                return type;
+            }
+        }
+        throw new IOException("Unknown object type code " + code + ".");
+    }
+}
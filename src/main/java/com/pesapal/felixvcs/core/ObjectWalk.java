@@ -0,0 +1,453 @@
+package com.pesapal.felixvcs.core;
+
+import com.pesapal.felixvcs.utils.Events;
+import com.pesapal.felixvcs.utils.IntDeque;
+import com.pesapal.felixvcs.utils.Stats;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Walks the commit graph of a repository and collects the objects reachable from a set of tips.
+ * <p>
+ * The walk is breadth-first so that a depth limit keeps the commits closest to the tips. It never
+ * crosses the repository's own shallow boundary, and it reports the commits whose parents it left
+ * out so a shallow copy can record them.
+ */
+public class ObjectWalk implements Closeable {
+    private final Path vcsDir;         // Repository data directory to read objects from
+    private final Set<ObjectId> shallow; // Existing shallow boundary of the repository
+    private final ObjectStore store;   // Object store of the repository
+    private final ObjectIdMap<List<ObjectId>> fileChunks = new ObjectIdMap<>(); // Chunk hashes per file object; empty for plain blobs
+
+    /**
+     * The objects collected by a walk.
+     *
+     * @param commits Reachable commit hashes, tips first.
+     * @param trees   Tree hashes of the collected commits.
+     * @param blobs      Blob hashes referenced by the collected trees, including the chunks of chunked files.
+     * @param chunkLists Chunk list hashes referenced by the collected trees.
+     * @param shallow Collected commits whose parent was not collected.
+     * @param edges   Parents of collected commits that were not collected themselves, i.e. the
+     *                commits the collected history builds on.
+     */
+    public record Result(Set<ObjectId> commits, Set<ObjectId> trees, Set<ObjectId> blobs, Set<ObjectId> chunkLists,
+                         Set<ObjectId> shallow, Set<ObjectId> edges) {
+
+        /**
+         * Groups the collected objects by type.
+         *
+         * @return The collected object hashes for every object type.
+         */
+        public Map<ObjectType, Set<ObjectId>> objects() {
+            Map<ObjectType, Set<ObjectId>> objects = new EnumMap<>(ObjectType.class);
+            objects.put(ObjectType.COMMIT, commits);
+            objects.put(ObjectType.TREE, trees);
+            objects.put(ObjectType.BLOB, blobs);
+            objects.put(ObjectType.CHUNK_LIST, chunkLists);
+            return objects;
+        }
+
+        /**
+         * Counts the collected objects.
+         *
+         * @return The number of commits, trees, blobs and chunk lists.
+         */
+        public int size() {
+            return commits.size() + trees.size() + blobs.size() + chunkLists.size();
+        }
+    }
+
+    /**
+     * Constructs an ObjectWalk over the given repository.
+     *
+     * @param vcsDir The repository data directory.
+     * @throws IOException If the shallow boundary cannot be read.
+     */
+    public ObjectWalk(Path vcsDir) throws IOException {
+        this.vcsDir = vcsDir;
+        this.shallow = Shallow.read(vcsDir);
+        this.store = ObjectStores.open(vcsDir);
+    }
+
+    /**
+     * Lists the commit hashes that the branches, tags and remote-tracking refs of the repository point to.
+     *
+     * @return The distinct, non-empty ref tips.
+     * @throws IOException If a ref cannot be read.
+     */
+    public Set<ObjectId> refTips() throws IOException {
+        Set<ObjectId> tips = new LinkedHashSet<>();
+        for (ObjectId commitHash : Refs.list(vcsDir, "refs/").values()) {
+            if (commitHash != null) {
+                tips.add(commitHash);
+            }
+        }
+        return tips;
+    }
+
+    /**
+     * Lists the file objects that the index and the stashes refer to.
+     * <p>
+     * These are kept alive without any commit: a staged or stashed file can exist only in a pack,
+     * so it must be treated as a root when packs are rewritten. Entries whose object the store does
+     * not hold are left out.
+     *
+     * @return The distinct blob and chunk list hashes of staged and stashed files.
+     * @throws IOException If the index or a stash cannot be read.
+     */
+    public Set<ObjectId> workingStateFiles() throws IOException {
+        List<ObjectId> entries = new ArrayList<>();
+        Path indexFile = vcsDir.resolve("index");
+        if (Files.exists(indexFile)) {
+            for (String entry : Files.readAllLines(indexFile, StandardCharsets.UTF_8)) {
+                String[] parts = entry.split(":", 2);
+                if (parts.length == 2 && !parts[1].isBlank()) {
+                    entries.add(ObjectId.parse(parts[1]));
+                }
+            }
+        }
+        Path stashDir = vcsDir.resolve("stash");
+        if (Files.isDirectory(stashDir)) {
+            try (Stream<Path> stashes = Files.list(stashDir)) {
+                for (Path stash : stashes.toList()) {
+                    // A stash holds the same path to hash object that a tree keeps under "files"
+                    String json = Files.readString(stash, StandardCharsets.UTF_8);
+                    entries.addAll(Tree.fromJson("{\"files\":" + json + "}").getFiles().values());
+                }
+            }
+        }
+        Set<ObjectId> files = new ObjectIdSet();
+        for (ObjectId hash : entries) {
+            if (store.has(ObjectType.BLOB, hash) || store.has(ObjectType.CHUNK_LIST, hash)) {
+                files.add(hash);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Collects the commits, trees and blobs reachable from the given tips.
+     *
+     * @param tips  The commit hashes to start from.
+     * @param depth The maximum number of commits to follow from each tip; zero or less for no limit.
+     * @param haves Tests for commits the receiver already has; the walk stops at them without collecting them.
+     * @return The collected objects.
+     * @throws IOException If a commit or tree inside the walked history is missing.
+     */
+    public Result walk(Collection<ObjectId> tips, int depth, Predicate<ObjectId> haves) throws IOException {
+        try (Stats.Timer timer = Stats.time(Stats.Phase.WALK)) {
+            return walkGraph(tips, depth, haves);
+        }
+    }
+
+    private Result walkGraph(Collection<ObjectId> tips, int depth, Predicate<ObjectId> haves) throws IOException {
+        ObjectIdSet collected = new ObjectIdSet();
+        ObjectIdMap<ObjectId> parents = new ObjectIdMap<>();
+        Set<ObjectId> trees = new ObjectIdSet();
+        IntDeque queue = new IntDeque(); // Pairs of a position in collected and its depth
+
+        for (ObjectId tip : tips) {
+            if (tip != null && !haves.test(tip) && collected.add(tip)) {
+                queue.addLast(collected.size() - 1);
+                queue.addLast(1);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            ObjectId current = collected.get(queue.removeFirst());
+            int currentDepth = queue.removeFirst();
+
+            Commit commit = readCommit(current);
+            trees.add(commit.getTree());
+            ObjectId parent = commit.getParent();
+            parents.put(current, parent);
+
+            if (parent == null || shallow.contains(current) || haves.test(parent)) {
+                continue;
+            }
+            if (depth > 0 && currentDepth >= depth) {
+                continue;
+            }
+            if (collected.add(parent)) {
+                queue.addLast(collected.size() - 1);
+                queue.addLast(currentDepth + 1);
+            }
+        }
+
+        // Boundary: commits whose parent exists in history but was not collected
+        Set<ObjectId> boundary = new TreeSet<>();
+        Set<ObjectId> edges = new TreeSet<>();
+        parents.forEach((commit, parent) -> {
+            if (parent == null || collected.contains(parent)) {
+                return;
+            }
+            edges.add(parent);
+            if (!haves.test(parent)) {
+                boundary.add(commit);
+            }
+        });
+
+        Set<ObjectId> blobs = new ObjectIdSet();
+        Set<ObjectId> chunkLists = new ObjectIdSet();
+        for (ObjectId treeHash : trees) {
+            forEachFileObject(readTree(treeHash), (type, hash) -> (type == ObjectType.CHUNK_LIST ? chunkLists : blobs).add(hash));
+        }
+
+        return new Result(collected, trees, blobs, chunkLists, boundary, edges);
+    }
+
+    /**
+     * Collects the objects reachable from the wanted tips but not from the have tips.
+     * <p>
+     * When a stored pack carries reachability bitmaps, the answer is a union of bitmaps for each
+     * side followed by one and-not; only commits newer than the nearest bitmap are read. Without
+     * bitmaps, or in a shallow repository, this falls back to a graph walk that stops at the
+     * commits accepted by {@code haves}. The bitmap answer does not report shallow or edge commits.
+     *
+     * @param tips     The commit hashes to start from.
+     * @param haveTips Commits of this repository that the receiver is known to have, with all their history.
+     * @param haves    Tests for commits the receiver already has, used by the graph walk.
+     * @return The collected objects.
+     * @throws IOException If a commit or tree inside the walked history is missing.
+     */
+    public Result walk(Collection<ObjectId> tips, Collection<ObjectId> haveTips, Predicate<ObjectId> haves) throws IOException {
+        try (Stats.Timer timer = Stats.time(Stats.Phase.WALK)) {
+            if (shallow.isEmpty()) {
+                for (Pack pack : Pack.list(vcsDir)) {
+                    PackBitmaps bitmaps;
+                    try {
+                        bitmaps = pack.loadBitmaps();
+                    } catch (IOException e) {
+                        // A damaged bitmap file only costs the shortcut; the graph walk gives the same answer
+                        break;
+                    }
+                    if (bitmaps != null) {
+                        return walkBitmaps(pack.getIndex(), bitmaps, tips, haveTips);
+                    }
+                }
+            }
+            return walkGraph(tips, 0, haves);
+        }
+    }
+
+    /**
+     * Collects a commit and all of its ancestors, reading commits only.
+     *
+     * @param tip The commit hash to start from.
+     * @return The commit and its ancestors up to the repository's shallow boundary.
+     * @throws IOException If a commit inside the walked history is missing.
+     */
+    public Set<ObjectId> ancestors(ObjectId tip) throws IOException {
+        try (Stats.Timer timer = Stats.time(Stats.Phase.WALK)) {
+            Set<ObjectId> ancestors = new ObjectIdSet();
+            ObjectId current = tip;
+            while (current != null && ancestors.add(current) && !shallow.contains(current)) {
+                current = readCommit(current).getParent();
+            }
+            return ancestors;
+        }
+    }
+
+    /**
+     * Checks whether one commit is reachable from another by following parents.
+     * <p>
+     * Only commits are read, so the check stays cheap on long histories. A walk that reaches the
+     * repository's shallow boundary without finding the ancestor reports false.
+     *
+     * @param ancestor   The candidate ancestor commit hash.
+     * @param descendant The commit hash to start from.
+     * @return True if the ancestor is the descendant or one of its parents, false otherwise.
+     * @throws IOException If a commit inside the walked history is missing.
+     */
+    public boolean isAncestor(ObjectId ancestor, ObjectId descendant) throws IOException {
+        ObjectId current = descendant;
+        while (current != null) {
+            if (current.equals(ancestor)) {
+                return true;
+            }
+            if (shallow.contains(current)) {
+                return false;
+            }
+            current = readCommit(current).getParent();
+        }
+        return false;
+    }
+
+    /**
+     * Answers a want/have query from reachability bitmaps.
+     *
+     * @param index    The index of the pack the bitmaps belong to.
+     * @param bitmaps  The pack's bitmaps.
+     * @param tips     The wanted commit hashes.
+     * @param haveTips The commit hashes the receiver has.
+     * @return The objects reachable from the tips but not from the have tips.
+     * @throws IOException If a commit or tree newer than the bitmaps is missing.
+     */
+    private Result walkBitmaps(PackIndex index, PackBitmaps bitmaps, Collection<ObjectId> tips,
+                               Collection<ObjectId> haveTips) throws IOException {
+        Reach wanted = reach(index, bitmaps, tips);
+        Reach had = reach(index, bitmaps, haveTips);
+        wanted.bits().andNot(had.bits());
+
+        Map<ObjectType, Set<ObjectId>> objects = new EnumMap<>(ObjectType.class);
+        for (ObjectType type : ObjectType.values()) {
+            Set<ObjectId> loose = wanted.loose().get(type);
+            loose.removeAll(had.loose().get(type));
+            objects.put(type, loose);
+        }
+        for (int position = wanted.bits().nextSetBit(0); position >= 0; position = wanted.bits().nextSetBit(position + 1)) {
+            objects.get(index.type(position)).add(index.hash(position));
+        }
+        return new Result(objects.get(ObjectType.COMMIT), objects.get(ObjectType.TREE), objects.get(ObjectType.BLOB),
+                objects.get(ObjectType.CHUNK_LIST), new TreeSet<>(), new TreeSet<>());
+    }
+
+    /**
+     * The objects reachable from a set of commits: positions in a pack, plus objects outside it.
+     *
+     * @param bits  Positions of reachable objects in the pack index.
+     * @param loose Reachable objects that are not in the pack, grouped by type.
+     */
+    private record Reach(BitSet bits, Map<ObjectType, Set<ObjectId>> loose) {
+    }
+
+    /**
+     * Follows each commit back to the nearest commit with a bitmap and unions the results.
+     *
+     * @param index   The pack index.
+     * @param bitmaps The pack's bitmaps.
+     * @param tips    The commit hashes to start from.
+     * @return The reachable objects.
+     * @throws IOException If a commit or tree newer than the bitmaps is missing.
+     */
+    private Reach reach(PackIndex index, PackBitmaps bitmaps, Collection<ObjectId> tips) throws IOException {
+        Reach reach = new Reach(new BitSet(index.size()), new EnumMap<>(ObjectType.class));
+        for (ObjectType type : ObjectType.values()) {
+            reach.loose().put(type, new LinkedHashSet<>());
+        }
+
+        Set<ObjectId> seen = new ObjectIdSet();
+        for (ObjectId tip : tips) {
+            ObjectId current = tip;
+            while (current != null && seen.add(current)) {
+                BitSet bitmap = bitmaps.get(current);
+                if (bitmap != null) {
+                    reach.bits().or(bitmap);
+                    break;
+                }
+                Commit commit = readCommit(current);
+                mark(index, reach, ObjectType.COMMIT, current);
+                mark(index, reach, ObjectType.TREE, commit.getTree());
+                forEachFileObject(readTree(commit.getTree()), (type, hash) -> mark(index, reach, type, hash));
+                current = commit.getParent();
+            }
+        }
+        return reach;
+    }
+
+    /**
+     * Records one reachable object, as a bit if the pack holds it and by hash otherwise.
+     *
+     * @param index The pack index.
+     * @param reach The reachable objects collected so far.
+     * @param type  The object type.
+     * @param hash  The object hash.
+     */
+    private void mark(PackIndex index, Reach reach, ObjectType type, ObjectId hash) {
+        int position = index.find(hash);
+        if (position >= 0) {
+            reach.bits().set(position);
+        } else {
+            reach.loose().get(type).add(hash);
+        }
+    }
+
+    /**
+     * Passes the objects holding the file contents of a tree to an action: the blob of each file,
+     * or the chunk list of a chunked file followed by its chunks.
+     * <p>
+     * Which files are chunked is remembered, so trees that share files across commits cost one
+     * lookup per distinct file.
+     *
+     * @param tree   The tree.
+     * @param action Receives the type and hash of each object; chunks are reported as blobs.
+     * @throws IOException If a chunk list cannot be read.
+     */
+    void forEachFileObject(Tree tree, BiConsumer<ObjectType, ObjectId> action) throws IOException {
+        forEachFileObject(tree.getFiles().values(), action);
+    }
+
+    /**
+     * Passes the objects holding the given file contents to an action, as
+     * {@link #forEachFileObject(Tree, BiConsumer)} does for the files of a tree.
+     *
+     * @param files  The blob or chunk list hashes of the files.
+     * @param action Receives the type and hash of each object; chunks are reported as blobs.
+     * @throws IOException If a chunk list cannot be read.
+     */
+    void forEachFileObject(Collection<ObjectId> files, BiConsumer<ObjectType, ObjectId> action) throws IOException {
+        for (ObjectId hash : files) {
+            List<ObjectId> chunks = fileChunks.get(hash);
+            if (chunks == null) {
+                chunks = store.has(ObjectType.CHUNK_LIST, hash) ? ChunkList.read(store, hash).getHashes() : List.of();
+                fileChunks.put(hash, chunks);
+            }
+            if (chunks.isEmpty()) {
+                action.accept(ObjectType.BLOB, hash);
+                continue;
+            }
+            action.accept(ObjectType.CHUNK_LIST, hash);
+            for (ObjectId chunk : chunks) {
+                action.accept(ObjectType.BLOB, chunk);
+            }
+        }
+    }
+
+    /**
+     * Closes the files the walk's object store holds open.
+     *
+     * @throws IOException If a file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        store.close();
+    }
+
+    /**
+     * Reads a commit object from the repository as one step of a walk.
+     *
+     * @param commitHash The commit hash.
+     * @return The parsed commit.
+     * @throws IOException If the commit is missing or unreadable.
+     */
+    Commit readCommit(ObjectId commitHash) throws IOException {
+        Events.WalkStep event = new Events.WalkStep();
+        event.begin();
+        Commit commit = store.readCommit(commitHash);
+        if (event.shouldCommit()) {
+            event.id = commitHash.name();
+            event.parent = commit.getParent() == null ? null : commit.getParent().name();
+            event.commit();
+        }
+        return commit;
+    }
+
+    /**
+     * Reads a tree object from the repository.
+     *
+     * @param treeHash The tree hash.
+     * @return The parsed tree.
+     * @throws IOException If the tree is missing or unreadable.
+     */
+    Tree readTree(ObjectId treeHash) throws IOException {
+        return store.readTree(treeHash);
+    }
+}
@@ -0,0 +1,112 @@
+package com.pesapal.felixvcs.core;
+
+import com.pesapal.felixvcs.utils.Stats;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A byte-bounded cache of blob contents kept outside the Java heap, evicting the least recently used blobs.
+ * <p>
+ * Each cached blob lives in a native {@link MemorySegment}, so hot blobs stay in memory without
+ * adding to the heap the garbage collector has to trace and copy. Segments come from automatic
+ * arenas: eviction only forgets a segment, and its memory is released once no {@link Blob} handed
+ * out still views it, so a reader never sees memory freed underneath it. Blobs larger than a
+ * quarter of the budget are not cached, so a single large file cannot flush the cache.
+ * <p>
+ * One cache serves every repository of the process under a single budget. Entries are keyed by
+ * repository as well as hash, so a blob cached for one repository is never served for another
+ * that does not hold it.
+ */
+public class OffHeapBlobCache {
+    private final long maxBytes;
+    private final LinkedHashMap<Key, MemorySegment> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param maxBytes The most bytes of blob content the cache may hold.
+     */
+    public OffHeapBlobCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Identifies a cached blob.
+     *
+     * @param repository The repository data directory the blob was read from.
+     * @param hash       The blob hash.
+     */
+    private record Key(Path repository, ObjectId hash) {
+    }
+
+    /**
+     * Looks up a cached blob and marks it as recently used.
+     *
+     * @param repository The repository data directory, as an absolute normalized path.
+     * @param hash       The blob hash.
+     * @return The blob viewing the cached content, or null if it is not cached.
+     */
+    public Blob get(Path repository, ObjectId hash) {
+        MemorySegment segment;
+        synchronized (this) {
+            segment = entries.get(new Key(repository, hash));
+        }
+        Stats.count(segment == null ? Stats.Counter.BLOB_CACHE_MISSES : Stats.Counter.BLOB_CACHE_HITS, 1);
+        return segment == null ? null : new Blob(hash, segment);
+    }
+
+    /**
+     * Copies blob content off the heap and caches it, evicting older blobs to stay within the budget.
+     *
+     * @param repository The repository data directory, as an absolute normalized path.
+     * @param hash       The blob hash.
+     * @param content    The blob content.
+     * @return The blob, viewing the cached copy, or the given content if the blob is too large to cache.
+     */
+    public Blob put(Path repository, ObjectId hash, byte[] content) {
+        if (content.length > maxBytes / 4) {
+            return new Blob(hash, MemorySegment.ofArray(content));
+        }
+        MemorySegment segment = Arena.ofAuto().allocate(Math.max(1, content.length)).asSlice(0, content.length);
+        segment.copyFrom(MemorySegment.ofArray(content));
+        segment = segment.asReadOnly();
+
+        synchronized (this) {
+            MemorySegment existing = entries.putIfAbsent(new Key(repository, hash), segment);
+            if (existing != null) {
+                return new Blob(hash, existing);
+            }
+            totalBytes += segment.byteSize();
+            Iterator<Map.Entry<Key, MemorySegment>> eldest = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                totalBytes -= eldest.next().getValue().byteSize();
+                eldest.remove();
+            }
+        }
+        return new Blob(hash, segment);
+    }
+
+    /**
+     * Returns the byte budget of the cache.
+     *
+     * @return The most bytes the cache may hold.
+     */
+    public long capacity() {
+        return maxBytes;
+    }
+
+    /**
+     * Returns the number of bytes currently cached.
+     *
+     * @return The total size of the cached blobs.
+     */
+    public synchronized long size() {
+        return totalBytes;
+    }
+}
@@ -0,0 +1,127 @@
+package com.pesapal.felixvcs.core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * A pack stored in the repository's {@code packs} directory, together with its index.
+ * <p>
+ * A stored pack is a pack stream as written by {@link PackWriter}, named after its checksum as
+ * {@code pack-<checksum>.pack}. Its {@code .idx} file lists the objects it holds and an optional
+ * {@code .bitmap} file holds reachability bitmaps for some of its commits.
+ */
+public class Pack {
+    public static final String PACKS_DIR = "packs";
+    static final String PACK_EXTENSION = ".pack";
+    static final String INDEX_EXTENSION = ".idx";
+    static final String BITMAP_EXTENSION = ".bitmap";
+
+    private final Path packFile;
+    private final PackIndex index;
+
+    /**
+     * Constructs a Pack from a pack file and its loaded index.
+     *
+     * @param packFile The pack file.
+     * @param index    The pack's index.
+     */
+    public Pack(Path packFile, PackIndex index) {
+        this.packFile = packFile;
+        this.index = index;
+    }
+
+    /**
+     * Lists the stored packs of a repository that have an index, newest first.
+     *
+     * @param vcsDir The repository data directory.
+     * @return The stored packs; empty if the repository has none.
+     * @throws IOException If the packs directory or an index cannot be read.
+     */
+    public static List<Pack> list(Path vcsDir) throws IOException {
+        return list(vcsDir, packFile -> true);
+    }
+
+    /**
+     * Lists the stored packs of a repository that have an index and pass a filter, newest first.
+     * Only the indexes of the accepted packs are read.
+     *
+     * @param vcsDir  The repository data directory.
+     * @param include Tests the pack files to list.
+     * @return The accepted packs; empty if the repository has none.
+     * @throws IOException If the packs directory or an index cannot be read.
+     */
+    public static List<Pack> list(Path vcsDir, Predicate<Path> include) throws IOException {
+        Path packsDir = vcsDir.resolve(PACKS_DIR);
+        List<Pack> packs = new ArrayList<>();
+        if (!Files.isDirectory(packsDir)) {
+            return packs;
+        }
+
+        List<Path> packFiles;
+        try (Stream<Path> files = Files.list(packsDir)) {
+            packFiles = new ArrayList<>(files
+                    .filter(file -> file.getFileName().toString().endsWith(PACK_EXTENSION))
+                    .filter(file -> Files.exists(sibling(file, INDEX_EXTENSION)))
+                    .filter(include)
+                    .toList());
+        }
+        // Newest first, so the pack written by the latest gc is consulted before older ones
+        packFiles.sort((a, b) -> {
+            try {
+                return Files.getLastModifiedTime(b).compareTo(Files.getLastModifiedTime(a));
+            } catch (IOException e) {
+                return 0;
+            }
+        });
+        for (Path packFile : packFiles) {
+            packs.add(new Pack(packFile, PackIndex.read(sibling(packFile, INDEX_EXTENSION))));
+        }
+        return packs;
+    }
+
+    /**
+     * Returns the path of a file belonging to a pack, such as its index or bitmaps.
+     *
+     * @param packFile  The pack file.
+     * @param extension The extension of the companion file, including the dot.
+     * @return The companion file path.
+     */
+    static Path sibling(Path packFile, String extension) {
+        String name = packFile.getFileName().toString();
+        return packFile.resolveSibling(name.substring(0, name.length() - PACK_EXTENSION.length()) + extension);
+    }
+
+    /**
+     * Gets the pack file.
+     *
+     * @return The pack file path.
+     */
+    public Path getPackFile() {
+        return packFile;
+    }
+
+    /**
+     * Gets the pack's index.
+     *
+     * @return The pack index.
+     */
+    public PackIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Loads the pack's reachability bitmaps.
+     *
+     * @return The bitmaps, or null if the pack has none.
+     * @throws IOException If the bitmap file is malformed.
+     */
+    public PackBitmaps loadBitmaps() throws IOException {
+        Path bitmapFile = sibling(packFile, BITMAP_EXTENSION);
+        return Files.exists(bitmapFile) ? PackBitmaps.read(bitmapFile, index) : null;
+    }
+}
@@ -0,0 +1,125 @@
+package com.pesapal.felixvcs.core;
+
+import com.pesapal.felixvcs.utils.Durability;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reachability bitmaps of a stored pack.
+ * <p>
+ * For a selection of commits, a bitmap has one bit set for every object in the pack that the commit
+ * reaches, at the object's position in the {@link PackIndex}. The set of objects a ref needs is then
+ * a union of bitmaps, and "what does the other side lack" is a single and-not, instead of reading
+ * every commit and tree along the history.
+ * <p>
+ * Stored as {@code pack-<checksum>.bitmap}: the magic {@code FVBM}, a version, the object count of
+ * the pack and the number of bitmaps, then per commit its hash and the bitmap's words, all deflated.
+ * Neighbouring commits share most of their bits, so deflate keeps the file small without a
+ * dedicated compressed-bitmap format.
+ */
+public class PackBitmaps {
+    static final byte[] MAGIC = {'F', 'V', 'B', 'M'};
+    static final int VERSION = 1;
+
+    private final Map<ObjectId, BitSet> bitmaps;
+
+    private PackBitmaps(Map<ObjectId, BitSet> bitmaps) {
+        this.bitmaps = bitmaps;
+    }
+
+    /**
+     * Writes the bitmaps of a pack.
+     *
+     * @param file        The bitmap file to write.
+     * @param objectCount The number of objects in the pack.
+     * @param bitmaps     Commit hashes mapped to the positions of the objects they reach.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(Path file, int objectCount, Map<ObjectId, BitSet> bitmaps) throws IOException {
+        // Written under a temporary name, so a pack never has a partial bitmap file
+        Path tempFile = Files.createTempFile(file.getParent(), "tmp-", Pack.BITMAP_EXTENSION);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new DeflaterOutputStream(Files.newOutputStream(tempFile)), 64 * 1024))) {
+            out.write(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(objectCount);
+            out.writeInt(bitmaps.size());
+            for (Map.Entry<ObjectId, BitSet> bitmap : bitmaps.entrySet()) {
+                out.writeUTF(bitmap.getKey().name());
+                long[] words = bitmap.getValue().toLongArray();
+                out.writeInt(words.length);
+                for (long word : words) {
+                    out.writeLong(word);
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Durability.track(file);
+    }
+
+    /**
+     * Reads the bitmaps of a pack.
+     *
+     * @param file  The bitmap file.
+     * @param index The index of the same pack.
+     * @return The loaded bitmaps.
+     * @throws IOException If the file is malformed or does not belong to the pack.
+     */
+    public static PackBitmaps read(Path file, PackIndex index) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new InflaterInputStream(Files.newInputStream(file)), 64 * 1024))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a FelixVCS bitmap file: " + file);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported bitmap version " + version + ".");
+            }
+            if (in.readInt() != index.size()) {
+                throw new IOException("Bitmap file " + file + " does not match its pack index.");
+            }
+            int count = in.readInt();
+            Map<ObjectId, BitSet> bitmaps = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                ObjectId commitHash = ObjectId.fromHex(in.readUTF());
+                long[] words = new long[in.readInt()];
+                for (int w = 0; w < words.length; w++) {
+                    words[w] = in.readLong();
+                }
+                bitmaps.put(commitHash, BitSet.valueOf(words));
+            }
+            return new PackBitmaps(bitmaps);
+        }
+    }
+
+    /**
+     * Returns the bitmap of a commit.
+     *
+     * @param commitHash The commit hash.
+     * @return The positions of the objects the commit reaches, or null if the commit has no bitmap.
+     *         The returned set is shared and must not be modified.
+     */
+    public BitSet get(ObjectId commitHash) {
+        return bitmaps.get(commitHash);
+    }
+
+    /**
+     * Returns the number of commits with a bitmap.
+     *
+     * @return The bitmap count.
+     */
+    public int size() {
+        return bitmaps.size();
+    }
+}
@@ -0,0 +1,178 @@
+package com.pesapal.felixvcs.core;
+
+import com.pesapal.felixvcs.utils.Durability;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The index of a stored pack: every object hash in sorted order with its type and offset.
+ * <p>
+ * Stored as {@code pack-<checksum>.idx} next to the pack. The file holds the magic {@code FVIX}, a
+ * version, the object count and the hash length, followed by fixed-size entries of raw hash bytes,
+ * type code and offset. The position of an object in this sorted order is also its bit position in
+ * the pack's reachability bitmaps.
+ */
+public class PackIndex {
+    static final byte[] MAGIC = {'F', 'V', 'I', 'X'};
+    static final int VERSION = 1;
+
+    private final int hashLength;  // Bytes per raw hash
+    private final byte[] hashes;   // Sorted raw hashes, hashLength bytes each
+    private final byte[] types;    // Pack type code per position
+    private final long[] offsets;  // Entry offset in the pack per position
+
+    /**
+     * An object stored in a pack.
+     *
+     * @param hash   The object hash.
+     * @param type   The object type.
+     * @param offset The offset of the object's entry from the start of the pack.
+     */
+    public record Entry(ObjectId hash, ObjectType type, long offset) {
+    }
+
+    private PackIndex(int hashLength, byte[] hashes, byte[] types, long[] offsets) {
+        this.hashLength = hashLength;
+        this.hashes = hashes;
+        this.types = types;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Writes an index for the given pack entries.
+     *
+     * @param file    The index file to write.
+     * @param entries The objects in the pack, in any order.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(Path file, List<Entry> entries) throws IOException {
+        List<Entry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparing(Entry::hash));
+        int hashLength = sorted.isEmpty() ? 0 : sorted.get(0).hash().length();
+
+        // Written under a temporary name, so a pack never has a partial index
+        Path tempFile = Files.createTempFile(file.getParent(), "tmp-", Pack.INDEX_EXTENSION);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile), 64 * 1024))) {
+            out.write(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(sorted.size());
+            out.writeInt(hashLength);
+            for (Entry entry : sorted) {
+                entry.hash().write(out);
+                out.writeByte(entry.type().getCode());
+                out.writeLong(entry.offset());
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Durability.track(file);
+    }
+
+    /**
+     * Reads a pack index into memory.
+     *
+     * @param file The index file.
+     * @return The loaded index.
+     * @throws IOException If the file is missing or malformed.
+     */
+    public static PackIndex read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a FelixVCS pack index: " + file);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported pack index version " + version + ".");
+            }
+            int count = in.readInt();
+            int hashLength = in.readInt();
+
+            byte[] hashes = new byte[count * hashLength];
+            byte[] types = new byte[count];
+            long[] offsets = new long[count];
+            for (int i = 0; i < count; i++) {
+                in.readFully(hashes, i * hashLength, hashLength);
+                types[i] = in.readByte();
+                offsets[i] = in.readLong();
+            }
+            return new PackIndex(hashLength, hashes, types, offsets);
+        }
+    }
+
+    /**
+     * Returns the number of objects in the pack.
+     *
+     * @return The object count.
+     */
+    public int size() {
+        return offsets.length;
+    }
+
+    /**
+     * Finds the position of an object by binary search.
+     *
+     * @param hash The object hash.
+     * @return The position of the object, or -1 if the pack does not contain it.
+     */
+    public int find(ObjectId hash) {
+        if (hash.length() != hashLength) {
+            return -1;
+        }
+        int low = 0;
+        int high = size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = hash.compareStored(hashes, mid * hashLength);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the hash of the object at a position.
+     *
+     * @param position The position in sorted order.
+     * @return The object hash.
+     */
+    public ObjectId hash(int position) {
+        return ObjectId.fromRaw(hashes, position * hashLength, hashLength);
+    }
+
+    /**
+     * Returns the type of the object at a position.
+     *
+     * @param position The position in sorted order.
+     * @return The object type.
+     * @throws IOException If the stored type code is unknown.
+     */
+    public ObjectType type(int position) throws IOException {
+        return ObjectType.fromCode(types[position]);
+    }
+
+    /**
+     * Returns the pack offset of the object at a position.
+     *
+     * @param position The position in sorted order.
+     * @return The offset of the object's entry from the start of the pack.
+     */
+    public long offset(int position) {
+        return offsets[position];
+    }
+}
@@ -0,0 +1,186 @@
+package com.pesapal.felixvcs.core;
+
+import com.pesapal.felixvcs.utils.Stats;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads the objects of a repository's stored packs through its multi-pack index.
+ * <p>
+ * Finding an object costs one binary search in the mapped index however many packs the repository
+ * holds. Packs the index does not list yet, because the process storing them has not rewritten it
+ * or stopped before it could, are searched through their own indexes after it. Both are read when
+ * the store is created; packs stored through this store are added to the unindexed list, while
+ * packs stored by other processes are seen only by a new store. Each pack file is opened once and
+ * its channel kept until the store is closed. An incoming pack is kept as a stored pack, and a
+ * single object is written as a pack of its own, so the store is best used for whole packs.
+ */
+public class PackObjectStore implements ObjectStore {
+    private final Path vcsDir;                   // Repository data directory holding the packs
+    private final HashAlgorithm algorithm;
+    private final MultiPackIndex multiPackIndex; // Null if the repository has no packs
+    private volatile List<Pack> unindexed;       // Stored packs the multi-pack index does not list
+    private final Map<Path, FileChannel> channels = new ConcurrentHashMap<>(); // Opened on first use
+
+    /**
+     * Constructs a PackObjectStore for the given repository.
+     *
+     * @param vcsDir The repository data directory.
+     * @throws IOException If the multi-pack index is malformed.
+     */
+    public PackObjectStore(Path vcsDir) throws IOException {
+        this.vcsDir = vcsDir;
+        this.algorithm = HashAlgorithm.of(vcsDir);
+        this.multiPackIndex = MultiPackIndex.open(vcsDir);
+        this.unindexed = listUnindexed();
+    }
+
+    @Override
+    public HashAlgorithm hashAlgorithm() {
+        return algorithm;
+    }
+
+    @Override
+    public boolean has(ObjectType type, ObjectId hash) {
+        return locate(type, hash) != null;
+    }
+
+    @Override
+    public byte[] read(ObjectType type, ObjectId hash) throws IOException {
+        MultiPackIndex.Location location = locate(type, hash);
+        if (location == null) {
+            throw ObjectStore.notFound(type, hash);
+        }
+        byte[] content;
+        FileChannel channel = channel(location.packFile());
+        try {
+            content = PackReader.readObject(channel, location.packFile(), location.offset());
+        } catch (ClosedChannelException e) {
+            // The store was closed while this read was in flight; read again through a new channel
+            channels.remove(location.packFile(), channel);
+            content = PackReader.readObject(channel(location.packFile()), location.packFile(), location.offset());
+        }
+        Stats.count(Stats.Counter.BYTES_READ, content.length);
+        return content;
+    }
+
+    /**
+     * Stores an object as a pack holding only that object, unless a pack already holds it.
+     * <p>
+     * Every call adds a pack, so callers writing many objects should write them loose or as one
+     * pack instead; gc later combines the packs.
+     */
+    @Override
+    public ObjectId write(ObjectType type, byte[] content) throws IOException {
+        ObjectId hash = algorithm.hash(content);
+        if (!has(type, hash)) {
+            ByteArrayOutputStream pack = new ByteArrayOutputStream(content.length + 64);
+            try (PackWriter writer = new PackWriter(pack, 1)) {
+                writer.write(type, hash, content);
+                writer.finish();
+            }
+            insertPack(new ByteArrayInputStream(pack.toByteArray()));
+        }
+        return hash;
+    }
+
+    @Override
+    public int insertPack(InputStream in) throws IOException {
+        int count = PackReader.store(in, vcsDir, algorithm);
+        unindexed = listUnindexed();
+        return count;
+    }
+
+    /**
+     * Closes the open pack files. Later reads open them again.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (Path packFile : List.copyOf(channels.keySet())) {
+            FileChannel channel = channels.remove(packFile);
+            try {
+                if (channel != null) {
+                    channel.close();
+                }
+            } catch (IOException e) {
+                failure = failure == null ? e : failure;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Lists the stored packs that the multi-pack index this store opened does not list.
+     *
+     * @return The packs to search after the multi-pack index.
+     * @throws IOException If the packs directory cannot be listed.
+     */
+    private List<Pack> listUnindexed() throws IOException {
+        return Pack.list(vcsDir, packFile -> multiPackIndex == null || !multiPackIndex.covers(packFile));
+    }
+
+    /**
+     * Looks up a packed object of the given type.
+     *
+     * @param type The object type.
+     * @param hash The object hash.
+     * @return The object's location, or null if no pack holds an object of that type and hash.
+     */
+    private MultiPackIndex.Location locate(ObjectType type, ObjectId hash) {
+        if (multiPackIndex != null) {
+            MultiPackIndex.Location location = multiPackIndex.find(hash);
+            if (location != null) {
+                return location.type() == type ? location : null;
+            }
+        }
+        for (Pack pack : unindexed) {
+            PackIndex index = pack.getIndex();
+            int position = index.find(hash);
+            if (position >= 0) {
+                try {
+                    if (index.type(position) != type) {
+                        return null;
+                    }
+                } catch (IOException e) {
+                    return null;
+                }
+                return new MultiPackIndex.Location(pack.getPackFile(), type, index.offset(position));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the open channel of a pack file, opening it on first use.
+     *
+     * @param packFile The pack file.
+     * @return The channel, shared by all reads of the pack.
+     * @throws IOException If the pack cannot be opened.
+     */
+    private FileChannel channel(Path packFile) throws IOException {
+        FileChannel channel = channels.get(packFile);
+        if (channel == null) {
+            FileChannel opened = FileChannel.open(packFile, StandardOpenOption.READ);
+            channel = channels.putIfAbsent(packFile, opened);
+            if (channel == null) {
+                channel = opened;
+            } else {
+                opened.close();
+            }
+        }
+        return channel;
+    }
+}
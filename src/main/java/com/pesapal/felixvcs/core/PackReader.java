@@ -0,0 +1,292 @@
+package com.pesapal.felixvcs.core;
+
+import com.pesapal.felixvcs.utils.Durability;
+import com.pesapal.felixvcs.utils.HashUtils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads a pack stream written by {@link PackWriter}.
+ * <p>
+ * The stream is consumed in a single pass: every object is inflated and its hash verified as it
+ * arrives, and the trailing checksum is checked once the last object has been read. Packs stored in
+ * the repository are also read at random, one object at a time, from the offsets in their indexes.
+ */
+public class PackReader {
+    // Deflate cannot shrink data by more than about this factor, which bounds a believable length
+    private static final int MAX_INFLATE_RATIO = 1032;
+
+    /**
+     * Receives the objects of a pack as they are read.
+     */
+    @FunctionalInterface
+    public interface ObjectHandler {
+        /**
+         * Called for every verified object in the pack.
+         *
+         * @param type    The object type.
+         * @param hash    The object hash.
+         * @param content The stored object content.
+         * @param offset  The offset of the object's entry from the start of the pack.
+         * @throws IOException If the object cannot be handled.
+         */
+        void accept(ObjectType type, ObjectId hash, byte[] content, long offset) throws IOException;
+    }
+
+    /**
+     * Reads a pack stream, passing each verified object to the handler.
+     *
+     * @param in        The stream to read the pack from.
+     * @param algorithm The hash function of the receiving repository; objects are verified with it.
+     * @param handler   Receives each object.
+     * @return The number of objects read.
+     * @throws IOException If the pack is malformed, an object fails verification or the checksum does not match.
+     */
+    public static int read(InputStream in, HashAlgorithm algorithm, ObjectHandler handler) throws IOException {
+        return readBuffered(new BufferedInputStream(in, 64 * 1024), algorithm, handler);
+    }
+
+    /**
+     * Reads a pack stream as {@link #read(InputStream, HashAlgorithm, ObjectHandler)} does.
+     *
+     * @param in        The buffered stream to read the pack from; exactly the pack's bytes are consumed from it.
+     * @param algorithm The hash function objects are verified with.
+     * @param handler   Receives each object.
+     * @return The number of objects read.
+     * @throws IOException If the pack is malformed, an object fails verification or the checksum does not match.
+     */
+    private static int readBuffered(InputStream in, HashAlgorithm algorithm, ObjectHandler handler) throws IOException {
+        DigestInputStream digestIn;
+        try {
+            digestIn = new DigestInputStream(in, MessageDigest.getInstance("SHA-1"));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-1 algorithm not found.", e);
+        }
+        DataInputStream data = new DataInputStream(digestIn);
+
+        byte[] magic = new byte[PackWriter.MAGIC.length];
+        data.readFully(magic);
+        if (!Arrays.equals(magic, PackWriter.MAGIC)) {
+            throw new IOException("Not a FelixVCS pack.");
+        }
+        int version = data.readInt();
+        if (version != PackWriter.VERSION) {
+            throw new IOException("Unsupported pack version " + version + ".");
+        }
+        int objectCount = data.readInt();
+        long position = PackWriter.MAGIC.length + 2 * Integer.BYTES;
+
+        Inflater inflater = new Inflater();
+        try {
+            for (int i = 0; i < objectCount; i++) {
+                ObjectType type = ObjectType.fromCode(data.readUnsignedByte());
+                String name = data.readUTF();
+                int length = data.readInt();
+                int compressedLength = data.readInt();
+                if (compressedLength < 0) {
+                    throw new IOException("Corrupt object entry in pack.");
+                }
+                // Grows with the bytes actually present, so a corrupt length cannot force a huge allocation
+                byte[] compressed = data.readNBytes(compressedLength);
+                if (compressed.length != compressedLength) {
+                    throw new EOFException("Unexpected end of pack.");
+                }
+
+                byte[] content = inflate(inflater, compressed, length);
+                if (name.length() != 2 * algorithm.length()) {
+                    throw new IOException("Object " + name + " is not a " + algorithm.getName() + " object name.");
+                }
+                ObjectId hash = algorithm.hash(content);
+                if (!hash.name().equals(name)) {
+                    throw new IOException("Object " + name + " failed hash verification.");
+                }
+                handler.accept(type, hash, content, position);
+                position += 1 + 2 + name.length() + 2 * Integer.BYTES + compressed.length;
+            }
+        } finally {
+            inflater.end();
+        }
+
+        byte[] expected = digestIn.getMessageDigest().digest();
+        digestIn.on(false);
+        byte[] checksum = new byte[expected.length];
+        data.readFully(checksum);
+        if (!MessageDigest.isEqual(expected, checksum)) {
+            throw new IOException("Pack checksum mismatch.");
+        }
+        return objectCount;
+    }
+
+    /**
+     * Reads a pack stream and stores it as a pack of the repository, with an index, and brings the
+     * multi-pack index up to date. An empty pack is verified but not stored.
+     *
+     * @param in        The stream to read the pack from.
+     * @param vcsDir    The repository data directory to store the pack in.
+     * @param algorithm The hash function of the repository.
+     * @return The number of objects read.
+     * @throws IOException If the pack is invalid or cannot be stored.
+     */
+    public static int store(InputStream in, Path vcsDir, HashAlgorithm algorithm) throws IOException {
+        Path packsDir = vcsDir.resolve(Pack.PACKS_DIR);
+        Files.createDirectories(packsDir);
+        Path tempFile = Files.createTempFile(packsDir, "tmp-", Pack.PACK_EXTENSION);
+        try {
+            List<PackIndex.Entry> entries = new ArrayList<>();
+            int count;
+            try (OutputStream copy = new BufferedOutputStream(Files.newOutputStream(tempFile), 64 * 1024)) {
+                // The copy sits above the buffer, so it receives exactly the bytes the reader consumes
+                InputStream tee = new FilterInputStream(new BufferedInputStream(in, 64 * 1024)) {
+                    @Override
+                    public int read() throws IOException {
+                        int b = super.read();
+                        if (b >= 0) {
+                            copy.write(b);
+                        }
+                        return b;
+                    }
+
+                    @Override
+                    public int read(byte[] buffer, int off, int len) throws IOException {
+                        int n = super.read(buffer, off, len);
+                        if (n > 0) {
+                            copy.write(buffer, off, n);
+                        }
+                        return n;
+                    }
+                };
+                count = readBuffered(tee, algorithm, (type, hash, content, offset) -> entries.add(new PackIndex.Entry(hash, type, offset)));
+            }
+            if (count == 0) {
+                return 0;
+            }
+
+            Path packFile = packsDir.resolve("pack-" + checksum(tempFile) + Pack.PACK_EXTENSION);
+            Files.move(tempFile, packFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Durability.track(packFile);
+            PackIndex.write(Pack.sibling(packFile, Pack.INDEX_EXTENSION), entries);
+            MultiPackIndex.write(vcsDir);
+            return count;
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Reads one object of a stored pack.
+     *
+     * @param channel  An open channel on the pack file; only positional reads are used, so it may be shared.
+     * @param packFile The pack file, for error messages.
+     * @param offset   The offset of the object's entry, as listed in the pack's index.
+     * @return The stored object content.
+     * @throws IOException If the pack cannot be read or the entry is corrupt.
+     */
+    public static byte[] readObject(FileChannel channel, Path packFile, long offset) throws IOException {
+        // Type code, UTF length prefix and hash; hashes are short, so one read covers the header
+        ByteBuffer header = ByteBuffer.allocate(1 + 2 + 128 + 2 * Integer.BYTES).limit(1 + 2);
+        readFully(channel, header, offset);
+        int hashLength = header.getShort(1) & 0xFFFF;
+        int headerLength = 1 + 2 + hashLength + 2 * Integer.BYTES;
+        if (headerLength > header.capacity()) {
+            throw new IOException("Corrupt object entry in " + packFile + ".");
+        }
+        header.limit(headerLength);
+        readFully(channel, header, offset + 1 + 2);
+        int length = header.getInt(1 + 2 + hashLength);
+        int compressedLength = header.getInt(1 + 2 + hashLength + Integer.BYTES);
+        if (compressedLength < 0 || compressedLength > channel.size() - offset - headerLength) {
+            throw new IOException("Corrupt object entry in " + packFile + ".");
+        }
+
+        ByteBuffer compressed = ByteBuffer.allocate(compressedLength);
+        readFully(channel, compressed, offset + headerLength);
+        Inflater inflater = new Inflater();
+        try {
+            return inflate(inflater, compressed.array(), length);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Fills the remaining space of a buffer from a channel.
+     *
+     * @param channel  The channel to read from.
+     * @param buffer   The buffer to fill.
+     * @param position The channel position to start reading at.
+     * @throws IOException If the channel ends first.
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of pack.");
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Reads the trailing checksum of a pack file.
+     *
+     * @param packFile The pack file.
+     * @return The checksum as a hexadecimal string.
+     * @throws IOException If the file cannot be read.
+     */
+    private static String checksum(Path packFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(packFile, StandardOpenOption.READ)) {
+            ByteBuffer trailer = ByteBuffer.allocate(20);
+            readFully(channel, trailer, channel.size() - trailer.capacity());
+            return HashUtils.bytesToHex(trailer.array());
+        }
+    }
+
+    /**
+     * Decompresses object content.
+     *
+     * @param inflater   The inflater to reuse.
+     * @param compressed The deflated bytes.
+     * @param length     The expected uncompressed length.
+     * @return The inflated content.
+     * @throws IOException If the data is corrupt or its length does not match.
+     */
+    private static byte[] inflate(Inflater inflater, byte[] compressed, int length) throws IOException {
+        if (length < 0 || length >= Integer.MAX_VALUE - 8 || length > (long) compressed.length * MAX_INFLATE_RATIO + 64) {
+            throw new IOException("Corrupt object data in pack.");
+        }
+        inflater.reset();
+        inflater.setInput(compressed);
+        // One spare byte so that overlong data is detected instead of silently truncated
+        byte[] buffer = new byte[length + 1];
+        try {
+            int offset = 0;
+            while (!inflater.finished() && offset < buffer.length) {
+                int inflated = inflater.inflate(buffer, offset, buffer.length - offset);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                offset += inflated;
+            }
+            if (offset != length || !inflater.finished()) {
+                throw new IOException("Corrupt object data in pack.");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt object data in pack.", e);
+        }
+        return Arrays.copyOf(buffer, length);
+    }
+}
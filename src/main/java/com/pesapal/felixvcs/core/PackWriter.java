@@ -0,0 +1,163 @@
+package com.pesapal.felixvcs.core;
+
+import com.pesapal.felixvcs.utils.HashUtils;
+
+import java.io.*;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * Writes objects as a single pack stream.
+ * <p>
+ * A pack starts with the magic {@code FVPK}, a version and the object count. Each object follows as
+ * its type code, hash, uncompressed length, compressed length and deflated content. The stream ends
+ * with a SHA-1 checksum of everything before it, so a receiver can verify the transfer in one pass.
+ */
+public class PackWriter implements Closeable {
+    static final byte[] MAGIC = {'F', 'V', 'P', 'K'};
+    static final int VERSION = 1;
+
+    private final DigestOutputStream digestOut;
+    private final DataOutputStream out;
+    private final int objectCount;
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private int written;
+    private boolean finished;
+    private String checksum;
+    private long position;    // Bytes written so far; DataOutputStream.size() stops counting at 2 GB
+
+    /**
+     * Constructs a PackWriter and writes the pack header.
+     *
+     * @param out         The stream to write the pack to.
+     * @param objectCount The number of objects that will be written.
+     * @throws IOException If the header cannot be written.
+     */
+    public PackWriter(OutputStream out, int objectCount) throws IOException {
+        try {
+            this.digestOut = new DigestOutputStream(out, MessageDigest.getInstance("SHA-1"));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-1 algorithm not found.", e);
+        }
+        this.out = new DataOutputStream(new BufferedOutputStream(digestOut, 64 * 1024));
+        this.objectCount = objectCount;
+        this.out.write(MAGIC);
+        this.out.writeInt(VERSION);
+        this.out.writeInt(objectCount);
+        this.position = MAGIC.length + 2 * Integer.BYTES;
+    }
+
+    /**
+     * Writes every listed object of a repository into a pack stream.
+     *
+     * @param store   The object store holding the objects.
+     * @param objects The hashes to write, grouped by object type.
+     * @param out     The stream to write the pack to.
+     * @return The number of objects written.
+     * @throws IOException If an object is missing or the stream cannot be written.
+     */
+    public static int write(ObjectStore store, Map<ObjectType, ? extends Collection<ObjectId>> objects, OutputStream out) throws IOException {
+        int count = 0;
+        for (Collection<ObjectId> hashes : objects.values()) {
+            count += hashes.size();
+        }
+
+        PackWriter writer = new PackWriter(out, count);
+        for (ObjectType type : ObjectType.values()) {
+            Collection<ObjectId> hashes = objects.get(type);
+            if (hashes == null) {
+                continue;
+            }
+            for (ObjectId hash : hashes) {
+                writer.write(type, hash, store.read(type, hash));
+            }
+        }
+        writer.finish();
+        return count;
+    }
+
+    /**
+     * Writes a single object to the pack.
+     *
+     * @param type    The object type.
+     * @param hash    The object hash.
+     * @param content The stored object content.
+     * @return The offset of the object's entry from the start of the pack.
+     * @throws IOException If more objects are written than announced or the stream cannot be written.
+     */
+    public long write(ObjectType type, ObjectId hash, byte[] content) throws IOException {
+        if (written == objectCount) {
+            throw new IOException("Pack already holds the announced " + objectCount + " objects.");
+        }
+        byte[] compressed = deflate(content);
+        long offset = position;
+        String name = hash.name();
+        out.writeByte(type.getCode());
+        out.writeUTF(name);
+        out.writeInt(content.length);
+        out.writeInt(compressed.length);
+        out.write(compressed);
+        written++;
+        // Type code, UTF length prefix and ASCII hash, both lengths, then the data
+        position += 1 + 2 + name.length() + 2 * Integer.BYTES + compressed.length;
+        return offset;
+    }
+
+    /**
+     * Writes the trailing checksum. Must be called once all announced objects are written.
+     *
+     * @return The checksum as a hexadecimal string, which also names stored packs.
+     * @throws IOException If objects are missing or the stream cannot be written.
+     */
+    public String finish() throws IOException {
+        if (finished) {
+            return checksum;
+        }
+        if (written != objectCount) {
+            throw new IOException("Pack announced " + objectCount + " objects but " + written + " were written.");
+        }
+        out.flush();
+        byte[] digest = digestOut.getMessageDigest().digest();
+        digestOut.on(false);
+        out.write(digest);
+        out.flush();
+        deflater.end();
+        finished = true;
+        checksum = HashUtils.bytesToHex(digest);
+        return checksum;
+    }
+
+    /**
+     * Flushes the pack without closing the underlying stream, which belongs to the caller.
+     *
+     * @throws IOException If the stream cannot be flushed.
+     */
+    @Override
+    public void close() throws IOException {
+        out.flush();
+        deflater.end();
+    }
+
+    /**
+     * Compresses object content.
+     *
+     * @param content The content to compress.
+     * @return The deflated bytes.
+     */
+    private byte[] deflate(byte[] content) {
+        deflater.reset();
+        deflater.setInput(content);
+        deflater.finish();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, content.length / 2));
+        byte[] chunk = new byte[8192];
+        while (!deflater.finished()) {
+            int length = deflater.deflate(chunk);
+            buffer.write(chunk, 0, length);
+        }
+        return buffer.toByteArray();
+    }
+}
@@ -0,0 +1,205 @@
+package com.pesapal.felixvcs.core;
+
+import com.pesapal.felixvcs.utils.Durability;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Updates one or more refs together, each only if it still holds the value the caller last read.
+ * <p>
+ * Committing takes a {@code <ref>.lock} file for every ref, created exclusively so that concurrent
+ * writers of the same ref exclude each other while writers of other refs proceed in parallel. With
+ * all locks held, every expected value is checked; if any ref has moved, nothing is written and
+ * the transaction is rejected. Otherwise each new value is written and synced into its lock file,
+ * and the lock files are renamed over the refs one by one.
+ * <p>
+ * Validation is all-or-nothing, but visibility is per ref: each ref changes atomically, so readers
+ * see either its old or its new hash and never a partially written file, yet a reader that looks
+ * at several refs during the renames can see some updated and others not. A rejected transaction,
+ * or one that fails before the first rename, leaves every ref as it was; an I/O error part way
+ * through the renames leaves the refs renamed so far updated and the rest unchanged.
+ * <p>
+ * Locks are taken in ref name order, and a lock held by another writer is retried for up to a
+ * second before giving up, which covers the short time a concurrent update holds it. A lock left
+ * behind by a crashed process has to be removed by hand.
+ */
+public class RefTransaction {
+    static final String LOCK_SUFFIX = ".lock";
+    private static final long LOCK_TIMEOUT_MILLIS = 1000;
+
+    private final Path vcsDir;
+    private final SortedMap<String, Update> updates = new TreeMap<>();
+    private final List<String> rejected = new ArrayList<>();
+
+    /**
+     * One ref change: the value the ref must hold, and the value it gets.
+     *
+     * @param expected The current commit hash; null for a missing or unborn ref.
+     * @param newHash  The commit hash to store.
+     * @param create   Whether the ref must not exist at all, not even without commits.
+     */
+    private record Update(ObjectId expected, ObjectId newHash, boolean create) {
+    }
+
+    /**
+     * Starts an empty transaction.
+     *
+     * @param vcsDir The repository data directory.
+     */
+    public RefTransaction(Path vcsDir) {
+        this.vcsDir = vcsDir;
+    }
+
+    /**
+     * Adds a ref update that only applies if the ref still holds the expected value.
+     *
+     * @param refName  The ref name, such as {@code refs/heads/master}.
+     * @param expected The commit hash the ref must currently hold; null for a missing or unborn ref.
+     * @param newHash  The commit hash to store.
+     * @return This transaction.
+     */
+    public RefTransaction update(String refName, ObjectId expected, ObjectId newHash) {
+        return add(refName, new Update(expected, newHash, false));
+    }
+
+    /**
+     * Adds a ref that must not exist yet, such as a new branch or tag.
+     *
+     * @param refName The ref name, such as {@code refs/tags/v1.0}.
+     * @param newHash The commit hash to store.
+     * @return This transaction.
+     */
+    public RefTransaction create(String refName, ObjectId newHash) {
+        return add(refName, new Update(null, newHash, true));
+    }
+
+    private RefTransaction add(String refName, Update update) {
+        Objects.requireNonNull(update.newHash(), "newHash");
+        if (updates.putIfAbsent(refName, update) != null) {
+            throw new IllegalArgumentException("Ref " + refName + " is updated twice in one transaction.");
+        }
+        return this;
+    }
+
+    /**
+     * Applies every update, or none of them if any ref no longer holds its expected value. The
+     * refs are replaced one after another; see the class description for what readers can see.
+     *
+     * @return True if the refs were updated, false if the transaction was rejected; see
+     *         {@link #getRejected}.
+     * @throws IOException If a ref stays locked by another writer or cannot be written.
+     */
+    public boolean commit() throws IOException {
+        // Objects written so far must be durable before any ref points to them
+        Durability.flush();
+        rejected.clear();
+
+        Map<String, Path> locks = new TreeMap<>();
+        try {
+            for (String refName : updates.keySet()) {
+                locks.put(refName, lock(vcsDir.resolve(refName)));
+            }
+
+            for (Map.Entry<String, Update> entry : updates.entrySet()) {
+                Update update = entry.getValue();
+                boolean matches = update.create()
+                        ? !Refs.exists(vcsDir, entry.getKey())
+                        : Objects.equals(Refs.read(vcsDir, entry.getKey()), update.expected());
+                if (!matches) {
+                    rejected.add(entry.getKey());
+                }
+            }
+            if (!rejected.isEmpty()) {
+                return false;
+            }
+
+            for (Map.Entry<String, Path> lock : locks.entrySet()) {
+                Files.writeString(lock.getValue(), updates.get(lock.getKey()).newHash().name(), StandardCharsets.UTF_8);
+                Durability.sync(lock.getValue());
+            }
+            Set<Path> directories = new LinkedHashSet<>();
+            for (String refName : new ArrayList<>(locks.keySet())) {
+                Path refPath = vcsDir.resolve(refName);
+                Files.move(locks.get(refName), refPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                // The lock is gone with the rename; a new one by that name belongs to another writer
+                locks.remove(refName);
+                directories.add(refPath.getParent());
+            }
+            directories.forEach(Durability::syncDirectory);
+            return true;
+        } finally {
+            for (Path lock : locks.values()) {
+                Files.deleteIfExists(lock);
+            }
+        }
+    }
+
+    /**
+     * Lists the refs that made the last commit fail because they no longer held their expected value.
+     *
+     * @return The ref names, in name order.
+     */
+    public List<String> getRejected() {
+        return List.copyOf(rejected);
+    }
+
+    /**
+     * Takes the lock file of a ref or of the packed refs file, waiting briefly while another
+     * writer holds it.
+     *
+     * @param target The file to lock.
+     * @return The lock file, created empty; the caller deletes or renames it.
+     * @throws IOException If the lock is still held when the wait ends, or cannot be created.
+     */
+    static Path lock(Path target) throws IOException {
+        Path lockPath = target.resolveSibling(target.getFileName() + LOCK_SUFFIX);
+        Files.createDirectories(target.getParent());
+        long deadline = System.nanoTime() + LOCK_TIMEOUT_MILLIS * 1_000_000;
+        long backoff = 1;
+        while (true) {
+            try {
+                return Files.createFile(lockPath);
+            } catch (FileAlreadyExistsException e) {
+                if (System.nanoTime() > deadline) {
+                    throw new IOException("Unable to lock " + target.getFileName() + ": " + lockPath
+                            + " exists. Another process may be updating it; if none is, remove the file.", e);
+                }
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for " + lockPath, e);
+            }
+            backoff = Math.min(backoff * 2, 50);
+        }
+    }
+
+    /**
+     * Takes the lock file of a ref if no other writer holds it, without waiting.
+     *
+     * @param target The file to lock.
+     * @return The lock file, or null if it is held.
+     * @throws IOException If the lock file cannot be created.
+     */
+    static Path tryLock(Path target) throws IOException {
+        try {
+            return Files.createFile(target.resolveSibling(target.getFileName() + LOCK_SUFFIX));
+        } catch (FileAlreadyExistsException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.pesapal.felixvcs.core;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Updates a single ref only if it still holds the expected value.
+ * <p>
+ * This is a {@link RefTransaction} with one update: the ref is locked, checked, and replaced in
+ * one atomic rename, so readers see either the old or the new hash.
+ */
+public class RefUpdate {
+
+    /**
+     * Atomically replaces a ref if its current value matches the expected one.
+     *
+     * @param vcsDir   The repository data directory.
+     * @param refName  The ref path relative to the repository data directory, e.g. {@code refs/heads/master}.
+     * @param expected The commit hash the ref must currently hold; null for a missing or unborn ref.
+     * @param newHash  The commit hash to store.
+     * @return True if the ref was updated, false if it no longer held the expected value.
+     * @throws IOException If the ref stays locked by another writer or cannot be written.
+     */
+    public static boolean compareAndSet(Path vcsDir, String refName, ObjectId expected, ObjectId newHash) throws IOException {
+        return new RefTransaction(vcsDir).update(refName, expected, newHash).commit();
+    }
+}
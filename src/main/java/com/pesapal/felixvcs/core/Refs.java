@@ -0,0 +1,285 @@
+package com.pesapal.felixvcs.core;
+
+import com.pesapal.felixvcs.utils.FileUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Reads the branches, tags and remote-tracking refs of a repository.
+ * <p>
+ * A ref is either loose, a file under {@code refs/} holding a commit hash, or packed, a line of
+ * the {@value #PACKED_REFS} file. The packed file holds one {@code <hash> <ref name>} line per ref,
+ * sorted by name, so one ref is found by binary search over its bytes and all refs under a prefix
+ * are one contiguous run of lines. Listing and resolving refs therefore reads one file however
+ * many refs there are. Loose refs override packed ones, so updates keep writing loose files, and
+ * {@link #pack} folds them back into the packed file. An empty loose file is a branch without
+ * commits; it stays loose.
+ */
+public class Refs {
+    public static final String PACKED_REFS = "packed-refs";
+    private static final String HEADER = "# pack-refs sorted\n";
+    private static final String REFS_PREFIX = "refs/";
+
+    /**
+     * Reads a ref.
+     *
+     * @param vcsDir  The repository data directory.
+     * @param refName The ref name, such as {@code refs/heads/master}.
+     * @return The commit hash, or null if the ref does not exist or has no commits.
+     * @throws IOException If the ref cannot be read.
+     */
+    public static ObjectId read(Path vcsDir, String refName) throws IOException {
+        Path loose = vcsDir.resolve(refName);
+        if (Files.isRegularFile(loose)) {
+            try {
+                return ObjectId.parse(FileUtils.readFile(loose.toString()));
+            } catch (NoSuchFileException e) {
+                // Packed meanwhile; the packed refs file was written before the loose one went
+            }
+        }
+        byte[] packed = readPacked(vcsDir);
+        int line = find(packed, refName.getBytes(StandardCharsets.UTF_8));
+        return line < 0 ? null : hashAt(packed, line);
+    }
+
+    /**
+     * Checks whether a ref exists, loose or packed.
+     *
+     * @param vcsDir  The repository data directory.
+     * @param refName The ref name, such as {@code refs/tags/v1.0}.
+     * @return True if the ref exists, even if it has no commits yet.
+     * @throws IOException If the packed refs cannot be read.
+     */
+    public static boolean exists(Path vcsDir, String refName) throws IOException {
+        return Files.isRegularFile(vcsDir.resolve(refName))
+                || find(readPacked(vcsDir), refName.getBytes(StandardCharsets.UTF_8)) >= 0;
+    }
+
+    /**
+     * Lists the refs under a prefix, packed and loose.
+     *
+     * @param vcsDir The repository data directory.
+     * @param prefix The prefix ending in a slash, such as {@code refs/heads/}.
+     * @return The ref names without the prefix, sorted, mapped to their commit hashes; null for
+     *         branches without commits.
+     * @throws IOException If a ref cannot be read.
+     */
+    public static SortedMap<String, ObjectId> list(Path vcsDir, String prefix) throws IOException {
+        // Loose refs are read before the packed file, so a ref packed in between is still found
+        SortedMap<String, ObjectId> refs = new TreeMap<>();
+        Path dir = vcsDir.resolve(prefix);
+        if (Files.isDirectory(dir)) {
+            for (Path loose : looseRefs(dir)) {
+                try {
+                    refs.put(dir.relativize(loose).toString().replace('\\', '/'), ObjectId.parse(FileUtils.readFile(loose.toString())));
+                } catch (NoSuchFileException e) {
+                    // Packed meanwhile
+                }
+            }
+        }
+
+        byte[] packed = readPacked(vcsDir);
+        byte[] key = prefix.getBytes(StandardCharsets.UTF_8);
+        for (int line = lowerBound(packed, key); line < packed.length; line = lineEnd(packed, line) + 1) {
+            int nameStart = nameStart(packed, line);
+            int nameEnd = lineEnd(packed, line);
+            if (!startsWith(packed, nameStart, nameEnd, key)) {
+                break;
+            }
+            refs.putIfAbsent(new String(packed, nameStart + key.length, nameEnd - nameStart - key.length, StandardCharsets.UTF_8),
+                    hashAt(packed, line));
+        }
+        return refs;
+    }
+
+    /**
+     * Moves every loose ref with a commit into the packed refs file and deletes the loose file.
+     * The packed refs file stays locked throughout, so two packs cannot drop each other's refs, and
+     * each loose ref is locked while it is compared and deleted. A loose ref that changes or is
+     * being updated while packing keeps its value and stays loose.
+     *
+     * @param vcsDir The repository data directory.
+     * @return The number of refs in the packed refs file.
+     * @throws IOException If the refs cannot be read or the packed refs file cannot be written.
+     */
+    public static int pack(Path vcsDir) throws IOException {
+        Path packedPath = vcsDir.resolve(PACKED_REFS);
+        Path packedLock = RefTransaction.lock(packedPath);
+        try {
+            SortedMap<String, ObjectId> refs = list(vcsDir, REFS_PREFIX);
+            StringBuilder sb = new StringBuilder(HEADER);
+            int count = 0;
+            for (Map.Entry<String, ObjectId> ref : refs.entrySet()) {
+                if (ref.getValue() != null) {
+                    sb.append(ref.getValue().name()).append(' ').append(REFS_PREFIX).append(ref.getKey()).append('\n');
+                    count++;
+                }
+            }
+            FileUtils.writeRef(packedPath.toString(), sb.toString());
+
+            Path refsDir = vcsDir.resolve(REFS_PREFIX);
+            if (Files.isDirectory(refsDir)) {
+                for (Path loose : looseRefs(refsDir)) {
+                    ObjectId packed = refs.get(refsDir.relativize(loose).toString().replace('\\', '/'));
+                    Path lock = packed == null ? null : RefTransaction.tryLock(loose);
+                    if (lock != null) {
+                        try {
+                            if (Files.isRegularFile(loose) && packed.equals(ObjectId.parse(FileUtils.readFile(loose.toString())))) {
+                                Files.delete(loose);
+                            }
+                        } finally {
+                            Files.delete(lock);
+                        }
+                    }
+                }
+            }
+            return count;
+        } finally {
+            Files.delete(packedLock);
+        }
+    }
+
+    /**
+     * Deletes a ref, loose and packed. The packed refs file and the ref are locked throughout, and
+     * the packed entry goes first, so readers never see an older packed value after the loose one is gone.
+     *
+     * @param vcsDir  The repository data directory.
+     * @param refName The ref name, such as {@code refs/heads/topic}.
+     * @return True if the ref existed.
+     * @throws IOException If a lock stays held or the packed refs file cannot be written.
+     */
+    public static boolean delete(Path vcsDir, String refName) throws IOException {
+        Path packedPath = vcsDir.resolve(PACKED_REFS);
+        Path packedLock = RefTransaction.lock(packedPath);
+        try {
+            Path loose = vcsDir.resolve(refName);
+            Path looseLock = RefTransaction.lock(loose);
+            try {
+                byte[] packed = readPacked(vcsDir);
+                int line = find(packed, refName.getBytes(StandardCharsets.UTF_8));
+                if (line >= 0) {
+                    int next = Math.min(lineEnd(packed, line) + 1, packed.length);
+                    String rest = new String(packed, 0, line, StandardCharsets.UTF_8)
+                            + new String(packed, next, packed.length - next, StandardCharsets.UTF_8);
+                    FileUtils.writeRef(packedPath.toString(), rest);
+                }
+                return Files.deleteIfExists(loose) || line >= 0;
+            } finally {
+                Files.delete(looseLock);
+            }
+        } finally {
+            Files.delete(packedLock);
+        }
+    }
+
+    /**
+     * Lists the loose ref files under a directory, leaving out lock and temporary files.
+     *
+     * @param dir The directory.
+     * @return The ref files.
+     * @throws IOException If the directory cannot be listed.
+     */
+    private static List<Path> looseRefs(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(file -> {
+                        String name = file.getFileName().toString();
+                        return !name.startsWith(".") && !name.endsWith(RefTransaction.LOCK_SUFFIX);
+                    })
+                    .toList();
+        }
+    }
+
+    private static byte[] readPacked(Path vcsDir) throws IOException {
+        try {
+            return Files.readAllBytes(vcsDir.resolve(PACKED_REFS));
+        } catch (NoSuchFileException e) {
+            return new byte[0];
+        }
+    }
+
+    /**
+     * Finds the line of a ref in the packed refs.
+     *
+     * @param data The packed refs file content.
+     * @param name The ref name.
+     * @return The offset of the ref's line, or -1 if it is not packed.
+     */
+    private static int find(byte[] data, byte[] name) {
+        int line = lowerBound(data, name);
+        return line < data.length && compare(data, nameStart(data, line), lineEnd(data, line), name) == 0 ? line : -1;
+    }
+
+    /**
+     * Binary searches the sorted lines for the first one whose ref name is not less than the key.
+     * Probes land anywhere in a line and are moved back to its start.
+     *
+     * @param data The packed refs file content.
+     * @param key  The name or prefix to search for.
+     * @return The offset of the line, or the data length if every name is less than the key.
+     */
+    private static int lowerBound(byte[] data, byte[] key) {
+        int low = 0;
+        while (low < data.length && data[low] == '#') {
+            low = lineEnd(data, low) + 1;
+        }
+        int high = Math.max(low, data.length);
+        while (low < high) {
+            int line = low + (high - low) / 2;
+            while (line > low && data[line - 1] != '\n') {
+                line--;
+            }
+            int end = lineEnd(data, line);
+            if (compare(data, nameStart(data, line), end, key) < 0) {
+                low = end + 1;
+            } else {
+                high = line;
+            }
+        }
+        return Math.min(low, data.length);
+    }
+
+    private static int lineEnd(byte[] data, int line) {
+        int end = line;
+        while (end < data.length && data[end] != '\n') {
+            end++;
+        }
+        return end;
+    }
+
+    private static int nameStart(byte[] data, int line) {
+        int space = line;
+        while (space < data.length && data[space] != ' ' && data[space] != '\n') {
+            space++;
+        }
+        return Math.min(space + 1, lineEnd(data, line));
+    }
+
+    private static ObjectId hashAt(byte[] data, int line) {
+        return ObjectId.fromHex(new String(data, line, nameStart(data, line) - 1 - line, StandardCharsets.ISO_8859_1));
+    }
+
+    private static int compare(byte[] data, int start, int end, byte[] key) {
+        int length = Math.min(end - start, key.length);
+        for (int i = 0; i < length; i++) {
+            int diff = (data[start + i] & 0xFF) - (key[i] & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return (end - start) - key.length;
+    }
+
+    private static boolean startsWith(byte[] data, int start, int end, byte[] prefix) {
+        return end - start >= prefix.length && compare(data, start, start + prefix.length, prefix) == 0;
+    }
+}
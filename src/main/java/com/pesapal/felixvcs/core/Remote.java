@@ -0,0 +1,102 @@
+package com.pesapal.felixvcs.core;
+
+import com.pesapal.felixvcs.utils.FileUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * A named reference to another repository on the local file system.
+ * <p>
+ * Remotes are stored as {@code remotes/<name>} files holding the absolute path of the other
+ * repository. A command can name a remote or pass a path directly; a path that matches no stored
+ * remote is named after its directory.
+ */
+public class Remote {
+    private static final String REMOTES_DIR = "remotes";
+
+    private final String name;   // Name used for remote-tracking refs
+    private final Path vcsDir;   // Repository data directory of the remote
+
+    /**
+     * Constructs a Remote.
+     *
+     * @param name   The remote name.
+     * @param vcsDir The repository data directory of the remote.
+     */
+    public Remote(String name, Path vcsDir) {
+        this.name = name;
+        this.vcsDir = vcsDir;
+    }
+
+    /**
+     * Gets the remote name.
+     *
+     * @return The remote name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the repository data directory of the remote.
+     *
+     * @return The remote's repository data directory.
+     */
+    public Path getVcsDir() {
+        return vcsDir;
+    }
+
+    /**
+     * Resolves a remote name or repository path.
+     *
+     * @param localVcsDir The local repository data directory.
+     * @param nameOrPath  A stored remote name, or the path of a repository.
+     * @return The resolved remote, or null if it does not point at a repository.
+     * @throws IOException If a stored remote cannot be read.
+     */
+    public static Remote resolve(Path localVcsDir, String nameOrPath) throws IOException {
+        Path remoteFile = localVcsDir.resolve(REMOTES_DIR).resolve(nameOrPath);
+        if (!nameOrPath.contains("/") && Files.isRegularFile(remoteFile)) {
+            Path location = Paths.get(FileUtils.readFile(remoteFile.toString()).trim());
+            Path vcsDir = Repository.find(location);
+            return vcsDir == null ? null : new Remote(nameOrPath, vcsDir);
+        }
+
+        Path vcsDir = Repository.find(Paths.get(nameOrPath));
+        if (vcsDir == null) {
+            return null;
+        }
+
+        // Reuse the name of a stored remote that points at the same repository
+        Path remotesDir = localVcsDir.resolve(REMOTES_DIR);
+        if (Files.isDirectory(remotesDir)) {
+            for (String stored : FileUtils.listFiles(remotesDir.toString())) {
+                Path location = Paths.get(FileUtils.readFile(remotesDir.resolve(stored).toString()).trim());
+                if (vcsDir.equals(Repository.find(location))) {
+                    return new Remote(stored, vcsDir);
+                }
+            }
+        }
+
+        Path named = Repository.isBare(vcsDir) ? vcsDir : vcsDir.getParent();
+        String name = named == null || named.getFileName() == null ? "origin" : named.getFileName().toString();
+        return new Remote(name, vcsDir);
+    }
+
+    /**
+     * Stores a remote under the given name.
+     *
+     * @param localVcsDir The local repository data directory.
+     * @param name        The remote name.
+     * @param location    The path of the remote repository.
+     * @throws IOException If the remote cannot be written.
+     */
+    public static void save(Path localVcsDir, String name, Path location) throws IOException {
+        Path remotesDir = localVcsDir.resolve(REMOTES_DIR);
+        FileUtils.createDirectory(remotesDir.toString());
+        FileUtils.writeToFile(remotesDir.resolve(name).toString(), location.toAbsolutePath().normalize().toString());
+    }
+}
@@ -0,0 +1,268 @@
+package com.pesapal.felixvcs.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps blobs in an S3-compatible object store over HTTP, with a bounded local cache.
+ * <p>
+ * Commits and trees stay in the repository's own store; only blobs go to the endpoint, addressed
+ * path-style as {@code <url>/<hash>} with {@code PUT}, {@code GET} and {@code HEAD}. Reads go through
+ * a {@link BlobCache} in {@code blob-cache/}, so local disk use stays within the configured size
+ * however large the history grows. Checkout prefetches the blobs it needs in parallel.
+ * <p>
+ * A repository uses a remote blob store when it has a {@code blobstore} properties file with a
+ * {@code url}, and optionally {@code cache-bytes} (default 1 GiB) and a bearer {@code token}.
+ * Requests are not signed, so the endpoint must accept the token or allow anonymous access.
+ */
+public class RemoteBlobStore implements ObjectStore {
+    public static final String CONFIG_FILE = "blobstore";
+    static final String CACHE_DIR = "blob-cache";
+    static final long DEFAULT_CACHE_BYTES = 1L << 30;
+    static final int PREFETCH_CONCURRENCY = 8;
+
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    // One cache per directory, so concurrent stores in the process share its size accounting
+    private static final Map<Path, BlobCache> CACHES = new ConcurrentHashMap<>();
+
+    private final ObjectStore local;  // Holds commits and trees
+    private final String url;         // Base URL that blob hashes are appended to
+    private final String token;       // Bearer token; null for anonymous access
+    private final BlobCache cache;
+
+    /**
+     * Constructs a RemoteBlobStore.
+     *
+     * @param local The store for commits and trees.
+     * @param url   The base URL of the blob bucket.
+     * @param token The bearer token, or null.
+     * @param cache The local blob cache.
+     */
+    public RemoteBlobStore(ObjectStore local, String url, String token, BlobCache cache) {
+        this.local = local;
+        this.url = url.endsWith("/") ? url : url + "/";
+        this.token = token;
+        this.cache = cache;
+    }
+
+    /**
+     * Checks whether a repository is configured to keep its blobs remotely.
+     *
+     * @param vcsDir The repository data directory.
+     * @return True if the repository has a blob store configuration, false otherwise.
+     */
+    public static boolean isConfigured(Path vcsDir) {
+        return Files.isRegularFile(vcsDir.resolve(CONFIG_FILE));
+    }
+
+    /**
+     * Opens the remote blob store configured for a repository.
+     *
+     * @param vcsDir The repository data directory.
+     * @param local  The store for commits and trees.
+     * @return The remote blob store.
+     * @throws IOException If the configuration is invalid or the cache cannot be opened.
+     */
+    public static RemoteBlobStore open(Path vcsDir, ObjectStore local) throws IOException {
+        Properties config = new Properties();
+        try (InputStream in = Files.newInputStream(vcsDir.resolve(CONFIG_FILE))) {
+            config.load(in);
+        }
+        String url = config.getProperty("url");
+        if (url == null || url.isBlank()) {
+            throw new IOException("Blob store configuration " + vcsDir.resolve(CONFIG_FILE) + " has no url.");
+        }
+        long cacheBytes;
+        try {
+            cacheBytes = Long.parseLong(config.getProperty("cache-bytes", String.valueOf(DEFAULT_CACHE_BYTES)).trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid cache-bytes in blob store configuration.", e);
+        }
+
+        Path cacheDir = vcsDir.resolve(CACHE_DIR).toAbsolutePath().normalize();
+        BlobCache cache = CACHES.get(cacheDir);
+        if (cache == null) {
+            cache = new BlobCache(cacheDir, cacheBytes);
+            BlobCache existing = CACHES.putIfAbsent(cacheDir, cache);
+            cache = existing != null ? existing : cache;
+        }
+        return new RemoteBlobStore(local, url.trim(), config.getProperty("token"), cache);
+    }
+
+    @Override
+    public HashAlgorithm hashAlgorithm() {
+        return local.hashAlgorithm();
+    }
+
+    /**
+     * Checks for an object. A blob that cannot be confirmed because the endpoint is unreachable is
+     * reported as absent, so callers fall back to sending or fetching it.
+     */
+    @Override
+    public boolean has(ObjectType type, ObjectId hash) {
+        if (type != ObjectType.BLOB) {
+            return local.has(type, hash);
+        }
+        if (cache.contains(hash)) {
+            return true;
+        }
+        try {
+            return send(request(hash).method("HEAD", HttpRequest.BodyPublishers.noBody()), HttpResponse.BodyHandlers.discarding())
+                    .statusCode() == 200;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public byte[] read(ObjectType type, ObjectId hash) throws IOException {
+        if (type != ObjectType.BLOB) {
+            return local.read(type, hash);
+        }
+        byte[] content = cache.get(hash);
+        if (content != null) {
+            return content;
+        }
+        content = verify(hash, send(request(hash).GET(), HttpResponse.BodyHandlers.ofByteArray()));
+        cache.put(hash, content);
+        return content;
+    }
+
+    @Override
+    public ObjectId write(ObjectType type, byte[] content) throws IOException {
+        if (type != ObjectType.BLOB) {
+            return local.write(type, content);
+        }
+        ObjectId hash = local.hashAlgorithm().hash(content);
+        if (has(type, hash)) {
+            return hash;
+        }
+        HttpResponse<Void> response = send(request(hash).PUT(HttpRequest.BodyPublishers.ofByteArray(content)),
+                HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("Blob store rejected " + hash + " with HTTP " + response.statusCode() + ".");
+        }
+        cache.put(hash, content);
+        return hash;
+    }
+
+    /**
+     * Downloads the blobs that are not cached yet, at most {@value #PREFETCH_CONCURRENCY} at a time.
+     * Prefetching stops once it has filled the cache, since further downloads would only evict
+     * blobs fetched moments earlier; the rest are fetched when they are read.
+     */
+    @Override
+    public void prefetch(ObjectType type, Collection<ObjectId> hashes) throws IOException {
+        if (type != ObjectType.BLOB) {
+            local.prefetch(type, hashes);
+            return;
+        }
+        Semaphore permits = new Semaphore(PREFETCH_CONCURRENCY);
+        List<CompletableFuture<Void>> downloads = new ArrayList<>();
+        AtomicLong fetched = new AtomicLong();
+        try {
+            for (ObjectId hash : new LinkedHashSet<>(hashes)) {
+                if (cache.contains(hash)) {
+                    continue;
+                }
+                permits.acquire();
+                if (fetched.get() >= cache.capacity()) {
+                    permits.release();
+                    break;
+                }
+                downloads.add(CLIENT.sendAsync(request(hash).GET().build(), HttpResponse.BodyHandlers.ofByteArray())
+                        .thenAccept(response -> {
+                            try {
+                                fetched.addAndGet(verify(hash, response).length);
+                                cache.put(hash, response.body());
+                            } catch (IOException e) {
+                                throw new CompletionException(e);
+                            }
+                        })
+                        .whenComplete((result, error) -> permits.release()));
+            }
+            CompletableFuture.allOf(downloads.toArray(new CompletableFuture[0])).join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while prefetching blobs.");
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException("Blob prefetch failed.", e.getCause());
+        }
+    }
+
+    /**
+     * Closes the local store; the disk cache is shared with other stores of the repository and stays open.
+     */
+    @Override
+    public void close() throws IOException {
+        local.close();
+    }
+
+    /**
+     * Starts a request for a blob.
+     *
+     * @param hash The blob hash.
+     * @return The request builder.
+     */
+    private HttpRequest.Builder request(ObjectId hash) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url + hash.name())).timeout(Duration.ofSeconds(60));
+        if (token != null && !token.isBlank()) {
+            builder.header("Authorization", "Bearer " + token.trim());
+        }
+        return builder;
+    }
+
+    /**
+     * Sends a request and waits for the response.
+     *
+     * @param request The request to send.
+     * @param handler The response body handler.
+     * @return The response.
+     * @throws IOException If the request fails or is interrupted.
+     */
+    private <T> HttpResponse<T> send(HttpRequest.Builder request, HttpResponse.BodyHandler<T> handler) throws IOException {
+        try {
+            return CLIENT.send(request.build(), handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while contacting the blob store.");
+        }
+    }
+
+    /**
+     * Checks a downloaded blob against its hash.
+     *
+     * @param hash     The expected blob hash.
+     * @param response The download response.
+     * @return The blob content.
+     * @throws IOException If the blob is missing or its content does not match the hash.
+     */
+    private byte[] verify(ObjectId hash, HttpResponse<byte[]> response) throws IOException {
+        if (response.statusCode() == 404) {
+            throw ObjectStore.notFound(ObjectType.BLOB, hash);
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("Blob store returned HTTP " + response.statusCode() + " for " + hash + ".");
+        }
+        if (!hashAlgorithm().hash(response.body()).equals(hash)) {
+            throw new IOException("Blob " + hash + " from the blob store failed hash verification.");
+        }
+        return response.body();
+    }
+}
@@ -1,195 +1,1197 @@
 package com.pesapal.felixvcs.core;
 
+import com.pesapal.felixvcs.utils.Durability;
+import com.pesapal.felixvcs.utils.Events;
 import com.pesapal.felixvcs.utils.FileUtils;
 import com.pesapal.felixvcs.utils.HashUtils;
+import com.pesapal.felixvcs.utils.IntDeque;
 import com.pesapal.felixvcs.utils.LRUCache;
+import com.pesapal.felixvcs.utils.Progress;
+import com.pesapal.felixvcs.utils.Stats;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
 
 /**
- * Represents a repository in FelixVCS, providing functionality for managing branches, blobs, trees, and commits.
+ * Locates repository data directories, and gives programs that embed FelixVCS one open repository
+ * to run operations against.
+ * <p>
+ * A repository normally keeps its data in {@code .felixvcs} inside a working directory. A bare
+ * repository has no working directory: the directory itself holds {@code HEAD}, the refs and the
+ * object directories, which is the layout used for shared and mirror copies.
+ * <p>
+ * {@link #open} returns a repository whose {@link #add}, {@link #commit}, {@link #log},
+ * {@link #diff} and {@link #merge} return typed results instead of printing; the commands of the
+ * same names print those results. An open repository keeps what it parsed between calls: recently
+ * read commits and trees, which never change once written, and the object store, index, ignore
+ * patterns, sparse-checkout patterns and shallow boundary, which are loaded again only when their
+ * file shows another process changed it. The object store is keyed on the multi-pack index, which
+ * {@code gc} and {@code fetch} rewrite whenever they add or remove packs; the store it replaces is
+ * closed, and {@link #close} closes the current one. Refs are read on every call, since
+ * other writers move them; a ref is one small file or one binary search of the packed refs.
+ * Operations are synchronized, so one open repository can be shared by several threads.
  */
-public class Repository {
-    private static final String VCS_DIR = ".felixvcs";
-    private static final String COMMITS_DIR = VCS_DIR + "/commits";
-    private static final String BLOBS_DIR = VCS_DIR + "/blobs";
-    private static final String TREES_DIR = VCS_DIR + "/trees";
-    private static final String REFS_DIR = VCS_DIR + "/refs/heads";
-    private static final String HEAD_FILE = VCS_DIR + "/HEAD";
-    private static final String INDEX_FILE = VCS_DIR + "/index";
+public class Repository implements Closeable {
+    public static final String VCS_DIR = ".felixvcs";
 
-    private Map<String, Branch> branches;
-    private Branch currentBranch;
+    private static final String HEADS_PREFIX = "refs/heads/";
+    private static final int COMMIT_CACHE_SIZE = 16_384;
+    private static final int TREE_CACHE_SIZE = 256;      // Trees of large repositories hold many entries
 
-    private final LRUCache<String, Blob> blobCache;
-    private final LRUCache<String, Tree> treeCache;
+    private final Path vcsDir;
+    private final Path workDir;   // Null for a bare repository
+    private FileHashCache fileHashes;
+    private final LRUCache<ObjectId, Commit> commits = new LRUCache<>(COMMIT_CACHE_SIZE);
+    private final LRUCache<ObjectId, Tree> trees = new LRUCache<>(TREE_CACHE_SIZE);
+    private final Cached<ObjectStore> store;
+    private final Cached<Map<String, ObjectId>> index;
+    private final Cached<List<Pattern>> ignorePatterns;
+    private final Cached<SparseCheckout> sparse;
+    private final Cached<Set<ObjectId>> shallow;
 
     /**
-     * Initializes the repository by loading its state and setting up caches.
+     * How {@link #add} handled a file.
+     */
+    public enum AddStatus {
+        /** The file's content is in the index. */
+        STAGED,
+        /** The file does not exist. */
+        MISSING,
+        /** The file matches an ignore pattern. */
+        IGNORED,
+        /** The file is outside the sparse-checkout patterns. */
+        OUTSIDE_SPARSE_CHECKOUT
+    }
+
+    /**
+     * The outcome of adding a file.
+     *
+     * @param path    The file path, relative to the working directory.
+     * @param status  Whether the file was staged, and if not, why.
+     * @param id      The blob or chunk list staged for the file; null unless staged.
+     * @param binary  Whether the file is binary.
+     * @param chunked Whether the file is large enough to be stored as chunks.
+     * @param stored  The chunks written for a chunked file; null if its content was already stored.
+     */
+    public record AddResult(String path, AddStatus status, ObjectId id, boolean binary, boolean chunked, ChunkList.Stored stored) {
+    }
+
+    /**
+     * How {@link #commit} ended.
+     */
+    public enum CommitStatus {
+        /** The commit was written and the branch moved to it. */
+        COMMITTED,
+        /** The index is empty. */
+        NOTHING_STAGED,
+        /** Another process moved the branch meanwhile; the commit was written but not recorded. */
+        REJECTED
+    }
+
+    /**
+     * The outcome of a commit.
+     *
+     * @param status Whether the branch moved.
+     * @param branch The current branch.
+     * @param id     The new commit; null if nothing was staged.
+     */
+    public record CommitResult(CommitStatus status, String branch, ObjectId id) {
+    }
+
+    /**
+     * One commit of the history.
      *
-     * @throws IOException If the repository is not initialized or if an error occurs during loading.
+     * @param id        The commit hash.
+     * @param author    The author.
+     * @param timestamp When the commit was made.
+     * @param message   The commit message.
+     * @param parent    The parent commit; null for the first commit.
+     */
+    public record LogEntry(ObjectId id, String author, String timestamp, String message, ObjectId parent) {
+    }
+
+    /**
+     * The history of the current branch.
+     *
+     * @param branch  The current branch.
+     * @param entries The commits, newest first; empty if the branch has no commits.
+     * @param missing A commit the history refers to that is not stored; null if the history ends
+     *                at the first commit or at the shallow boundary.
+     */
+    public record Log(String branch, List<LogEntry> entries, ObjectId missing) {
+    }
+
+    /**
+     * How a file differs between two commits.
+     */
+    public enum Change {
+        ADDED,
+        DELETED,
+        MODIFIED
+    }
+
+    /**
+     * The difference of one file between two commits.
+     *
+     * @param path   The file path.
+     * @param change Whether the file was added, deleted or modified.
+     * @param binary Whether a modified file is binary, in which case no lines are compared.
+     * @param lines  For a modified text file, the changed lines prefixed with {@code "- "} or
+     *               {@code "+ "}; empty otherwise.
+     */
+    public record FileDiff(String path, Change change, boolean binary, List<String> lines) {
+    }
+
+    /**
+     * How {@link #merge} ended.
+     */
+    public enum MergeStatus {
+        /** The current branch now points to the source branch's commit. */
+        MERGED,
+        /** The source branch does not exist. */
+        NO_SUCH_BRANCH,
+        /** The source branch has no commits. */
+        NO_COMMITS,
+        /** The branches share no history, or it lies beyond the shallow boundary. */
+        NO_COMMON_ANCESTOR,
+        /** Both branches changed the same files; nothing was changed. */
+        CONFLICTS,
+        /** Another process moved the current branch meanwhile; nothing was changed. */
+        REJECTED
+    }
+
+    /**
+     * The outcome of a merge.
+     *
+     * @param status    Whether the merge happened, and if not, why.
+     * @param branch    The current branch.
+     * @param commit    The commit the current branch points to after a merge; null otherwise.
+     * @param conflicts The conflicting files, sorted; empty unless there are conflicts.
+     */
+    public record MergeResult(MergeStatus status, String branch, ObjectId commit, SortedSet<String> conflicts) {
+    }
+
+    private Repository(Path vcsDir) {
+        this.vcsDir = vcsDir;
+        this.workDir = isBare(vcsDir) ? null : vcsDir.getParent();
+        this.store = new Cached<>(vcsDir.resolve(Pack.PACKS_DIR).resolve(MultiPackIndex.FILE_NAME),
+                () -> ObjectStores.open(vcsDir));
+        this.index = new Cached<>(vcsDir.resolve("index"), this::readIndex);
+        this.ignorePatterns = new Cached<>(vcsDir.resolve("ignore"), this::readIgnorePatterns);
+        this.sparse = new Cached<>(vcsDir.resolve(SparseCheckout.SPARSE_FILE), () -> SparseCheckout.load(vcsDir));
+        this.shallow = new Cached<>(vcsDir.resolve(Shallow.SHALLOW_FILE), () -> Shallow.read(vcsDir));
+    }
+
+    /**
+     * Opens the repository of the current working directory, or the current directory itself if it
+     * is a bare repository.
+     *
+     * @throws IOException If the current directory is not a repository.
      */
     public Repository() throws IOException {
-        blobCache = new LRUCache<>(1000); // Cache for blobs
-        treeCache = new LRUCache<>(1000); // Cache for trees
-        loadRepository();
+        this(requireRepository(find(Paths.get(""))));
+    }
+
+    private static Path requireRepository(Path vcsDir) throws IOException {
+        if (vcsDir == null) {
+            throw new IOException("Repository not initialized.");
+        }
+        return vcsDir;
     }
 
     /**
-     * Initializes a new FelixVCS repository by creating necessary directories and setting up defaults.
+     * Initializes a new FelixVCS repository in the current working directory by creating the
+     * necessary directories and setting up defaults: HEAD on an empty {@code main} branch, an empty
+     * index and the default object format.
      *
      * @throws IOException If an error occurs during initialization.
      */
     public static void initRepository() throws IOException {
-        if (FileUtils.exists(VCS_DIR)) {
+        Path vcsDir = Paths.get(VCS_DIR);
+        if (FileUtils.exists(vcsDir.toString())) {
             System.out.println("Repository already initialized.");
             return;
         }
 
         // Create required directories
-        FileUtils.createDirectory(VCS_DIR);
-        FileUtils.createDirectory(COMMITS_DIR);
-        FileUtils.createDirectory(BLOBS_DIR);
-        FileUtils.createDirectory(TREES_DIR);
-        FileUtils.createDirectory(REFS_DIR);
-
-        // Set HEAD to main branch
-        FileUtils.writeToFile(HEAD_FILE, "refs/heads/main");
+        for (String dir : List.of("commits", "blobs", "trees", "refs/heads")) {
+            FileUtils.createDirectory(vcsDir.resolve(dir).toString());
+        }
+        HashAlgorithm.DEFAULT.writeTo(vcsDir);
 
-        // Create initial branch
-        Branch mainBranch = new Branch("main", "");
-        Map<String, Branch> branches = new HashMap<>();
-        branches.put("main", mainBranch);
-        saveBranches(branches);
+        // Set HEAD to main branch, which has no commits yet
+        FileUtils.writeToFile(vcsDir.resolve("HEAD").toString(), HEADS_PREFIX + "main");
+        FileUtils.writeToFile(vcsDir.resolve(HEADS_PREFIX + "main").toString(), "");
 
         // Initialize an empty index
-        FileUtils.writeToFile(INDEX_FILE, "");
+        FileUtils.writeToFile(vcsDir.resolve("index").toString(), "");
 
         System.out.println("Initialized empty FelixVCS repository in " + FileUtils.getAbsolutePath(VCS_DIR));
     }
 
     /**
-     * Loads the repository's state, including branches and the current HEAD.
+     * Opens a repository for running operations against it.
      *
-     * @throws IOException If the repository is not initialized or if an error occurs during loading.
+     * @param location The working directory, or the repository data directory of a bare repository.
+     * @return The open repository.
+     * @throws IOException If the location is not a repository.
      */
-    private void loadRepository() throws IOException {
-        if (!FileUtils.exists(VCS_DIR)) {
-            throw new IOException("Repository not initialized.");
+    public static Repository open(Path location) throws IOException {
+        Path found = find(location);
+        if (found == null) {
+            throw new IOException("Not a FelixVersionControl repository: " + location);
         }
+        return new Repository(found);
+    }
 
-        branches = loadBranches();
-
-        // Load current HEAD
-        String headRef = FileUtils.readFile(HEAD_FILE).trim();
-        String currentBranchName = headRef.replace("refs/heads/", "");
-        currentBranch = branches.get(currentBranchName);
+    /**
+     * Finds the repository data directory for the current working directory.
+     *
+     * @return {@code .felixvcs} if present, the current directory if it is a bare repository,
+     *         and otherwise {@code .felixvcs} so that callers report a missing repository.
+     */
+    public static Path locate() {
+        Path nested = Paths.get(VCS_DIR);
+        if (Files.isDirectory(nested)) {
+            return nested;
+        }
+        Path current = Paths.get("").toAbsolutePath();
+        return isRepositoryData(current) ? current : nested;
+    }
 
-        if (currentBranch == null) {
-            throw new IOException("Current branch " + currentBranchName + " does not exist.");
+    /**
+     * Finds the repository data directory of a repository path.
+     * <p>
+     * The path may be a working directory containing {@code .felixvcs}, or a repository data
+     * directory itself, as used by bare repositories.
+     *
+     * @param location The repository path.
+     * @return The normalized repository data directory, or null if the path is not a repository.
+     */
+    public static Path find(Path location) {
+        Path absolute = location.toAbsolutePath().normalize();
+        Path nested = absolute.resolve(VCS_DIR);
+        if (Files.isDirectory(nested)) {
+            return nested;
         }
+        return isRepositoryData(absolute) ? absolute : null;
     }
 
     /**
-     * Loads branches from the repository's refs/heads directory.
+     * Checks whether a repository data directory belongs to a bare repository.
      *
-     * @return A map of branch names to their corresponding {@link Branch} objects.
-     * @throws IOException If an error occurs during branch loading.
+     * @param vcsDir The repository data directory.
+     * @return True if the repository has no working directory, false otherwise.
      */
-    private Map<String, Branch> loadBranches() throws IOException {
-        Map<String, Branch> branches = new HashMap<>();
-        List<String> branchFiles = FileUtils.listFiles(REFS_DIR);
+    public static boolean isBare(Path vcsDir) {
+        Path name = vcsDir.toAbsolutePath().normalize().getFileName();
+        return isRepositoryData(vcsDir) && (name == null || !name.toString().equals(VCS_DIR));
+    }
 
-        for (String branchName : branchFiles) {
-            String branchRefPath = REFS_DIR + "/" + branchName;
-            String commitHash = FileUtils.readFile(branchRefPath).trim();
-            branches.put(branchName, new Branch(branchName, commitHash));
-        }
-        return branches;
+    /**
+     * Checks whether a directory has the layout of repository data.
+     *
+     * @param dir The directory to check.
+     * @return True if the directory holds a HEAD file and a commits directory.
+     */
+    private static boolean isRepositoryData(Path dir) {
+        return Files.isRegularFile(dir.resolve("HEAD")) && Files.isDirectory(dir.resolve("commits"));
     }
 
     /**
-     * Saves branches to the repository's refs/heads directory.
+     * Retrieves the repository data directory.
      *
-     * @param branches A map of branch names to their corresponding {@link Branch} objects.
-     * @throws IOException If an error occurs during branch saving.
+     * @return The absolute repository data directory.
      */
-    private static void saveBranches(Map<String, Branch> branches) throws IOException {
-        for (Branch branch : branches.values()) {
-            String branchRefPath = REFS_DIR + "/" + branch.getName();
-            FileUtils.writeToFile(branchRefPath, branch.getCommitHash() == null ? "" : branch.getCommitHash());
-        }
+    public Path getVcsDir() {
+        return vcsDir;
+    }
+
+    /**
+     * Retrieves the working directory.
+     *
+     * @return The absolute working directory, or null for a bare repository.
+     */
+    public Path getWorkDir() {
+        return workDir;
+    }
+
+    /**
+     * Retrieves the branch HEAD points to.
+     *
+     * @return The branch name, such as {@code master}.
+     * @throws IOException If HEAD cannot be read.
+     */
+    public synchronized String currentBranch() throws IOException {
+        return headRef().replace(HEADS_PREFIX, "");
+    }
+
+    /**
+     * Retrieves the commit of the current branch.
+     *
+     * @return The commit hash, or null if the branch has no commits.
+     * @throws IOException If HEAD or the branch cannot be read.
+     */
+    public synchronized ObjectId head() throws IOException {
+        return Refs.read(vcsDir, headRef());
     }
 
     /**
      * Retrieves the current branch of the repository.
      *
-     * @return The {@link Branch} object representing the current branch.
+     * @return The {@link Branch} HEAD points to, with a null commit hash if it has no commits yet.
+     * @throws IOException If HEAD or the branch cannot be read.
      */
-    public Branch getCurrentBranch() {
-        return currentBranch;
+    public synchronized Branch getCurrentBranch() throws IOException {
+        String headRef = headRef();
+        return new Branch(headRef.replace(HEADS_PREFIX, ""), Refs.read(vcsDir, headRef));
     }
 
     /**
-     * Switches to the specified branch.
+     * Switches HEAD to the specified branch. The working directory is left as it is.
      *
      * @param branchName The name of the branch to switch to.
-     * @throws IOException If the branch does not exist or an error occurs during the switch.
+     * @throws IOException If an error occurs during the switch.
      */
-    public void switchBranch(String branchName) throws IOException {
-        if (!branches.containsKey(branchName)) {
+    public synchronized void switchBranch(String branchName) throws IOException {
+        if (!Refs.exists(vcsDir, HEADS_PREFIX + branchName)) {
             System.out.println("Branch " + branchName + " does not exist.");
             return;
         }
-        FileUtils.writeToFile(HEAD_FILE, "refs/heads/" + branchName);
-        currentBranch = branches.get(branchName);
+        FileUtils.writeRef(vcsDir.resolve("HEAD").toString(), HEADS_PREFIX + branchName);
         System.out.println("Switched to branch " + branchName);
     }
 
     /**
-     * Creates a new branch in the repository.
+     * Creates a new branch at the commit of the current branch.
      *
      * @param branchName The name of the new branch.
-     * @throws IOException If the branch already exists or an error occurs during creation.
+     * @throws IOException If an error occurs during creation.
      */
-    public void createBranch(String branchName) throws IOException {
-        if (branches.containsKey(branchName)) {
-            System.out.println("Branch " + branchName + " already exists.");
-            return;
+    public synchronized void createBranch(String branchName) throws IOException {
+        String refName = HEADS_PREFIX + branchName;
+        ObjectId head = Refs.read(vcsDir, headRef());
+        boolean created;
+        if (head == null) {
+            // A branch without commits is an empty loose file
+            created = !Refs.exists(vcsDir, refName);
+            if (created) {
+                FileUtils.writeRef(vcsDir.resolve(refName).toString(), "");
+            }
+        } else {
+            created = new RefTransaction(vcsDir).create(refName, head).commit();
         }
-        String currentCommitHash = currentBranch.getCommitHash();
-        Branch newBranch = new Branch(branchName, currentCommitHash);
-        branches.put(branchName, newBranch);
-        saveBranches(branches);
-        System.out.println("Created branch " + branchName);
+        System.out.println(created ? "Created branch " + branchName : "Branch " + branchName + " already exists.");
     }
 
     /**
-     * Deletes a branch from the repository.
+     * Deletes a branch from the repository, loose or packed.
      *
      * @param branchName The name of the branch to delete.
-     * @throws IOException If the branch does not exist or an error occurs during deletion.
+     * @throws IOException If an error occurs during deletion.
      */
-    public void deleteBranch(String branchName) throws IOException {
-        if (!branches.containsKey(branchName)) {
+    public synchronized void deleteBranch(String branchName) throws IOException {
+        if (!Refs.exists(vcsDir, HEADS_PREFIX + branchName)) {
             System.out.println("Branch " + branchName + " does not exist.");
             return;
         }
-        if (branchName.equals(currentBranch.getName())) {
+        if (branchName.equals(currentBranch())) {
             System.out.println("Cannot delete the current active branch.");
             return;
         }
-        branches.remove(branchName);
-        FileUtils.deleteFile(REFS_DIR + "/" + branchName);
+        Refs.delete(vcsDir, HEADS_PREFIX + branchName);
         System.out.println("Deleted branch " + branchName);
     }
 
-    // Other methods (loadBlob, loadTree, saveTree) are similarly documented
+    /**
+     * Checks whether a commit is stored.
+     *
+     * @param commitHash The commit hash.
+     * @return True if the commit exists, loose or packed.
+     * @throws IOException If the object store cannot be opened.
+     */
+    public synchronized boolean hasCommit(ObjectId commitHash) throws IOException {
+        return store().has(ObjectType.COMMIT, commitHash);
+    }
+
+    /**
+     * Stages a file for the next commit.
+     *
+     * @param filePath The file path, relative to the working directory.
+     * @return What was staged.
+     * @throws IOException If the file cannot be read or stored, or the index cannot be written.
+     */
+    public synchronized AddResult add(String filePath) throws IOException {
+        return add(List.of(filePath)).get(0);
+    }
+
+    /**
+     * Stages several files for the next commit, writing the index once.
+     *
+     * @param filePaths The file paths, relative to the working directory.
+     * @return What was staged for each file, in the same order.
+     * @throws IOException If a file cannot be read or stored, or the index cannot be written.
+     */
+    public synchronized List<AddResult> add(Collection<String> filePaths) throws IOException {
+        if (workDir == null) {
+            throw new IllegalStateException("A bare repository has no working directory to add files from.");
+        }
+        List<AddResult> results = new ArrayList<>(filePaths.size());
+        // A copy, so that the cached index is unchanged if saving fails
+        Map<String, ObjectId> entries = new HashMap<>(index.get());
+        boolean changed = false;
+        try {
+            for (String filePath : filePaths) {
+                AddResult result = stage(filePath);
+                if (result.status() == AddStatus.STAGED) {
+                    changed |= !result.id().equals(entries.put(filePath, result.id()));
+                }
+                results.add(result);
+            }
+        } finally {
+            if (changed) {
+                saveIndex(entries);
+            }
+            // Written once per call, not per file: every save rewrites the whole cache
+            if (fileHashes != null) {
+                fileHashes.save();
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Commits the staged files to the current branch.
+     * <p>
+     * Files of the previous commit that are not staged are left out of the new commit, except
+     * those outside the sparse checkout, which are carried forward unchanged.
+     *
+     * @param message The commit message.
+     * @return The new commit, or why none was recorded.
+     * @throws IOException If objects cannot be read or written, or the branch cannot be updated.
+     */
+    public synchronized CommitResult commit(String message) throws IOException {
+        String headRef = headRef();
+        String branch = headRef.replace(HEADS_PREFIX, "");
+        ObjectId parentCommitHash = Refs.read(vcsDir, headRef);
+
+        Map<String, ObjectId> stagedFiles = new HashMap<>(index.get());
+        if (stagedFiles.isEmpty()) {
+            return new CommitResult(CommitStatus.NOTHING_STAGED, branch, null);
+        }
+
+        // Detect deletions by comparing with the previous tree; files outside the sparse
+        // checkout are not in the working directory, so they are carried forward unchanged
+        Map<String, ObjectId> previousTree = parentCommitHash == null ? new HashMap<>() : loadTree(parentCommitHash).getFiles();
+        SparseCheckout sparseCheckout = sparse.get();
+        for (Map.Entry<String, ObjectId> file : previousTree.entrySet()) {
+            if (!stagedFiles.containsKey(file.getKey())) {
+                stagedFiles.put(file.getKey(), sparseCheckout.matches(file.getKey()) ? null : file.getValue()); // Mark as deleted
+            }
+        }
+
+        Tree tree = buildTree(stagedFiles);
+        ObjectId treeHash = store().writeTree(tree);
+        trees.put(treeHash, tree);
+        Commit commit = createCommit(treeHash, parentCommitHash, message);
+        ObjectId commitHash = store().writeCommit(commit);
+        commits.put(commitHash, commit);
+
+        // Update the branch reference to the new commit, unless another process moved it meanwhile
+        if (!RefUpdate.compareAndSet(vcsDir, headRef, parentCommitHash, commitHash)) {
+            return new CommitResult(CommitStatus.REJECTED, branch, commitHash);
+        }
+
+        // Clear the staging area (index)
+        saveIndex(new HashMap<>());
+        return new CommitResult(CommitStatus.COMMITTED, branch, commitHash);
+    }
+
+    /**
+     * Lists the history of the current branch, stopping at the shallow boundary.
+     *
+     * @return The commits, newest first.
+     * @throws IOException If HEAD, the branch or a commit cannot be read.
+     */
+    public synchronized Log log() throws IOException {
+        String branch = currentBranch();
+        ObjectId commitHash = Refs.read(vcsDir, HEADS_PREFIX + branch);
+        List<LogEntry> entries = new ArrayList<>();
+        try (Stats.Timer timer = Stats.time(Stats.Phase.WALK)) {
+            Set<ObjectId> boundary = shallow.get();
+            while (commitHash != null) {
+                if (!store().has(ObjectType.COMMIT, commitHash)) {
+                    return new Log(branch, entries, commitHash);
+                }
+                Commit commit = loadCommit(commitHash);
+                entries.add(new LogEntry(commitHash, commit.getAuthor(), commit.getTimestamp(), commit.getMessage(), commit.getParent()));
+
+                // Older history is not present in a shallow clone
+                if (boundary.contains(commitHash)) {
+                    break;
+                }
+                commitHash = commit.getParent();
+            }
+        }
+        return new Log(branch, entries, null);
+    }
+
+    /**
+     * Compares the files of two commits.
+     *
+     * @param from The older commit.
+     * @param to   The newer commit.
+     * @return The files that differ, sorted by path.
+     * @throws IOException If a commit, tree or blob is missing or cannot be read.
+     */
+    public synchronized List<FileDiff> diff(ObjectId from, ObjectId to) throws IOException {
+        Map<String, ObjectId> files1 = loadTree(from).getFiles();
+        Map<String, ObjectId> files2 = loadTree(to).getFiles();
+        SortedSet<String> allFiles = new TreeSet<>(files1.keySet());
+        allFiles.addAll(files2.keySet());
+
+        List<FileDiff> diffs = new ArrayList<>();
+        for (String file : allFiles) {
+            ObjectId blob1 = files1.get(file);
+            ObjectId blob2 = files2.get(file);
+            if (blob1 == null) {
+                diffs.add(new FileDiff(file, Change.ADDED, false, List.of()));
+            } else if (blob2 == null) {
+                diffs.add(new FileDiff(file, Change.DELETED, false, List.of()));
+            } else if (!blob1.equals(blob2)) {
+                diffs.add(diffFile(file, blob1, blob2));
+            }
+        }
+        return diffs;
+    }
+
+    /**
+     * Merges a branch into the current branch by moving the current branch to the source branch's
+     * commit, unless both changed the same files since their common ancestor.
+     *
+     * @param sourceBranch The branch to merge.
+     * @return Whether the merge happened, and if not, why.
+     * @throws IOException If refs or objects cannot be read, or the branch cannot be updated.
+     */
+    public synchronized MergeResult merge(String sourceBranch) throws IOException {
+        String headRef = headRef();
+        String branch = headRef.replace(HEADS_PREFIX, "");
+        ObjectId currentCommitHash = Refs.read(vcsDir, headRef);
+        SortedSet<String> noConflicts = Collections.emptySortedSet();
+
+        if (!Refs.exists(vcsDir, HEADS_PREFIX + sourceBranch)) {
+            return new MergeResult(MergeStatus.NO_SUCH_BRANCH, branch, null, noConflicts);
+        }
+        ObjectId sourceCommitHash = Refs.read(vcsDir, HEADS_PREFIX + sourceBranch);
+        if (sourceCommitHash == null) {
+            return new MergeResult(MergeStatus.NO_COMMITS, branch, null, noConflicts);
+        }
+
+        ObjectId commonAncestor = mergeBase(currentCommitHash, sourceCommitHash);
+        if (commonAncestor == null) {
+            return new MergeResult(MergeStatus.NO_COMMON_ANCESTOR, branch, null, noConflicts);
+        }
+
+        SortedSet<String> conflicts = detectConflicts(loadTree(commonAncestor), loadTree(currentCommitHash), loadTree(sourceCommitHash));
+        if (!conflicts.isEmpty()) {
+            return new MergeResult(MergeStatus.CONFLICTS, branch, null, Collections.unmodifiableSortedSet(conflicts));
+        }
+
+        // No conflicts; merge by updating the current branch to point to the source branch's commit
+        if (!RefUpdate.compareAndSet(vcsDir, headRef, currentCommitHash, sourceCommitHash)) {
+            return new MergeResult(MergeStatus.REJECTED, branch, null, noConflicts);
+        }
+        return new MergeResult(MergeStatus.MERGED, branch, sourceCommitHash, noConflicts);
+    }
+
+    /**
+     * Finds the common ancestor of two commits.
+     *
+     * @param commit1 The first commit hash.
+     * @param commit2 The second commit hash.
+     * @return The nearest ancestor of the first commit that the second also reaches, or null if
+     *         there is none within the shallow boundary.
+     * @throws IOException If a commit cannot be read.
+     */
+    public synchronized ObjectId mergeBase(ObjectId commit1, ObjectId commit2) throws IOException {
+        try (Stats.Timer timer = Stats.time(Stats.Phase.WALK)) {
+            Set<ObjectId> boundary = shallow.get();
+            Set<ObjectId> ancestors1 = getAllAncestors(commit1, boundary);
+            Set<ObjectId> ancestors2 = getAllAncestors(commit2, boundary);
+
+            for (ObjectId ancestor : ancestors1) {
+                if (ancestors2.contains(ancestor)) {
+                    return ancestor;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Syncs the objects written so far, such as blobs staged by {@link #add}, to disk. Committing
+     * does this on its own before the branch moves.
+     *
+     * @throws IOException If a file cannot be synced.
+     */
+    public void sync() throws IOException {
+        Durability.flush();
+    }
+
+    /**
+     * Stages one file without writing the index.
+     *
+     * @param filePath The file path, relative to the working directory.
+     * @return What was staged.
+     * @throws IOException If the file cannot be read or stored.
+     */
+    private AddResult stage(String filePath) throws IOException {
+        Path file = workDir.resolve(filePath);
+        if (!Files.exists(file)) {
+            return new AddResult(filePath, AddStatus.MISSING, null, false, false, null);
+        }
+        if (isIgnored(filePath)) {
+            return new AddResult(filePath, AddStatus.IGNORED, null, false, false, null);
+        }
+        if (!sparse.get().matches(filePath)) {
+            return new AddResult(filePath, AddStatus.OUTSIDE_SPARSE_CHECKOUT, null, false, false, null);
+        }
+
+        boolean binary = isBinaryFile(file);
+        if (binary && Files.size(file) > ChunkList.THRESHOLD) {
+            return stageChunked(filePath, file);
+        }
+        byte[] content = Files.readAllBytes(file);
+        return new AddResult(filePath, AddStatus.STAGED, storeBlob(filePath, content), binary, false, null);
+    }
+
+    /**
+     * Stores a large file as chunks, unless its content is unchanged since it was last added.
+     * <p>
+     * A cheap xxHash64 pass decides whether the file changed; only a changed file is chunked and
+     * its chunks hashed with the repository's hash function.
+     *
+     * @param filePath The path of the file, as recorded in the index.
+     * @param file     The file.
+     * @return What was staged.
+     * @throws IOException If the file cannot be read or its chunks cannot be stored.
+     */
+    private AddResult stageChunked(String filePath, Path file) throws IOException {
+        FileHashCache cache = fileHashes();
+        ObjectId cached = cache.get(filePath, Files.size(file), FileHashCache.fastHash(file));
+        if (cached != null && store().has(ObjectType.CHUNK_LIST, cached)) {
+            return new AddResult(filePath, AddStatus.STAGED, cached, true, true, null);
+        }
+
+        ChunkList.Stored stored;
+        try (FileHashCache.HashingInputStream in = new FileHashCache.HashingInputStream(Files.newInputStream(file))) {
+            stored = ChunkList.store(store(), in);
+            // The entry describes exactly the bytes that were chunked, even if the file changed meanwhile
+            cache.put(filePath, in.getSize(), in.getFastHash(), stored.hash());
+        }
+        return new AddResult(filePath, AddStatus.STAGED, stored.hash(), true, true, stored);
+    }
+
+    /**
+     * Stores the content of a file as a blob, reusing the blob it was last added as if the content is unchanged.
+     *
+     * @param filePath The path of the file, as recorded in the index.
+     * @param content  The file content.
+     * @return The blob hash.
+     * @throws IOException If the blob cannot be stored.
+     */
+    private ObjectId storeBlob(String filePath, byte[] content) throws IOException {
+        FileHashCache cache = fileHashes();
+        long fastHash = HashUtils.xxHash64(content);
+        ObjectId cached = cache.get(filePath, content.length, fastHash);
+        if (cached != null && store().has(ObjectType.BLOB, cached)) {
+            return cached;
+        }
+        ObjectId blobHash = store().write(ObjectType.BLOB, content);
+        cache.put(filePath, content.length, fastHash, blobHash);
+        return blobHash;
+    }
+
+    /**
+     * Checks if a file should be ignored based on the patterns in the ignore file.
+     *
+     * @param filePath The path of the file to check.
+     * @return True if the file is ignored, false otherwise.
+     * @throws IOException If the ignore file cannot be read.
+     */
+    private boolean isIgnored(String filePath) throws IOException {
+        for (Pattern pattern : ignorePatterns.get()) {
+            if (pattern.matcher(filePath).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<Pattern> readIgnorePatterns() throws IOException {
+        List<Pattern> patterns = new ArrayList<>();
+        String ignoreFile = vcsDir.resolve("ignore").toString();
+        if (!FileUtils.exists(ignoreFile)) {
+            return patterns;
+        }
+        for (String pattern : FileUtils.readFile(ignoreFile).split("\n")) {
+            pattern = pattern.trim();
+            if (!pattern.isEmpty() && !pattern.startsWith("#")) {
+                patterns.add(Pattern.compile(globToRegex(pattern)));
+            }
+        }
+        return patterns;
+    }
+
+    /**
+     * Converts a glob pattern to a regular expression.
+     *
+     * @param glob The glob pattern.
+     * @return The equivalent regular expression.
+     */
+    private static String globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder("^");
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            switch (c) {
+                case '*':
+                    regex.append(".*");
+                    break;
+                case '?':
+                    regex.append(".");
+                    break;
+                case '.':
+                    regex.append("\\.");
+                    break;
+                case '/':
+                    regex.append("\\/");
+                    break;
+                default:
+                    regex.append(c);
+            }
+        }
+        regex.append("$");
+        return regex.toString();
+    }
+
+    /**
+     * Determines if a file is binary by checking its first bytes for a null byte.
+     *
+     * @param file The file to check.
+     * @return True if the file is binary, false otherwise.
+     * @throws IOException If the file cannot be read.
+     */
+    private static boolean isBinaryFile(Path file) throws IOException {
+        int binaryThreshold = 512; // Number of bytes to check
+        byte[] bytes;
+        try (InputStream in = Files.newInputStream(file)) {
+            bytes = in.readNBytes(binaryThreshold);
+        }
+        for (byte b : bytes) {
+            if (b == 0) {
+                return true; // Null byte detected, likely binary
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the index.
+     *
+     * @return A map of file paths to their blob hashes.
+     * @throws IOException If the index cannot be read.
+     */
+    private Map<String, ObjectId> readIndex() throws IOException {
+        Events.IndexLoad event = new Events.IndexLoad();
+        event.begin();
+        try (Stats.Timer timer = Stats.time(Stats.Phase.INDEX_LOAD)) {
+            long size = 0;
+            Map<String, ObjectId> entries = new HashMap<>();
+            String indexFile = vcsDir.resolve("index").toString();
+            if (FileUtils.exists(indexFile)) {
+                String content = FileUtils.readFile(indexFile);
+                size = content.length();
+                for (String entry : content.split("\n")) {
+                    if (!entry.trim().isEmpty()) {
+                        String[] parts = entry.split(":", 2);
+                        if (parts.length == 2) {
+                            entries.put(parts[0], ObjectId.fromHex(parts[1].trim()));
+                        }
+                    }
+                }
+            }
+            if (event.shouldCommit()) {
+                event.entries = entries.size();
+                event.size = size;
+                event.commit();
+            }
+            return entries;
+        }
+    }
+
+    /**
+     * Writes the index and keeps it as the parsed copy.
+     *
+     * @param entries A map of file paths to their blob hashes.
+     * @throws IOException If the index cannot be written.
+     */
+    private void saveIndex(Map<String, ObjectId> entries) throws IOException {
+        Events.IndexSave event = new Events.IndexSave();
+        event.begin();
+        try (Stats.Timer timer = Stats.time(Stats.Phase.INDEX_SAVE)) {
+            StringBuilder sb = new StringBuilder();
+            for (Map.Entry<String, ObjectId> entry : entries.entrySet()) {
+                sb.append(entry.getKey()).append(":").append(entry.getValue().name()).append("\n");
+            }
+            FileUtils.writeToFile(index.file.toString(), sb.toString());
+            index.set(entries);
+            if (event.shouldCommit()) {
+                event.entries = entries.size();
+                event.size = sb.length();
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Builds a tree object from staged files and displays progress.
+     *
+     * @param stagedFiles A map of file paths to their blob hashes; null for deleted files.
+     * @return The constructed Tree object.
+     */
+    private Tree buildTree(Map<String, ObjectId> stagedFiles) {
+        try (Stats.Timer timer = Stats.time(Stats.Phase.TREE_BUILD)) {
+            Tree tree = new Tree();
+            Map<String, ObjectId> filesInTree = new HashMap<>();
+            long totalFiles = stagedFiles.size();
+            long processedFiles = 0;
+
+            try (Progress progress = Progress.start("Processing files", totalFiles)) {
+                for (Map.Entry<String, ObjectId> entry : stagedFiles.entrySet()) {
+                    if (entry.getValue() != null) {
+                        filesInTree.put(entry.getKey(), entry.getValue());
+                    }
+                    processedFiles++;
+                    progress.update(processedFiles, totalFiles);
+                }
+            }
+
+            tree.setFiles(filesInTree);
+            return tree;
+        }
+    }
+
+    /**
+     * Creates a commit object by the current user, dated now.
+     *
+     * @param treeHash         The hash of the tree.
+     * @param parentCommitHash The hash of the parent commit (if any).
+     * @param message          The commit message.
+     * @return A new Commit object.
+     */
+    private static Commit createCommit(ObjectId treeHash, ObjectId parentCommitHash, String message) {
+        Commit commit = new Commit();
+        commit.setTree(treeHash);
+        commit.setParent(parentCommitHash);
+        commit.setMessage(message);
+
+        String timestamp = DateTimeFormatter.ISO_INSTANT
+                .withZone(ZoneId.systemDefault())
+                .format(Instant.now());
+        commit.setTimestamp(timestamp);
+
+        String author = System.getProperty("user.name");
+        commit.setAuthor(author == null || author.isEmpty() ? "Unknown Author" : author);
+
+        return commit;
+    }
+
+    /**
+     * Compares two versions of a file line by line.
+     *
+     * @param fileName The name of the file.
+     * @param blob1    The blob hash of the file in the first commit.
+     * @param blob2    The blob hash of the file in the second commit.
+     * @return The difference.
+     * @throws IOException If a blob cannot be read.
+     */
+    private FileDiff diffFile(String fileName, ObjectId blob1, ObjectId blob2) throws IOException {
+        // Only large binary files are chunked, so they are not read back just to be reported as binary
+        if (store().has(ObjectType.CHUNK_LIST, blob1) || store().has(ObjectType.CHUNK_LIST, blob2)) {
+            return new FileDiff(fileName, Change.MODIFIED, true, List.of());
+        }
+        String content1 = new String(store().read(ObjectType.BLOB, blob1), StandardCharsets.UTF_8);
+        String content2 = new String(store().read(ObjectType.BLOB, blob2), StandardCharsets.UTF_8);
+        if (content1.contains("\0") || content2.contains("\0")) {
+            return new FileDiff(fileName, Change.MODIFIED, true, List.of());
+        }
+
+        List<String> lines = new ArrayList<>();
+        String[] lines1 = content1.split("\n");
+        String[] lines2 = content2.split("\n");
+        int max = Math.max(lines1.length, lines2.length);
+        for (int i = 0; i < max; i++) {
+            String line1 = i < lines1.length ? lines1[i] : "";
+            String line2 = i < lines2.length ? lines2[i] : "";
+            if (!line1.equals(line2)) {
+                if (!line1.isEmpty()) {
+                    lines.add("- " + line1);
+                }
+                if (!line2.isEmpty()) {
+                    lines.add("+ " + line2);
+                }
+            }
+        }
+        return new FileDiff(fileName, Change.MODIFIED, false, lines);
+    }
+
+    /**
+     * Retrieves all ancestor commits for a given commit hash, stopping at the shallow boundary.
+     *
+     * @param commitHash The commit hash.
+     * @param boundary   Commits whose parents are not present in a shallow clone.
+     * @return A set of all ancestor commit hashes, nearest first.
+     * @throws IOException If a commit cannot be read.
+     */
+    private Set<ObjectId> getAllAncestors(ObjectId commitHash, Set<ObjectId> boundary) throws IOException {
+        ObjectIdSet ancestors = new ObjectIdSet();
+        if (commitHash == null) {
+            return ancestors;
+        }
+        IntDeque queue = new IntDeque(); // Positions in ancestors still to visit
+        queue.addLast(ancestors.addIndex(commitHash));
+
+        while (!queue.isEmpty()) {
+            ObjectId current = ancestors.get(queue.removeFirst());
+            if (!boundary.contains(current) && store().has(ObjectType.COMMIT, current)) {
+                Events.WalkStep event = new Events.WalkStep();
+                event.begin();
+                ObjectId parent = loadCommit(current).getParent();
+                if (event.shouldCommit()) {
+                    event.id = current.name();
+                    event.parent = parent == null ? null : parent.name();
+                    event.commit();
+                }
+                if (parent != null && ancestors.add(parent)) {
+                    queue.addLast(ancestors.size() - 1);
+                }
+            }
+        }
+        return ancestors;
+    }
+
+    /**
+     * Detects files changed differently on both sides since their common ancestor.
+     *
+     * @param ancestor The tree from the common ancestor.
+     * @param current  The tree from the current branch.
+     * @param source   The tree from the source branch.
+     * @return The conflicting file paths.
+     */
+    private static SortedSet<String> detectConflicts(Tree ancestor, Tree current, Tree source) {
+        SortedSet<String> conflicts = new TreeSet<>();
+        Set<String> allFiles = new TreeSet<>(ancestor.getFiles().keySet());
+        allFiles.addAll(current.getFiles().keySet());
+        allFiles.addAll(source.getFiles().keySet());
+
+        for (String file : allFiles) {
+            ObjectId ancestorBlob = ancestor.getFiles().get(file);
+            ObjectId currentBlob = current.getFiles().get(file);
+            ObjectId sourceBlob = source.getFiles().get(file);
+
+            if (!Objects.equals(currentBlob, sourceBlob) &&
+                    !Objects.equals(ancestorBlob, currentBlob) &&
+                    !Objects.equals(ancestorBlob, sourceBlob)) {
+                conflicts.add(file);
+            }
+        }
+        return conflicts;
+    }
+
+    /**
+     * Reads a commit, from the cache if it was read before.
+     *
+     * @param commitHash The commit hash.
+     * @return The commit; shared, so not to be modified.
+     * @throws IOException If the commit cannot be read.
+     */
+    private Commit loadCommit(ObjectId commitHash) throws IOException {
+        Commit commit = commits.get(commitHash);
+        if (commit == null) {
+            commit = store().readCommit(commitHash);
+            commits.put(commitHash, commit);
+        }
+        return commit;
+    }
+
+    /**
+     * Reads the tree of a commit, from the cache if it was read before.
+     *
+     * @param commitHash The commit hash.
+     * @return The tree; shared, so not to be modified.
+     * @throws IOException If the commit or tree cannot be read.
+     */
+    private Tree loadTree(ObjectId commitHash) throws IOException {
+        ObjectId treeHash = loadCommit(commitHash).getTree();
+        Tree tree = trees.get(treeHash);
+        if (tree == null) {
+            tree = store().readTree(treeHash);
+            trees.put(treeHash, tree);
+        }
+        return tree;
+    }
+
+    private String headRef() throws IOException {
+        return FileUtils.readFile(vcsDir.resolve("HEAD").toString()).trim();
+    }
+
+    private FileHashCache fileHashes() throws IOException {
+        if (fileHashes == null) {
+            fileHashes = FileHashCache.load(vcsDir);
+        }
+        return fileHashes;
+    }
+
+    /**
+     * Closes the files the repository's object store holds open. The repository stays usable and
+     * opens the store again on its next operation.
+     *
+     * @throws IOException If a file cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        store.close();
+    }
+
+    /**
+     * Returns the repository's object store, opening it again once the set of packs has changed.
+     *
+     * @return The object store.
+     * @throws IOException If the store cannot be opened.
+     */
+    private ObjectStore store() throws IOException {
+        return store.get();
+    }
+
+    /**
+     * Reads a value from a repository file.
+     *
+     * @param <T> The type of the value.
+     */
+    @FunctionalInterface
+    private interface Loader<T> {
+        T load() throws IOException;
+    }
+
+    /**
+     * A value parsed from a repository file, parsed again when the file is replaced or changed.
+     * <p>
+     * A change is seen from the file's identity, its size and both its modification and change
+     * times. Repository files are written through a rename, so a rewrite gives the file a new
+     * identity even when it keeps its size and lands within the modification time's resolution;
+     * the change time, which a writer cannot set back, catches a file edited in place. Where the
+     * file system has no change time or file identity, the check falls back to what it offers.
+     * A value that holds files open, such as an object store, is closed when it is replaced.
+     *
+     * @param <T> The type of the value.
+     */
+    private static final class Cached<T> {
+        private static final boolean UNIX_ATTRIBUTES =
+                FileSystems.getDefault().supportedFileAttributeViews().contains("unix");
+
+        private final Path file;
+        private final Loader<T> loader;
+        private Stamp stamp;
+        private T value;
+
+        Cached(Path file, Loader<T> loader) {
+            this.file = file;
+            this.loader = loader;
+        }
+
+        T get() throws IOException {
+            Stamp current = Stamp.of(file);
+            if (value == null || !Objects.equals(current, stamp)) {
+                T loaded = loader.load();
+                close();
+                value = loaded;
+                stamp = current;
+            }
+            return value;
+        }
+
+        /**
+         * Closes the value if it holds files open, and forgets it so the next use loads it again.
+         */
+        void close() throws IOException {
+            T closing = value;
+            value = null;
+            stamp = null;
+            if (closing instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+
+        /**
+         * Replaces the value after this process wrote the file itself.
+         */
+        void set(T newValue) throws IOException {
+            value = newValue;
+            stamp = Stamp.of(file);
+        }
+
+        /**
+         * What identifies one version of a file.
+         *
+         * @param fileKey  The file's identity, such as its device and inode; null if not available.
+         * @param modified The last modification time.
+         * @param changed  The last status change time; null if not available.
+         * @param size     The size in bytes.
+         */
+        private record Stamp(Object fileKey, FileTime modified, FileTime changed, long size) {
+
+            /**
+             * Reads the stamp of a file.
+             *
+             * @return The stamp, or null if the file does not exist, which is a state of its own:
+             *         no patterns, an empty index.
+             */
+            static Stamp of(Path file) throws IOException {
+                try {
+                    if (UNIX_ATTRIBUTES) {
+                        Map<String, Object> attributes = Files.readAttributes(file, "unix:fileKey,lastModifiedTime,ctime,size");
+                        return new Stamp(attributes.get("fileKey"), (FileTime) attributes.get("lastModifiedTime"),
+                                (FileTime) attributes.get("ctime"), (Long) attributes.get("size"));
+                    }
+                    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    return new Stamp(attributes.fileKey(), attributes.lastModifiedTime(), null, attributes.size());
+                } catch (NoSuchFileException e) {
+                    return null;
+                }
+            }
+        }
+    }
 }
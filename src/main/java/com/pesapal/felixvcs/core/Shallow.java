@@ -0,0 +1,62 @@
+package com.pesapal.felixvcs.core;
+
+import com.pesapal.felixvcs.utils.FileUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Reads and writes the shallow boundary of a repository.
+ * <p>
+ * A shallow repository only holds part of its history. The {@code shallow} file lists the commits
+ * whose parents were deliberately left out, so history walks stop at them instead of treating
+ * the missing parents as corruption.
+ */
+public class Shallow {
+    static final String SHALLOW_FILE = "shallow";
+
+    /**
+     * Reads the shallow boundary commits of a repository.
+     *
+     * @param vcsDir The repository data directory.
+     * @return The set of boundary commit hashes; empty if the repository has full history.
+     * @throws IOException If the shallow file exists but cannot be read.
+     */
+    public static Set<ObjectId> read(Path vcsDir) throws IOException {
+        Set<ObjectId> commits = new TreeSet<>();
+        String shallowPath = vcsDir.resolve(SHALLOW_FILE).toString();
+        if (!FileUtils.exists(shallowPath)) {
+            return commits;
+        }
+        for (String line : FileUtils.readFile(shallowPath).split("\n")) {
+            if (!line.trim().isEmpty()) {
+                commits.add(ObjectId.fromHex(line.trim()));
+            }
+        }
+        return commits;
+    }
+
+    /**
+     * Writes the shallow boundary commits of a repository, removing the file when there are none.
+     *
+     * @param vcsDir  The repository data directory.
+     * @param commits The boundary commit hashes.
+     * @throws IOException If the shallow file cannot be written.
+     */
+    public static void write(Path vcsDir, Set<ObjectId> commits) throws IOException {
+        String shallowPath = vcsDir.resolve(SHALLOW_FILE).toString();
+        if (commits.isEmpty()) {
+            if (FileUtils.exists(shallowPath)) {
+                FileUtils.deleteFile(shallowPath);
+            }
+            return;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (ObjectId commit : new TreeSet<>(commits)) {
+            sb.append(commit).append("\n");
+        }
+        FileUtils.writeToFile(shallowPath, sb.toString());
+    }
+}
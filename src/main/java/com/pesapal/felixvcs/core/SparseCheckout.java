@@ -0,0 +1,161 @@
+package com.pesapal.felixvcs.core;
+
+import com.pesapal.felixvcs.utils.FileUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Holds the sparse-checkout patterns of a repository.
+ * <p>
+ * The patterns select which tracked paths are materialized in the working directory. A pattern
+ * without wildcards names a file or a directory prefix ({@code docs} or {@code docs/}); {@code *}
+ * and {@code ?} match within one path segment and {@code **} matches across segments. With no
+ * patterns every path is checked out. Commits always carry the full tree, whatever the patterns.
+ */
+public class SparseCheckout {
+    static final String SPARSE_FILE = "sparse-checkout";
+
+    private final List<String> patterns;
+    private final List<Pattern> regexes;
+
+    /**
+     * Constructs a SparseCheckout from a list of patterns.
+     *
+     * @param patterns The sparse-checkout patterns; empty to check out everything.
+     */
+    public SparseCheckout(List<String> patterns) {
+        this.patterns = new ArrayList<>();
+        this.regexes = new ArrayList<>();
+        for (String pattern : patterns) {
+            String normalized = normalize(pattern);
+            if (normalized.isEmpty() || normalized.startsWith("#")) {
+                continue;
+            }
+            this.patterns.add(normalized);
+            this.regexes.add(Pattern.compile(globToRegex(normalized)));
+        }
+    }
+
+    /**
+     * Loads the sparse-checkout patterns of a repository.
+     *
+     * @param vcsDir The repository data directory.
+     * @return The sparse checkout; disabled if no patterns are stored.
+     * @throws IOException If the pattern file exists but cannot be read.
+     */
+    public static SparseCheckout load(Path vcsDir) throws IOException {
+        String sparsePath = vcsDir.resolve(SPARSE_FILE).toString();
+        if (!FileUtils.exists(sparsePath)) {
+            return new SparseCheckout(Collections.emptyList());
+        }
+        return new SparseCheckout(List.of(FileUtils.readFile(sparsePath).split("\n")));
+    }
+
+    /**
+     * Stores sparse-checkout patterns in a repository, removing the file when there are none.
+     *
+     * @param vcsDir   The repository data directory.
+     * @param patterns The patterns to store.
+     * @throws IOException If the pattern file cannot be written.
+     */
+    public static void save(Path vcsDir, List<String> patterns) throws IOException {
+        String sparsePath = vcsDir.resolve(SPARSE_FILE).toString();
+        SparseCheckout sparse = new SparseCheckout(patterns);
+        if (!sparse.isEnabled()) {
+            if (FileUtils.exists(sparsePath)) {
+                FileUtils.deleteFile(sparsePath);
+            }
+            return;
+        }
+        FileUtils.writeToFile(sparsePath, String.join("\n", sparse.getPatterns()) + "\n");
+    }
+
+    /**
+     * Indicates whether any patterns restrict the checkout.
+     *
+     * @return True if sparse checkout is enabled, false otherwise.
+     */
+    public boolean isEnabled() {
+        return !patterns.isEmpty();
+    }
+
+    /**
+     * Returns the normalized patterns.
+     *
+     * @return The sparse-checkout patterns.
+     */
+    public List<String> getPatterns() {
+        return Collections.unmodifiableList(patterns);
+    }
+
+    /**
+     * Checks whether a tracked path belongs to the sparse checkout.
+     *
+     * @param filePath The path as recorded in the tree.
+     * @return True if the path should be materialized, false otherwise.
+     */
+    public boolean matches(String filePath) {
+        if (patterns.isEmpty()) {
+            return true;
+        }
+        String normalized = normalize(filePath);
+        for (Pattern regex : regexes) {
+            if (regex.matcher(normalized).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Normalizes a path or pattern to forward slashes without a leading "./" or trailing "/".
+     *
+     * @param path The path or pattern.
+     * @return The normalized form.
+     */
+    private static String normalize(String path) {
+        String normalized = path.trim().replace('\\', '/');
+        while (normalized.startsWith("./")) {
+            normalized = normalized.substring(2);
+        }
+        while (normalized.endsWith("/")) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+        return normalized;
+    }
+
+    /**
+     * Converts a sparse pattern to a regular expression that also matches everything below it.
+     *
+     * @param glob The normalized pattern.
+     * @return The equivalent regular expression.
+     */
+    private static String globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder("^");
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            switch (c) {
+                case '*':
+                    if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                        regex.append(".*");
+                        i++;
+                    } else {
+                        regex.append("[^/]*");
+                    }
+                    break;
+                case '?':
+                    regex.append("[^/]");
+                    break;
+                default:
+                    regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        regex.append("(/.*)?$");
+        return regex.toString();
+    }
+}
@@ -1,7 +1,9 @@
 package com.pesapal.felixvcs.core;
 
-import com.pesapal.felixvcs.utils.HashUtils;
+import com.pesapal.felixvcs.utils.Events;
+import com.pesapal.felixvcs.utils.Stats;
 
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -12,7 +14,7 @@ import java.util.Map;
  * at a specific point in time. It is serialized and deserialized to and from JSON format.
  */
 public class Tree {
-    private Map<String, String> files; // Maps file paths to their corresponding blob hashes.
+    private Map<String, ObjectId> files; // Maps file paths to their corresponding blob hashes.
 
     /**
      * Default constructor.
@@ -26,7 +28,7 @@ public class Tree {
      *
      * @param files A map of file paths to blob hashes.
      */
-    public Tree(Map<String, String> files) {
+    public Tree(Map<String, ObjectId> files) {
         this.files = files;
     }
 
@@ -35,7 +37,7 @@ public class Tree {
      *
      * @return A map of file paths to blob hashes.
      */
-    public Map<String, String> getFiles() {
+    public Map<String, ObjectId> getFiles() {
         return files;
     }
 
@@ -44,19 +46,20 @@ public class Tree {
      *
      * @param files A map of file paths to blob hashes.
      */
-    public void setFiles(Map<String, String> files) {
+    public void setFiles(Map<String, ObjectId> files) {
         this.files = files;
     }
 
     /**
-     * Computes the SHA-1 hash of the tree's serialized JSON representation.
+     * Computes the hash of the tree's serialized JSON representation.
      * <p>
      * This serves as a unique identifier for the tree.
      *
-     * @return The SHA-1 hash of the tree.
+     * @param algorithm The hash function of the repository the tree belongs to.
+     * @return The hash of the tree.
      */
-    public String getHash() {
-        return HashUtils.sha1(toJson().getBytes());
+    public ObjectId getHash(HashAlgorithm algorithm) {
+        return algorithm.hash(toJson().getBytes(StandardCharsets.UTF_8));
     }
 
     /**
@@ -65,21 +68,29 @@ public class Tree {
      * @return A JSON representation of the tree.
      */
     public String toJson() {
+        Events.TreeSerialize event = new Events.TreeSerialize();
+        event.begin();
         StringBuilder jsonBuilder = new StringBuilder();
         jsonBuilder.append("{");
         jsonBuilder.append("\"files\":{");
-        for (Map.Entry<String, String> entry : files.entrySet()) {
+        for (Map.Entry<String, ObjectId> entry : files.entrySet()) {
             jsonBuilder.append("\"")
                     .append(escapeJson(entry.getKey()))
                     .append("\":\"")
-                    .append(escapeJson(entry.getValue()))
+                    .append(entry.getValue().name())
                     .append("\",");
         }
         if (!files.isEmpty()) {
             jsonBuilder.deleteCharAt(jsonBuilder.length() - 1); // Remove trailing comma
         }
         jsonBuilder.append("}}");
-        return jsonBuilder.toString();
+        String json = jsonBuilder.toString();
+        if (event.shouldCommit()) {
+            event.entries = files.size();
+            event.size = json.length();
+            event.commit();
+        }
+        return json;
     }
 
     /**
@@ -89,7 +100,11 @@ public class Tree {
      * @return A Tree object.
      */
     public static Tree fromJson(String json) {
+        Stats.count(Stats.Counter.OBJECTS_PARSED, 1);
+        Events.TreeParse event = new Events.TreeParse();
+        event.begin();
         Tree tree = new Tree();
+        long size = json.length();
 
         // Remove outer curly braces
         json = json.trim();
@@ -97,39 +112,65 @@ public class Tree {
             json = json.substring(1, json.length() - 1);
         }
 
-        // Extract the "files" object
+        // Extract the "files" object; it is the only field, so it spans up to the last closing brace
         String filesJson = null;
-        String[] fields = json.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)");
-        for (String field : fields) {
-            String[] keyValue = field.split(":(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", 2);
-            if (keyValue.length != 2) continue;
-
-            String key = keyValue[0].trim().replaceAll("^\"|\"$", "");
-            String value = keyValue[1].trim();
-            if (key.equals("files")) {
-                if (value.startsWith("{") && value.endsWith("}")) {
-                    filesJson = value.substring(1, value.length() - 1);
-                }
-                break;
+        int filesStart = json.indexOf("\"files\"");
+        if (filesStart != -1) {
+            int open = json.indexOf('{', filesStart);
+            int close = json.lastIndexOf('}');
+            if (open != -1 && close > open) {
+                filesJson = json.substring(open + 1, close);
             }
         }
 
-        if (filesJson != null) {
-            Map<String, String> files = new HashMap<>();
-            String[] fileEntries = filesJson.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)");
-            for (String fileEntry : fileEntries) {
-                String[] kv = fileEntry.split(":(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", 2);
-                if (kv.length != 2) continue;
-                String filePath = kv[0].trim().replaceAll("^\"|\"$", "");
-                String blobHash = kv[1].trim().replaceAll("^\"|\"$", "");
-                files.put(unescapeJson(filePath), unescapeJson(blobHash));
+        if (filesJson != null && !filesJson.isBlank()) {
+            // One pass over the quoted strings, taken in path and hash pairs; splitting on a
+            // quote-counting lookahead rescans the rest of the input at every comma
+            Map<String, ObjectId> files = new HashMap<>();
+            int pos = 0;
+            while (true) {
+                int pathStart = filesJson.indexOf('"', pos);
+                int pathEnd = pathStart < 0 ? -1 : closingQuote(filesJson, pathStart + 1);
+                int hashStart = pathEnd < 0 ? -1 : filesJson.indexOf('"', pathEnd + 1);
+                int hashEnd = hashStart < 0 ? -1 : filesJson.indexOf('"', hashStart + 1);
+                if (hashEnd < 0) {
+                    break;
+                }
+                String filePath = filesJson.substring(pathStart + 1, pathEnd);
+                String blobHash = filesJson.substring(hashStart + 1, hashEnd);
+                files.put(unescapeJson(filePath), ObjectId.fromHex(blobHash));
+                pos = hashEnd + 1;
             }
             tree.setFiles(files);
         }
 
+        if (event.shouldCommit()) {
+            event.entries = tree.getFiles().size();
+            event.size = size;
+            event.commit();
+        }
         return tree;
     }
 
+    /**
+     * Finds the quote that ends a JSON string, skipping escaped characters.
+     *
+     * @param json  The JSON text.
+     * @param start The index just after the opening quote.
+     * @return The index of the closing quote, or -1 if the string is not terminated.
+     */
+    private static int closingQuote(String json, int start) {
+        for (int i = start; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '"') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     /**
      * Escapes special characters in a string for JSON serialization.
      *
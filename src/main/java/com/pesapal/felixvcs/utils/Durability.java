@@ -0,0 +1,144 @@
+package com.pesapal.felixvcs.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Makes written files survive a crash or power loss, in batches.
+ * <p>
+ * Syncing every object as it is written would cost one disk flush per file. Instead, object writes
+ * only {@link #track} the new file, and {@link #flush} syncs everything tracked so far in one
+ * batch: the files in parallel, so the file system can group them into few journal commits, then
+ * each directory holding them once. Refs are written with {@link FileUtils#writeRef}, which
+ * flushes first, so a ref never becomes durable before the objects it points to.
+ * <p>
+ * The pending files are shared by the whole process. Flushes therefore run one at a time: a
+ * flush that finds the queue emptied by another thread waits until that thread's files are
+ * synced, so whatever a caller tracked before flushing is durable when its flush returns.
+ * <p>
+ * Syncing can be turned off with {@code -Dfelixvcs.fsync=false}, for throwaway repositories and
+ * tests; writes then stay atomic but may be lost on power failure.
+ */
+public final class Durability {
+    private static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("felixvcs.fsync"));
+    private static final int MAX_PENDING = 16_384;   // Bounds memory when no ref update comes, as in add
+    private static final Queue<Path> PENDING = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger PENDING_COUNT = new AtomicInteger();
+    private static final Object FLUSH_LOCK = new Object(); // Held while a batch is polled and synced
+
+    private Durability() {
+    }
+
+    /**
+     * Checks whether files are synced to disk.
+     *
+     * @return False if syncing was turned off for this process.
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Records a file that must be synced before the next ref update. Once many files are pending,
+     * they are synced right away.
+     *
+     * @param file The file, already written and closed.
+     * @throws IOException If pending files had to be synced and one could not be.
+     */
+    public static void track(Path file) throws IOException {
+        if (ENABLED) {
+            PENDING.add(file);
+            if (PENDING_COUNT.incrementAndGet() >= MAX_PENDING) {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Syncs every tracked file and the directories holding them, including files another thread
+     * is syncing at the time.
+     *
+     * @throws IOException If a file cannot be synced.
+     */
+    public static void flush() throws IOException {
+        synchronized (FLUSH_LOCK) {
+            flushPending();
+        }
+    }
+
+    private static void flushPending() throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path file = PENDING.poll(); file != null; file = PENDING.poll()) {
+            files.add(file);
+        }
+        PENDING_COUNT.addAndGet(-files.size());
+        if (files.isEmpty()) {
+            return;
+        }
+        Set<Path> directories = new LinkedHashSet<>();
+        for (Path file : files) {
+            directories.add(file.toAbsolutePath().getParent());
+        }
+        try {
+            files.parallelStream().forEach(file -> {
+                try {
+                    sync(file);
+                } catch (NoSuchFileException e) {
+                    // Deleted since it was written, so there is nothing left to persist
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        for (Path directory : directories) {
+            syncDirectory(directory);
+        }
+    }
+
+    /**
+     * Syncs one file's content to disk, if syncing is on.
+     *
+     * @param file The file.
+     * @throws IOException If the file cannot be opened or synced.
+     */
+    public static void sync(Path file) throws IOException {
+        if (!ENABLED) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Stats.count(Stats.Counter.FSYNCS, 1);
+    }
+
+    /**
+     * Syncs a directory, so that files created in or renamed into it persist, if syncing is on.
+     * Platforms that cannot open directories, such as Windows, persist renames without this.
+     *
+     * @param directory The directory.
+     */
+    public static void syncDirectory(Path directory) {
+        if (!ENABLED) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+            Stats.count(Stats.Counter.FSYNCS, 1);
+        } catch (IOException e) {
+            // Not supported for directories on this platform
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.pesapal.felixvcs.utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder events for object I/O, hashing, the index, trees and history walks.
+ * <p>
+ * The events are only recorded by a running recording that enables them, for example
+ * {@code java -XX:StartFlightRecording:filename=vcs.jfr,settings=profile -jar finVCS.jar log}.
+ * Instrumented code creates the event, calls {@code begin()}, and fills in the fields only once
+ * {@code shouldCommit()} says the event is wanted, so the hash and id strings are never built when
+ * no recording is running. The JIT removes the remaining work once it sees the event is disabled.
+ * Every event carries its duration; stack traces are off by default to keep the overhead low.
+ */
+public final class Events {
+    private static final String CATEGORY = "FelixVCS";
+
+    private Events() {
+    }
+
+    @Name("felixvcs.ObjectRead")
+    @Label("Object Read")
+    @Category({CATEGORY, "Objects"})
+    @Description("An object read from the object store, loose or packed")
+    @StackTrace(false)
+    public static final class ObjectRead extends Event {
+        @Label("Type")
+        public String type;
+
+        @Label("Object Id")
+        public String id;
+
+        @Label("Size")
+        @DataAmount
+        public long size;
+    }
+
+    @Name("felixvcs.ObjectWrite")
+    @Label("Object Write")
+    @Category({CATEGORY, "Objects"})
+    @Description("An object written to the object store, including objects that were already stored")
+    @StackTrace(false)
+    public static final class ObjectWrite extends Event {
+        @Label("Type")
+        public String type;
+
+        @Label("Object Id")
+        public String id;
+
+        @Label("Size")
+        @DataAmount
+        public long size;
+    }
+
+    @Name("felixvcs.Hash")
+    @Label("Hash")
+    @Category({CATEGORY, "Hashing"})
+    @Description("Content hashed with an object id function or xxHash64")
+    @StackTrace(false)
+    public static final class Hash extends Event {
+        @Label("Algorithm")
+        public String algorithm;
+
+        @Label("Hash")
+        public String hash;
+
+        @Label("Size")
+        @DataAmount
+        public long size;
+    }
+
+    @Name("felixvcs.IndexLoad")
+    @Label("Index Load")
+    @Category({CATEGORY, "Index"})
+    @Description("The staging index read and parsed")
+    @StackTrace(false)
+    public static final class IndexLoad extends Event {
+        @Label("Entries")
+        public int entries;
+
+        @Label("Size")
+        @DataAmount
+        public long size;
+    }
+
+    @Name("felixvcs.IndexSave")
+    @Label("Index Save")
+    @Category({CATEGORY, "Index"})
+    @Description("The staging index serialized and written")
+    @StackTrace(false)
+    public static final class IndexSave extends Event {
+        @Label("Entries")
+        public int entries;
+
+        @Label("Size")
+        @DataAmount
+        public long size;
+    }
+
+    @Name("felixvcs.TreeParse")
+    @Label("Tree Parse")
+    @Category({CATEGORY, "Trees"})
+    @Description("A tree object parsed from its stored form")
+    @StackTrace(false)
+    public static final class TreeParse extends Event {
+        @Label("Entries")
+        public int entries;
+
+        @Label("Size")
+        @DataAmount
+        public long size;
+    }
+
+    @Name("felixvcs.TreeSerialize")
+    @Label("Tree Serialize")
+    @Category({CATEGORY, "Trees"})
+    @Description("A tree object converted to its stored form")
+    @StackTrace(false)
+    public static final class TreeSerialize extends Event {
+        @Label("Entries")
+        public int entries;
+
+        @Label("Size")
+        @DataAmount
+        public long size;
+    }
+
+    @Name("felixvcs.WalkStep")
+    @Label("Walk Step")
+    @Category({CATEGORY, "History"})
+    @Description("One commit visited by a history walk")
+    @StackTrace(false)
+    public static final class WalkStep extends Event {
+        @Label("Commit")
+        public String id;
+
+        @Label("Parent")
+        public String parent;
+    }
+}
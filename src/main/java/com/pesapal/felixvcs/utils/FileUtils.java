@@ -1,14 +1,16 @@
 package com.pesapal.felixvcs.utils;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Utility class for common file operations.
@@ -17,6 +19,7 @@ import java.util.Set;
  * reading, and writing. It also includes functionality for handling ignored files using a `.ignore` file.
  */
 public class FileUtils {
+    private static final AtomicLong TEMP_COUNTER = new AtomicLong();
 
     /**
      * Checks if the given path exists.
@@ -39,30 +42,76 @@ public class FileUtils {
     }
 
     /**
-     * Writes text content to a file, creating or truncating it as necessary.
+     * Writes text content to a file, replacing it atomically if it exists.
      *
      * @param path    The file path.
      * @param content The text content to write.
      * @throws IOException If an I/O error occurs.
      */
     public static void writeToFile(String path, String content) throws IOException {
-        Path filePath = Paths.get(path);
-        try (BufferedWriter writer = Files.newBufferedWriter(filePath, StandardCharsets.UTF_8,
-                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
-            writer.write(content);
-        }
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        writeAtomically(Paths.get(path), bytes, false);
+        Stats.count(Stats.Counter.FILES_WRITTEN, 1);
+        Stats.count(Stats.Counter.BYTES_WRITTEN, bytes.length);
     }
 
     /**
-     * Writes binary content to a file, creating or truncating it as necessary.
+     * Writes binary content to a file, replacing it atomically if it exists.
      *
      * @param path    The file path.
      * @param content The binary content to write.
      * @throws IOException If an I/O error occurs.
      */
     public static void writeBinaryFile(String path, byte[] content) throws IOException {
-        Path filePath = Paths.get(path);
-        Files.write(filePath, content, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        writeAtomically(Paths.get(path), content, false);
+        Stats.count(Stats.Counter.FILES_WRITTEN, 1);
+        Stats.count(Stats.Counter.BYTES_WRITTEN, content.length);
+    }
+
+    /**
+     * Writes a ref, or another file naming objects, so that it survives a crash.
+     * <p>
+     * Objects written so far are synced first, then the new value is written to a temporary file,
+     * synced and renamed over the ref. A crash at any point leaves either the old or the new value,
+     * and a new value that survives never points at objects that did not.
+     *
+     * @param path    The ref file path.
+     * @param content The new value.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static void writeRef(String path, String content) throws IOException {
+        Durability.flush();
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        writeAtomically(Paths.get(path), bytes, true);
+        Stats.count(Stats.Counter.FILES_WRITTEN, 1);
+        Stats.count(Stats.Counter.BYTES_WRITTEN, bytes.length);
+    }
+
+    /**
+     * Replaces a file's content in one atomic rename, so that readers and a crash see either the
+     * old or the new content, never a partially written file.
+     *
+     * @param file    The file.
+     * @param content The new content.
+     * @param sync    Whether to sync the content and the rename to disk before returning.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static void writeAtomically(Path file, byte[] content, boolean sync) throws IOException {
+        Path tempFile = file.resolveSibling("." + file.getFileName() + ".tmp-"
+                + ProcessHandle.current().pid() + "-" + TEMP_COUNTER.incrementAndGet());
+        try {
+            Files.write(tempFile, content, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            if (sync) {
+                Durability.sync(tempFile);
+            }
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        if (sync) {
+            Durability.syncDirectory(file.toAbsolutePath().getParent());
+        }
     }
 
     /**
@@ -73,14 +122,18 @@ public class FileUtils {
      * @throws IOException If an I/O error occurs.
      */
     public static String readFile(String path) throws IOException {
-        Path filePath = Paths.get(path);
+        byte[] bytes = Files.readAllBytes(Paths.get(path));
         StringBuilder sb = new StringBuilder();
-        try (BufferedReader reader = Files.newBufferedReader(filePath, StandardCharsets.UTF_8)) {
+        // A strict decoder rejects malformed UTF-8 as the buffered reader did
+        String text = StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(bytes)).toString();
+        try (BufferedReader reader = new BufferedReader(new StringReader(text))) {
             String line;
             while ((line = reader.readLine()) != null) {
                 sb.append(line).append("\n");
             }
         }
+        Stats.count(Stats.Counter.FILES_READ, 1);
+        Stats.count(Stats.Counter.BYTES_READ, bytes.length);
         return sb.toString();
     }
 
@@ -1,14 +1,28 @@
 package com.pesapal.felixvcs.utils;
 
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 
 /**
  * Utility class for hashing operations.
  * <p>
- * Provides a method to compute SHA-1 hashes for data.
+ * Provides methods to compute SHA-1 hashes for data and to convert hashes to and from hexadecimal.
+ * Digests are kept per thread and reused, since looking one up costs more than hashing a small file.
  */
 public class HashUtils {
+    private static final ThreadLocal<MessageDigest> SHA1 = ThreadLocal.withInitial(() -> newDigest("SHA-1"));
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] DIGIT_VALUES = new byte['f' + 1];
+
+    static {
+        Arrays.fill(DIGIT_VALUES, (byte) -1);
+        for (int i = 0; i < 16; i++) {
+            DIGIT_VALUES[HEX_DIGITS[i]] = (byte) i;
+            DIGIT_VALUES[Character.toUpperCase(HEX_DIGITS[i])] = (byte) i;
+        }
+    }
 
     /**
      * Computes the SHA-1 hash of the given data.
@@ -18,31 +32,119 @@ public class HashUtils {
      * @throws RuntimeException If the SHA-1 algorithm is not available on the platform.
      */
     public static String sha1(byte[] data) {
+        return bytesToHex(sha1Bytes(data));
+    }
+
+    /**
+     * Computes the SHA-1 hash of the given data as raw bytes.
+     *
+     * @param data The data to hash, represented as a byte array.
+     * @return The 20 bytes of the SHA-1 hash.
+     * @throws RuntimeException If the SHA-1 algorithm is not available on the platform.
+     */
+    public static byte[] sha1Bytes(byte[] data) {
+        Events.Hash event = new Events.Hash();
+        event.begin();
+        try (Stats.Timer timer = Stats.time(Stats.Phase.HASH)) {
+            MessageDigest digest = SHA1.get();
+            digest.reset();
+            byte[] hash = digest.digest(data);
+            if (event.shouldCommit()) {
+                event.algorithm = "sha1";
+                event.hash = bytesToHex(hash);
+                event.size = data.length;
+                event.commit();
+            }
+            return hash;
+        }
+    }
+
+    /**
+     * Creates a message digest.
+     *
+     * @param algorithm The JDK name of the digest algorithm, such as "SHA-256".
+     * @return A new digest.
+     * @throws RuntimeException If the algorithm is not available on the platform.
+     */
+    public static MessageDigest newDigest(String algorithm) {
         try {
-            // Obtain an instance of the SHA-1 message digest.
-            MessageDigest digest = MessageDigest.getInstance("SHA-1");
-            // Compute the hash bytes.
-            byte[] hashBytes = digest.digest(data);
-            // Convert the hash bytes to a hexadecimal string.
-            return bytesToHex(hashBytes);
+            return MessageDigest.getInstance(algorithm);
         } catch (NoSuchAlgorithmException e) {
-            // Handle the unlikely case where SHA-1 is not supported.
-            throw new RuntimeException("SHA-1 algorithm not found.", e);
+            // Handle the unlikely case where the algorithm is not supported.
+            throw new RuntimeException(algorithm + " algorithm not found.", e);
+        }
+    }
+
+    /**
+     * Computes the xxHash64 of the given data, a fast non-cryptographic hash.
+     *
+     * @param data The data to hash.
+     * @return The 64-bit hash, with seed zero.
+     * @see XxHash64
+     */
+    public static long xxHash64(byte[] data) {
+        Events.Hash event = new Events.Hash();
+        event.begin();
+        try (Stats.Timer timer = Stats.time(Stats.Phase.HASH)) {
+            XxHash64 hash = new XxHash64();
+            hash.update(data, 0, data.length);
+            long value = hash.getValue();
+            if (event.shouldCommit()) {
+                event.algorithm = "xxhash64";
+                event.hash = Long.toHexString(value);
+                event.size = data.length;
+                event.commit();
+            }
+            return value;
         }
     }
 
+    /**
+     * Converts a hexadecimal hash string back into its bytes.
+     *
+     * @param hex The hexadecimal string, with an even number of digits.
+     * @return The decoded bytes.
+     * @throws IllegalArgumentException If the string is not valid hexadecimal.
+     */
+    public static byte[] hexToBytes(String hex) {
+        if (hex.length() % 2 != 0) {
+            throw new IllegalArgumentException("Invalid hash: " + hex);
+        }
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = digit(hex.charAt(2 * i));
+            int low = digit(hex.charAt(2 * i + 1));
+            if (high < 0 || low < 0) {
+                throw new IllegalArgumentException("Invalid hash: " + hex);
+            }
+            bytes[i] = (byte) ((high << 4) | low);
+        }
+        return bytes;
+    }
+
     /**
      * Converts a byte array into a hexadecimal string.
      *
      * @param bytes The byte array to convert.
      * @return A string representing the hexadecimal value of the byte array.
      */
-    private static String bytesToHex(byte[] bytes) {
-        StringBuilder sb = new StringBuilder();
-        for (byte b : bytes) {
-            // Convert each byte to a two-character hexadecimal string.
-            sb.append(String.format("%02x", b));
+    public static String bytesToHex(byte[] bytes) {
+        byte[] hex = new byte[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            // Look up the two digits of each byte rather than formatting it.
+            hex[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            hex[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xF];
         }
-        return sb.toString();
+        return new String(hex, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Returns the value of a hexadecimal digit.
+     *
+     * @param c The character.
+     * @return The digit value, or -1 if the character is not a hexadecimal digit.
+     */
+    private static int digit(char c) {
+        return c < DIGIT_VALUES.length ? DIGIT_VALUES[c] : -1;
     }
 }
@@ -0,0 +1,149 @@
+package com.pesapal.felixvcs.utils;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A double-ended queue of primitive ints backed by a growable ring buffer.
+ * <p>
+ * Graph walks queue positions of an {@link com.pesapal.felixvcs.core.ObjectIdSet} here instead of
+ * boxed ids in an {@link java.util.ArrayDeque} or {@link java.util.LinkedList}, so visiting an
+ * element allocates nothing.
+ */
+public class IntDeque {
+    private int[] elements; // Ring buffer; its length is always a power of two
+    private int head;       // Index of the first element
+    private int size;
+
+    /**
+     * Constructs an empty deque.
+     */
+    public IntDeque() {
+        this(16);
+    }
+
+    /**
+     * Constructs an empty deque sized for the given number of elements.
+     *
+     * @param expected The number of elements the deque should hold before it has to grow.
+     */
+    public IntDeque(int expected) {
+        this.elements = new int[Math.max(2, Integer.highestOneBit(Math.max(1, expected) * 2 - 1) << 1)];
+    }
+
+    /**
+     * Adds an element at the front.
+     *
+     * @param value The element.
+     */
+    public void addFirst(int value) {
+        ensureCapacity();
+        head = (head - 1) & (elements.length - 1);
+        elements[head] = value;
+        size++;
+    }
+
+    /**
+     * Adds an element at the back.
+     *
+     * @param value The element.
+     */
+    public void addLast(int value) {
+        ensureCapacity();
+        elements[(head + size) & (elements.length - 1)] = value;
+        size++;
+    }
+
+    /**
+     * Removes the element at the front.
+     *
+     * @return The element.
+     * @throws NoSuchElementException If the deque is empty.
+     */
+    public int removeFirst() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        int value = elements[head];
+        head = (head + 1) & (elements.length - 1);
+        size--;
+        return value;
+    }
+
+    /**
+     * Removes the element at the back.
+     *
+     * @return The element.
+     * @throws NoSuchElementException If the deque is empty.
+     */
+    public int removeLast() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        size--;
+        return elements[(head + size) & (elements.length - 1)];
+    }
+
+    /**
+     * Returns the element at the front without removing it.
+     *
+     * @return The element.
+     * @throws NoSuchElementException If the deque is empty.
+     */
+    public int peekFirst() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return elements[head];
+    }
+
+    /**
+     * Checks whether the deque is empty.
+     *
+     * @return True if the deque holds no elements.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of elements.
+     *
+     * @return The size of the deque.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all elements. The buffer is kept for reuse.
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * Doubles the buffer when it is full, unwrapping the elements to the start of the new buffer.
+     */
+    private void ensureCapacity() {
+        if (size < elements.length) {
+            return;
+        }
+        int[] grown = new int[elements.length * 2];
+        int firstPart = elements.length - head;
+        System.arraycopy(elements, head, grown, 0, firstPart);
+        System.arraycopy(elements, 0, grown, firstPart, head);
+        elements = grown;
+        head = 0;
+    }
+
+    @Override
+    public String toString() {
+        int[] values = new int[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = elements[(head + i) & (elements.length - 1)];
+        }
+        return Arrays.toString(values);
+    }
+}
@@ -0,0 +1,182 @@
+package com.pesapal.felixvcs.utils;
+
+import java.io.Console;
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Reports the progress of a long-running task without slowing it down.
+ * <p>
+ * Workers only record numbers: {@link #update} folds the completed count into a lock-free
+ * accumulator, so it is safe and cheap to call from parallel streams for every file. Output is
+ * produced by one shared daemon thread that renders each open task at a fixed rate, so the console
+ * sees a few writes per second however many files are processed. Closing the task renders it a
+ * final time.
+ * <p>
+ * The output depends on the {@link Mode}. On a terminal a single line is redrawn with the
+ * percentage, throughput and estimated time left. When output is redirected, progress is silent by
+ * default; {@link Mode#JSON} instead writes one JSON object per refresh to standard error for
+ * scripts and CI logs.
+ */
+public final class Progress implements ProgressListener, AutoCloseable {
+
+    /**
+     * How progress is shown.
+     */
+    public enum Mode {
+        /** A redrawn line on standard output, refreshed ten times a second. */
+        TERMINAL(100),
+        /** One JSON object per line on standard error, once a second. */
+        JSON(1000),
+        /** Nothing is shown. */
+        SILENT(0);
+
+        private final long intervalMillis;
+
+        Mode(long intervalMillis) {
+            this.intervalMillis = intervalMillis;
+        }
+
+        /**
+         * Picks the mode for the current process: the terminal line when attached to a terminal,
+         * silent otherwise.
+         *
+         * @return The detected mode.
+         */
+        public static Mode detect() {
+            Console console = System.console();
+            return console != null && console.isTerminal() ? TERMINAL : SILENT;
+        }
+    }
+
+    private static final ScheduledExecutorService RENDERER = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "progress-renderer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static volatile Mode mode;
+
+    private final String task;
+    private final Mode taskMode;
+    private final LongAccumulator completed = new LongAccumulator(Math::max, 0);
+    private final long start = System.nanoTime();
+    private final ScheduledFuture<?> refresh;
+    private volatile long total;
+    private int lastLength;    // Length of the last terminal line, guarded by this
+    private boolean closed;    // Set once the final state is rendered, guarded by this
+
+    private Progress(String task, long total, Mode taskMode) {
+        this.task = task;
+        this.total = total;
+        this.taskMode = taskMode;
+        this.refresh = taskMode == Mode.SILENT ? null
+                : RENDERER.scheduleAtFixedRate(() -> render(false), taskMode.intervalMillis, taskMode.intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts reporting a task in the current mode.
+     *
+     * @param task  The description shown with the progress, such as "Checking out files".
+     * @param total The number of units the task has, if known; may be updated later.
+     * @return The progress, to be closed when the task ends.
+     */
+    public static Progress start(String task, long total) {
+        return new Progress(task, total, getMode());
+    }
+
+    /**
+     * Retrieves the mode used for new tasks.
+     *
+     * @return The mode set with {@link #setMode}, or the detected mode if none was set.
+     */
+    public static Mode getMode() {
+        Mode current = mode;
+        if (current == null) {
+            current = Mode.detect();
+            mode = current;
+        }
+        return current;
+    }
+
+    /**
+     * Overrides the mode used for new tasks.
+     *
+     * @param newMode The mode, or null to detect it again.
+     */
+    public static void setMode(Mode newMode) {
+        mode = newMode;
+    }
+
+    /**
+     * Records progress. Updates may arrive out of order from several threads; the highest count wins.
+     *
+     * @param done  The number of completed units.
+     * @param units The total number of units.
+     */
+    @Override
+    public void update(long done, long units) {
+        completed.accumulate(done);
+        if (units != total) {
+            total = units;
+        }
+    }
+
+    /**
+     * Stops refreshing and renders the final state.
+     * <p>
+     * Cancelling does not stop a refresh that has already started, so a refresh that runs after the
+     * final state was rendered sees the task closed and writes nothing.
+     */
+    @Override
+    public void close() {
+        if (refresh != null) {
+            refresh.cancel(false);
+            render(true);
+        }
+    }
+
+    private synchronized void render(boolean last) {
+        if (closed) {
+            return;
+        }
+        closed = last;
+        long done = completed.get();
+        long units = total;
+        double seconds = Math.max(1e-9, (System.nanoTime() - start) / 1e9);
+        double rate = done / seconds;
+        long remaining = units > done && rate > 0 ? Math.round((units - done) / rate) : 0;
+
+        if (taskMode == Mode.JSON) {
+            System.err.println(String.format(Locale.ROOT,
+                    "{\"task\":\"%s\",\"completed\":%d,\"total\":%d,\"perSecond\":%.1f,\"etaSeconds\":%d,\"done\":%b}",
+                    task.replace("\\", "\\\\").replace("\"", "\\\""), done, units, rate, remaining, last));
+            return;
+        }
+
+        int percent = units > 0 ? (int) Math.min(100, done * 100 / units) : 100;
+        String line = last
+                ? String.format(Locale.ROOT, "%s: %d%% (%d/%d), %s/s, done in %s", task, percent, done, units, rate(rate), duration(Math.round(seconds)))
+                : String.format(Locale.ROOT, "%s: %d%% (%d/%d), %s/s, %s left", task, percent, done, units, rate(rate), duration(remaining));
+        // Pad over the rest of a longer previous line
+        String padding = " ".repeat(Math.max(0, lastLength - line.length()));
+        lastLength = line.length();
+        PrintStream out = System.out;
+        out.print("\r" + line + padding + (last ? System.lineSeparator() : ""));
+        out.flush();
+    }
+
+    private static String rate(double perSecond) {
+        return perSecond >= 10_000 ? String.format(Locale.ROOT, "%.1fk", perSecond / 1000)
+                : String.format(Locale.ROOT, "%.0f", perSecond);
+    }
+
+    private static String duration(long seconds) {
+        return seconds >= 3600 ? String.format(Locale.ROOT, "%d:%02d:%02d", seconds / 3600, seconds / 60 % 60, seconds % 60)
+                : String.format(Locale.ROOT, "%d:%02d", seconds / 60, seconds % 60);
+    }
+}
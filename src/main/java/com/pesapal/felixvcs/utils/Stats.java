@@ -0,0 +1,262 @@
+package com.pesapal.felixvcs.utils;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide counters and phase timings for the command being run.
+ * <p>
+ * Recording is off unless {@link #enable()} has been called, which {@code MainApplication} does for
+ * {@code --stats} and {@code --trace}. While off, {@link #time} returns a shared no-op timer and
+ * {@link #count} returns after one volatile read, so instrumented code pays next to nothing.
+ * <p>
+ * Phase times are inclusive and phases nest: an object read during a history walk counts towards
+ * both {@link Phase#OBJECT_READ} and {@link Phase#WALK}, so phase times do not add up to the
+ * command's time.
+ */
+public final class Stats {
+
+    /**
+     * A timed part of the work a command does.
+     */
+    public enum Phase {
+        WALK("walk"),
+        HASH("hash"),
+        INDEX_LOAD("indexLoad"),
+        INDEX_SAVE("indexSave"),
+        TREE_BUILD("treeBuild"),
+        OBJECT_READ("objectRead"),
+        OBJECT_WRITE("objectWrite");
+
+        private final String key;
+
+        Phase(String key) {
+            this.key = key;
+        }
+
+        /**
+         * Retrieves the name of the phase in reports.
+         *
+         * @return The camel-case name, such as "indexLoad".
+         */
+        public String getKey() {
+            return key;
+        }
+    }
+
+    /**
+     * A quantity counted while a command runs.
+     */
+    public enum Counter {
+        FILES_READ("filesRead"),
+        BYTES_READ("bytesRead"),
+        FILES_WRITTEN("filesWritten"),
+        BYTES_WRITTEN("bytesWritten"),
+        FSYNCS("fsyncs"),
+        OBJECTS_READ("objectsRead"),
+        OBJECTS_WRITTEN("objectsWritten"),
+        OBJECTS_PARSED("objectsParsed"),
+        BLOB_CACHE_HITS("blobCacheHits"),
+        BLOB_CACHE_MISSES("blobCacheMisses"),
+        FILE_HASH_CACHE_HITS("fileHashCacheHits"),
+        FILE_HASH_CACHE_MISSES("fileHashCacheMisses");
+
+        private final String key;
+
+        Counter(String key) {
+            this.key = key;
+        }
+
+        /**
+         * Retrieves the name of the counter in reports.
+         *
+         * @return The camel-case name, such as "bytesRead".
+         */
+        public String getKey() {
+            return key;
+        }
+    }
+
+    /**
+     * Measures one occurrence of a phase from its creation until it is closed.
+     */
+    public static final class Timer implements AutoCloseable {
+        private static final Timer OFF = new Timer(null, 0);
+
+        private final Phase phase;
+        private final long start;
+
+        private Timer(Phase phase, long start) {
+            this.phase = phase;
+            this.start = start;
+        }
+
+        @Override
+        public void close() {
+            if (phase != null) {
+                PHASE_NANOS[phase.ordinal()].add(System.nanoTime() - start);
+                PHASE_CALLS[phase.ordinal()].increment();
+            }
+        }
+    }
+
+    private static final LongAdder[] COUNTERS = adders(Counter.values().length);
+    private static final LongAdder[] PHASE_NANOS = adders(Phase.values().length);
+    private static final LongAdder[] PHASE_CALLS = adders(Phase.values().length);
+    private static volatile boolean enabled;
+
+    private Stats() {
+    }
+
+    /**
+     * Starts recording.
+     */
+    public static void enable() {
+        enabled = true;
+    }
+
+    /**
+     * Stops recording and clears everything recorded so far.
+     */
+    public static void disable() {
+        enabled = false;
+        for (LongAdder adder : COUNTERS) {
+            adder.reset();
+        }
+        for (int i = 0; i < PHASE_NANOS.length; i++) {
+            PHASE_NANOS[i].reset();
+            PHASE_CALLS[i].reset();
+        }
+    }
+
+    /**
+     * Checks whether recording is on.
+     *
+     * @return True if counts and timings are being recorded.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts timing a phase. Use with try-with-resources.
+     *
+     * @param phase The phase.
+     * @return The timer to close when the phase ends.
+     */
+    public static Timer time(Phase phase) {
+        return enabled ? new Timer(phase, System.nanoTime()) : Timer.OFF;
+    }
+
+    /**
+     * Adds to a counter.
+     *
+     * @param counter The counter.
+     * @param amount  The amount to add.
+     */
+    public static void count(Counter counter, long amount) {
+        if (enabled) {
+            COUNTERS[counter.ordinal()].add(amount);
+        }
+    }
+
+    /**
+     * Retrieves a counter.
+     *
+     * @param counter The counter.
+     * @return Its value.
+     */
+    public static long get(Counter counter) {
+        return COUNTERS[counter.ordinal()].sum();
+    }
+
+    /**
+     * Retrieves the total time spent in a phase.
+     *
+     * @param phase The phase.
+     * @return The time in nanoseconds.
+     */
+    public static long nanos(Phase phase) {
+        return PHASE_NANOS[phase.ordinal()].sum();
+    }
+
+    /**
+     * Retrieves how often a phase ran.
+     *
+     * @param phase The phase.
+     * @return The number of occurrences.
+     */
+    public static long calls(Phase phase) {
+        return PHASE_CALLS[phase.ordinal()].sum();
+    }
+
+    /**
+     * Formats everything recorded as a human-readable summary.
+     *
+     * @param command     The command that ran.
+     * @param totalNanos  The wall time of the command.
+     * @return The summary, one line per phase and counter group.
+     */
+    public static String summary(String command, long totalNanos) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "stats: %s took %.1f ms%n", command, totalNanos / 1e6));
+        for (Phase phase : Phase.values()) {
+            if (calls(phase) > 0) {
+                sb.append(String.format(Locale.ROOT, "  %-12s %10.1f ms %9d calls%n", phase.getKey(), nanos(phase) / 1e6, calls(phase)));
+            }
+        }
+        sb.append(String.format(Locale.ROOT, "  files read %d (%d bytes), written %d (%d bytes), %d fsyncs%n",
+                get(Counter.FILES_READ), get(Counter.BYTES_READ), get(Counter.FILES_WRITTEN), get(Counter.BYTES_WRITTEN),
+                get(Counter.FSYNCS)));
+        sb.append(String.format(Locale.ROOT, "  objects read %d, written %d, parsed %d%n",
+                get(Counter.OBJECTS_READ), get(Counter.OBJECTS_WRITTEN), get(Counter.OBJECTS_PARSED)));
+        sb.append(String.format(Locale.ROOT, "  blob cache %s, file hash cache %s%n",
+                ratio(Counter.BLOB_CACHE_HITS, Counter.BLOB_CACHE_MISSES),
+                ratio(Counter.FILE_HASH_CACHE_HITS, Counter.FILE_HASH_CACHE_MISSES)));
+        return sb.toString();
+    }
+
+    /**
+     * Formats everything recorded as a JSON object.
+     *
+     * @param command    The command that ran.
+     * @param totalNanos The wall time of the command.
+     * @return The JSON text.
+     */
+    public static String toJson(String command, long totalNanos) {
+        StringBuilder sb = new StringBuilder("{");
+        sb.append("\"command\":\"").append(command.replace("\\", "\\\\").replace("\"", "\\\"")).append("\",");
+        sb.append(String.format(Locale.ROOT, "\"millis\":%.3f,\"phases\":{", totalNanos / 1e6));
+        for (Phase phase : Phase.values()) {
+            sb.append(String.format(Locale.ROOT, "\"%s\":{\"calls\":%d,\"millis\":%.3f},",
+                    phase.getKey(), calls(phase), nanos(phase) / 1e6));
+        }
+        sb.setCharAt(sb.length() - 1, '}');
+        sb.append(",\"counters\":{");
+        for (Counter counter : Counter.values()) {
+            sb.append('"').append(counter.getKey()).append("\":").append(get(counter)).append(',');
+        }
+        sb.setCharAt(sb.length() - 1, '}');
+        sb.append(",\"cacheHitRatios\":{\"blobCache\":").append(hitRatio(Counter.BLOB_CACHE_HITS, Counter.BLOB_CACHE_MISSES))
+                .append(",\"fileHashCache\":").append(hitRatio(Counter.FILE_HASH_CACHE_HITS, Counter.FILE_HASH_CACHE_MISSES))
+                .append("}}");
+        return sb.toString();
+    }
+
+    private static String ratio(Counter hits, Counter misses) {
+        return get(hits) + " hits / " + get(misses) + " misses";
+    }
+
+    private static String hitRatio(Counter hits, Counter misses) {
+        long lookups = get(hits) + get(misses);
+        return lookups == 0 ? "null" : String.format(Locale.ROOT, "%.4f", (double) get(hits) / lookups);
+    }
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
@@ -0,0 +1,133 @@
+package com.pesapal.felixvcs.utils;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Computes xxHash64 over data fed in pieces.
+ * <p>
+ * xxHash64 is a non-cryptographic hash that runs several times faster than SHA-1. It is only used
+ * to notice that content is unchanged, never to name objects: a match lets the caller reuse an id
+ * it computed before instead of hashing the content again.
+ */
+public class XxHash64 {
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INTS = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final long seed;
+    private long v1, v2, v3, v4;                   // The four lanes of the stripe accumulator
+    private final byte[] pending = new byte[32];   // Input not yet forming a full 32-byte stripe
+    private int pendingLength;
+    private long totalLength;
+
+    /**
+     * Constructs a hash with seed zero.
+     */
+    public XxHash64() {
+        this(0);
+    }
+
+    /**
+     * Constructs a hash with the given seed.
+     *
+     * @param seed The seed.
+     */
+    public XxHash64(long seed) {
+        this.seed = seed;
+        v1 = seed + PRIME1 + PRIME2;
+        v2 = seed + PRIME2;
+        v3 = seed;
+        v4 = seed - PRIME1;
+    }
+
+    /**
+     * Adds data to the hash.
+     *
+     * @param data   The array holding the data.
+     * @param offset The offset of the data.
+     * @param length The number of bytes to add.
+     */
+    public void update(byte[] data, int offset, int length) {
+        totalLength += length;
+        int end = offset + length;
+        if (pendingLength > 0) {
+            int take = Math.min(length, pending.length - pendingLength);
+            System.arraycopy(data, offset, pending, pendingLength, take);
+            pendingLength += take;
+            offset += take;
+            if (pendingLength < pending.length) {
+                return;
+            }
+            stripe(pending, 0);
+            pendingLength = 0;
+        }
+        for (; offset + 32 <= end; offset += 32) {
+            stripe(data, offset);
+        }
+        System.arraycopy(data, offset, pending, 0, end - offset);
+        pendingLength = end - offset;
+    }
+
+    /**
+     * Finishes the hash of the data added so far. More data may be added afterwards.
+     *
+     * @return The 64-bit hash.
+     */
+    public long getValue() {
+        long h;
+        if (totalLength >= 32) {
+            h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            h = merge(h, v1);
+            h = merge(h, v2);
+            h = merge(h, v3);
+            h = merge(h, v4);
+        } else {
+            h = seed + PRIME5;
+        }
+        h += totalLength;
+
+        int i = 0;
+        for (; i + 8 <= pendingLength; i += 8) {
+            h ^= round(0, (long) LONGS.get(pending, i));
+            h = Long.rotateLeft(h, 27) * PRIME1 + PRIME4;
+        }
+        if (i + 4 <= pendingLength) {
+            h ^= (Integer.toUnsignedLong((int) INTS.get(pending, i))) * PRIME1;
+            h = Long.rotateLeft(h, 23) * PRIME2 + PRIME3;
+            i += 4;
+        }
+        for (; i < pendingLength; i++) {
+            h ^= (pending[i] & 0xFF) * PRIME5;
+            h = Long.rotateLeft(h, 11) * PRIME1;
+        }
+
+        h ^= h >>> 33;
+        h *= PRIME2;
+        h ^= h >>> 29;
+        h *= PRIME3;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    private void stripe(byte[] data, int offset) {
+        v1 = round(v1, (long) LONGS.get(data, offset));
+        v2 = round(v2, (long) LONGS.get(data, offset + 8));
+        v3 = round(v3, (long) LONGS.get(data, offset + 16));
+        v4 = round(v4, (long) LONGS.get(data, offset + 24));
+    }
+
+    private static long round(long acc, long input) {
+        return Long.rotateLeft(acc + input * PRIME2, 31) * PRIME1;
+    }
+
+    private static long merge(long h, long lane) {
+        return (h ^ round(0, lane)) * PRIME1 + PRIME4;
+    }
+}
@@ -0,0 +1,39 @@
+package com.pesapal.felixvcs;
+
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MainApplicationTest {
+
+    private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+    private final PrintStream originalOut = System.out;
+
+    @BeforeEach
+    void setUpStreams() {
+        System.setOut(new PrintStream(outContent));
+    }
+
+    @AfterEach
+    void restoreStreams() {
+        System.setOut(originalOut);
+    }
+
+    @Test
+    @DisplayName("Test diff receives both commits from the command line instead of printing its usage")
+    void testDiffArguments() {
+        MainApplication.main(new String[]{"diff", "1a2b", "3c4d"});
+        assertFalse(outContent.toString().contains("Usage: diff"), "Both commits should reach the diff command: " + outContent);
+    }
+
+    @Test
+    @DisplayName("Test rebase receives the target branch from the command line instead of printing its usage")
+    void testRebaseArguments() {
+        MainApplication.main(new String[]{"rebase", "no-such-branch"});
+        assertTrue(outContent.toString().contains("Target branch no-such-branch does not exist."),
+                "The target branch should reach the rebase command: " + outContent);
+    }
+}
@@ -0,0 +1,71 @@
+package com.pesapal.felixvcs.commands;
+
+import com.pesapal.felixvcs.core.ObjectId;
+import com.pesapal.felixvcs.core.ObjectStores;
+import com.pesapal.felixvcs.core.ObjectType;
+import com.pesapal.felixvcs.utils.FileUtils;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.*;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BundleCommandTest {
+
+    private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+    private final PrintStream originalOut = System.out;
+
+    @BeforeEach
+    void setUpStreams() {
+        // Redirect System.out to capture outputs
+        System.setOut(new PrintStream(outContent));
+    }
+
+    @AfterEach
+    void restoreStreams() {
+        // Restore original System.out
+        System.setOut(originalOut);
+    }
+
+    @Test
+    @DisplayName("Test bundling a full history and then only a range on top of it")
+    void testBundleAndUnbundle(@TempDir Path tempDir) throws IOException {
+        Path source = tempDir.resolve("source");
+        Path target = tempDir.resolve("target");
+        Files.createDirectories(source);
+        Files.createDirectories(target);
+        new InitCommand(source).execute();
+        new InitCommand(target).execute();
+        Path sourceVcs = source.resolve(".felixvcs");
+        Path targetVcs = target.resolve(".felixvcs");
+
+        ObjectId first = RepositoryFixture.commit(sourceVcs, "master", Map.of("a.txt", "a1\n", "b.txt", "b1\n"), null);
+        new TagCommand(sourceVcs).execute(new String[]{"tag", "v1"});
+        ObjectId second = RepositoryFixture.commit(sourceVcs, "master", Map.of("a.txt", "a2\n", "b.txt", "b1\n"), first);
+
+        // A range bundle cannot be applied before its base is present
+        Path increment = tempDir.resolve("increment.bundle");
+        new BundleCommand(sourceVcs).execute(new String[]{"create", increment.toString(), "v1..master"});
+        assertTrue(outContent.toString().contains("Bundled 3 objects (1 commits, 1 trees, 1 blobs)"),
+                "The range bundle should leave out what the base already has: " + outContent);
+        outContent.reset();
+        new BundleCommand(targetVcs).execute(new String[]{"unbundle", increment.toString()});
+        assertTrue(outContent.toString().contains("lacks the prerequisite commits: " + first), "Missing base should be reported.");
+
+        Path full = tempDir.resolve("full.bundle");
+        new BundleCommand(sourceVcs).execute(new String[]{"create", full.toString(), "v1"});
+        new BundleCommand(targetVcs).execute(new String[]{"unbundle", full.toString()});
+        assertEquals(first.name(), FileUtils.readFile(targetVcs.resolve("refs/remotes/full/v1").toString()).trim(),
+                "The bundled tag should be recorded.");
+
+        new BundleCommand(targetVcs).execute(new String[]{"unbundle", increment.toString()});
+        assertEquals(second.name(), FileUtils.readFile(targetVcs.resolve("refs/remotes/increment/master").toString()).trim(),
+                "The range bundle should apply on top of its base.");
+        assertTrue(ObjectStores.open(targetVcs).has(ObjectType.COMMIT, second), "The bundled commit should be stored.");
+    }
+}
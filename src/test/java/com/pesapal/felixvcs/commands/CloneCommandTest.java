@@ -0,0 +1,222 @@
+package com.pesapal.felixvcs.commands;
+
+import com.pesapal.felixvcs.core.HashAlgorithm;
+import com.pesapal.felixvcs.core.ObjectId;
+import com.pesapal.felixvcs.utils.FileUtils;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CloneCommandTest {
+
+    private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+    private final PrintStream originalOut = System.out;
+
+    @BeforeEach
+    void setUpStreams() {
+        // Redirect System.out to capture outputs
+        System.setOut(new PrintStream(outContent));
+    }
+
+    @AfterEach
+    void restoreStreams() {
+        // Restore original System.out
+        System.setOut(originalOut);
+    }
+
+    @Test
+    @DisplayName("Test cloning materializes the HEAD tree instead of the source working directory")
+    void testCloneChecksOutHeadTree(@TempDir Path tempDir) throws IOException {
+        Path source = tempDir.resolve("source");
+        Path destination = tempDir.resolve("destination");
+        Files.createDirectories(source);
+        new InitCommand(source).execute();
+
+        Map<String, String> files = new HashMap<>();
+        files.put("README.md", "hello\n");
+        files.put("src/Main.java", "class Main {}\n");
+        commit(source.resolve(".felixvcs"), files, null);
+
+        // Uncommitted junk and staged state in the source must not travel
+        Files.writeString(source.resolve("junk.tmp"), "scratch");
+        Files.writeString(source.resolve("README.md"), "edited but not committed");
+        Files.writeString(source.resolve(".felixvcs/index"), "junk.tmp:deadbeef\n");
+
+        new CloneCommand().execute(source.toString(), destination.toString());
+
+        assertEquals("hello\n", Files.readString(destination.resolve("README.md")),
+                "Files should be written from the committed blob.");
+        assertEquals("class Main {}\n", Files.readString(destination.resolve("src/Main.java")),
+                "Nested files should be materialized with their directories.");
+        assertFalse(Files.exists(destination.resolve("junk.tmp")), "Untracked files should not be cloned.");
+        assertEquals("", FileUtils.readFile(destination.resolve(".felixvcs/index").toString()).trim(),
+                "The clone should start with an empty index.");
+    }
+
+    @Test
+    @DisplayName("Test cloning a commit whose tree has thousands of files, including quotes and commas in paths")
+    void testCloneLargeTree(@TempDir Path tempDir) throws IOException {
+        Path source = tempDir.resolve("source");
+        Path destination = tempDir.resolve("destination");
+        Files.createDirectories(source);
+        new InitCommand(source).execute();
+
+        Map<String, String> files = new HashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            files.put("src/d" + (i / 100) + "/f" + i + ".txt", "file " + i + "\n");
+        }
+        files.put("odd/a \"quoted\", name.txt", "odd\n");
+        commit(source.resolve(".felixvcs"), files, null);
+
+        new CloneCommand().execute(source.toString(), destination.toString());
+
+        assertEquals("file 4999\n", Files.readString(destination.resolve("src/d49/f4999.txt")),
+                "Every file of a large tree should be checked out.");
+        assertEquals("odd\n", Files.readString(destination.resolve("odd/a \"quoted\", name.txt")),
+                "Quotes and commas in paths should survive the tree format.");
+    }
+
+    @Test
+    @DisplayName("Test cloning a repository without commits")
+    void testCloneEmptyRepository(@TempDir Path tempDir) throws IOException {
+        Path source = tempDir.resolve("source");
+        Path destination = tempDir.resolve("destination");
+        Files.createDirectories(source);
+        new InitCommand(source).execute();
+
+        new CloneCommand().execute(source.toString(), destination.toString());
+
+        assertTrue(Files.exists(destination.resolve(".felixvcs/refs/heads/master")), "Refs should be cloned.");
+        assertTrue(outContent.toString().contains("Successfully cloned repository"), "Clone should succeed.");
+    }
+
+    @Test
+    @DisplayName("Test cloning skips locks and temporary files and removes a clone that fails")
+    void testCloneSkipsTransientFilesAndRollsBack(@TempDir Path tempDir) throws IOException {
+        Path source = tempDir.resolve("source");
+        Files.createDirectories(source);
+        new InitCommand(source).execute();
+        Path sourceVcs = source.resolve(".felixvcs");
+        commit(sourceVcs, Map.of("a.txt", "one\n"), null);
+        Files.writeString(sourceVcs.resolve("refs/heads/master.lock"), "");
+        Files.writeString(sourceVcs.resolve("refs/heads/.master.tmp-1-1"), "");
+        Files.createDirectories(sourceVcs.resolve("packs"));
+        Files.writeString(sourceVcs.resolve("packs/tmp-123.pack"), "partial");
+
+        Path destination = tempDir.resolve("destination");
+        new CloneCommand().execute(source.toString(), destination.toString());
+        Path destinationVcs = destination.resolve(".felixvcs");
+        assertTrue(Files.exists(destinationVcs.resolve("refs/heads/master")), "Refs should be cloned.");
+        assertFalse(Files.exists(destinationVcs.resolve("refs/heads/master.lock")), "Lock files should not be cloned.");
+        assertFalse(Files.exists(destinationVcs.resolve("refs/heads/.master.tmp-1-1")), "Temporary files should not be cloned.");
+        assertFalse(Files.exists(destinationVcs.resolve("packs/tmp-123.pack")), "Packs being stored should not be cloned.");
+
+        // HEAD names a blob that does not exist, so the checkout fails after the data was copied
+        RepositoryFixture.commitTree(sourceVcs, "master", Map.of("b.txt", id("missing\n")), null, "Broken");
+        Path failed = tempDir.resolve("failed");
+        assertThrows(IOException.class, () -> new CloneCommand().execute(source.toString(), failed.toString()));
+        assertFalse(Files.exists(failed), "A failed clone should remove the directory it created.");
+
+        Path existing = tempDir.resolve("existing");
+        Files.createDirectories(existing);
+        Files.writeString(existing.resolve("keep.txt"), "mine");
+        assertThrows(IOException.class, () -> new CloneCommand().execute(source.toString(), existing.toString()));
+        assertFalse(Files.exists(existing.resolve(".felixvcs")), "A failed clone should remove its repository data.");
+        assertEquals("mine", Files.readString(existing.resolve("keep.txt")), "Files that were there before should be kept.");
+    }
+
+    @Test
+    @DisplayName("Test shallow cloning copies only the newest commits and records the boundary")
+    void testShallowClone(@TempDir Path tempDir) throws IOException {
+        Path source = tempDir.resolve("source");
+        Path destination = tempDir.resolve("destination");
+        Files.createDirectories(source);
+        new InitCommand(source).execute();
+        Path sourceVcs = source.resolve(".felixvcs");
+
+        ObjectId first = commit(sourceVcs, Map.of("a.txt", "one\n"), null);
+        ObjectId second = commit(sourceVcs, Map.of("a.txt", "two\n"), first);
+        ObjectId third = commit(sourceVcs, Map.of("a.txt", "three\n"), second);
+
+        new CloneCommand().execute(source.toString(), destination.toString(), 2);
+
+        Path destinationVcs = destination.resolve(".felixvcs");
+        assertTrue(Files.exists(destinationVcs.resolve("commits").resolve(third.name())), "Tip commit should be cloned.");
+        assertTrue(Files.exists(destinationVcs.resolve("commits").resolve(second.name())), "Second commit should be cloned.");
+        assertFalse(Files.exists(destinationVcs.resolve("commits").resolve(first.name())), "Commits beyond the depth should be left out.");
+        assertFalse(Files.exists(destinationVcs.resolve("blobs").resolve(id("one\n").name())),
+                "Blobs only referenced beyond the depth should be left out.");
+        assertEquals(second.name(), FileUtils.readFile(destinationVcs.resolve("shallow").toString()).trim(),
+                "The oldest cloned commit should be recorded as the shallow boundary.");
+        assertEquals("three\n", Files.readString(destination.resolve("a.txt")), "HEAD should be checked out.");
+    }
+
+    @Test
+    @DisplayName("Test sparse cloning materializes only matching paths but keeps every object")
+    void testSparseClone(@TempDir Path tempDir) throws IOException {
+        Path source = tempDir.resolve("source");
+        Path destination = tempDir.resolve("destination");
+        Files.createDirectories(source);
+        new InitCommand(source).execute();
+
+        commit(source.resolve(".felixvcs"), Map.of(
+                "services/api/App.java", "api\n",
+                "services/web/index.html", "web\n",
+                "docs/guide.md", "guide\n"), null);
+
+        new CloneCommand().execute(source.toString(), destination.toString(), 0, List.of("services/api", "docs/*.md"));
+
+        assertTrue(Files.exists(destination.resolve("services/api/App.java")), "Matching directory should be checked out.");
+        assertTrue(Files.exists(destination.resolve("docs/guide.md")), "Matching glob should be checked out.");
+        assertFalse(Files.exists(destination.resolve("services/web")), "Non-matching paths should not be checked out.");
+        assertTrue(Files.exists(destination.resolve(".felixvcs/blobs").resolve(id("web\n").name())),
+                "Blobs outside the patterns should still be cloned.");
+        assertEquals("services/api\ndocs/*.md", FileUtils.readFile(destination.resolve(".felixvcs/sparse-checkout").toString()).trim(),
+                "Patterns should be stored in the clone.");
+    }
+
+    @Test
+    @DisplayName("Test bare cloning copies repository data without a working directory")
+    void testBareClone(@TempDir Path tempDir) throws IOException {
+        Path source = tempDir.resolve("source");
+        Path mirror = tempDir.resolve("mirror");
+        Files.createDirectories(source);
+        new InitCommand(source).execute();
+        ObjectId head = commit(source.resolve(".felixvcs"), Map.of("README.md", "hello\n"), null);
+
+        new CloneCommand().execute(source.toString(), mirror.toString(), 0, List.of(), true);
+
+        assertEquals(head.name(), FileUtils.readFile(mirror.resolve("refs/heads/master").toString()).trim(),
+                "The bare clone should hold the refs directly.");
+        assertFalse(Files.exists(mirror.resolve(".felixvcs")), "A bare clone has no nested repository directory.");
+        assertFalse(Files.exists(mirror.resolve("README.md")), "A bare clone should not check out files.");
+        assertFalse(Files.exists(mirror.resolve("index")), "A bare clone has no index.");
+
+        // Object and ref commands work against the bare repository, and it can be cloned again
+        outContent.reset();
+        new LogCommand(mirror).execute();
+        assertTrue(outContent.toString().contains("Commit: " + head), "Log should read the bare repository.");
+
+        Path copy = tempDir.resolve("copy");
+        new CloneCommand().execute(mirror.toString(), copy.toString());
+        assertEquals("hello\n", Files.readString(copy.resolve("README.md")), "A bare repository should be clonable.");
+    }
+
+    private ObjectId commit(Path vcsDir, Map<String, String> files, ObjectId parent) throws IOException {
+        return RepositoryFixture.commit(vcsDir, "master", files, parent);
+    }
+
+    private static ObjectId id(String content) {
+        return HashAlgorithm.DEFAULT.hash(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
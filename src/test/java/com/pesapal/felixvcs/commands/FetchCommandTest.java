@@ -0,0 +1,102 @@
+package com.pesapal.felixvcs.commands;
+
+import com.pesapal.felixvcs.core.ObjectId;
+import com.pesapal.felixvcs.core.ObjectStores;
+import com.pesapal.felixvcs.core.ObjectType;
+import com.pesapal.felixvcs.utils.FileUtils;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.*;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FetchCommandTest {
+
+    private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+    private final PrintStream originalOut = System.out;
+
+    @BeforeEach
+    void setUpStreams() {
+        // Redirect System.out to capture outputs
+        System.setOut(new PrintStream(outContent));
+    }
+
+    @AfterEach
+    void restoreStreams() {
+        // Restore original System.out
+        System.setOut(originalOut);
+    }
+
+    @Test
+    @DisplayName("Test fetching transfers only the objects the local repository is missing")
+    void testIncrementalFetch(@TempDir Path tempDir) throws IOException {
+        Path source = tempDir.resolve("source");
+        Path destination = tempDir.resolve("destination");
+        Files.createDirectories(source);
+        new InitCommand(source).execute();
+        Path sourceVcs = source.resolve(".felixvcs");
+
+        ObjectId first = RepositoryFixture.commit(sourceVcs, "master", Map.of("a.txt", "a1\n", "b.txt", "b1\n"), null);
+        new CloneCommand().execute(source.toString(), destination.toString());
+        Path destinationVcs = destination.resolve(".felixvcs");
+
+        ObjectId second = RepositoryFixture.commit(sourceVcs, "master", Map.of("a.txt", "a2\n", "b.txt", "b1\n"), first);
+        outContent.reset();
+        new FetchCommand(destinationVcs).execute(new String[]{"origin"});
+
+        // One new commit, one new tree and the changed blob only
+        assertTrue(outContent.toString().contains("Received 3 objects (1 commits, 1 trees, 1 blobs) from origin"),
+                "Only new objects should be transferred: " + outContent);
+        assertTrue(ObjectStores.open(destinationVcs).has(ObjectType.COMMIT, second), "The new commit should be fetched.");
+        assertEquals(second.name(), FileUtils.readFile(destinationVcs.resolve("refs/remotes/origin/master").toString()).trim(),
+                "The remote-tracking ref should point at the fetched tip.");
+        assertEquals(first.name(), FileUtils.readFile(destinationVcs.resolve("refs/heads/master").toString()).trim(),
+                "Fetching must not move local branches.");
+
+        outContent.reset();
+        new FetchCommand(destinationVcs).execute(new String[]{"origin"});
+        assertTrue(outContent.toString().contains("Received 0 objects"), "A second fetch should transfer nothing.");
+    }
+
+    @Test
+    @DisplayName("Test fetched packs are stored and read through the multi-pack index")
+    void testFetchedPacksAreReadable(@TempDir Path tempDir) throws IOException {
+        Path source = tempDir.resolve("source");
+        Path destination = tempDir.resolve("destination");
+        Files.createDirectories(source);
+        new InitCommand(source).execute();
+        Path sourceVcs = source.resolve(".felixvcs");
+
+        ObjectId first = RepositoryFixture.commit(sourceVcs, "master", Map.of("a.txt", "one\n"), null);
+        new CloneCommand().execute(source.toString(), destination.toString());
+        Path destinationVcs = destination.resolve(".felixvcs");
+
+        // Each fetch stores its own pack
+        ObjectId tip = first;
+        for (String content : new String[]{"two\n", "three\n"}) {
+            tip = RepositoryFixture.commit(sourceVcs, "master", Map.of("a.txt", content), tip);
+            new FetchCommand(destinationVcs).execute(new String[]{"origin"});
+        }
+        try (Stream<Path> packs = Files.list(destinationVcs.resolve("packs"))) {
+            assertEquals(2, packs.filter(file -> file.toString().endsWith(".pack")).count(), "Each fetch should store a pack.");
+        }
+        assertTrue(Files.exists(destinationVcs.resolve("packs/multi-pack-index")), "The multi-pack index should be written.");
+
+        // Log and diff read commits, trees and blobs from both packs
+        FileUtils.writeToFile(destinationVcs.resolve("refs/heads/master").toString(), tip.name());
+        outContent.reset();
+        new LogCommand(destinationVcs).execute();
+        assertEquals(3, outContent.toString().split("Commit: ", -1).length - 1, "Log should walk through both packs: " + outContent);
+
+        outContent.reset();
+        new DiffCommand(destinationVcs).execute(new String[]{"diff", first.name(), tip.name()});
+        assertTrue(outContent.toString().contains("- one") && outContent.toString().contains("+ three"),
+                "Diff should read packed blobs: " + outContent);
+    }
+}
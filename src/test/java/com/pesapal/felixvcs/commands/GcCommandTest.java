@@ -0,0 +1,114 @@
+package com.pesapal.felixvcs.commands;
+
+import com.pesapal.felixvcs.core.ChunkList;
+import com.pesapal.felixvcs.core.ObjectId;
+import com.pesapal.felixvcs.core.ObjectStore;
+import com.pesapal.felixvcs.core.ObjectStores;
+import com.pesapal.felixvcs.core.ObjectType;
+import com.pesapal.felixvcs.core.Repository;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GcCommandTest {
+
+    private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+    private final PrintStream originalOut = System.out;
+
+    @BeforeEach
+    void setUpStreams() {
+        // Redirect System.out to capture outputs
+        System.setOut(new PrintStream(outContent));
+    }
+
+    @AfterEach
+    void restoreStreams() {
+        // Restore original System.out
+        System.setOut(originalOut);
+    }
+
+    @Test
+    @DisplayName("Test gc writes a pack with bitmaps that fetch uses to find missing objects")
+    void testGcBitmapsAnswerFetch(@TempDir Path tempDir) throws IOException {
+        Path source = tempDir.resolve("source");
+        Path destination = tempDir.resolve("destination");
+        Files.createDirectories(source);
+        new InitCommand(source).execute();
+        Path sourceVcs = source.resolve(".felixvcs");
+
+        ObjectId head = RepositoryFixture.commit(sourceVcs, "master", Map.of("a.txt", "0\n", "b.txt", "same\n"), null);
+        new CloneCommand().execute(source.toString(), destination.toString());
+        for (int i = 1; i < 100; i++) {
+            head = RepositoryFixture.commit(sourceVcs, "master", Map.of("a.txt", i + "\n", "b.txt", "same\n"), head);
+        }
+
+        outContent.reset();
+        new GcCommand(sourceVcs).execute();
+        assertTrue(outContent.toString().contains("Packed 301 objects"), "Every reachable object should be packed: " + outContent);
+        try (Stream<Path> files = Files.list(sourceVcs.resolve("packs"))) {
+            assertEquals(4, files.count(), "gc should write a pack, its index, its bitmaps and the multi-pack index.");
+        }
+
+        // Two more commits stay loose; the walk reads only those before reaching the bitmapped tip
+        for (int i = 100; i < 102; i++) {
+            head = RepositoryFixture.commit(sourceVcs, "master", Map.of("a.txt", i + "\n", "b.txt", "same\n"), head);
+        }
+
+        outContent.reset();
+        new FetchCommand(destination.resolve(".felixvcs")).execute(new String[]{"origin"});
+        assertTrue(outContent.toString().contains("Received 303 objects (101 commits, 101 trees, 101 blobs)"),
+                "The bitmap answer should match the objects the clone lacks: " + outContent);
+        assertTrue(ObjectStores.open(destination.resolve(".felixvcs")).has(ObjectType.COMMIT, head), "The new tip should be fetched.");
+    }
+
+    @Test
+    @DisplayName("Test gc keeps staged and stashed files that no commit reaches, including chunked files")
+    void testGcKeepsWorkingState(@TempDir Path tempDir) throws IOException {
+        new InitCommand(tempDir).execute();
+        Path vcsDir = tempDir.resolve(".felixvcs");
+        RepositoryFixture.commit(vcsDir, "master", Map.of("a.txt", "one\n"), null);
+
+        byte[] large = new byte[(int) ChunkList.THRESHOLD * 2];
+        new Random(7).nextBytes(large);
+        Files.write(tempDir.resolve("large.bin"), large);
+        Files.writeString(tempDir.resolve("b.txt"), "stashed\n");
+        ObjectId chunked = Repository.open(tempDir).add(List.of("large.bin", "b.txt")).get(0).id();
+        new StashCommand(vcsDir).execute(new String[0]);
+        Files.writeString(tempDir.resolve("a.txt"), "staged\n");
+        new AddCommand(tempDir).execute("a.txt");
+        ObjectStore store = ObjectStores.open(vcsDir);
+        ObjectId staged = store.hashAlgorithm().hash("staged\n".getBytes(StandardCharsets.UTF_8));
+        ObjectId stashed = store.hashAlgorithm().hash("stashed\n".getBytes(StandardCharsets.UTF_8));
+
+        // After the first gc the working state lives only in the pack, as it does in a clone;
+        // the second gc then deletes that pack
+        new GcCommand(vcsDir).execute();
+        for (ObjectType type : ObjectType.values()) {
+            try (Stream<Path> files = Files.walk(vcsDir.resolve(type.getDirectory()))) {
+                for (Path file : files.filter(Files::isRegularFile).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+        new GcCommand(vcsDir).execute();
+
+        store = ObjectStores.open(vcsDir);
+        assertArrayEquals("staged\n".getBytes(StandardCharsets.UTF_8), store.read(ObjectType.BLOB, staged));
+        assertArrayEquals("stashed\n".getBytes(StandardCharsets.UTF_8), store.read(ObjectType.BLOB, stashed));
+        ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        ChunkList.read(store, chunked).copyTo(store, Channels.newChannel(copy));
+        assertArrayEquals(large, copy.toByteArray(), "The chunks of a stashed file should be kept.");
+    }
+}
@@ -1,5 +1,11 @@
 package com.pesapal.felixvcs.commands;
 
+import com.pesapal.felixvcs.core.HashAlgorithm;
+import com.pesapal.felixvcs.core.ObjectId;
+import com.pesapal.felixvcs.core.ObjectStore;
+import com.pesapal.felixvcs.core.ObjectStores;
+import com.pesapal.felixvcs.core.ObjectType;
+import com.pesapal.felixvcs.core.Repository;
 import com.pesapal.felixvcs.utils.FileUtils;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.io.TempDir;
@@ -7,8 +13,8 @@ import org.junit.jupiter.api.io.TempDir;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
-import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -112,4 +118,30 @@ class InitCommandTest {
         assertFalse(Files.exists(vcsDir.resolve("index")), "index file should not be created again.");
         assertFalse(Files.exists(vcsDir.resolve("ignore")), "ignore file should not be created again.");
     }
+
+    @Test
+    @DisplayName("Test init records the chosen hash function and the object store names objects with it")
+    void testObjectFormat(@TempDir Path tempDir) throws IOException {
+        byte[] content = "hello\n".getBytes(StandardCharsets.UTF_8);
+
+        Path modern = tempDir.resolve("modern");
+        new InitCommand(modern).execute();
+        Path modernVcs = modern.resolve(".felixvcs");
+        assertEquals("sha256", FileUtils.readFile(modernVcs.resolve(HashAlgorithm.FORMAT_FILE).toString()).trim(),
+                "New repositories should record SHA-256.");
+        ObjectId modernId = ObjectStores.open(modernVcs).write(ObjectType.BLOB, content);
+        assertEquals(32, modernId.length(), "A SHA-256 repository should name objects with 32-byte ids.");
+
+        Path legacy = tempDir.resolve("legacy");
+        new InitCommand(legacy, false, HashAlgorithm.SHA1).execute();
+        Path legacyVcs = legacy.resolve(".felixvcs");
+        ObjectStore legacyStore = ObjectStores.open(legacyVcs);
+        ObjectId legacyId = legacyStore.write(ObjectType.BLOB, content);
+        assertEquals("f572d396fae9206628714fb2ce00f72e94f2258f", legacyId.name(), "A SHA-1 repository should keep SHA-1 names.");
+
+        // Repositories from before the choice have no format file and stay SHA-1
+        Files.delete(legacyVcs.resolve(HashAlgorithm.FORMAT_FILE));
+        assertTrue(ObjectStores.open(legacyVcs).has(ObjectType.BLOB, legacyId), "Existing objects should still be found.");
+    }
+
 }
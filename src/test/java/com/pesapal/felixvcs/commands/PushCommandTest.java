@@ -0,0 +1,69 @@
+package com.pesapal.felixvcs.commands;
+
+import com.pesapal.felixvcs.core.ObjectId;
+import com.pesapal.felixvcs.utils.FileUtils;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.*;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PushCommandTest {
+
+    private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+    private final PrintStream originalOut = System.out;
+
+    @BeforeEach
+    void setUpStreams() {
+        // Redirect System.out to capture outputs
+        System.setOut(new PrintStream(outContent));
+    }
+
+    @AfterEach
+    void restoreStreams() {
+        // Restore original System.out
+        System.setOut(originalOut);
+    }
+
+    @Test
+    @DisplayName("Test pushing fast-forwards a bare repository and rejects diverged history")
+    void testPushFastForwardOnly(@TempDir Path tempDir) throws IOException {
+        Path central = tempDir.resolve("central");
+        new InitCommand(central, true).execute();
+
+        Path alice = tempDir.resolve("alice");
+        Files.createDirectories(alice);
+        new InitCommand(alice).execute();
+        Path aliceVcs = alice.resolve(".felixvcs");
+        ObjectId first = RepositoryFixture.commit(aliceVcs, "master", Map.of("a.txt", "a1\n"), null);
+
+        new PushCommand(aliceVcs).execute(new String[]{central.toString(), "master"});
+        assertEquals(first.name(), FileUtils.readFile(central.resolve("refs/heads/master").toString()).trim(),
+                "The first push should create the remote branch.");
+
+        Path bob = tempDir.resolve("bob");
+        new CloneCommand().execute(central.toString(), bob.toString());
+        Path bobVcs = bob.resolve(".felixvcs");
+
+        ObjectId second = RepositoryFixture.commit(aliceVcs, "master", Map.of("a.txt", "a2\n"), first);
+        outContent.reset();
+        new PushCommand(aliceVcs).execute(new String[]{central.toString(), "master"});
+        assertTrue(outContent.toString().contains("Sent 3 objects"), "Only new objects should be sent: " + outContent);
+        assertEquals(second.name(), FileUtils.readFile(central.resolve("refs/heads/master").toString()).trim(),
+                "A fast-forward push should move the remote branch.");
+
+        // Bob's commit does not build on Alice's second commit
+        RepositoryFixture.commit(bobVcs, "master", Map.of("b.txt", "b1\n"), first);
+        outContent.reset();
+        new PushCommand(bobVcs).execute(new String[]{"origin", "master"});
+        assertTrue(outContent.toString().contains("non-fast-forward"), "Diverged history should be rejected.");
+        assertEquals(second.name(), FileUtils.readFile(central.resolve("refs/heads/master").toString()).trim(),
+                "A rejected push must not move the remote branch.");
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.pesapal.felixvcs.commands;
+
+import com.pesapal.felixvcs.core.ObjectId;
+import com.pesapal.felixvcs.core.ObjectStores;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RebaseCommandTest {
+
+    private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+    private final PrintStream originalOut = System.out;
+
+    @BeforeEach
+    void setUpStreams() {
+        System.setOut(new PrintStream(outContent));
+    }
+
+    @AfterEach
+    void restoreStreams() {
+        System.setOut(originalOut);
+    }
+
+    @Test
+    @DisplayName("Test commit and rebase run against a repository given by path")
+    void testRebaseByPath(@TempDir Path tempDir) throws IOException {
+        new InitCommand(tempDir).execute();
+        Path vcsDir = tempDir.resolve(".felixvcs");
+        ObjectId base = commit(tempDir, "a.txt", "Base");
+        new BranchCommand(vcsDir).execute(new String[]{"branch", "feature"});
+        ObjectId onMaster = commit(tempDir, "b.txt", "On master");
+
+        Path head = vcsDir.resolve("HEAD");
+        Files.writeString(head, Files.readString(head).replace("master", "feature"));
+        ObjectId onFeature = commit(tempDir, "c.txt", "On feature");
+        assertEquals(base, ObjectStores.open(vcsDir).readCommit(onFeature).getParent());
+
+        new RebaseCommand(vcsDir).execute(new String[]{"rebase", "master"});
+        assertTrue(outContent.toString().contains("Rebase completed successfully."), outContent.toString());
+        ObjectId rebased = branch(vcsDir, "feature");
+        assertNotEquals(onFeature, rebased);
+        assertEquals(onMaster, ObjectStores.open(vcsDir).readCommit(rebased).getParent(),
+                "The feature commit should be replayed on top of master.");
+    }
+
+    private static ObjectId commit(Path workDir, String file, String message) throws IOException {
+        Files.writeString(workDir.resolve(file), message + "\n");
+        new AddCommand(workDir).execute(file);
+        Path vcsDir = workDir.resolve(".felixvcs");
+        new CommitCommand(vcsDir).execute(message);
+        String currentBranch = Files.readString(vcsDir.resolve("HEAD")).trim().replace("refs/heads/", "");
+        return branch(vcsDir, currentBranch);
+    }
+
+    private static ObjectId branch(Path vcsDir, String name) throws IOException {
+        return ObjectId.parse(Files.readString(vcsDir.resolve("refs/heads").resolve(name)));
+    }
+}
@@ -0,0 +1,63 @@
+package com.pesapal.felixvcs.commands;
+
+import com.pesapal.felixvcs.core.Commit;
+import com.pesapal.felixvcs.core.ObjectId;
+import com.pesapal.felixvcs.core.ObjectStore;
+import com.pesapal.felixvcs.core.ObjectStores;
+import com.pesapal.felixvcs.core.ObjectType;
+import com.pesapal.felixvcs.core.Tree;
+import com.pesapal.felixvcs.utils.FileUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds repository history directly in the object store for command tests.
+ */
+final class RepositoryFixture {
+
+    private RepositoryFixture() {
+    }
+
+    /**
+     * Writes blobs, a tree and a commit for the given files, points the branch at the commit and
+     * writes the files into the working directory next to the repository data directory.
+     */
+    static ObjectId commit(Path vcsDir, String branch, Map<String, String> files, ObjectId parent) throws IOException {
+        ObjectStore store = ObjectStores.open(vcsDir);
+        Map<String, ObjectId> entries = new HashMap<>();
+        for (Map.Entry<String, String> file : files.entrySet()) {
+            entries.put(file.getKey(), store.write(ObjectType.BLOB, file.getValue().getBytes(StandardCharsets.UTF_8)));
+        }
+        ObjectId commitHash = commitTree(vcsDir, branch, entries, parent, "Test commit " + files.values());
+
+        for (Map.Entry<String, String> file : files.entrySet()) {
+            Path path = vcsDir.getParent().resolve(file.getKey());
+            Files.createDirectories(path.getParent());
+            Files.writeString(path, file.getValue());
+        }
+        return commitHash;
+    }
+
+    /**
+     * Writes a tree of already stored objects and a commit for it, and points the branch at the commit.
+     */
+    static ObjectId commitTree(Path vcsDir, String branch, Map<String, ObjectId> entries, ObjectId parent, String message) throws IOException {
+        ObjectStore store = ObjectStores.open(vcsDir);
+        ObjectId treeHash = store.writeTree(new Tree(entries));
+
+        Commit commit = new Commit();
+        commit.setTree(treeHash);
+        commit.setParent(parent);
+        commit.setMessage(message);
+        commit.setTimestamp("2024-01-01T00:00:00Z");
+        commit.setAuthor("Tester");
+        ObjectId commitHash = store.writeCommit(commit);
+        FileUtils.writeToFile(vcsDir.resolve("refs/heads").resolve(branch).toString(), commitHash.name());
+        return commitHash;
+    }
+}
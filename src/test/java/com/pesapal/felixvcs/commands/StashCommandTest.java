@@ -0,0 +1,71 @@
+package com.pesapal.felixvcs.commands;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StashCommandTest {
+
+    private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+    private final PrintStream originalOut = System.out;
+
+    @BeforeEach
+    void setUpStreams() {
+        System.setOut(new PrintStream(outContent));
+    }
+
+    @AfterEach
+    void restoreStreams() {
+        System.setOut(originalOut);
+    }
+
+    @Test
+    @DisplayName("Test stash saves and clears the index of a repository given by path, and pop restores it")
+    void testStashByPath(@TempDir Path tempDir) throws IOException {
+        new InitCommand(tempDir).execute();
+        Path vcsDir = tempDir.resolve(".felixvcs");
+        Files.writeString(tempDir.resolve("a.txt"), "one\n");
+        new AddCommand(tempDir).execute("a.txt");
+        String staged = Files.readString(vcsDir.resolve("index"));
+
+        StashCommand stash = new StashCommand(vcsDir);
+        stash.execute(new String[0]);
+        assertEquals("", Files.readString(vcsDir.resolve("index")), "Stashing should clear the index.");
+        outContent.reset();
+        stash.execute(new String[]{"list"});
+        assertTrue(outContent.toString().startsWith("Stashes:"), outContent.toString());
+
+        stash.execute(new String[]{"pop"});
+        assertEquals(staged, Files.readString(vcsDir.resolve("index")), "Popping should restore the staged entry.");
+        outContent.reset();
+        stash.execute(new String[]{"list"});
+        assertEquals("No stashes available.", outContent.toString().strip());
+    }
+
+    @Test
+    @DisplayName("Test a large stash with quotes and commas in paths round-trips through pop")
+    void testStashQuotedPaths(@TempDir Path tempDir) throws IOException {
+        new InitCommand(tempDir).execute();
+        Path vcsDir = tempDir.resolve(".felixvcs");
+        StringBuilder index = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            index.append("src/f").append(i).append(".txt:").append(String.format("%040x", i)).append("\n");
+        }
+        index.append("odd/a \"quoted\", name.txt:").append("f".repeat(40)).append("\n");
+        Files.writeString(vcsDir.resolve("index"), index);
+
+        StashCommand stash = new StashCommand(vcsDir);
+        stash.execute(new String[0]);
+        stash.execute(new String[]{"pop"});
+        assertEquals(index.toString().lines().sorted().toList(),
+                Files.readString(vcsDir.resolve("index")).lines().sorted().toList(),
+                "Every entry, including quoted paths, should be restored.");
+    }
+}
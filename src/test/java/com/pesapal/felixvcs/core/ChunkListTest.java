@@ -0,0 +1,109 @@
+package com.pesapal.felixvcs.core;
+
+import com.pesapal.felixvcs.commands.CloneCommand;
+import com.pesapal.felixvcs.commands.InitCommand;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkListTest {
+
+    private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+    private final PrintStream originalOut = System.out;
+
+    @BeforeEach
+    void setUpStreams() {
+        System.setOut(new PrintStream(outContent));
+    }
+
+    @AfterEach
+    void restoreStreams() {
+        System.setOut(originalOut);
+    }
+
+    @Test
+    @DisplayName("Test an edit in the middle of a large file stores only the chunks around it")
+    void testStore() throws IOException {
+        InMemoryObjectStore store = new InMemoryObjectStore();
+        byte[] original = randomBytes(3 * 1024 * 1024);
+        ChunkList.Stored first = ChunkList.store(store, new ByteArrayInputStream(original));
+        assertTrue(first.chunks() > 10, "A large file should be split into many chunks.");
+        assertEquals(first.chunks(), first.written(), "Every chunk of a new file should be written.");
+
+        byte[] edited = edit(original);
+        ChunkList.Stored second = ChunkList.store(store, new ByteArrayInputStream(edited));
+        assertTrue(second.written() >= 1 && second.written() <= 2,
+                "Only the chunks around the edit should be new, but " + second.written() + " were written.");
+
+        ChunkList list = ChunkList.read(store, second.hash());
+        assertEquals(edited.length, list.getSize(), "The chunk list should cover the whole file.");
+        assertEquals(list.getChunks(), ChunkList.fromBytes(list.toBytes()).getChunks(), "The chunk list should survive its encoding.");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        list.copyTo(store, Channels.newChannel(out));
+        assertArrayEquals(edited, out.toByteArray(), "Copying the chunks out should reassemble the file.");
+    }
+
+    @Test
+    @DisplayName("Test large files are staged as chunk lists and reassembled by full and shallow clones")
+    void testAddAndClone(@TempDir Path tempDir) throws IOException {
+        Path source = tempDir.resolve("source");
+        new InitCommand(source).execute();
+        Repository repository = Repository.open(source);
+
+        byte[] original = randomBytes(3 * 1024 * 1024);
+        Files.write(source.resolve("asset.bin"), original);
+        Repository.AddResult added = repository.add("asset.bin");
+        assertTrue(added.chunked(), "Files over the threshold should be staged as chunk lists.");
+        repository.commit("Add asset");
+
+        byte[] edited = edit(original);
+        Files.write(source.resolve("asset.bin"), edited);
+        Files.write(source.resolve("copy.bin"), original);
+        List<Repository.AddResult> results = repository.add(List.of("asset.bin", "copy.bin"));
+        assertTrue(results.get(0).stored().written() <= 2, "An edited file should store few new chunks.");
+        assertEquals(0, results.get(1).stored().written(), "A copy of a stored file should reuse all of its chunks.");
+        assertNull(repository.add("asset.bin").stored(), "An unchanged file should not be chunked again.");
+        ObjectId tip = repository.commit("Edit asset").id();
+
+        Path full = tempDir.resolve("full");
+        new CloneCommand().execute(source.toString(), full.toString());
+        assertArrayEquals(edited, Files.readAllBytes(full.resolve("asset.bin")), "Chunked files should be reassembled on checkout.");
+        assertArrayEquals(original, Files.readAllBytes(full.resolve("copy.bin")), "Files sharing chunks should both be reassembled.");
+
+        // A shallow clone walks the history, so it must carry chunk lists and their chunks
+        Path shallow = tempDir.resolve("shallow");
+        new CloneCommand().execute(source.toString(), shallow.toString(), 1);
+        assertTrue(ObjectStores.open(shallow.resolve(Repository.VCS_DIR)).has(ObjectType.CHUNK_LIST, results.get(0).id()),
+                "The chunk list should be cloned.");
+        assertEquals(tip, Repository.open(shallow).head());
+        assertArrayEquals(edited, Files.readAllBytes(shallow.resolve("asset.bin")), "Shallow clones should reassemble chunked files.");
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] content = new byte[length];
+        new Random(42).nextBytes(content);
+        return content;
+    }
+
+    /**
+     * Flips sixteen bytes in the middle of the content.
+     */
+    private static byte[] edit(byte[] content) {
+        byte[] edited = content.clone();
+        for (int i = 0; i < 16; i++) {
+            edited[content.length / 2 + i] ^= 0x5A;
+        }
+        return edited;
+    }
+}
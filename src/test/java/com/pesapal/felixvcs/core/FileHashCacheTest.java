@@ -0,0 +1,73 @@
+package com.pesapal.felixvcs.core;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileHashCacheTest {
+
+    @Test
+    @DisplayName("Test an entry is only used while the file keeps its size and content")
+    void testGet(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("a.txt");
+        Files.writeString(file, "one\n");
+        long fastHash = FileHashCache.fastHash(file);
+        ObjectId id = HashAlgorithm.DEFAULT.hash("one\n".getBytes(StandardCharsets.UTF_8));
+
+        FileHashCache cache = FileHashCache.load(tempDir);
+        assertNull(cache.get("a.txt", 4, fastHash), "An empty cache should miss.");
+        cache.put("a.txt", 4, fastHash, id);
+        assertEquals(id, cache.get("a.txt", 4, fastHash));
+        assertNull(cache.get("a.txt", 5, fastHash), "A different size should miss.");
+
+        // Same size, different content
+        Files.writeString(file, "two\n");
+        assertNull(cache.get("a.txt", 4, FileHashCache.fastHash(file)), "Different content should miss.");
+
+        try (FileHashCache.HashingInputStream in = new FileHashCache.HashingInputStream(Files.newInputStream(file))) {
+            in.transferTo(OutputStream.nullOutputStream());
+            assertEquals(FileHashCache.fastHash(file), in.getFastHash(), "Hashing while reading should match hashing the file.");
+            assertEquals(4, in.getSize());
+        }
+        try (FileHashCache.HashingInputStream in = new FileHashCache.HashingInputStream(Files.newInputStream(file))) {
+            assertEquals(2, in.skip(2));
+            in.transferTo(OutputStream.nullOutputStream());
+            assertEquals(0, in.skip(10), "Nothing is left to skip at the end.");
+            assertEquals(FileHashCache.fastHash(file), in.getFastHash(), "Skipped bytes should still be hashed.");
+            assertEquals(4, in.getSize());
+        }
+    }
+
+    @Test
+    @DisplayName("Test the cache is saved only when it changed, and damaged lines are skipped on load")
+    void testSaveAndLoad(@TempDir Path vcsDir) throws IOException {
+        Path cacheFile = vcsDir.resolve(FileHashCache.CACHE_FILE);
+        ObjectId id = HashAlgorithm.DEFAULT.hash("content".getBytes(StandardCharsets.UTF_8));
+
+        FileHashCache cache = FileHashCache.load(vcsDir);
+        cache.save();
+        assertFalse(Files.exists(cacheFile), "An unchanged cache should not be written.");
+
+        cache.put("dir/a name.bin", 7, -1L, id);
+        cache.save();
+        assertTrue(Files.exists(cacheFile));
+        Files.setLastModifiedTime(cacheFile, FileTime.fromMillis(0));
+        cache.put("dir/a name.bin", 7, -1L, id);
+        cache.save();
+        assertEquals(FileTime.fromMillis(0), Files.getLastModifiedTime(cacheFile), "Putting an equal entry should not rewrite the file.");
+
+        Files.writeString(cacheFile, "not a valid line\nzz 1 2 broken.bin\n", StandardOpenOption.APPEND);
+        FileHashCache loaded = FileHashCache.load(vcsDir);
+        assertEquals(id, loaded.get("dir/a name.bin", 7, -1L), "Paths with spaces and unsigned hashes should survive a save.");
+        assertNull(loaded.get("broken.bin", 1, 2), "A damaged line should be skipped.");
+    }
+}
@@ -0,0 +1,39 @@
+package com.pesapal.felixvcs.core;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashAlgorithmTest {
+
+    @Test
+    @DisplayName("Test each function names content with ids of its own length")
+    void testHash() {
+        byte[] content = "hello\n".getBytes(StandardCharsets.UTF_8);
+        assertEquals("f572d396fae9206628714fb2ce00f72e94f2258f", HashAlgorithm.SHA1.hash(content).name());
+        assertEquals("5891b5b522d5df086d0ff0b110fbd9d21bb4fc7163af34d08286a2e846f6be03", HashAlgorithm.SHA256.hash(content).name());
+        assertEquals(20, HashAlgorithm.SHA1.hash(content).length());
+        assertEquals(32, HashAlgorithm.SHA256.hash(content).length());
+        assertEquals(HashAlgorithm.SHA256, HashAlgorithm.DEFAULT, "New repositories should use SHA-256.");
+    }
+
+    @Test
+    @DisplayName("Test a repository's function is read from its format file, and SHA-1 without one")
+    void testOf(@TempDir Path vcsDir) throws IOException {
+        assertEquals(HashAlgorithm.SHA1, HashAlgorithm.of(vcsDir), "A repository without a format file should use SHA-1.");
+
+        HashAlgorithm.SHA256.writeTo(vcsDir);
+        assertEquals(HashAlgorithm.SHA256, HashAlgorithm.of(vcsDir));
+        assertEquals(HashAlgorithm.SHA1, HashAlgorithm.forName(" SHA1\n"), "Names should be matched loosely.");
+
+        Files.writeString(vcsDir.resolve(HashAlgorithm.FORMAT_FILE), "md5\n");
+        IOException e = assertThrows(IOException.class, () -> HashAlgorithm.of(vcsDir));
+        assertTrue(e.getMessage().contains("md5"), "The error should name the unknown function: " + e.getMessage());
+    }
+}
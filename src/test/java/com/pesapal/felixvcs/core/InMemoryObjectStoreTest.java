@@ -0,0 +1,100 @@
+package com.pesapal.felixvcs.core;
+
+import com.pesapal.felixvcs.commands.FetchCommand;
+import com.pesapal.felixvcs.commands.InitCommand;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryObjectStoreTest {
+
+    private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+    private final PrintStream originalOut = System.out;
+
+    @BeforeEach
+    void setUpStreams() {
+        System.setOut(new PrintStream(outContent));
+    }
+
+    @AfterEach
+    void restoreStreams() {
+        System.setOut(originalOut);
+    }
+
+    @Test
+    @DisplayName("Test objects are kept per type and read back as copies")
+    void testReadWrite() throws IOException {
+        InMemoryObjectStore memory = new InMemoryObjectStore();
+        byte[] content = "one\n".getBytes(StandardCharsets.UTF_8);
+
+        ObjectId id = memory.write(ObjectType.BLOB, content);
+        assertEquals(HashAlgorithm.DEFAULT.hash(content), id, "Objects should be named by the store's hash function.");
+        assertEquals(id, memory.write(ObjectType.BLOB, content), "Writing the same content again should return the same id.");
+        assertEquals(1, memory.size());
+        assertTrue(memory.has(ObjectType.BLOB, id));
+        assertFalse(memory.has(ObjectType.COMMIT, id), "An object should only be found under its own type.");
+        assertThrows(IOException.class, () -> memory.read(ObjectType.TREE, id));
+
+        content[0] = 'X';
+        byte[] read = memory.read(ObjectType.BLOB, id);
+        assertEquals("one\n", new String(read, StandardCharsets.UTF_8), "Changing the written array should not change the object.");
+        read[0] = 'Y';
+        assertEquals("one\n", new String(memory.read(ObjectType.BLOB, id), StandardCharsets.UTF_8),
+                "Changing a read array should not change the object.");
+    }
+
+    @Test
+    @DisplayName("Test a mounted store takes the place of the repository's files")
+    void testMounted(@TempDir Path tempDir) throws IOException {
+        Path source = tempDir.resolve("source");
+        Path scratch = tempDir.resolve("scratch");
+        new InitCommand(source).execute();
+        new InitCommand(scratch).execute();
+        Path scratchVcs = scratch.resolve(Repository.VCS_DIR);
+
+        Repository sourceRepository = Repository.open(source);
+        Files.writeString(source.resolve("a.txt"), "one\n");
+        sourceRepository.add("a.txt");
+        ObjectId first = sourceRepository.commit("First").id();
+        Files.writeString(source.resolve("a.txt"), "two\n");
+        sourceRepository.add("a.txt");
+        ObjectId second = sourceRepository.commit("Second").id();
+
+        InMemoryObjectStore memory = new InMemoryObjectStore();
+        ObjectStores.mount(scratchVcs, memory);
+        try {
+            assertSame(memory, ObjectStores.open(scratchVcs));
+            new FetchCommand(scratchVcs).execute(new String[]{source.resolve(Repository.VCS_DIR).toString()});
+            assertEquals(6, memory.size(), "Fetched objects should be kept in memory.");
+
+            // Commits made against the mounted repository stay in memory as well
+            assertTrue(RefUpdate.compareAndSet(scratchVcs, "refs/heads/master", null, second));
+            Repository repository = Repository.open(scratch);
+            Files.writeString(scratch.resolve("b.txt"), "three\n");
+            repository.add("b.txt");
+            ObjectId third = repository.commit("Third").id();
+            assertTrue(memory.has(ObjectType.COMMIT, third));
+            try (Stream<Path> files = Files.walk(scratchVcs)) {
+                assertTrue(files.noneMatch(file -> file.toString().contains("pack") || file.getParent().endsWith("blobs")),
+                        "No objects should be written to disk.");
+            }
+
+            assertEquals(List.of(third, second, first), repository.log().entries().stream().map(Repository.LogEntry::id).toList(),
+                    "History should be read from memory.");
+            assertEquals(List.of("- one", "+ two"), repository.diff(first, second).get(0).lines());
+        } finally {
+            ObjectStores.unmount(scratchVcs);
+        }
+        assertNotSame(memory, ObjectStores.open(scratchVcs), "An unmounted repository should use its files again.");
+    }
+}
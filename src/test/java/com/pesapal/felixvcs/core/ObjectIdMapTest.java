@@ -0,0 +1,53 @@
+package com.pesapal.felixvcs.core;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ObjectIdMapTest {
+
+    @Test
+    @DisplayName("Test values follow their keys through collisions and growth")
+    void testPutAndGet() {
+        ObjectIdMap<String> map = new ObjectIdMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            // Every tenth key shares its hash code with the previous ones
+            assertNull(map.put(id(i % 10 == 0 ? 7 : i, i), "v" + i));
+        }
+        assertEquals(5_000, map.size());
+        for (int i = 0; i < 5_000; i++) {
+            assertEquals("v" + i, map.get(id(i % 10 == 0 ? 7 : i, i)));
+        }
+        assertNull(map.get(id(7, 5_000)));
+        assertFalse(map.containsKey(id(7, 5_000)));
+    }
+
+    @Test
+    @DisplayName("Test replacing a value, storing null and iterating in insertion order")
+    void testReplaceAndForEach() {
+        ObjectIdMap<Integer> map = new ObjectIdMap<>(1);
+        ObjectId first = id(1, 1);
+        ObjectId second = id(2, 2);
+        map.put(first, 1);
+        map.put(second, null);
+
+        assertEquals(1, map.put(first, 10), "Replacing should return the previous value.");
+        assertEquals(2, map.size());
+        assertTrue(map.containsKey(second), "A key mapped to null is still present.");
+        assertNull(map.get(second));
+
+        List<String> visited = new ArrayList<>();
+        map.forEach((key, value) -> visited.add(key.equals(first) ? "first=" + value : "second=" + value));
+        assertEquals(List.of("first=10", "second=null"), visited);
+        assertEquals(List.of(first, second), new ArrayList<>(map.keySet()));
+    }
+
+    private static ObjectId id(int leading, int trailing) {
+        return ObjectId.fromRaw(ByteBuffer.allocate(20).putInt(leading).putInt(16, trailing).array());
+    }
+}
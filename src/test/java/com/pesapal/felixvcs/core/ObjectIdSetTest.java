@@ -0,0 +1,81 @@
+package com.pesapal.felixvcs.core;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ObjectIdSetTest {
+
+    @Test
+    @DisplayName("Test ids sharing a hash code are kept apart by probing")
+    void testCollisions() {
+        // The hash code is taken from the leading bytes, so these ids all land on the same slot
+        ObjectIdSet set = new ObjectIdSet();
+        List<ObjectId> ids = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            ObjectId id = id(0x12345678, i);
+            assertEquals(ids.isEmpty() ? id.hashCode() : ids.get(0).hashCode(), id.hashCode());
+            ids.add(id);
+            assertTrue(set.add(id));
+        }
+        for (int i = 0; i < ids.size(); i++) {
+            assertFalse(set.add(ids.get(i)), "A present id should not be added again.");
+            assertEquals(i, set.indexOf(ids.get(i)));
+        }
+        assertEquals(100, set.size());
+        assertFalse(set.contains(id(0x12345678, 100)));
+        assertEquals(-1, set.indexOf(id(0x12345678, 100)));
+        assertFalse(set.contains("not an id"));
+    }
+
+    @Test
+    @DisplayName("Test growing past the initial capacity keeps positions and insertion order")
+    void testResize() {
+        ObjectIdSet set = new ObjectIdSet(2);
+        List<ObjectId> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            ObjectId id = id(i * 31, i);
+            ids.add(id);
+            assertEquals(i, set.addIndex(id));
+        }
+        assertEquals(10_000, set.size());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(ids.get(i), set.get(i));
+            assertEquals(i, set.addIndex(ids.get(i)), "Adding a present id should return its position.");
+        }
+        assertEquals(ids, new ArrayList<>(set), "Iteration should follow insertion order.");
+        assertEquals(new HashSet<>(ids), set, "The set should equal a HashSet of the same ids.");
+        assertThrows(IndexOutOfBoundsException.class, () -> set.get(10_000));
+    }
+
+    @Test
+    @DisplayName("Test clearing empties the set and it can be refilled")
+    void testClear() {
+        ObjectIdSet set = new ObjectIdSet();
+        for (int i = 0; i < 20; i++) {
+            set.add(id(i, i));
+        }
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(id(3, 3)));
+        Iterator<ObjectId> empty = set.iterator();
+        assertFalse(empty.hasNext());
+        assertThrows(NoSuchElementException.class, empty::next);
+
+        assertEquals(0, set.addIndex(id(3, 3)));
+        assertEquals(Set.of(id(3, 3)), set);
+    }
+
+    private static ObjectId id(int leading, int trailing) {
+        return ObjectId.fromRaw(ByteBuffer.allocate(20).putInt(leading).putInt(16, trailing).array());
+    }
+}
@@ -0,0 +1,63 @@
+package com.pesapal.felixvcs.core;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapBlobCacheTest {
+
+    @Test
+    @DisplayName("Test the least recently used blobs are evicted to stay within the byte budget")
+    void testEviction(@TempDir Path tempDir) {
+        OffHeapBlobCache cache = new OffHeapBlobCache(100);
+        Path repository = tempDir.toAbsolutePath();
+        Blob first = cache.put(repository, id("a"), new byte[20]);
+        for (String hash : List.of("b", "c", "d", "e")) {
+            cache.put(repository, id(hash), new byte[20]);
+        }
+        assertNotNull(cache.get(repository, id("a")), "Reading a blob should mark it as recently used.");
+        cache.put(repository, id("f"), new byte[20]);
+        assertNull(cache.get(repository, id("b")), "The least recently used blob should be evicted.");
+        assertNotNull(cache.get(repository, id("a")), "Recently used blobs should stay cached.");
+        assertEquals(100, cache.size(), "The cache should stay within its budget.");
+        assertNull(cache.get(tempDir.resolve("other"), id("a")), "Blobs should only be served to the repository they were read from.");
+
+        Blob large = cache.put(repository, id("large"), new byte[30]);
+        assertFalse(large.getContentBuffer().isDirect(), "Blobs over a quarter of the budget should not be cached.");
+        assertEquals(20, first.getContentBuffer().remaining(), "Views handed out earlier should stay readable.");
+    }
+
+    @Test
+    @DisplayName("Test a caching store serves blobs from native memory through read-only views")
+    void testCachingObjectStore(@TempDir Path tempDir) throws IOException {
+        assertTrue(ObjectStores.blobCache().capacity() > 0, "Repositories should share a blob cache by default.");
+
+        InMemoryObjectStore memory = new InMemoryObjectStore();
+        OffHeapBlobCache cache = new OffHeapBlobCache(1024);
+        ObjectStore store = new CachingObjectStore(memory, cache, tempDir.resolve("repository"));
+        ObjectId hello = store.write(ObjectType.BLOB, "hello\n".getBytes(StandardCharsets.UTF_8));
+        assertTrue(memory.has(ObjectType.BLOB, hello), "Writes should go through to the underlying store.");
+        assertEquals(0, cache.size(), "Writing a blob should not cache it.");
+
+        ByteBuffer view = store.readBlob(hello).getContentBuffer();
+        assertTrue(view.isDirect() && view.isReadOnly(), "Cached blobs should be exposed as read-only off-heap views.");
+        assertEquals("hello\n", StandardCharsets.UTF_8.decode(view).toString());
+        assertEquals(6, cache.size());
+        assertEquals("hello\n", new String(store.read(ObjectType.BLOB, hello), StandardCharsets.UTF_8),
+                "Byte reads should be served from the cache as well.");
+
+        ObjectStore other = new CachingObjectStore(new InMemoryObjectStore(), cache, tempDir.resolve("other"));
+        assertThrows(IOException.class, () -> other.readBlob(hello), "Another repository should not see the cached blob.");
+    }
+
+    private static ObjectId id(String content) {
+        return HashAlgorithm.DEFAULT.hash(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,34 @@
+package com.pesapal.felixvcs.core;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackObjectStoreTest {
+
+    @Test
+    @DisplayName("Test a single object is written as its own pack, seen at once and written only once")
+    void testWrite(@TempDir Path vcsDir) throws IOException {
+        PackObjectStore packs = new PackObjectStore(vcsDir);
+        byte[] tree = "{\"files\":{}}".getBytes(StandardCharsets.UTF_8);
+
+        ObjectId id = packs.write(ObjectType.TREE, tree);
+        assertEquals(packs.hashAlgorithm().hash(tree), id);
+        assertTrue(packs.has(ObjectType.TREE, id), "The writing store should see its own pack.");
+        assertFalse(packs.has(ObjectType.BLOB, id), "Lookups should match the object type.");
+        assertArrayEquals(tree, packs.read(ObjectType.TREE, id));
+
+        assertEquals(id, packs.write(ObjectType.TREE, tree));
+        assertEquals(1, Pack.list(vcsDir).size(), "An object already packed should not be packed again.");
+        packs.write(ObjectType.BLOB, "two\n".getBytes(StandardCharsets.UTF_8));
+        assertEquals(2, Pack.list(vcsDir).size());
+
+        PackObjectStore reopened = new PackObjectStore(vcsDir);
+        assertArrayEquals(tree, reopened.read(ObjectType.TREE, id), "A new store should find the pack through the multi-pack index.");
+    }
+}
@@ -0,0 +1,102 @@
+package com.pesapal.felixvcs.core;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RefTransactionTest {
+
+    // Stand-ins for a branch's successive commits; refs only hold the ids
+    private static final List<ObjectId> HISTORY = IntStream.range(0, 20)
+            .mapToObj(i -> HashAlgorithm.DEFAULT.hash(("commit " + i).getBytes(StandardCharsets.UTF_8)))
+            .toList();
+
+    @Test
+    @DisplayName("Test concurrent writers advance refs step by step without losing updates")
+    void testConcurrentWriters(@TempDir Path vcsDir) throws Exception {
+        // Four writers race to advance one shared branch, and four more each advance their own
+        AtomicInteger sharedUpdates = new AtomicInteger();
+        ExecutorService writers = Executors.newFixedThreadPool(8);
+        List<Future<?>> results = new ArrayList<>();
+        for (int w = 0; w < 8; w++) {
+            String refName = w < 4 ? "refs/heads/shared" : "refs/heads/ci-" + w;
+            results.add(writers.submit(() -> {
+                while (true) {
+                    ObjectId current = Refs.read(vcsDir, refName);
+                    int next = HISTORY.indexOf(current) + 1;
+                    if (next == HISTORY.size()) {
+                        return null;
+                    }
+                    boolean applied = current == null
+                            ? new RefTransaction(vcsDir).create(refName, HISTORY.get(next)).commit()
+                            : RefUpdate.compareAndSet(vcsDir, refName, current, HISTORY.get(next));
+                    if (applied && refName.endsWith("shared")) {
+                        sharedUpdates.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        writers.shutdown();
+
+        assertEquals(HISTORY.size(), sharedUpdates.get(), "Every step of the shared branch should be applied exactly once.");
+        assertEquals(HISTORY.getLast(), Refs.read(vcsDir, "refs/heads/shared"));
+        for (int w = 4; w < 8; w++) {
+            assertEquals(HISTORY.getLast(), Refs.read(vcsDir, "refs/heads/ci-" + w));
+        }
+        assertNoLocks(vcsDir, 0);
+    }
+
+    @Test
+    @DisplayName("Test a transaction with one stale ref changes nothing, and another writer's lock is left alone")
+    void testRejected(@TempDir Path vcsDir) throws IOException {
+        assertTrue(new RefTransaction(vcsDir)
+                .create("refs/heads/master", HISTORY.get(1))
+                .create("refs/heads/topic", HISTORY.get(2))
+                .commit());
+        assertThrows(IllegalArgumentException.class,
+                () -> new RefTransaction(vcsDir).create("refs/tags/v1", HISTORY.get(0)).create("refs/tags/v1", HISTORY.get(1)));
+
+        RefTransaction stale = new RefTransaction(vcsDir)
+                .update("refs/heads/master", HISTORY.get(1), HISTORY.get(3))
+                .update("refs/heads/topic", HISTORY.get(0), HISTORY.get(3))
+                .create("refs/tags/v1", HISTORY.get(0));
+        assertFalse(stale.commit());
+        assertEquals(List.of("refs/heads/topic"), stale.getRejected());
+        assertEquals(HISTORY.get(1), Refs.read(vcsDir, "refs/heads/master"), "Refs that still matched should be unchanged.");
+        assertFalse(Refs.exists(vcsDir, "refs/tags/v1"));
+
+        RefTransaction existing = new RefTransaction(vcsDir).create("refs/heads/master", HISTORY.get(3));
+        assertFalse(existing.commit(), "Creating a ref that exists should be rejected.");
+
+        // A lock left by another writer blocks the update instead of being overwritten
+        Files.createFile(vcsDir.resolve("refs/heads/topic.lock"));
+        assertThrows(IOException.class, () -> RefUpdate.compareAndSet(vcsDir, "refs/heads/topic", HISTORY.get(2), HISTORY.get(3)));
+        assertEquals(HISTORY.get(2), Refs.read(vcsDir, "refs/heads/topic"));
+        assertTrue(Files.exists(vcsDir.resolve("refs/heads/topic.lock")), "Another writer's lock must be left in place.");
+        assertNoLocks(vcsDir, 1);
+    }
+
+    private static void assertNoLocks(Path vcsDir, long foreign) throws IOException {
+        try (Stream<Path> files = Files.walk(vcsDir.resolve("refs"))) {
+            assertEquals(foreign, files.filter(file -> file.toString().endsWith(RefTransaction.LOCK_SUFFIX)).count(),
+                    "Transactions should release their locks.");
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.pesapal.felixvcs.core;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RefsTest {
+
+    @Test
+    @DisplayName("Test packed refs are sorted, found by lookups and listings, and overridden by loose refs")
+    void testPack(@TempDir Path vcsDir) throws IOException {
+        ObjectId first = id("first");
+        RefTransaction transaction = new RefTransaction(vcsDir)
+                .create("refs/heads/master", first)
+                .create("refs/heads/feature", first);
+        for (int i = 0; i < 200; i++) {
+            transaction.create("refs/tags/v" + i, first);
+        }
+        assertTrue(transaction.commit());
+
+        assertEquals(202, Refs.pack(vcsDir), "Every branch and tag should be packed.");
+        try (Stream<Path> tags = Files.list(vcsDir.resolve("refs/tags"))) {
+            assertEquals(0, tags.count(), "Packed tags should no longer be loose.");
+        }
+        List<String> names = Files.readAllLines(vcsDir.resolve(Refs.PACKED_REFS)).stream()
+                .filter(line -> !line.startsWith("#"))
+                .map(line -> line.substring(line.indexOf(' ') + 1))
+                .toList();
+        assertEquals(names.stream().sorted().toList(), names, "Packed refs should be sorted by name.");
+
+        assertEquals(first, Refs.read(vcsDir, "refs/tags/v137"));
+        assertTrue(Refs.exists(vcsDir, "refs/tags/v42"));
+        assertNull(Refs.read(vcsDir, "refs/tags/v1370"), "A name sorting between packed refs should not be found.");
+        assertEquals(200, Refs.list(vcsDir, "refs/tags/").size());
+
+        // An update after packing writes a loose ref, which overrides the packed one
+        ObjectId second = id("second");
+        assertTrue(RefUpdate.compareAndSet(vcsDir, "refs/heads/master", first, second));
+        assertEquals(second, Refs.read(vcsDir, "refs/heads/master"));
+        assertEquals(List.of("feature", "master"), List.copyOf(Refs.list(vcsDir, "refs/heads/").keySet()));
+        assertEquals(second, Refs.list(vcsDir, "refs/heads/").get("master"));
+
+        // Deleting a ref removes both its loose file and its packed line
+        assertTrue(Refs.delete(vcsDir, "refs/heads/master"));
+        assertFalse(Refs.exists(vcsDir, "refs/heads/master"), "A deleted ref should not fall back to its packed value.");
+        assertEquals(first, Refs.read(vcsDir, "refs/heads/feature"), "Other packed refs should be kept.");
+        assertEquals(201, Refs.pack(vcsDir), "Packing again should count every remaining ref once.");
+    }
+
+    private static ObjectId id(String content) {
+        return HashAlgorithm.DEFAULT.hash(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
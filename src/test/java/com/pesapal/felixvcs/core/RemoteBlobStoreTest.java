@@ -0,0 +1,162 @@
+package com.pesapal.felixvcs.core;
+
+import com.pesapal.felixvcs.commands.CloneCommand;
+import com.pesapal.felixvcs.commands.InitCommand;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RemoteBlobStoreTest {
+
+    private final Map<String, byte[]> bucket = new ConcurrentHashMap<>();
+    private final AtomicInteger downloads = new AtomicInteger();
+    private HttpServer server;
+    private String url;
+
+    /**
+     * Serves {@link #bucket} path-style under {@code /bucket/}, counting the blobs downloaded.
+     */
+    @BeforeEach
+    void startBucket() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/bucket/", exchange -> {
+            String key = exchange.getRequestURI().getPath().substring("/bucket/".length());
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            switch (exchange.getRequestMethod()) {
+                case "PUT" -> {
+                    bucket.put(key, body);
+                    exchange.sendResponseHeaders(200, -1);
+                }
+                case "GET" -> {
+                    byte[] content = bucket.get(key);
+                    if (content == null) {
+                        exchange.sendResponseHeaders(404, -1);
+                    } else {
+                        downloads.incrementAndGet();
+                        exchange.sendResponseHeaders(200, content.length);
+                        exchange.getResponseBody().write(content);
+                    }
+                }
+                default -> exchange.sendResponseHeaders(bucket.containsKey(key) ? 200 : 404, -1);
+            }
+            exchange.close();
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/bucket";
+    }
+
+    @AfterEach
+    void stopBucket() {
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("Test blobs are uploaded to the bucket while commits and trees stay local")
+    void testWrite(@TempDir Path tempDir) throws IOException {
+        InMemoryObjectStore local = new InMemoryObjectStore();
+        RemoteBlobStore store = new RemoteBlobStore(local, url, null, new BlobCache(tempDir.resolve("cache"), 1024));
+
+        ObjectId blob = store.write(ObjectType.BLOB, bytes("asset\n"));
+        ObjectId tree = store.writeTree(new Tree(Map.of("asset.bin", blob)));
+        assertArrayEquals(bytes("asset\n"), bucket.get(blob.name()), "Blobs should be uploaded under their hash.");
+        assertFalse(local.has(ObjectType.BLOB, blob), "Blobs should not be kept in the local store.");
+        assertTrue(local.has(ObjectType.TREE, tree), "Trees should be kept in the local store.");
+        assertEquals(1, bucket.size());
+
+        assertArrayEquals(bytes("asset\n"), store.read(ObjectType.BLOB, blob));
+        assertEquals(0, downloads.get(), "A blob just written should be read from the cache.");
+    }
+
+    @Test
+    @DisplayName("Test prefetching downloads each blob once, and reads check the content against the hash")
+    void testPrefetch(@TempDir Path tempDir) throws IOException {
+        RemoteBlobStore writer = new RemoteBlobStore(new InMemoryObjectStore(), url, null, new BlobCache(tempDir.resolve("writer"), 1024));
+        List<ObjectId> blobs = List.of(
+                writer.write(ObjectType.BLOB, bytes("first asset\n")),
+                writer.write(ObjectType.BLOB, bytes("second asset\n")),
+                writer.write(ObjectType.BLOB, bytes("third asset\n")));
+
+        RemoteBlobStore reader = new RemoteBlobStore(new InMemoryObjectStore(), url, null, new BlobCache(tempDir.resolve("reader"), 1024));
+        reader.prefetch(ObjectType.BLOB, blobs);
+        reader.prefetch(ObjectType.BLOB, blobs);
+        assertEquals(3, downloads.get(), "Each blob should be downloaded once.");
+        assertArrayEquals(bytes("second asset\n"), reader.read(ObjectType.BLOB, blobs.get(1)));
+        assertEquals(3, downloads.get(), "Prefetched blobs should be read from the cache.");
+
+        // A bucket that returns other content than the hash names is not trusted
+        ObjectId tampered = writer.write(ObjectType.BLOB, bytes("fourth asset\n"));
+        bucket.put(tampered.name(), bytes("something else\n"));
+        assertThrows(IOException.class, () -> reader.read(ObjectType.BLOB, tampered));
+    }
+
+    @Test
+    @DisplayName("Test a clone prefetches blobs into a cache that stays within its configured size")
+    void testCloneWithinCacheSize(@TempDir Path tempDir) throws IOException {
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(new ByteArrayOutputStream()));
+        try {
+            cloneWithinCacheSize(tempDir);
+        } finally {
+            System.setOut(originalOut);
+        }
+    }
+
+    private void cloneWithinCacheSize(Path tempDir) throws IOException {
+        Path source = tempDir.resolve("source");
+        new InitCommand(source).execute();
+        Path sourceVcs = source.resolve(Repository.VCS_DIR);
+        Files.writeString(sourceVcs.resolve(RemoteBlobStore.CONFIG_FILE), "url=" + url + "\ncache-bytes=1024\n");
+
+        Map<String, String> files = Map.of("a.bin", "first asset\n", "b.bin", "second asset\n", "c.bin", "third asset\n");
+        Repository repository = Repository.open(source);
+        for (Map.Entry<String, String> file : files.entrySet()) {
+            Files.writeString(source.resolve(file.getKey()), file.getValue());
+        }
+        repository.add(files.keySet());
+        repository.commit("Add assets");
+        assertEquals(3, bucket.size(), "Blobs should be uploaded to the blob store.");
+        try (Stream<Path> loose = Files.list(sourceVcs.resolve("blobs"))) {
+            assertEquals(0, loose.count(), "Blobs should not be stored loose.");
+        }
+
+        new CloneCommand().execute(source.toString(), tempDir.resolve("destination").toString());
+        assertFilesEqual(files, tempDir.resolve("destination"));
+        assertEquals(3, downloads.get(), "Checkout should prefetch each blob once.");
+
+        // A cache smaller than the checkout still serves every file
+        Files.writeString(sourceVcs.resolve(RemoteBlobStore.CONFIG_FILE), "url=" + url + "\ncache-bytes=16\n");
+        Path small = tempDir.resolve("small");
+        new CloneCommand().execute(source.toString(), small.toString());
+        assertFilesEqual(files, small);
+        try (Stream<Path> cached = Files.list(small.resolve(Repository.VCS_DIR).resolve(RemoteBlobStore.CACHE_DIR))) {
+            long size = cached.mapToLong(blob -> blob.toFile().length()).sum();
+            assertTrue(size <= 16, "The cache should stay within its size limit, but holds " + size + " bytes.");
+        }
+    }
+
+    private static void assertFilesEqual(Map<String, String> files, Path workDir) throws IOException {
+        for (Map.Entry<String, String> file : files.entrySet()) {
+            assertEquals(file.getValue(), Files.readString(workDir.resolve(file.getKey())),
+                    "Checkout should materialize " + file.getKey() + " from the blob store.");
+        }
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,192 @@
+package com.pesapal.felixvcs.core;
+
+import com.pesapal.felixvcs.commands.AddCommand;
+import com.pesapal.felixvcs.commands.BranchCommand;
+import com.pesapal.felixvcs.commands.CloneCommand;
+import com.pesapal.felixvcs.commands.FetchCommand;
+import com.pesapal.felixvcs.commands.GcCommand;
+import com.pesapal.felixvcs.commands.InitCommand;
+import com.pesapal.felixvcs.utils.FileUtils;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RepositoryTest {
+
+    private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+    private final PrintStream originalOut = System.out;
+
+    @BeforeEach
+    void setUpStreams() {
+        System.setOut(new PrintStream(outContent));
+    }
+
+    @AfterEach
+    void restoreStreams() {
+        System.setOut(originalOut);
+    }
+
+    @Test
+    @DisplayName("Test creating, switching and deleting branches, including packed ones")
+    void testBranches(@TempDir Path tempDir) throws IOException {
+        new InitCommand(tempDir).execute();
+        Path vcsDir = tempDir.resolve(".felixvcs");
+        Files.writeString(tempDir.resolve("a.txt"), "one\n");
+        Repository repository = Repository.open(tempDir);
+        repository.add("a.txt");
+        ObjectId head = repository.commit("First").id();
+
+        Branch current = repository.getCurrentBranch();
+        assertEquals("master", current.getName());
+        assertEquals(head, current.getCommitHash());
+
+        repository.createBranch("topic");
+        assertEquals(head, Refs.read(vcsDir, "refs/heads/topic"));
+        outContent.reset();
+        repository.createBranch("topic");
+        assertTrue(outContent.toString().contains("Branch topic already exists."));
+
+        repository.switchBranch("topic");
+        assertEquals("topic", repository.getCurrentBranch().getName());
+        outContent.reset();
+        repository.deleteBranch("topic");
+        assertTrue(outContent.toString().contains("Cannot delete the current active branch."));
+        assertTrue(Refs.exists(vcsDir, "refs/heads/topic"));
+
+        // A packed branch is removed from packed-refs as well
+        repository.switchBranch("master");
+        Refs.pack(vcsDir);
+        repository.deleteBranch("topic");
+        assertFalse(Refs.exists(vcsDir, "refs/heads/topic"));
+        assertEquals(head, Refs.read(vcsDir, "refs/heads/master"), "Other packed refs should be kept.");
+        outContent.reset();
+        repository.switchBranch("topic");
+        assertTrue(outContent.toString().contains("Branch topic does not exist."));
+    }
+
+    @Test
+    @DisplayName("Test an open repository runs operations with typed results and sees changes made by commands")
+    void testRepositorySession(@TempDir Path tempDir) throws IOException {
+        new InitCommand(tempDir).execute();
+        Files.writeString(tempDir.resolve("a.txt"), "one\n");
+        Files.writeString(tempDir.resolve("b.log"), "noise\n");
+        FileUtils.writeToFile(tempDir.resolve(".felixvcs/ignore").toString(), "*.log\n");
+        Repository repository = Repository.open(tempDir);
+
+        List<Repository.AddResult> added = repository.add(List.of("a.txt", "b.log", "missing.txt"));
+        assertEquals(List.of(Repository.AddStatus.STAGED, Repository.AddStatus.IGNORED, Repository.AddStatus.MISSING),
+                added.stream().map(Repository.AddResult::status).toList());
+        Repository.CommitResult first = repository.commit("First");
+        assertEquals(Repository.CommitStatus.COMMITTED, first.status());
+        assertEquals("master", first.branch());
+        assertEquals(Repository.CommitStatus.NOTHING_STAGED, repository.commit("Empty").status());
+
+        // A file staged by a separate command is picked up from the changed index
+        Files.writeString(tempDir.resolve("a.txt"), "two\n");
+        Files.writeString(tempDir.resolve("c.txt"), "new\n");
+        Files.writeString(tempDir.resolve("d.txt"), "also new\n");
+        repository.add("a.txt");
+        new AddCommand(tempDir).execute(List.of("c.txt", "d.txt"));
+        Repository.CommitResult second = repository.commit("Second");
+        assertEquals(second.id(), repository.head());
+
+        Repository.Log log = repository.log();
+        assertEquals(List.of(second.id(), first.id()), log.entries().stream().map(Repository.LogEntry::id).toList());
+        assertEquals("Second", log.entries().get(0).message());
+        assertNull(log.missing());
+
+        assertEquals(List.of(
+                new Repository.FileDiff("a.txt", Repository.Change.MODIFIED, false, List.of("- one", "+ two")),
+                new Repository.FileDiff("c.txt", Repository.Change.ADDED, false, List.of()),
+                new Repository.FileDiff("d.txt", Repository.Change.ADDED, false, List.of())),
+                repository.diff(first.id(), second.id()));
+
+        new BranchCommand(tempDir.resolve(Repository.VCS_DIR)).execute(new String[]{"branch", "feature"});
+        assertEquals(Repository.MergeStatus.NO_SUCH_BRANCH, repository.merge("nonexistent").status());
+        Repository.MergeResult merged = repository.merge("feature");
+        assertEquals(Repository.MergeStatus.MERGED, merged.status());
+        assertEquals(second.id(), merged.commit());
+        assertEquals(first.id(), repository.mergeBase(first.id(), second.id()));
+    }
+
+    @Test
+    @DisplayName("Test an open repository keeps reading objects after gc replaces the pack holding them")
+    void testSeesPackChanges(@TempDir Path tempDir) throws IOException {
+        Path source = tempDir.resolve("source");
+        Path destination = tempDir.resolve("destination");
+        new InitCommand(source).execute();
+        Repository upstream = Repository.open(source);
+        Files.writeString(source.resolve("a.txt"), "one\n");
+        upstream.add("a.txt");
+        ObjectId first = upstream.commit("First").id();
+        new CloneCommand().execute(source.toString(), destination.toString());
+
+        // The second commit only reaches the clone inside a fetched pack
+        Files.writeString(source.resolve("a.txt"), "two\n");
+        upstream.add("a.txt");
+        ObjectId second = upstream.commit("Second").id();
+        Path vcsDir = destination.resolve(Repository.VCS_DIR);
+        new FetchCommand(vcsDir).execute(new String[]{"origin"});
+        assertTrue(RefUpdate.compareAndSet(vcsDir, "refs/heads/master", first, second));
+        List<Path> fetched = packs(vcsDir);
+        Path packsDir = vcsDir.resolve(Pack.PACKS_DIR).toRealPath();
+
+        Repository repository = Repository.open(destination);
+        assertEquals(List.of(second, first), repository.log().entries().stream().map(Repository.LogEntry::id).toList());
+
+        new GcCommand(vcsDir).execute();
+        assertTrue(fetched.stream().noneMatch(Files::exists), "gc should have replaced the fetched pack.");
+        assertEquals(List.of("- one", "+ two"), repository.diff(first, second).get(0).lines(),
+                "The session opened before gc should read from the new pack.");
+        assertTrue(openFiles(packsDir).stream().noneMatch(file -> fetched.stream()
+                        .anyMatch(pack -> file.startsWith(packsDir.resolve(pack.getFileName()).toString()))),
+                "The replaced store should have closed the packs gc deleted.");
+        Files.writeString(destination.resolve("a.txt"), "three\n");
+        repository.add("a.txt");
+        repository.commit("Third");
+        assertEquals(second, repository.log().entries().get(0).parent(), "Commits should build on the packed history.");
+        repository.close();
+        assertEquals(List.of(), openFiles(packsDir), "Closing the repository should close its packs.");
+        assertEquals(3, repository.log().entries().size(), "A closed repository should open its store again when used.");
+    }
+
+    /**
+     * Lists the files under a directory that this process holds open, where /proc shows them.
+     */
+    private static List<String> openFiles(Path dir) throws IOException {
+        Path descriptors = Path.of("/proc/self/fd");
+        List<String> open = new ArrayList<>();
+        if (!Files.isDirectory(descriptors)) {
+            return open;
+        }
+        try (Stream<Path> links = Files.list(descriptors)) {
+            for (Path link : links.toList()) {
+                try {
+                    String target = Files.readSymbolicLink(link).toString();
+                    if (target.startsWith(dir + "/")) {
+                        open.add(target);
+                    }
+                } catch (IOException e) {
+                    // Closed while listing
+                }
+            }
+        }
+        return open;
+    }
+
+    private static List<Path> packs(Path vcsDir) throws IOException {
+        try (Stream<Path> files = Files.list(vcsDir.resolve(Pack.PACKS_DIR))) {
+            return files.filter(file -> file.toString().endsWith(".pack")).toList();
+        }
+    }
+}
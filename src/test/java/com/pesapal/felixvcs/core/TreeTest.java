@@ -0,0 +1,31 @@
+package com.pesapal.felixvcs.core;
+
+import org.junit.jupiter.api.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TreeTest {
+
+    @Test
+    @DisplayName("Test a tree with thousands of entries and escaped paths round-trips through JSON")
+    void testJsonRoundTrip() {
+        Map<String, ObjectId> files = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            files.put("src/d" + (i / 100) + "/f" + i + ".txt", id("file " + i));
+        }
+        files.put("odd/a \"quoted\", name.txt", id("quoted"));
+        files.put("odd/back\\slash}.txt", id("backslash"));
+
+        Tree parsed = Tree.fromJson(new Tree(files).toJson());
+        assertEquals(files, parsed.getFiles());
+        assertTrue(Tree.fromJson("{\"files\":{}}").getFiles().isEmpty(), "An empty tree should parse to no files.");
+    }
+
+    private static ObjectId id(String content) {
+        return HashAlgorithm.DEFAULT.hash(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
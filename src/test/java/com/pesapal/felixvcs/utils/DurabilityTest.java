@@ -0,0 +1,109 @@
+package com.pesapal.felixvcs.utils;
+
+import com.pesapal.felixvcs.commands.InitCommand;
+import com.pesapal.felixvcs.core.Repository;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class DurabilityTest {
+
+    @BeforeEach
+    void enableStats() throws IOException {
+        // Start from an empty batch, so the counts below cover only this test's files
+        Durability.flush();
+        Stats.enable();
+    }
+
+    @AfterEach
+    void disableStats() {
+        Stats.disable();
+    }
+
+    @Test
+    @DisplayName("Test a flush syncs each tracked file and each directory holding them once")
+    void testFlush(@TempDir Path tempDir) throws IOException {
+        assumeTrue(Durability.isEnabled(), "Syncing is turned off for this run.");
+        Path objects = Files.createDirectories(tempDir.resolve("objects"));
+        Path refs = Files.createDirectories(tempDir.resolve("refs"));
+        for (Path file : List.of(objects.resolve("a"), objects.resolve("b"), refs.resolve("master"))) {
+            Files.writeString(file, "content");
+            Durability.track(file);
+        }
+        Path deleted = objects.resolve("deleted");
+        Files.writeString(deleted, "gone");
+        Durability.track(deleted);
+        Files.delete(deleted);
+        assertEquals(0, Stats.get(Stats.Counter.FSYNCS), "Tracking should not sync.");
+
+        Durability.flush();
+        assertEquals(5, Stats.get(Stats.Counter.FSYNCS), "Three files and two directories should be synced; a deleted file is skipped.");
+        Durability.flush();
+        assertEquals(5, Stats.get(Stats.Counter.FSYNCS), "A second flush should find nothing to sync.");
+    }
+
+    @Test
+    @DisplayName("Test files tracked by concurrent writers are each synced once")
+    void testConcurrentFlush(@TempDir Path tempDir) throws Exception {
+        assumeTrue(Durability.isEnabled(), "Syncing is turned off for this run.");
+        ExecutorService writers = Executors.newFixedThreadPool(8);
+        List<Future<?>> results = new ArrayList<>();
+        for (int w = 0; w < 8; w++) {
+            Path file = tempDir.resolve("file-" + w);
+            results.add(writers.submit(() -> {
+                Files.writeString(file, file.toString());
+                Durability.track(file);
+                Durability.flush();
+                return null;
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        writers.shutdown();
+
+        // Each file once, and the shared directory once per batch
+        long fsyncs = Stats.get(Stats.Counter.FSYNCS);
+        assertTrue(fsyncs >= 9 && fsyncs <= 16, "Every file should be synced exactly once: " + fsyncs);
+    }
+
+    @Test
+    @DisplayName("Test a commit syncs its objects before the branch moves and leaves no temporary files")
+    void testCommitIsDurable(@TempDir Path tempDir) throws IOException {
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(new ByteArrayOutputStream()));
+        try {
+            new InitCommand(tempDir).execute();
+        } finally {
+            System.setOut(originalOut);
+        }
+        Repository repository = Repository.open(tempDir);
+        Files.writeString(tempDir.resolve("a.txt"), "one\n");
+        repository.add("a.txt");
+        long beforeCommit = Stats.get(Stats.Counter.FSYNCS);
+        repository.commit("First");
+
+        // The blob, tree and commit, the ref and the directories holding them
+        long expected = Durability.isEnabled() ? 5 : 0;
+        assertTrue(Stats.get(Stats.Counter.FSYNCS) - beforeCommit >= expected,
+                "Objects and the new ref should be synced: " + (Stats.get(Stats.Counter.FSYNCS) - beforeCommit));
+        try (Stream<Path> files = Files.walk(tempDir.resolve(Repository.VCS_DIR))) {
+            assertTrue(files.noneMatch(file -> file.getFileName().toString().contains(".tmp-")),
+                    "Atomic writes should not leave temporary files behind.");
+        }
+    }
+}
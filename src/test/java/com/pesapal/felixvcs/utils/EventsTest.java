@@ -0,0 +1,78 @@
+package com.pesapal.felixvcs.utils;
+
+import com.pesapal.felixvcs.commands.InitCommand;
+import com.pesapal.felixvcs.core.ObjectId;
+import com.pesapal.felixvcs.core.Repository;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventsTest {
+
+    private static final List<String> EVENTS = List.of(
+            "felixvcs.WalkStep", "felixvcs.ObjectRead", "felixvcs.TreeParse", "felixvcs.IndexSave", "felixvcs.Hash");
+
+    @Test
+    @DisplayName("Test Flight Recorder events for walks, object reads, tree parsing, index saves and hashing carry ids and sizes")
+    void testEvents(@TempDir Path tempDir) throws IOException {
+        Path workDir = tempDir.resolve("work");
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(new ByteArrayOutputStream()));
+        try {
+            new InitCommand(workDir).execute();
+        } finally {
+            System.setOut(originalOut);
+        }
+        Repository writer = Repository.open(workDir);
+        Files.writeString(workDir.resolve("a.txt"), "one\n");
+        writer.add("a.txt");
+        ObjectId first = writer.commit("First").id();
+
+        Path recordingFile = tempDir.resolve("session.jfr");
+        ObjectId second;
+        try (Recording recording = new Recording()) {
+            EVENTS.forEach(event -> recording.enable(event).withoutThreshold());
+            recording.start();
+            Files.writeString(workDir.resolve("a.txt"), "two\n");
+            Files.writeString(workDir.resolve("b.txt"), "three\n");
+            writer.add(List.of("a.txt", "b.txt"));
+            second = writer.commit("Second").id();
+            // A new session reads and parses what the writer still has cached
+            Repository reader = Repository.open(workDir);
+            reader.mergeBase(second, first);
+            reader.diff(first, second);
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+        assertTrue(events.stream().anyMatch(e -> is(e, "felixvcs.WalkStep")
+                        && e.getString("id").equals(second.name()) && e.getString("parent").equals(first.name())),
+                "Each visited commit should be recorded with its parent.");
+        assertTrue(events.stream().anyMatch(e -> is(e, "felixvcs.ObjectRead")
+                        && e.getString("type").equals("COMMIT") && e.getString("id").equals(second.name()) && e.getLong("size") > 0),
+                "Object reads should carry the type, id and size.");
+        assertTrue(events.stream().anyMatch(e -> is(e, "felixvcs.TreeParse") && e.getInt("entries") == 2),
+                "Tree parses should carry the number of entries.");
+        assertTrue(events.stream().anyMatch(e -> is(e, "felixvcs.IndexSave") && e.getInt("entries") == 2),
+                "Index saves should carry the number of entries.");
+        assertTrue(events.stream().anyMatch(e -> is(e, "felixvcs.Hash")
+                        && e.getString("algorithm").equals("sha256") && e.getLong("size") == "three\n".length()),
+                "Hashing should carry the function and the size hashed.");
+    }
+
+    private static boolean is(RecordedEvent event, String name) {
+        return event.getEventType().getName().equals(name);
+    }
+}
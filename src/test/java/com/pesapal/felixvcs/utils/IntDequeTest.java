@@ -0,0 +1,79 @@
+package com.pesapal.felixvcs.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntDequeTest {
+
+    @Test
+    @DisplayName("Test elements keep their order when the head wraps around the buffer")
+    void testWraparound() {
+        IntDeque deque = new IntDeque(4);
+        // Move the head to the middle of the buffer, then fill past its end
+        for (int i = 0; i < 3; i++) {
+            deque.addLast(i);
+            deque.removeFirst();
+        }
+        for (int i = 0; i < 4; i++) {
+            deque.addLast(i);
+        }
+        assertEquals(0, deque.peekFirst());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, deque.removeFirst());
+        }
+        assertTrue(deque.isEmpty());
+
+        // addFirst from an empty deque wraps the head to the end of the buffer
+        deque.addFirst(1);
+        deque.addFirst(0);
+        deque.addLast(2);
+        assertEquals(2, deque.removeLast());
+        assertEquals(0, deque.removeFirst());
+        assertEquals(1, deque.removeLast());
+    }
+
+    @Test
+    @DisplayName("Test growing a wrapped buffer keeps the elements in order")
+    void testGrowWhileWrapped() {
+        IntDeque deque = new IntDeque(2);
+        ArrayDeque<Integer> expected = new ArrayDeque<>();
+        for (int i = 0; i < 1_000; i++) {
+            if (i % 3 == 0) {
+                deque.addFirst(i);
+                expected.addFirst(i);
+            } else {
+                deque.addLast(i);
+                expected.addLast(i);
+            }
+            if (i % 7 == 0) {
+                assertEquals(expected.removeFirst(), deque.removeFirst());
+            }
+        }
+        assertEquals(expected.size(), deque.size());
+        while (!expected.isEmpty()) {
+            assertEquals(expected.removeLast(), deque.removeLast());
+        }
+    }
+
+    @Test
+    @DisplayName("Test an empty deque refuses removal and can be reused after clear")
+    void testEmpty() {
+        IntDeque deque = new IntDeque();
+        assertThrows(NoSuchElementException.class, deque::removeFirst);
+        assertThrows(NoSuchElementException.class, deque::removeLast);
+        assertThrows(NoSuchElementException.class, deque::peekFirst);
+
+        deque.addLast(5);
+        deque.addLast(6);
+        deque.clear();
+        assertTrue(deque.isEmpty());
+        deque.addLast(7);
+        assertEquals(1, deque.size());
+        assertEquals(7, deque.removeFirst());
+    }
+}
@@ -0,0 +1,74 @@
+package com.pesapal.felixvcs.utils;
+
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProgressTest {
+
+    private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream errContent = new ByteArrayOutputStream();
+    private final PrintStream originalOut = System.out;
+    private final PrintStream originalErr = System.err;
+
+    @BeforeEach
+    void setUpStreams() {
+        System.setOut(new PrintStream(outContent));
+        System.setErr(new PrintStream(errContent));
+    }
+
+    @AfterEach
+    void restoreStreams() {
+        System.setOut(originalOut);
+        System.setErr(originalErr);
+        Progress.setMode(null);
+    }
+
+    @Test
+    @DisplayName("Test the terminal line ends at the highest count reported from parallel workers")
+    void testTerminal() throws InterruptedException {
+        Progress.setMode(Progress.Mode.TERMINAL);
+        Progress progress = Progress.start("Checking out files", 0);
+        LongStream.rangeClosed(1, 200).parallel().forEach(done -> progress.update(done, 200));
+        progress.close();
+
+        String output = outContent.toString();
+        assertTrue(output.contains("\rChecking out files: 100% (200/200)"), "The final line should show the full count: " + output);
+        assertTrue(output.endsWith(System.lineSeparator()), "The final line should end the terminal line.");
+
+        // Neither closing again nor a late refresh renders anything after the final line
+        progress.close();
+        Thread.sleep(250);
+        assertEquals(output, outContent.toString(), "Nothing should be written after the task is closed.");
+        assertEquals("", errContent.toString());
+    }
+
+    @Test
+    @DisplayName("Test JSON mode writes escaped JSON lines to standard error and marks the last one done")
+    void testJson() {
+        Progress.setMode(Progress.Mode.JSON);
+        try (Progress progress = Progress.start("Packing \"objects\"", 10)) {
+            progress.update(10, 10);
+        }
+
+        String output = errContent.toString().strip();
+        assertTrue(output.startsWith("{\"task\":\"Packing \\\"objects\\\"\",\"completed\":10,\"total\":10,"),
+                "JSON progress should report the escaped task and the counts: " + output);
+        assertTrue(output.endsWith("\"done\":true}"), "The final JSON line should be marked done.");
+        assertEquals("", outContent.toString(), "JSON progress should leave standard output to the command.");
+    }
+
+    @Test
+    @DisplayName("Test silent mode prints nothing")
+    void testSilent() {
+        Progress.setMode(Progress.Mode.SILENT);
+        try (Progress progress = Progress.start("Checking out files", 3)) {
+            progress.update(3, 3);
+        }
+        assertEquals("", outContent.toString() + errContent.toString());
+    }
+}
@@ -0,0 +1,99 @@
+package com.pesapal.felixvcs.utils;
+
+import com.pesapal.felixvcs.commands.InitCommand;
+import com.pesapal.felixvcs.core.ObjectId;
+import com.pesapal.felixvcs.core.Repository;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatsTest {
+
+    @AfterEach
+    void disableStats() {
+        Stats.disable();
+    }
+
+    @Test
+    @DisplayName("Test counters and phase timings are recorded only while enabled and cleared on disable")
+    void testRecording() {
+        Stats.count(Stats.Counter.OBJECTS_READ, 3);
+        try (Stats.Timer timer = Stats.time(Stats.Phase.HASH)) {
+            assertFalse(Stats.isEnabled());
+        }
+        assertEquals(0, Stats.get(Stats.Counter.OBJECTS_READ), "Nothing should be recorded while stats are off.");
+        assertEquals(0, Stats.calls(Stats.Phase.HASH));
+
+        Stats.enable();
+        Stats.count(Stats.Counter.OBJECTS_READ, 3);
+        Stats.count(Stats.Counter.OBJECTS_READ, 2);
+        for (int i = 0; i < 2; i++) {
+            try (Stats.Timer timer = Stats.time(Stats.Phase.HASH)) {
+                Thread.onSpinWait();
+            }
+        }
+        assertEquals(5, Stats.get(Stats.Counter.OBJECTS_READ));
+        assertEquals(2, Stats.calls(Stats.Phase.HASH));
+        assertTrue(Stats.nanos(Stats.Phase.HASH) > 0, "Timed phases should add up their durations.");
+
+        String json = Stats.toJson("say \"hi\"", 1_500_000);
+        assertTrue(json.startsWith("{\"command\":\"say \\\"hi\\\"\",\"millis\":1.500,"), "The command name should be escaped: " + json);
+        assertTrue(json.contains("\"hash\":{\"calls\":2,"), "The trace should carry phase timings: " + json);
+        assertTrue(json.contains("\"objectsRead\":5,"), "The trace should carry the counters: " + json);
+        assertTrue(Stats.summary("log", 1_500_000).startsWith("stats: log took 1.5 ms"));
+
+        Stats.disable();
+        assertEquals(0, Stats.get(Stats.Counter.OBJECTS_READ), "Disabling should clear the counters.");
+        assertEquals(0, Stats.nanos(Stats.Phase.HASH), "Disabling should clear the timings.");
+    }
+
+    @Test
+    @DisplayName("Test file I/O counts encoded bytes, not characters")
+    void testByteCounts(@TempDir Path tempDir) throws IOException {
+        Stats.enable();
+        String content = "héllo wörld ✓\n"; // 14 characters, 18 bytes in UTF-8
+        FileUtils.writeToFile(tempDir.resolve("a.txt").toString(), content);
+        FileUtils.writeRef(tempDir.resolve("b.txt").toString(), content);
+        assertEquals(36, Stats.get(Stats.Counter.BYTES_WRITTEN));
+        assertEquals(content, FileUtils.readFile(tempDir.resolve("a.txt").toString()));
+        assertEquals(18, Stats.get(Stats.Counter.BYTES_READ));
+    }
+
+    @Test
+    @DisplayName("Test repository operations report walks, object reads, parsing and file I/O")
+    void testRepositoryOperations(@TempDir Path tempDir) throws IOException {
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(new ByteArrayOutputStream()));
+        try {
+            new InitCommand(tempDir).execute();
+        } finally {
+            System.setOut(originalOut);
+        }
+        Repository repository = Repository.open(tempDir);
+        Files.writeString(tempDir.resolve("a.txt"), "one\n");
+        repository.add("a.txt");
+        ObjectId first = repository.commit("First").id();
+
+        Stats.enable();
+        Files.writeString(tempDir.resolve("a.txt"), "two\n");
+        repository.add("a.txt");
+        assertEquals(1, Stats.calls(Stats.Phase.INDEX_SAVE), "Adding a file should save the index once.");
+        ObjectId second = repository.commit("Second").id();
+        assertTrue(Stats.get(Stats.Counter.OBJECTS_WRITTEN) >= 3, "The blob, tree and commit should be counted as written.");
+        assertTrue(Stats.get(Stats.Counter.FILES_WRITTEN) > 0 && Stats.get(Stats.Counter.BYTES_WRITTEN) > 0,
+                "File I/O should be counted.");
+
+        // A new session has no commits cached, so the walk reads them from the store
+        assertEquals(first, Repository.open(tempDir).mergeBase(first, second));
+        assertEquals(1, Stats.calls(Stats.Phase.WALK), "Finding the merge base should walk history once.");
+        assertTrue(Stats.get(Stats.Counter.OBJECTS_READ) >= 2, "Objects read by the walk should be counted.");
+        assertTrue(Stats.get(Stats.Counter.OBJECTS_PARSED) > 0, "Commits should be parsed.");
+    }
+}